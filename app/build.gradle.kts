@@ -1,3 +1,17 @@
+import groovy.json.JsonOutput
+import groovy.json.JsonSlurper
+import java.sql.DriverManager
+
+buildscript {
+    repositories {
+        mavenCentral()
+    }
+    dependencies {
+        // SQLite driver used at build time to generate the prebuilt exercise database
+        classpath("org.xerial:sqlite-jdbc:3.45.1.0")
+    }
+}
+
 plugins {
     id("com.android.application")
     id("com.google.gms.google-services")
@@ -5,6 +19,17 @@ plugins {
     id("androidx.navigation.safeargs")
 }
 
+// Exercise catalog bundled with the app; its catalogVersion is compared with the installed copy
+val exerciseCatalog = file("src/main/assets/exercise_data.json")
+val exerciseCatalogVersion = (JsonSlurper().parse(exerciseCatalog) as Map<*, *>)["catalogVersion"] as Int
+// Room writes one schema JSON per database version here. The files are committed: migrations are
+// checked against them and the prebuilt database is created from the current version's schema
+val roomSchemaDir = file("schemas")
+val roomDatabaseVersion = Regex("""version\s*=\s*(\d+),""")
+    .find(file("src/main/java/com/jian/simplefit/data/local/AppDatabase.java").readText())!!
+    .groupValues[1].toInt()
+val roomSchemaFile = roomSchemaDir.resolve("com.jian.simplefit.data.local.AppDatabase/$roomDatabaseVersion.json")
+
 configurations.all {
     resolutionStrategy {
         // Force consistent Kotlin stdlib version
@@ -30,6 +55,13 @@ android {
         versionName = "1.0"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+
+        resValue("integer", "exercise_catalog_version", exerciseCatalogVersion.toString())
+        javaCompileOptions {
+            annotationProcessorOptions {
+                arguments["room.schemaLocation"] = roomSchemaDir.path
+            }
+        }
     }
 
     buildTypes {
@@ -50,6 +82,13 @@ android {
     buildFeatures {
         viewBinding = true
     }
+
+    testOptions {
+        unitTests.all {
+            // Timing benchmarks only run on request: ./gradlew testDebugUnitTest -Pbenchmark
+            it.systemProperty("benchmark", project.hasProperty("benchmark"))
+        }
+    }
     hilt {
         enableAggregatingTask = true
     }
@@ -112,6 +151,116 @@ dependencies {
 
     // Testing
     testImplementation("junit:junit:4.13.2")
+    testImplementation("androidx.arch.core:core-testing:2.2.0")
+    testImplementation("org.mockito:mockito-core:4.11.0")
     androidTestImplementation("androidx.test.ext:junit:1.1.3")
     androidTestImplementation("androidx.test.espresso:espresso-core:3.4.0")
-}
\ No newline at end of file
+}
+
+/**
+ * Builds assets/databases/simplefit_db for Room.createFromAsset: every table of the exported
+ * Room schema (including the identity hash Room checks on open) plus the rows of exercise_data.json,
+ * so the first launch has the whole catalog without parsing JSON or calling Firestore.
+ */
+abstract class GenerateExerciseDatabaseTask : DefaultTask() {
+
+    @get:InputFile
+    abstract val catalogFile: RegularFileProperty
+
+    // Committed schema of the current database version
+    @get:InputFile
+    @get:PathSensitive(PathSensitivity.RELATIVE)
+    abstract val schemaFile: RegularFileProperty
+
+    @get:Input
+    abstract val catalogVersion: Property<Int>
+
+    @get:OutputDirectory
+    abstract val outputDir: DirectoryProperty
+
+    @TaskAction
+    fun generate() {
+        val database = (JsonSlurper().parse(schemaFile.get().asFile) as Map<*, *>)["database"] as Map<*, *>
+        val catalog = JsonSlurper().parse(catalogFile.get().asFile) as Map<*, *>
+
+        val target = outputDir.get().asFile.resolve("databases/simplefit_db")
+        target.parentFile.mkdirs()
+        target.delete()
+
+        DriverManager.getConnection("jdbc:sqlite:${target.absolutePath}").use { connection ->
+            connection.autoCommit = false
+            connection.createStatement().use { statement ->
+                for (entity in database["entities"] as List<*>) {
+                    entity as Map<*, *>
+                    val table = entity["tableName"] as String
+                    statement.execute((entity["createSql"] as String).replace("\${TABLE_NAME}", table))
+                    for (index in (entity["indices"] as List<*>?).orEmpty()) {
+                        statement.execute(((index as Map<*, *>)["createSql"] as String).replace("\${TABLE_NAME}", table))
+                    }
+                }
+                for (query in database["setupQueries"] as List<*>) {
+                    statement.execute(query as String)
+                }
+            }
+
+            connection.prepareStatement(
+                "INSERT INTO exercises (id, name, description, muscleGroups, primaryMuscleGroup, " +
+                        "secondaryMuscleGroups, imageUrl, instructionUrl, isCompound, equipment, difficulty, " +
+                        "category, force, mechanicsType, createdBy, lastUpdated) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, NULL, NULL, ?, ?, ?, ?, ?, ?, NULL, ?)"
+            ).use { insert ->
+                // Rows carry the catalog snapshot time; catalog_sync_state stays empty, so the first
+                // launch pulls the live catalog once and stores the exact sync cursor
+                val updatedAt = (catalog["catalogUpdatedAt"] as Number).toLong()
+                for (exercise in catalog["exercises"] as List<*>) {
+                    exercise as Map<*, *>
+                    insert.setString(1, exercise["id"] as String)
+                    insert.setString(2, exercise["name"] as String?)
+                    insert.setString(3, exercise["description"] as String?)
+                    insert.setString(4, stringList(exercise["muscleGroups"]))
+                    insert.setString(5, exercise["primaryMuscleGroup"] as String?)
+                    insert.setString(6, stringList(exercise["secondaryMuscleGroups"]))
+                    insert.setInt(7, if (exercise["isCompound"] == true) 1 else 0)
+                    insert.setString(8, exercise["equipment"] as String?)
+                    insert.setString(9, exercise["difficulty"] as String?)
+                    insert.setString(10, exercise["category"] as String?)
+                    insert.setString(11, exercise["force"] as String?)
+                    insert.setString(12, exercise["mechanicsType"] as String?)
+                    insert.setLong(13, updatedAt)
+                    insert.addBatch()
+                }
+                insert.executeBatch()
+            }
+
+            connection.prepareStatement("INSERT INTO catalog_versions (name, version) VALUES ('exercises', ?)").use {
+                it.setInt(1, catalogVersion.get())
+                it.executeUpdate()
+            }
+            connection.commit()
+
+            // Room compares this with the database version before using the copied file
+            connection.autoCommit = true
+            connection.createStatement().use { it.execute("PRAGMA user_version = ${database["version"]}") }
+        }
+    }
+
+    // Same encoding as Converters.fromStringList: a JSON array, null when empty
+    private fun stringList(value: Any?): String? =
+        (value as List<*>?)?.takeIf { it.isNotEmpty() }?.let { JsonOutput.toJson(it) }
+}
+
+androidComponents {
+    onVariants { variant ->
+        val variantName = variant.name.replaceFirstChar { it.uppercase() }
+        val generateExerciseDatabase = tasks.register<GenerateExerciseDatabaseTask>("generate${variantName}ExerciseDatabase") {
+            catalogFile.set(exerciseCatalog)
+            schemaFile.set(roomSchemaFile)
+            catalogVersion.set(exerciseCatalogVersion)
+            // Compiling re-exports the current schema, so an entity change is picked up before it is committed
+            dependsOn("compile${variantName}JavaWithJavac")
+        }
+        variant.sources.assets?.addGeneratedSourceDirectory(
+            generateExerciseDatabase, GenerateExerciseDatabaseTask::outputDir
+        )
+    }
+}
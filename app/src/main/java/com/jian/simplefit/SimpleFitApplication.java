@@ -2,10 +2,18 @@ package com.jian.simplefit;
 
 import android.app.Application;
 import android.content.Context;
+import android.content.pm.ApplicationInfo;
 
 import com.google.firebase.FirebaseApp;
+import com.google.firebase.firestore.FirebaseFirestore;
 import com.jian.simplefit.data.local.AppDatabase;
+import com.jian.simplefit.util.AppExecutors;
+import com.jian.simplefit.util.MetricsRegistry;
 import com.jian.simplefit.util.PreferenceManager;
+import com.jian.simplefit.util.ReadBudgetMonitor;
+import com.jian.simplefit.util.Tracer;
+
+import javax.inject.Inject;
 
 import dagger.hilt.android.HiltAndroidApp;
 
@@ -16,21 +24,36 @@ import dagger.hilt.android.HiltAndroidApp;
 public class SimpleFitApplication extends Application {
 
     private static SimpleFitApplication instance;
-    private AppDatabase database;
     private PreferenceManager preferenceManager;
 
+    // Injected in super.onCreate(); requesting Firestore here applies its settings before any other use
+    @Inject
+    FirebaseFirestore firestore;
+    @Inject
+    AppDatabase database;
+    @Inject
+    AppExecutors executors;
+    @Inject
+    MetricsRegistry metrics;
+
     @Override
     public void onCreate() {
+        // Initialize Firebase before Hilt creates the Firebase singletons
+        FirebaseApp.initializeApp(this);
+
         super.onCreate();
 
         // Initialize the application instance
         instance = this;
 
-        // Initialize Firebase
-        FirebaseApp.initializeApp(this);
+        // Feed scheduler queue-wait and run times into the metrics registry
+        executors.setTaskListener(metrics.executorListener());
 
-        // Initialize database
-        database = AppDatabase.getInstance(this);
+        // Record trace spans and enforce per-screen read budgets only in debuggable builds
+        boolean debuggable = (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        Tracer.getInstance().setEnabled(debuggable);
+        ReadBudgetMonitor.getInstance().install(this,
+                debuggable ? ReadBudgetMonitor.Mode.WARN : ReadBudgetMonitor.Mode.OFF);
 
         // Initialize preferences - use getInstance() instead of constructor
         preferenceManager = PreferenceManager.getInstance(this);
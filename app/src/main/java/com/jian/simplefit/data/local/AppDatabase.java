@@ -7,24 +7,34 @@ import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
+import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
 import com.jian.simplefit.data.local.dao.ExerciseDao;
+import com.jian.simplefit.data.local.dao.MuscleLoadDao;
+import com.jian.simplefit.data.local.dao.PersonalRecordDao;
 import com.jian.simplefit.data.local.dao.RoutineDao;
 import com.jian.simplefit.data.local.dao.UserDao;
+import com.jian.simplefit.data.local.dao.WeightHistoryDao;
 import com.jian.simplefit.data.local.dao.WorkoutDao;
+import com.jian.simplefit.data.local.entity.CatalogSyncStateEntity;
+import com.jian.simplefit.data.local.entity.CatalogVersionEntity;
 import com.jian.simplefit.data.local.entity.ExerciseEntity;
+import com.jian.simplefit.data.local.entity.MuscleLoadEntity;
+import com.jian.simplefit.data.local.entity.PersonalRecordEntity;
+import com.jian.simplefit.data.local.entity.RepRecordEntity;
 import com.jian.simplefit.data.local.entity.RoutineEntity;
 import com.jian.simplefit.data.local.entity.RoutineExerciseEntity;
 import com.jian.simplefit.data.local.entity.UserEntity;
+import com.jian.simplefit.data.local.entity.UserFavoriteExerciseEntity;
+import com.jian.simplefit.data.local.entity.UserRoutineEntity;
+import com.jian.simplefit.data.local.entity.WeightEntryEntity;
 import com.jian.simplefit.data.local.entity.WorkoutEntity;
 import com.jian.simplefit.data.local.entity.WorkoutExerciseEntity;
 import com.jian.simplefit.data.local.entity.WorkoutSetEntity;
+import com.jian.simplefit.util.AppExecutors;
 import com.jian.simplefit.util.Converters;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
 /**
  * Cơ sở dữ liệu Room chính của ứng dụng SimpleFit
  * Chứa các bảng cho bài tập, thường trình, buổi tập và người dùng
@@ -37,23 +47,91 @@ import java.util.concurrent.Executors;
                 WorkoutEntity.class,
                 WorkoutExerciseEntity.class,
                 WorkoutSetEntity.class,
-                UserEntity.class
+                UserEntity.class,
+                UserFavoriteExerciseEntity.class,
+                UserRoutineEntity.class,
+                PersonalRecordEntity.class,
+                RepRecordEntity.class,
+                WeightEntryEntity.class,
+                MuscleLoadEntity.class,
+                CatalogVersionEntity.class,
+                CatalogSyncStateEntity.class
         },
-        version = 1,
-        exportSchema = false
+        version = 8,
+        // Lược đồ xuất ra app/schemas được dùng để dựng sẵn tệp cơ sở dữ liệu lúc build
+        exportSchema = true
 )
 @TypeConverters({Converters.class})
 public abstract class AppDatabase extends RoomDatabase {
 
     private static final String DATABASE_NAME = "simplefit_db";
     private static volatile AppDatabase INSTANCE;
-    private static final int NUMBER_OF_THREADS = 4;
 
     /**
-     * ExecutorService với số lượng luồng cố định để thực hiện các hoạt động cơ sở dữ liệu
+     * Phiên bản 5: thêm bảng tải tập luyện theo nhóm cơ
+     */
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `muscle_loads` (`workoutId` TEXT NOT NULL, "
+                    + "`muscleGroup` TEXT NOT NULL, `userId` TEXT NOT NULL, `day` INTEGER NOT NULL, "
+                    + "`sets` REAL NOT NULL, `volume` REAL NOT NULL, PRIMARY KEY(`workoutId`, `muscleGroup`))");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_muscle_loads_userId_day` "
+                    + "ON `muscle_loads` (`userId`, `day`)");
+        }
+    };
+
+    /**
+     * Phiên bản 6: thêm bảng phiên bản danh mục
+     * Bảng trống nên lần mở đầu tiên sẽ chép danh mục đi kèm ứng dụng vào
+     */
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `catalog_versions` (`name` TEXT NOT NULL, "
+                    + "`version` INTEGER NOT NULL, PRIMARY KEY(`name`))");
+        }
+    };
+
+    /**
+     * Phiên bản 7: bỏ khóa ngoại tới users khỏi hai bảng liên kết
+     * SQLite không xóa được ràng buộc nên phải dựng lại bảng rồi chép dữ liệu sang
+     */
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `user_favorite_exercises_new` (`userId` TEXT NOT NULL, "
+                    + "`exerciseId` TEXT NOT NULL, `addedAt` INTEGER NOT NULL, PRIMARY KEY(`userId`, `exerciseId`))");
+            db.execSQL("INSERT INTO `user_favorite_exercises_new` (`userId`, `exerciseId`, `addedAt`) "
+                    + "SELECT `userId`, `exerciseId`, `addedAt` FROM `user_favorite_exercises`");
+            db.execSQL("DROP TABLE `user_favorite_exercises`");
+            db.execSQL("ALTER TABLE `user_favorite_exercises_new` RENAME TO `user_favorite_exercises`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_user_favorite_exercises_exerciseId` "
+                    + "ON `user_favorite_exercises` (`exerciseId`)");
+
+            db.execSQL("CREATE TABLE IF NOT EXISTS `user_routines_new` (`userId` TEXT NOT NULL, "
+                    + "`routineId` TEXT NOT NULL, `addedAt` INTEGER NOT NULL, PRIMARY KEY(`userId`, `routineId`))");
+            db.execSQL("INSERT INTO `user_routines_new` (`userId`, `routineId`, `addedAt`) "
+                    + "SELECT `userId`, `routineId`, `addedAt` FROM `user_routines`");
+            db.execSQL("DROP TABLE `user_routines`");
+            db.execSQL("ALTER TABLE `user_routines_new` RENAME TO `user_routines`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_user_routines_routineId` "
+                    + "ON `user_routines` (`routineId`)");
+        }
+    };
+
+    /**
+     * Phiên bản 8: thêm bảng con trỏ đồng bộ danh mục
+     * Bảng trống nên lần đồng bộ đầu tiên sau khi nâng cấp tải lại toàn bộ danh mục một lần
      */
-    public static final ExecutorService databaseWriteExecutor =
-            Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `catalog_sync_state` (`name` TEXT NOT NULL, "
+                    + "`lastUpdatedSeconds` INTEGER NOT NULL, `lastUpdatedNanos` INTEGER NOT NULL, "
+                    + "`lastDocumentId` TEXT NOT NULL, PRIMARY KEY(`name`))");
+        }
+    };
 
     /**
      * Truy cập DAO cho bài tập
@@ -79,30 +157,55 @@ public abstract class AppDatabase extends RoomDatabase {
      */
     public abstract UserDao userDao();
 
+    /**
+     * Truy cập DAO cho kỷ lục cá nhân
+     * @return PersonalRecordDao
+     */
+    public abstract PersonalRecordDao personalRecordDao();
+
+    /**
+     * Truy cập DAO cho lịch sử cân nặng
+     * @return WeightHistoryDao
+     */
+    public abstract WeightHistoryDao weightHistoryDao();
+
+    /**
+     * Truy cập DAO cho tải tập luyện theo nhóm cơ
+     * @return MuscleLoadDao
+     */
+    public abstract MuscleLoadDao muscleLoadDao();
+
     /**
      * Lấy instance của AppDatabase
      * @param context Context của ứng dụng
+     * @param executors Bộ lập lịch dùng chung; truy vấn của Room chạy trên nhóm luồng db()
      * @return AppDatabase instance
      */
-    public static AppDatabase getInstance(final Context context) {
+    public static AppDatabase getInstance(final Context context, final AppExecutors executors) {
         if (INSTANCE == null) {
             synchronized (AppDatabase.class) {
                 if (INSTANCE == null) {
+                    final Context appContext = context.getApplicationContext();
                     INSTANCE = Room.databaseBuilder(
-                                    context.getApplicationContext(),
+                                    appContext,
                                     AppDatabase.class,
                                     DATABASE_NAME)
+                            // Lần đầu cài đặt: sao chép cơ sở dữ liệu đã chứa sẵn danh mục bài tập
+                            .createFromAsset(ExerciseCatalogAsset.ASSET_PATH)
                             .addCallback(new RoomDatabase.Callback() {
                                 @Override
-                                public void onCreate(@NonNull SupportSQLiteDatabase db) {
-                                    super.onCreate(db);
-                                    // Khởi tạo dữ liệu khi cơ sở dữ liệu được tạo lần đầu
-                                    databaseWriteExecutor.execute(() -> {
-                                        // TODO: Nạp dữ liệu mẫu cho bài tập
-                                    });
+                                public void onOpen(@NonNull SupportSQLiteDatabase db) {
+                                    super.onOpen(db);
+                                    // Cập nhật ứng dụng có thể mang theo danh mục mới hơn dữ liệu trên máy
+                                    ExerciseCatalogAsset.refreshIfOutdated(appContext, db);
                                 }
                             })
-                            .fallbackToDestructiveMigration()  // Xóa và tạo lại cơ sở dữ liệu khi nâng cấp phiên bản
+                            .setQueryExecutor(executors.db())
+                            // Từ phiên bản 4 trở đi dữ liệu của người dùng (cân nặng, kỷ lục, tải cơ)
+                            // chỉ có trên máy nên mọi nâng cấp phải giữ lại dữ liệu
+                            .addMigrations(MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8)
+                            // Không nâng cấp tại chỗ từ các phiên bản trước 4, khi đó cơ sở dữ liệu được tạo lại
+                            .fallbackToDestructiveMigrationFrom(1, 2, 3)
                             .build();
                 }
             }
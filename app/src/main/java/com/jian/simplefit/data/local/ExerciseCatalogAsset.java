@@ -0,0 +1,142 @@
+package com.jian.simplefit.data.local;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.jian.simplefit.R;
+import com.jian.simplefit.util.Tracer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Cơ sở dữ liệu dựng sẵn chứa danh mục bài tập, được tạo lúc build từ exercise_data.json
+ * Lần cài đặt đầu tiên Room sao chép nguyên tệp này (createFromAsset) nên danh mục có sẵn
+ * mà không phải phân tích JSON hay gọi mạng. Khi ứng dụng được cập nhật với danh mục mới hơn
+ * nhưng lược đồ không đổi, các dòng bài tập được chép lại từ tệp dựng sẵn khi mở cơ sở dữ liệu
+ */
+public final class ExerciseCatalogAsset {
+
+    private static final String TAG = "ExerciseCatalogAsset";
+
+    /** Đường dẫn của cơ sở dữ liệu dựng sẵn trong assets */
+    public static final String ASSET_PATH = "databases/simplefit_db";
+    /** Tên danh mục bài tập trong bảng catalog_versions */
+    public static final String CATALOG_NAME = "exercises";
+
+    private static final String EXERCISES_TABLE = "exercises";
+    private static final String VERSIONS_TABLE = "catalog_versions";
+    private static final int COPY_BUFFER_SIZE = 8 * 1024;
+
+    private ExerciseCatalogAsset() {
+    }
+
+    /**
+     * Phiên bản danh mục bài tập đi kèm bản build hiện tại
+     * @param context Context của ứng dụng
+     * @return Phiên bản danh mục
+     */
+    public static int getBundledVersion(Context context) {
+        return context.getResources().getInteger(R.integer.exercise_catalog_version);
+    }
+
+    /**
+     * Chép lại danh mục bài tập từ tệp dựng sẵn nếu dữ liệu trên máy cũ hơn (gọi khi mở cơ sở dữ liệu)
+     * Chỉ đọc một dòng khi danh mục đã mới nhất
+     * @param context Context của ứng dụng
+     * @param db Cơ sở dữ liệu đang mở
+     */
+    public static void refreshIfOutdated(Context context, SupportSQLiteDatabase db) {
+        int bundledVersion = getBundledVersion(context);
+        int installedVersion = getInstalledVersion(db);
+        if (installedVersion >= bundledVersion) {
+            return;
+        }
+
+        Tracer tracer = Tracer.getInstance();
+        tracer.begin("db.exerciseCatalog.refresh");
+        File copy = new File(context.getCacheDir(), "exercise_catalog.db");
+        try {
+            copyAsset(context, copy);
+            int rows = copyExercises(copy, db, bundledVersion);
+            Log.i(TAG, "Exercise catalog " + installedVersion + " -> " + bundledVersion + ": " + rows + " exercises");
+        } catch (IOException | RuntimeException e) {
+            // Giữ danh mục cũ, lần mở sau sẽ thử lại
+            Log.e(TAG, "Error refreshing exercise catalog: " + e.getMessage(), e);
+        } finally {
+            if (copy.exists() && !copy.delete()) {
+                Log.w(TAG, "Could not delete " + copy);
+            }
+            tracer.end();
+        }
+    }
+
+    /**
+     * Phiên bản danh mục đang có trên máy, 0 nếu chưa có
+     */
+    private static int getInstalledVersion(SupportSQLiteDatabase db) {
+        try (Cursor cursor = db.query("SELECT version FROM " + VERSIONS_TABLE + " WHERE name = ?",
+                new Object[]{CATALOG_NAME})) {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        }
+    }
+
+    /**
+     * Sao chép tệp dựng sẵn từ assets ra bộ nhớ đệm để SQLite có thể mở
+     */
+    private static void copyAsset(Context context, File target) throws IOException {
+        try (InputStream in = context.getAssets().open(ASSET_PATH);
+             OutputStream out = new FileOutputStream(target)) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    /**
+     * Ghi các bài tập của tệp dựng sẵn vào bảng bài tập trong một giao dịch
+     * Dòng đã được đồng bộ từ Firestore sau thời điểm của tệp dựng sẵn được giữ nguyên,
+     * bài tập chỉ có trên máy (ví dụ do người dùng tạo) cũng không bị xóa
+     * @return Số bài tập đã ghi
+     */
+    private static int copyExercises(File source, SupportSQLiteDatabase db, int version) {
+        int rows = 0;
+        try (SQLiteDatabase bundled = SQLiteDatabase.openDatabase(source.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+             Cursor cursor = bundled.query(EXERCISES_TABLE, null, null, null, null, null, null)) {
+            ContentValues values = new ContentValues();
+            db.beginTransaction();
+            try {
+                while (cursor.moveToNext()) {
+                    values.clear();
+                    DatabaseUtils.cursorRowToContentValues(cursor, values);
+                    Object[] args = {values.getAsString("id"), values.getAsLong("lastUpdated")};
+                    if (db.update(EXERCISES_TABLE, SQLiteDatabase.CONFLICT_REPLACE, values,
+                            "id = ? AND lastUpdated <= ?", args) > 0
+                            || db.insert(EXERCISES_TABLE, SQLiteDatabase.CONFLICT_IGNORE, values) != -1) {
+                        rows++;
+                    }
+                }
+
+                values.clear();
+                values.put("name", CATALOG_NAME);
+                values.put("version", version);
+                db.insert(VERSIONS_TABLE, SQLiteDatabase.CONFLICT_REPLACE, values);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        }
+        return rows;
+    }
+}
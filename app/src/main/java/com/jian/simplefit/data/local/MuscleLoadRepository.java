@@ -0,0 +1,215 @@
+package com.jian.simplefit.data.local;
+
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.jian.simplefit.data.local.dao.MuscleLoadDao;
+import com.jian.simplefit.data.local.entity.MuscleLoad;
+import com.jian.simplefit.data.local.entity.MuscleLoadEntity;
+import com.jian.simplefit.data.model.Exercise;
+import com.jian.simplefit.data.model.Workout;
+import com.jian.simplefit.data.model.WorkoutExercise;
+import com.jian.simplefit.data.model.WorkoutSet;
+import com.jian.simplefit.data.remote.AuthRepository;
+import com.jian.simplefit.util.AppExecutors;
+import com.jian.simplefit.util.MetricsRegistry;
+import com.jian.simplefit.util.Tracer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Repository cho tải tập luyện theo nhóm cơ (số set và khối lượng trong 7/28 ngày)
+ * Phần tải được ghi một lần khi buổi tập hoàn thành, qua nhóm cơ chính và nhóm cơ phụ của
+ * từng bài tập, nên bản đồ nhiệt chỉ cần đọc bảng tổng hợp thay vì quét lịch sử buổi tập
+ */
+@Singleton
+public class MuscleLoadRepository {
+
+    private static final String TAG = "MuscleLoadRepo";
+
+    /** Độ dài cửa sổ ngắn (ngày) */
+    public static final int SHORT_WINDOW_DAYS = 7;
+    /** Độ dài cửa sổ dài (ngày), cũng là khoảng thời gian bảng giữ lại */
+    public static final int LONG_WINDOW_DAYS = 28;
+
+    // Nhóm cơ phụ chỉ nhận một nửa set và khối lượng của bài tập
+    private static final float PRIMARY_SHARE = 1f;
+    private static final float SECONDARY_SHARE = 0.5f;
+
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    private final MuscleLoadDao muscleLoadDao;
+    private final AuthRepository authRepository;
+    private final AppExecutors executors;
+    private final MetricsRegistry metrics;
+    private final Tracer tracer = Tracer.getInstance();
+
+    /**
+     * Constructor với cơ sở dữ liệu cụ thể
+     * @param database Cơ sở dữ liệu Room
+     * @param authRepository Repository xác thực
+     * @param executors Bộ lập lịch dùng chung của ứng dụng
+     * @param metrics Bộ đếm thời gian truy vấn
+     */
+    @Inject
+    public MuscleLoadRepository(AppDatabase database, AuthRepository authRepository,
+                                AppExecutors executors, MetricsRegistry metrics) {
+        this.muscleLoadDao = database.muscleLoadDao();
+        this.authRepository = authRepository;
+        this.executors = executors;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Ghi phần tải của một buổi tập đã hoàn thành (chạy nền)
+     * Phần tải được tính trên luồng gọi; lưu lại cùng buổi tập sẽ thay thế phần tải cũ.
+     * @param workout Buổi tập đã hoàn thành, phải có ID
+     * @param exercises Chi tiết bài tập theo ID, dùng để lấy nhóm cơ chính và nhóm cơ phụ
+     * @return Danh sách nhóm cơ được tập, nhóm có tải lớn nhất trước
+     */
+    public List<String> recordWorkout(Workout workout, Map<String, Exercise> exercises) {
+        String userId = workout != null ? workout.getUserId() : null;
+        if (userId == null || userId.isEmpty() || workout.getId() == null || workout.getId().isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        String workoutId = workout.getId();
+        long workoutTime = workout.getDate() != null ? workout.getDate().getTime() : System.currentTimeMillis();
+        List<MuscleLoadEntity> loads = attribute(userId, workout, exercises, toEpochDay(workoutTime));
+        long firstDay = toEpochDay(System.currentTimeMillis()) - (LONG_WINDOW_DAYS - 1);
+
+        executors.db().executeBackground(() -> {
+            long start = System.nanoTime();
+            tracer.begin("db.muscleLoad.recordWorkout");
+            try {
+                muscleLoadDao.replaceWorkoutLoads(userId, workoutId, loads, firstDay);
+                metrics.recordLatency("db.muscleLoad.recordWorkout", start);
+            } catch (Exception e) {
+                Log.e(TAG, "Error saving muscle loads: " + e.getMessage(), e);
+            } finally {
+                tracer.end();
+            }
+        });
+
+        List<String> muscles = new ArrayList<>();
+        for (MuscleLoadEntity load : loads) {
+            muscles.add(load.getMuscleGroup());
+        }
+        return muscles;
+    }
+
+    /**
+     * Lấy tải 7/28 ngày của từng nhóm cơ cho người dùng hiện tại
+     * @return LiveData chứa Map từ ID nhóm cơ đến tải (không thể sửa đổi); nhóm cơ chưa tập không có mặt
+     */
+    public LiveData<Map<String, MuscleLoad>> getMuscleLoads() {
+        MutableLiveData<Map<String, MuscleLoad>> result = new MutableLiveData<>();
+
+        String userId = authRepository.getCurrentUserId();
+        if (userId == null || userId.isEmpty()) {
+            result.setValue(Collections.emptyMap());
+            return result;
+        }
+
+        long today = toEpochDay(System.currentTimeMillis());
+        long weekStart = today - (SHORT_WINDOW_DAYS - 1);
+        long monthStart = today - (LONG_WINDOW_DAYS - 1);
+
+        executors.db().execute(() -> {
+            long start = System.nanoTime();
+            Map<String, MuscleLoad> loads = new HashMap<>();
+            tracer.begin("db.muscleLoad.getMuscleLoads");
+            try {
+                for (MuscleLoad load : muscleLoadDao.getLoadsSync(userId, weekStart, monthStart)) {
+                    loads.put(load.getMuscleGroup(), load);
+                }
+            } finally {
+                tracer.end();
+            }
+            metrics.recordLatency("db.muscleLoad.getMuscleLoads", start);
+            result.postValue(Collections.unmodifiableMap(loads));
+        });
+
+        return result;
+    }
+
+    /**
+     * Chia các set đã hoàn thành của buổi tập cho nhóm cơ chính và nhóm cơ phụ
+     */
+    private static List<MuscleLoadEntity> attribute(String userId, Workout workout,
+                                                    Map<String, Exercise> exercises, long day) {
+        Map<String, MuscleLoadEntity> byMuscle = new LinkedHashMap<>();
+        if (workout.getExercises() == null || exercises == null) {
+            return new ArrayList<>();
+        }
+
+        for (WorkoutExercise workoutExercise : workout.getExercises()) {
+            Exercise exercise = exercises.get(workoutExercise.getExerciseId());
+            if (exercise == null || workoutExercise.getSets() == null) {
+                continue;
+            }
+
+            int completedSets = 0;
+            double volume = 0;
+            for (WorkoutSet set : workoutExercise.getSets()) {
+                if (set.isCompleted()) {
+                    completedSets++;
+                    volume += set.calculateVolume();
+                }
+            }
+            if (completedSets == 0) {
+                continue;
+            }
+
+            String primary = exercise.getPrimaryMuscleGroup();
+            if (primary != null && !primary.isEmpty()) {
+                addLoad(byMuscle, userId, workout.getId(), primary, day, PRIMARY_SHARE, completedSets, volume);
+            }
+            if (exercise.getMuscleGroups() != null) {
+                for (String muscle : exercise.getMuscleGroups()) {
+                    if (muscle == null || muscle.isEmpty() || muscle.equals(primary)) {
+                        continue;
+                    }
+                    // Bài tập không khai báo nhóm cơ chính: coi nhóm cơ đầu tiên là nhóm chính
+                    float share = primary == null || primary.isEmpty() ? PRIMARY_SHARE : SECONDARY_SHARE;
+                    if (primary == null || primary.isEmpty()) {
+                        primary = muscle;
+                    }
+                    addLoad(byMuscle, userId, workout.getId(), muscle, day, share, completedSets, volume);
+                }
+            }
+        }
+
+        List<MuscleLoadEntity> loads = new ArrayList<>(byMuscle.values());
+        Collections.sort(loads, (a, b) -> Float.compare(b.getSets(), a.getSets()));
+        return loads;
+    }
+
+    private static void addLoad(Map<String, MuscleLoadEntity> byMuscle, String userId, String workoutId,
+                                String muscle, long day, float share, int sets, double volume) {
+        MuscleLoadEntity load = byMuscle.get(muscle);
+        if (load == null) {
+            load = new MuscleLoadEntity(userId, workoutId, muscle, day);
+            byMuscle.put(muscle, load);
+        }
+        load.addLoad(share * sets, share * volume);
+    }
+
+    /**
+     * Đổi thời điểm sang số ngày kể từ 1970-01-01 theo giờ địa phương
+     */
+    private static long toEpochDay(long millis) {
+        return (millis + TimeZone.getDefault().getOffset(millis)) / DAY_MS;
+    }
+}
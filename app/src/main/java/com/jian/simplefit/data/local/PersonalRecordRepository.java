@@ -0,0 +1,213 @@
+package com.jian.simplefit.data.local;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.jian.simplefit.data.local.dao.PersonalRecordDao;
+import com.jian.simplefit.data.local.entity.PersonalRecordEntity;
+import com.jian.simplefit.data.local.entity.WorkoutSetEntity;
+import com.jian.simplefit.data.model.WorkoutExercise;
+import com.jian.simplefit.data.model.WorkoutSet;
+import com.jian.simplefit.data.remote.AuthRepository;
+import com.jian.simplefit.util.AppExecutors;
+import com.jian.simplefit.util.MetricsRegistry;
+import com.jian.simplefit.util.Tracer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Repository cho kỷ lục cá nhân, lưu hoàn toàn trong Room
+ * Kỷ lục được cập nhật ngay khi một set được đánh dấu hoàn thành, nên màn hình tổng kết
+ * và chi tiết bài tập chỉ cần tra cứu theo khóa chính thay vì quét toàn bộ lịch sử buổi tập
+ */
+@Singleton
+public class PersonalRecordRepository {
+
+    private final PersonalRecordDao personalRecordDao;
+    private final AuthRepository authRepository;
+    private final AppExecutors executors;
+    private final MetricsRegistry metrics;
+    private final Tracer tracer = Tracer.getInstance();
+    // Các lần ghi kỷ lục chạy lần lượt, để việc tính lại không bị một lần cập nhật cũ hơn ghi đè
+    private final Executor recordExecutor;
+
+    /**
+     * Constructor với cơ sở dữ liệu cụ thể
+     * @param database Cơ sở dữ liệu Room
+     * @param authRepository Repository xác thực
+     * @param executors Bộ lập lịch dùng chung của ứng dụng
+     * @param metrics Bộ đếm thời gian truy vấn
+     */
+    @Inject
+    public PersonalRecordRepository(AppDatabase database, AuthRepository authRepository,
+                                    AppExecutors executors, MetricsRegistry metrics) {
+        this.personalRecordDao = database.personalRecordDao();
+        this.authRepository = authRepository;
+        this.executors = executors;
+        this.metrics = metrics;
+        this.recordExecutor = AppExecutors.serial(executors.db());
+    }
+
+    /**
+     * Cập nhật kỷ lục với một set vừa hoàn thành
+     * @param workoutId ID của buổi tập
+     * @param exercise Bài tập chứa set, dùng để tính tổng khối lượng trong buổi tập
+     * @param set Set vừa hoàn thành
+     * @return LiveData chứa các cờ PersonalRecordEntity.RECORD_* (0 nếu không có kỷ lục mới)
+     */
+    public LiveData<Integer> recordCompletedSet(String workoutId, WorkoutExercise exercise, WorkoutSet set) {
+        MutableLiveData<Integer> result = new MutableLiveData<>();
+
+        String userId = authRepository.getCurrentUserId();
+        if (userId == null || userId.isEmpty() || workoutId == null || exercise == null
+                || exercise.getExerciseId() == null || set == null || !set.isCompleted()) {
+            result.setValue(0);
+            return result;
+        }
+
+        // Chụp lại giá trị trên luồng gọi, danh sách set có thể bị UI thay đổi sau đó
+        String exerciseId = exercise.getExerciseId();
+        double weight = set.getWeight();
+        int reps = set.getReps();
+        double sessionVolume = calculateSessionVolume(exercise);
+        long timestamp = set.getCompletedTimestamp() > 0
+                ? set.getCompletedTimestamp() : System.currentTimeMillis();
+
+        recordExecutor.execute(() -> {
+            long start = System.nanoTime();
+            int flags;
+            tracer.begin("db.personalRecord.applyCompletedSet");
+            try {
+                flags = personalRecordDao.applyCompletedSet(userId, exerciseId, workoutId,
+                        weight, reps, sessionVolume, timestamp);
+            } finally {
+                tracer.end();
+            }
+            metrics.recordLatency("db.personalRecord.applyCompletedSet", start);
+            result.postValue(flags);
+        });
+
+        return result;
+    }
+
+    /**
+     * Tính lại kỷ lục của một bài tập sau khi một set đã hoàn thành bị bỏ đánh dấu hoặc bị sửa,
+     * để kỷ lục lập từ một giá trị nhập sai có thể giảm xuống
+     * @param workoutId ID của buổi tập đang diễn ra
+     * @param exercise Bài tập chứa set, với danh sách set hiện tại
+     */
+    public void recalculateRecords(String workoutId, WorkoutExercise exercise) {
+        String userId = authRepository.getCurrentUserId();
+        if (userId == null || userId.isEmpty() || workoutId == null || exercise == null
+                || exercise.getExerciseId() == null) {
+            return;
+        }
+
+        // Chụp lại các set trên luồng gọi, danh sách set có thể bị UI thay đổi sau đó
+        String exerciseId = exercise.getExerciseId();
+        List<WorkoutSetEntity> sets = new ArrayList<>();
+        if (exercise.getSets() != null) {
+            for (WorkoutSet set : exercise.getSets()) {
+                sets.add(WorkoutHistoryRepository.toWorkoutSetEntity(workoutId, exerciseId, set));
+            }
+        }
+
+        recordExecutor.execute(() -> {
+            long start = System.nanoTime();
+            tracer.begin("db.personalRecord.recalculateRecords");
+            try {
+                personalRecordDao.recalculateRecords(userId, exerciseId, workoutId, sets);
+            } finally {
+                tracer.end();
+            }
+            metrics.recordLatency("db.personalRecord.recalculateRecords", start);
+        });
+    }
+
+    /**
+     * Tính lại kỷ lục của các bài tập trong một buổi tập sắp bị xóa (đồng bộ, gọi từ luồng nền)
+     * Phải gọi trước khi bản sao của buổi tập bị xóa khỏi Room
+     * @param workoutId ID của buổi tập
+     */
+    public void removeWorkoutRecordsSync(String workoutId) {
+        String userId = authRepository.getCurrentUserId();
+        if (userId == null || userId.isEmpty() || workoutId == null) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        tracer.begin("db.personalRecord.removeWorkout");
+        try {
+            personalRecordDao.recalculateRecordsWithoutWorkout(userId, workoutId);
+        } finally {
+            tracer.end();
+        }
+        metrics.recordLatency("db.personalRecord.removeWorkout", start);
+    }
+
+    /**
+     * Lấy kỷ lục của người dùng hiện tại cho một bài tập
+     * @param exerciseId ID của bài tập
+     * @return LiveData chứa kỷ lục, null nếu chưa có
+     */
+    public LiveData<PersonalRecordEntity> getRecord(String exerciseId) {
+        String userId = authRepository.getCurrentUserId();
+        if (userId == null || userId.isEmpty()) {
+            return new MutableLiveData<>(null);
+        }
+        return personalRecordDao.getRecord(userId, exerciseId);
+    }
+
+    /**
+     * Lấy tập ID bài tập có kỷ lục mới trong một buổi tập, dùng để tra cứu O(1) khi hiển thị huy hiệu
+     * @param workoutId ID của buổi tập
+     * @return LiveData chứa tập ID bài tập (không thể sửa đổi)
+     */
+    public LiveData<Set<String>> getExerciseIdsWithRecordsInWorkout(String workoutId) {
+        MutableLiveData<Set<String>> result = new MutableLiveData<>();
+
+        String userId = authRepository.getCurrentUserId();
+        if (userId == null || userId.isEmpty() || workoutId == null) {
+            result.setValue(Collections.emptySet());
+            return result;
+        }
+
+        executors.db().execute(() -> {
+            long start = System.nanoTime();
+            Set<String> ids;
+            tracer.begin("db.personalRecord.getExerciseIdsWithRecordsInWorkout");
+            try {
+                ids = new HashSet<>(personalRecordDao.getExerciseIdsWithRecordsInWorkoutSync(userId, workoutId));
+            } finally {
+                tracer.end();
+            }
+            metrics.recordLatency("db.personalRecord.getExerciseIdsWithRecordsInWorkout", start);
+            result.postValue(Collections.unmodifiableSet(ids));
+        });
+
+        return result;
+    }
+
+    /**
+     * Tính tổng khối lượng các set đã hoàn thành của bài tập trong buổi tập
+     */
+    private static double calculateSessionVolume(WorkoutExercise exercise) {
+        double volume = 0;
+        if (exercise.getSets() != null) {
+            for (WorkoutSet set : exercise.getSets()) {
+                if (set.isCompleted()) {
+                    volume += set.getWeight() * set.getReps();
+                }
+            }
+        }
+        return volume;
+    }
+}
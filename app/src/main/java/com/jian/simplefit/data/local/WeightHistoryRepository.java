@@ -0,0 +1,135 @@
+package com.jian.simplefit.data.local;
+
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.jian.simplefit.data.local.dao.WeightHistoryDao;
+import com.jian.simplefit.data.local.entity.WeightEntryEntity;
+import com.jian.simplefit.data.local.entity.WeightPoint;
+import com.jian.simplefit.util.AppExecutors;
+import com.jian.simplefit.util.MetricsRegistry;
+import com.jian.simplefit.util.Tracer;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Repository cho lịch sử cân nặng
+ * Biểu đồ luôn nhận tối đa maxPoints điểm: khi khoảng thời gian có nhiều bản ghi hơn,
+ * dữ liệu được rút gọn ngay trong SQL bằng cách giữ điểm thấp nhất/cao nhất của mỗi khoảng
+ */
+@Singleton
+public class WeightHistoryRepository {
+
+    private static final String TAG = "WeightHistoryRepo";
+
+    private final WeightHistoryDao weightHistoryDao;
+    private final AppExecutors executors;
+    private final MetricsRegistry metrics;
+    private final Tracer tracer = Tracer.getInstance();
+
+    /**
+     * Constructor với cơ sở dữ liệu cụ thể
+     * @param database Cơ sở dữ liệu Room
+     * @param executors Bộ lập lịch dùng chung của ứng dụng
+     * @param metrics Bộ đếm thời gian truy vấn
+     */
+    @Inject
+    public WeightHistoryRepository(AppDatabase database, AppExecutors executors, MetricsRegistry metrics) {
+        this.weightHistoryDao = database.weightHistoryDao();
+        this.executors = executors;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Ghi nhận cân nặng mới (chạy nền). Bỏ qua nếu không đổi so với lần ghi gần nhất.
+     * @param userId ID của người dùng
+     * @param weight Cân nặng (kg)
+     */
+    public void addEntry(String userId, float weight) {
+        if (userId == null || userId.isEmpty() || weight <= 0) {
+            return;
+        }
+        long timestamp = System.currentTimeMillis();
+
+        executors.db().executeBackground(() -> {
+            long start = System.nanoTime();
+            tracer.begin("db.weightHistory.addEntry");
+            try {
+                WeightEntryEntity latest = weightHistoryDao.getLatestEntry(userId);
+                if (latest != null && latest.getWeight() == weight) {
+                    return;
+                }
+                weightHistoryDao.insertEntry(new WeightEntryEntity(userId, timestamp, weight));
+                metrics.recordLatency("db.weightHistory.addEntry", start);
+            } catch (Exception e) {
+                Log.e(TAG, "Error saving weight entry: " + e.getMessage(), e);
+            } finally {
+                tracer.end();
+            }
+        });
+    }
+
+    /**
+     * Lấy các điểm biểu đồ cân nặng trong một khoảng thời gian
+     * @param userId ID của người dùng
+     * @param from Thời điểm bắt đầu (millis), <= 0 để lấy từ bản ghi đầu tiên
+     * @param to Thời điểm kết thúc (millis)
+     * @param maxPoints Số điểm tối đa trả về (tối thiểu 2)
+     * @return LiveData chứa danh sách điểm tăng dần theo thời gian
+     */
+    public LiveData<List<WeightPoint>> getChartPoints(String userId, long from, long to, int maxPoints) {
+        MutableLiveData<List<WeightPoint>> result = new MutableLiveData<>();
+        if (userId == null || userId.isEmpty()) {
+            result.setValue(Collections.emptyList());
+            return result;
+        }
+
+        executors.db().execute(() -> {
+            long start = System.nanoTime();
+            List<WeightPoint> points;
+            tracer.begin("db.weightHistory.getChartPoints");
+            try {
+                points = getChartPointsSync(userId, from, to, maxPoints);
+            } finally {
+                tracer.end();
+            }
+            metrics.recordLatency("db.weightHistory.getChartPoints", start);
+            result.postValue(points);
+        });
+        return result;
+    }
+
+    /**
+     * Phiên bản đồng bộ của getChartPoints, gọi từ luồng nền
+     */
+    public List<WeightPoint> getChartPointsSync(String userId, long from, long to, int maxPoints) {
+        long start = from;
+        if (start <= 0) {
+            Long first = weightHistoryDao.getFirstTimestamp(userId);
+            if (first == null) {
+                return Collections.emptyList();
+            }
+            start = first;
+        }
+        if (to < start) {
+            return Collections.emptyList();
+        }
+
+        int limit = Math.max(2, maxPoints);
+        if (weightHistoryDao.countInRange(userId, start, to) <= limit) {
+            return weightHistoryDao.getPointsInRange(userId, start, to);
+        }
+
+        // Mỗi khoảng trả về tối đa 2 điểm (thấp nhất và cao nhất)
+        int buckets = limit / 2;
+        long span = to - start + 1;
+        long bucketMs = (span + buckets - 1) / buckets;
+        return weightHistoryDao.getMinMaxPointsPerBucket(userId, start, to, bucketMs);
+    }
+}
@@ -0,0 +1,235 @@
+package com.jian.simplefit.data.local;
+
+import android.util.Log;
+
+import com.jian.simplefit.data.local.dao.WorkoutDao;
+import com.jian.simplefit.data.local.entity.WorkoutEntity;
+import com.jian.simplefit.data.local.entity.WorkoutExerciseEntity;
+import com.jian.simplefit.data.local.entity.WorkoutSetEntity;
+import com.jian.simplefit.data.local.entity.WorkoutWithExercises;
+import com.jian.simplefit.data.model.Workout;
+import com.jian.simplefit.data.model.WorkoutExercise;
+import com.jian.simplefit.data.model.WorkoutSet;
+import com.jian.simplefit.util.AppExecutors;
+import com.jian.simplefit.util.MetricsRegistry;
+import com.jian.simplefit.util.Tracer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Repository lưu bản sao lịch sử buổi tập trong Room
+ * Dùng để tra cứu nhanh "lần trước đã tập bao nhiêu" cho từng bài tập mà không cần tải
+ * toàn bộ buổi tập từ Firestore
+ */
+@Singleton
+public class WorkoutHistoryRepository {
+
+    private static final String TAG = "WorkoutHistoryRepo";
+
+    // Giới hạn số tham số trong một câu lệnh SQLite là 999
+    private static final int MAX_IN_QUERY_PARAMS = 900;
+
+    private final WorkoutDao workoutDao;
+    private final AppExecutors executors;
+    private final MetricsRegistry metrics;
+    private final Tracer tracer = Tracer.getInstance();
+
+    /**
+     * Constructor với cơ sở dữ liệu cụ thể
+     * @param database Cơ sở dữ liệu Room
+     * @param executors Bộ lập lịch dùng chung của ứng dụng
+     * @param metrics Bộ đếm thời gian truy vấn
+     */
+    @Inject
+    public WorkoutHistoryRepository(AppDatabase database, AppExecutors executors, MetricsRegistry metrics) {
+        this.workoutDao = database.workoutDao();
+        this.executors = executors;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Ghi bản sao của buổi tập vào Room (chạy nền)
+     * @param workout Buổi tập cần lưu, phải có ID
+     */
+    public void saveWorkout(Workout workout) {
+        if (workout == null || workout.getId() == null || workout.getId().isEmpty()) {
+            return;
+        }
+
+        // Chuyển đổi trên luồng gọi để không đọc danh sách set trong khi UI đang sửa
+        WorkoutWithExercises local = toWorkoutWithExercises(workout);
+
+        // Bản sao không có ai chờ, nên chạy ở làn ưu tiên thấp
+        executors.db().executeBackground(() -> {
+            long start = System.nanoTime();
+            tracer.begin("db.workoutHistory.saveWorkout");
+            try {
+                workoutDao.replaceWorkout(local.getWorkout(), local.getExercises(), local.getSets());
+                metrics.recordLatency("db.workoutHistory.saveWorkout", start);
+            } catch (Exception e) {
+                Log.e(TAG, "Error saving workout locally: " + e.getMessage(), e);
+            } finally {
+                tracer.end();
+            }
+        });
+    }
+
+    /**
+     * Xóa bản sao của một buổi tập khỏi Room (đồng bộ, gọi từ luồng nền)
+     * Bài tập và set của buổi tập bị xóa theo ràng buộc CASCADE
+     * @param workoutId ID của buổi tập
+     */
+    public void deleteWorkoutSync(String workoutId) {
+        long start = System.nanoTime();
+        tracer.begin("db.workoutHistory.deleteWorkout");
+        try {
+            workoutDao.deleteWorkoutById(workoutId);
+        } finally {
+            tracer.end();
+        }
+        metrics.recordLatency("db.workoutHistory.deleteWorkout", start);
+    }
+
+    /**
+     * Lấy các set đã hoàn thành trong N buổi tập gần nhất cho nhiều bài tập (đồng bộ)
+     * Gọi từ luồng nền. Mỗi nhóm tối đa 900 ID chỉ tốn một truy vấn.
+     * @param userId ID của người dùng
+     * @param exerciseIds Danh sách ID bài tập
+     * @param sessions Số buổi tập gần nhất cho mỗi bài tập
+     * @return Map từ ID bài tập đến danh sách set, mới nhất trước
+     */
+    public Map<String, List<WorkoutSetEntity>> getRecentSetsSync(String userId, List<String> exerciseIds,
+                                                                  int sessions) {
+        if (userId == null || userId.isEmpty() || exerciseIds == null || exerciseIds.isEmpty()
+                || sessions <= 0) {
+            return Collections.emptyMap();
+        }
+
+        long queryStart = System.nanoTime();
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(exerciseIds));
+        Map<String, List<WorkoutSetEntity>> result = new HashMap<>();
+        tracer.begin("db.workoutHistory.getRecentSets");
+        try {
+            for (int start = 0; start < ids.size(); start += MAX_IN_QUERY_PARAMS) {
+                List<String> chunk = ids.subList(start, Math.min(start + MAX_IN_QUERY_PARAMS, ids.size()));
+                for (WorkoutSetEntity set : workoutDao.getRecentSetsForExercises(userId, chunk, sessions)) {
+                    List<WorkoutSetEntity> sets = result.get(set.getExerciseId());
+                    if (sets == null) {
+                        sets = new ArrayList<>();
+                        result.put(set.getExerciseId(), sets);
+                    }
+                    sets.add(set);
+                }
+            }
+        } finally {
+            tracer.end();
+        }
+        metrics.recordLatency("db.workoutHistory.getRecentSets", queryStart);
+        return result;
+    }
+
+    /**
+     * Điền sẵn mức tạ và số lần lặp cho các set từ buổi tập gần nhất
+     * Set thứ i lấy theo set thứ i của lần trước; nếu lần này nhiều set hơn, dùng set cuối của lần trước.
+     * @param exercise Bài tập cần điền
+     * @param recentSets Các set gần nhất của bài tập (kết quả của getRecentSetsSync)
+     */
+    public static void prefillFromHistory(WorkoutExercise exercise, List<WorkoutSetEntity> recentSets) {
+        if (exercise == null || exercise.getSets() == null || recentSets == null || recentSets.isEmpty()) {
+            return;
+        }
+
+        // Chỉ lấy buổi tập gần nhất (các set liền nhau đầu danh sách có cùng workoutId)
+        String lastWorkoutId = recentSets.get(0).getWorkoutId();
+        List<WorkoutSetEntity> lastSession = new ArrayList<>();
+        for (WorkoutSetEntity set : recentSets) {
+            if (!lastWorkoutId.equals(set.getWorkoutId())) {
+                break;
+            }
+            lastSession.add(set);
+        }
+
+        List<WorkoutSet> sets = exercise.getSets();
+        for (int i = 0; i < sets.size(); i++) {
+            WorkoutSetEntity previous = lastSession.get(Math.min(i, lastSession.size() - 1));
+            WorkoutSet set = sets.get(i);
+            set.setWeight(previous.getWeight());
+            set.setReps(previous.getReps());
+        }
+    }
+
+    /**
+     * Chuyển buổi tập sang dạng quan hệ của Room, có chỉ mục set theo bài tập
+     * Dùng cho màn hình tổng kết để đọc số liệu từng bài tập mà không phải duyệt lại toàn bộ set
+     * @param workout Buổi tập, phải có ID
+     * @return Buổi tập cùng các bài tập và set của nó; bài tập không có ID bị bỏ qua
+     */
+    public static WorkoutWithExercises toWorkoutWithExercises(Workout workout) {
+        List<WorkoutExerciseEntity> exerciseEntities = new ArrayList<>();
+        List<WorkoutSetEntity> setEntities = new ArrayList<>();
+
+        if (workout.getExercises() != null) {
+            for (WorkoutExercise exercise : workout.getExercises()) {
+                if (exercise.getExerciseId() == null) {
+                    continue;
+                }
+                exerciseEntities.add(toWorkoutExerciseEntity(workout.getId(), exercise));
+                if (exercise.getSets() != null) {
+                    for (WorkoutSet set : exercise.getSets()) {
+                        setEntities.add(toWorkoutSetEntity(workout.getId(), exercise.getExerciseId(), set));
+                    }
+                }
+            }
+        }
+
+        return new WorkoutWithExercises(toWorkoutEntity(workout), exerciseEntities, setEntities);
+    }
+
+    private static WorkoutEntity toWorkoutEntity(Workout workout) {
+        WorkoutEntity entity = new WorkoutEntity(workout.getId(), workout.getUserId(), workout.getRoutineId());
+        entity.setRoutineName(workout.getRoutineName());
+        entity.setDate(workout.getDate());
+        entity.setDurationMinutes(workout.getDurationMinutes());
+        entity.setNote(workout.getNote());
+        entity.setRating(workout.getRating());
+        entity.setTotalVolume(workout.getTotalVolume());
+        entity.setTotalReps(workout.getTotalReps());
+        entity.setCompleted(workout.isCompleted());
+        if (workout.getMuscleGroupsWorked() != null) {
+            entity.setMuscleGroupsWorked(new ArrayList<>(workout.getMuscleGroupsWorked()));
+        }
+        entity.setLastUpdated(System.currentTimeMillis());
+        return entity;
+    }
+
+    private static WorkoutExerciseEntity toWorkoutExerciseEntity(String workoutId, WorkoutExercise exercise) {
+        WorkoutExerciseEntity entity = new WorkoutExerciseEntity(workoutId, exercise.getExerciseId());
+        entity.setExerciseName(exercise.getExerciseName());
+        entity.setCompleted(exercise.isCompleted());
+        entity.setNote(exercise.getNote());
+        entity.setOrder(exercise.getOrder());
+        entity.setRestSeconds(exercise.getRestSeconds());
+        return entity;
+    }
+
+    static WorkoutSetEntity toWorkoutSetEntity(String workoutId, String exerciseId, WorkoutSet set) {
+        WorkoutSetEntity entity = new WorkoutSetEntity(workoutId, exerciseId, set.getSetNumber());
+        entity.setTargetReps(set.getTargetReps());
+        entity.setReps(set.getReps());
+        entity.setWeight(set.getWeight());
+        entity.setCompleted(set.isCompleted());
+        entity.setDropSet(set.isDropSet());
+        entity.setFailureSet(set.isFailureSet());
+        entity.setCompletedTimestamp(set.getCompletedTimestamp());
+        entity.setNote(set.getNote());
+        return entity;
+    }
+}
@@ -9,6 +9,7 @@ import androidx.room.Query;
 import androidx.room.Transaction;
 import androidx.room.Update;
 
+import com.jian.simplefit.data.local.entity.CatalogSyncStateEntity;
 import com.jian.simplefit.data.local.entity.ExerciseEntity;
 
 import java.util.List;
@@ -72,6 +73,13 @@ public interface ExerciseDao {
     @Query("SELECT * FROM exercises ORDER BY name ASC")
     LiveData<List<ExerciseEntity>> getAllExercises();
 
+    /**
+     * Lấy tất cả bài tập, sắp xếp theo tên (không sử dụng LiveData - gọi trên luồng nền)
+     * @return Danh sách tất cả bài tập
+     */
+    @Query("SELECT * FROM exercises ORDER BY name ASC")
+    List<ExerciseEntity> getAllExercisesSync();
+
     /**
      * Lấy bài tập theo nhóm cơ chính
      * @param muscleGroup Nhóm cơ cần lọc
@@ -124,6 +132,51 @@ public interface ExerciseDao {
     @Query("SELECT DISTINCT equipment FROM exercises WHERE equipment IS NOT NULL AND equipment != '' ORDER BY equipment ASC")
     LiveData<List<String>> getAllEquipmentTypes();
 
+    /**
+     * Lấy các loại thiết bị (không sử dụng LiveData - gọi trên luồng nền)
+     * @return Danh sách thiết bị khác nhau, sắp xếp theo tên
+     */
+    @Query("SELECT DISTINCT equipment FROM exercises WHERE equipment IS NOT NULL AND equipment != '' ORDER BY equipment ASC")
+    List<String> getAllEquipmentTypesSync();
+
+    /**
+     * Lấy các độ khó đang có trong danh mục (không sử dụng LiveData - gọi trên luồng nền)
+     * @return Danh sách độ khó khác nhau
+     */
+    @Query("SELECT DISTINCT difficulty FROM exercises WHERE difficulty IS NOT NULL AND difficulty != ''")
+    List<String> getAllDifficultiesSync();
+
+    /**
+     * Lấy con trỏ đồng bộ của danh mục với Firestore
+     * @param name Tên danh mục
+     * @return Con trỏ đã lưu, null nếu chưa đồng bộ trọn vẹn lần nào
+     */
+    @Query("SELECT * FROM catalog_sync_state WHERE name = :name")
+    CatalogSyncStateEntity getSyncStateSync(String name);
+
+    /**
+     * Lưu con trỏ đồng bộ của danh mục
+     * @param syncState Con trỏ mới
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertSyncState(CatalogSyncStateEntity syncState);
+
+    /**
+     * Ghi một trang bài tập tải về cùng con trỏ đồng bộ trong một giao dịch,
+     * để con trỏ không bao giờ đi trước những dòng nó đánh dấu
+     * @param exercises Bài tập của trang
+     * @param syncState Con trỏ sau trang này, null nếu chưa được tiến lên
+     */
+    @Transaction
+    default void insertExercisesWithSyncState(List<ExerciseEntity> exercises, CatalogSyncStateEntity syncState) {
+        if (!exercises.isEmpty()) {
+            insertExercises(exercises);
+        }
+        if (syncState != null) {
+            insertSyncState(syncState);
+        }
+    }
+
     /**
      * Lấy số lượng bài tập
      * @return Số lượng bài tập trong cơ sở dữ liệu
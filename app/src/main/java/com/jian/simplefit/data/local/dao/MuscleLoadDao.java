@@ -0,0 +1,64 @@
+package com.jian.simplefit.data.local.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.jian.simplefit.data.local.entity.MuscleLoad;
+import com.jian.simplefit.data.local.entity.MuscleLoadEntity;
+
+import java.util.List;
+
+/**
+ * Data Access Object cho tải tập luyện theo nhóm cơ
+ * Bảng chỉ chứa các buổi tập trong cửa sổ 28 ngày, nên phép tổng hợp chỉ đọc vài trăm dòng theo chỉ mục
+ */
+@Dao
+public abstract class MuscleLoadDao {
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    public abstract void insertLoads(List<MuscleLoadEntity> loads);
+
+    @Query("DELETE FROM muscle_loads WHERE workoutId = :workoutId")
+    public abstract void deleteLoadsForWorkout(String workoutId);
+
+    @Query("DELETE FROM muscle_loads WHERE userId = :userId AND day < :firstDay")
+    public abstract void deleteLoadsBefore(String userId, long firstDay);
+
+    @Query("DELETE FROM muscle_loads WHERE userId = :userId")
+    public abstract void deleteLoadsForUser(String userId);
+
+    /**
+     * Tổng hợp số set và khối lượng của từng nhóm cơ trong 7 và 28 ngày
+     * @param userId ID của người dùng
+     * @param weekStart Ngày đầu của cửa sổ 7 ngày (epoch day)
+     * @param monthStart Ngày đầu của cửa sổ 28 ngày (epoch day)
+     * @return Một dòng cho mỗi nhóm cơ có tải trong 28 ngày
+     */
+    @Query("SELECT muscleGroup, " +
+            "SUM(CASE WHEN day >= :weekStart THEN sets ELSE 0 END) AS sets7, " +
+            "SUM(CASE WHEN day >= :weekStart THEN volume ELSE 0 END) AS volume7, " +
+            "SUM(sets) AS sets28, SUM(volume) AS volume28 " +
+            "FROM muscle_loads WHERE userId = :userId AND day >= :monthStart " +
+            "GROUP BY muscleGroup")
+    public abstract List<MuscleLoad> getLoadsSync(String userId, long weekStart, long monthStart);
+
+    /**
+     * Thay phần tải của một buổi tập và bỏ các ngày đã ra khỏi cửa sổ
+     * Lưu lại cùng một buổi tập (ví dụ khi sửa) thay thế phần đóng góp cũ thay vì cộng dồn.
+     * @param userId ID của người dùng
+     * @param workoutId ID của buổi tập
+     * @param loads Phần tải theo từng nhóm cơ
+     * @param firstDay Ngày cũ nhất còn giữ lại (epoch day)
+     */
+    @Transaction
+    public void replaceWorkoutLoads(String userId, String workoutId, List<MuscleLoadEntity> loads, long firstDay) {
+        deleteLoadsForWorkout(workoutId);
+        if (!loads.isEmpty()) {
+            insertLoads(loads);
+        }
+        deleteLoadsBefore(userId, firstDay);
+    }
+}
@@ -0,0 +1,250 @@
+package com.jian.simplefit.data.local.dao;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.jian.simplefit.data.local.entity.PersonalRecordEntity;
+import com.jian.simplefit.data.local.entity.RepRecordEntity;
+import com.jian.simplefit.data.local.entity.WorkoutSetEntity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Access Object cho kỷ lục cá nhân
+ * Kỷ lục được cập nhật tăng dần theo từng set hoàn thành, mọi truy vấn đều đi theo khóa chính.
+ * Khi một set bị bỏ đánh dấu, bị sửa hoặc buổi tập bị xóa, kỷ lục của bài tập đó được tính lại
+ * từ các set đã lưu trong workout_sets
+ */
+@Dao
+public abstract class PersonalRecordDao {
+
+    // Các phương thức cơ bản
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    public abstract void upsertRecord(PersonalRecordEntity record);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    public abstract void upsertRepRecord(RepRecordEntity record);
+
+    @Query("SELECT * FROM personal_records WHERE userId = :userId AND exerciseId = :exerciseId")
+    public abstract PersonalRecordEntity getRecordSync(String userId, String exerciseId);
+
+    @Query("SELECT * FROM personal_records WHERE userId = :userId AND exerciseId = :exerciseId")
+    public abstract LiveData<PersonalRecordEntity> getRecord(String userId, String exerciseId);
+
+    @Query("SELECT * FROM rep_records WHERE userId = :userId AND exerciseId = :exerciseId AND weight = :weight")
+    public abstract RepRecordEntity getRepRecordSync(String userId, String exerciseId, double weight);
+
+    @Query("SELECT * FROM rep_records WHERE userId = :userId AND exerciseId = :exerciseId ORDER BY weight DESC")
+    public abstract LiveData<List<RepRecordEntity>> getRepRecords(String userId, String exerciseId);
+
+    /**
+     * Lấy ID các bài tập có kỷ lục (tạ, 1RM hoặc khối lượng) được lập trong một buổi tập
+     * Kỷ lục số lần lặp theo mức tạ không được tính vì mỗi mức tạ mới đều tạo ra một kỷ lục
+     * @param userId ID của người dùng
+     * @param workoutId ID của buổi tập
+     * @return Danh sách ID bài tập (không trùng lặp)
+     */
+    @Query("SELECT exerciseId FROM personal_records WHERE userId = :userId " +
+            "AND (bestWeightWorkoutId = :workoutId OR bestOneRepMaxWorkoutId = :workoutId " +
+            "OR bestSessionVolumeWorkoutId = :workoutId)")
+    public abstract List<String> getExerciseIdsWithRecordsInWorkoutSync(String userId, String workoutId);
+
+    @Query("DELETE FROM personal_records WHERE userId = :userId")
+    public abstract void deleteRecordsForUser(String userId);
+
+    @Query("DELETE FROM rep_records WHERE userId = :userId")
+    public abstract void deleteRepRecordsForUser(String userId);
+
+    @Query("DELETE FROM personal_records WHERE userId = :userId AND exerciseId = :exerciseId")
+    public abstract void deleteRecord(String userId, String exerciseId);
+
+    @Query("DELETE FROM rep_records WHERE userId = :userId AND exerciseId = :exerciseId")
+    public abstract void deleteRepRecords(String userId, String exerciseId);
+
+    /**
+     * Lấy các set đã hoàn thành của một bài tập trong các buổi tập khác của người dùng
+     * Đi theo chỉ mục (exerciseId, completedTimestamp) nên chỉ đọc các set của bài tập này
+     * @param userId ID của người dùng
+     * @param exerciseId ID của bài tập
+     * @param excludedWorkoutId Buổi tập bỏ qua (buổi tập đang diễn ra hoặc vừa bị xóa)
+     * @return Danh sách set theo thời điểm hoàn thành tăng dần
+     */
+    @Query("SELECT s.* FROM workout_sets AS s INNER JOIN workouts AS w ON w.id = s.workoutId " +
+            "WHERE s.exerciseId = :exerciseId AND s.completed = 1 AND w.userId = :userId " +
+            "AND s.workoutId != :excludedWorkoutId ORDER BY s.completedTimestamp")
+    public abstract List<WorkoutSetEntity> getCompletedSetsSync(String userId, String exerciseId,
+                                                                String excludedWorkoutId);
+
+    /**
+     * Lấy ID các bài tập của một buổi tập đã lưu trên máy
+     * @param workoutId ID của buổi tập
+     * @return Danh sách ID bài tập
+     */
+    @Query("SELECT exerciseId FROM workout_exercises WHERE workoutId = :workoutId")
+    public abstract List<String> getExerciseIdsInWorkoutSync(String workoutId);
+
+    /**
+     * Cập nhật kỷ lục với một set vừa hoàn thành
+     * Chỉ đọc đúng dòng kỷ lục của bài tập (tra cứu theo khóa chính), so sánh và ghi lại nếu có thay đổi.
+     * Ở đây kỷ lục chỉ tăng; khi một set bị bỏ đánh dấu hoặc bị sửa, dùng recalculateRecords.
+     * @param userId ID của người dùng
+     * @param exerciseId ID của bài tập
+     * @param workoutId ID của buổi tập
+     * @param weight Mức tạ của set
+     * @param reps Số lần lặp của set
+     * @param sessionVolume Tổng khối lượng của bài tập trong buổi tập hiện tại, đã tính cả set này
+     * @param timestamp Thời điểm hoàn thành set
+     * @return Tổ hợp các cờ PersonalRecordEntity.RECORD_*, 0 nếu không có kỷ lục mới
+     */
+    @Transaction
+    public int applyCompletedSet(String userId, String exerciseId, String workoutId,
+                                 double weight, int reps, double sessionVolume, long timestamp) {
+        if (reps <= 0 || weight < 0) {
+            return 0;
+        }
+
+        RepRecordEntity repRecord = getRepRecordSync(userId, exerciseId, weight);
+        if (repRecord == null) {
+            repRecord = new RepRecordEntity(userId, exerciseId, weight);
+        }
+        PersonalRecordEntity record = getRecordSync(userId, exerciseId);
+        if (record == null) {
+            record = new PersonalRecordEntity(userId, exerciseId);
+        }
+
+        int flags = mergeSet(record, repRecord, workoutId, weight, reps, sessionVolume, timestamp);
+        if ((flags & PersonalRecordEntity.RECORD_REPS_AT_WEIGHT) != 0) {
+            upsertRepRecord(repRecord);
+        }
+        if ((flags & ~PersonalRecordEntity.RECORD_REPS_AT_WEIGHT) != 0) {
+            upsertRecord(record);
+        }
+        return flags;
+    }
+
+    /**
+     * Tính lại toàn bộ kỷ lục của một bài tập, dùng khi kỷ lục có thể phải giảm
+     * (bỏ đánh dấu hoặc sửa một set đã hoàn thành, xóa buổi tập).
+     * Các set của những buổi tập khác được đọc từ workout_sets, set của buổi tập đang xét lấy từ
+     * workoutSets vì bản sao trên máy của nó có thể chưa được ghi lại.
+     * @param userId ID của người dùng
+     * @param exerciseId ID của bài tập
+     * @param workoutId ID của buổi tập đang xét
+     * @param workoutSets Các set hiện tại của bài tập trong buổi tập đó, rỗng nếu buổi tập đã bị xóa
+     */
+    @Transaction
+    public void recalculateRecords(String userId, String exerciseId, String workoutId,
+                                   List<WorkoutSetEntity> workoutSets) {
+        List<WorkoutSetEntity> sets = new ArrayList<>(getCompletedSetsSync(userId, exerciseId, workoutId));
+        for (WorkoutSetEntity set : workoutSets) {
+            if (set.isCompleted()) {
+                sets.add(set);
+            }
+        }
+        // Phát lại theo thứ tự hoàn thành để thời điểm và buổi tập của từng kỷ lục giống như khi cập nhật dần
+        Collections.sort(sets, (a, b) -> Long.compare(a.getCompletedTimestamp(), b.getCompletedTimestamp()));
+
+        PersonalRecordEntity record = new PersonalRecordEntity(userId, exerciseId);
+        Map<Double, RepRecordEntity> repRecords = new HashMap<>();
+        Map<String, Double> sessionVolumes = new HashMap<>();
+        boolean hasRecord = false;
+        for (WorkoutSetEntity set : sets) {
+            double weight = set.getWeight();
+            int reps = set.getReps();
+            if (reps <= 0 || weight < 0) {
+                continue;
+            }
+
+            Double previousVolume = sessionVolumes.get(set.getWorkoutId());
+            double sessionVolume = (previousVolume != null ? previousVolume : 0) + weight * reps;
+            sessionVolumes.put(set.getWorkoutId(), sessionVolume);
+
+            RepRecordEntity repRecord = repRecords.get(weight);
+            if (repRecord == null) {
+                repRecord = new RepRecordEntity(userId, exerciseId, weight);
+                repRecords.put(weight, repRecord);
+            }
+            int flags = mergeSet(record, repRecord, set.getWorkoutId(), weight, reps, sessionVolume,
+                    set.getCompletedTimestamp());
+            hasRecord |= (flags & ~PersonalRecordEntity.RECORD_REPS_AT_WEIGHT) != 0;
+        }
+
+        deleteRecord(userId, exerciseId);
+        deleteRepRecords(userId, exerciseId);
+        if (hasRecord) {
+            upsertRecord(record);
+        }
+        for (RepRecordEntity repRecord : repRecords.values()) {
+            upsertRepRecord(repRecord);
+        }
+    }
+
+    /**
+     * Tính lại kỷ lục của mọi bài tập trong một buổi tập sắp bị xóa khỏi máy,
+     * bỏ qua các set của chính buổi tập đó
+     * @param userId ID của người dùng
+     * @param workoutId ID của buổi tập
+     */
+    @Transaction
+    public void recalculateRecordsWithoutWorkout(String userId, String workoutId) {
+        List<WorkoutSetEntity> none = Collections.emptyList();
+        for (String exerciseId : getExerciseIdsInWorkoutSync(workoutId)) {
+            recalculateRecords(userId, exerciseId, workoutId, none);
+        }
+    }
+
+    /**
+     * So sánh một set với kỷ lục hiện có và cập nhật hai dòng kỷ lục trong bộ nhớ
+     * @return Tổ hợp các cờ PersonalRecordEntity.RECORD_*, 0 nếu set không lập kỷ lục nào
+     */
+    private static int mergeSet(PersonalRecordEntity record, RepRecordEntity repRecord, String workoutId,
+                                double weight, int reps, double sessionVolume, long timestamp) {
+        int flags = 0;
+
+        // Kỷ lục số lần lặp tại mức tạ này (kể cả bài tập không dùng tạ)
+        if (reps > repRecord.getBestReps()) {
+            repRecord.setBestReps(reps);
+            repRecord.setWorkoutId(workoutId);
+            repRecord.setTimestamp(timestamp);
+            flags |= PersonalRecordEntity.RECORD_REPS_AT_WEIGHT;
+        }
+
+        if (weight > record.getBestWeight()
+                || (weight > 0 && weight == record.getBestWeight() && reps > record.getBestWeightReps())) {
+            record.setBestWeight(weight);
+            record.setBestWeightReps(reps);
+            record.setBestWeightWorkoutId(workoutId);
+            record.setBestWeightTimestamp(timestamp);
+            flags |= PersonalRecordEntity.RECORD_WEIGHT;
+        }
+
+        double oneRepMax = PersonalRecordEntity.estimateOneRepMax(weight, reps);
+        if (oneRepMax > record.getBestOneRepMax()) {
+            record.setBestOneRepMax(oneRepMax);
+            record.setBestOneRepMaxWorkoutId(workoutId);
+            record.setBestOneRepMaxTimestamp(timestamp);
+            flags |= PersonalRecordEntity.RECORD_ONE_REP_MAX;
+        }
+
+        if (sessionVolume > record.getBestSessionVolume()) {
+            record.setBestSessionVolume(sessionVolume);
+            record.setBestSessionVolumeWorkoutId(workoutId);
+            record.setBestSessionVolumeTimestamp(timestamp);
+            flags |= PersonalRecordEntity.RECORD_SESSION_VOLUME;
+        }
+
+        if ((flags & ~PersonalRecordEntity.RECORD_REPS_AT_WEIGHT) != 0) {
+            record.setLastRecordTimestamp(timestamp);
+        }
+        return flags;
+    }
+}
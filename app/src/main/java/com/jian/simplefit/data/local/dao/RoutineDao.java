@@ -15,7 +15,13 @@ import com.jian.simplefit.data.local.entity.RoutineExerciseEntity;
 import com.jian.simplefit.data.local.entity.RoutineWithExercises;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Data Access Object cho RoutineEntity và các entity liên quan
@@ -24,6 +30,9 @@ import java.util.List;
 @Dao
 public abstract class RoutineDao {
 
+    // Giới hạn số tham số trong một câu lệnh SQLite là 999
+    private static final int MAX_IN_QUERY_PARAMS = 900;
+
     // Các phương thức cơ bản cho RoutineEntity
 
     @Insert(onConflict = OnConflictStrategy.REPLACE)
@@ -106,21 +115,10 @@ public abstract class RoutineDao {
      */
     @Transaction
     public RoutineWithExercises getRoutineWithExercisesById(String routineId) {
-        // Lấy thường trình và danh sách bài tập
         RoutineWithExercises result = getRoutineWithExercisesBasic(routineId);
 
-        if (result != null && result.getExercises() != null && !result.getExercises().isEmpty()) {
-            // Lấy ID của tất cả bài tập
-            List<String> exerciseIds = new ArrayList<>();
-            for (RoutineExerciseEntity exercise : result.getExercises()) {
-                exerciseIds.add(exercise.getExerciseId());
-            }
-
-            // Lấy thông tin chi tiết bài tập từ bảng exercises
-            List<ExerciseEntity> exerciseDetails = getExercisesByIds(exerciseIds);
-
-            // Thiết lập thông tin chi tiết bài tập
-            result.setExerciseDetails(exerciseDetails);
+        if (result != null) {
+            attachExerciseDetails(Collections.singletonList(result));
         }
 
         return result;
@@ -145,24 +143,53 @@ public abstract class RoutineDao {
         List<RoutineWithExercises> routines = getRoutinesWithExercisesBasicByUserId(userId);
 
         if (routines != null && !routines.isEmpty()) {
-            for (RoutineWithExercises routine : routines) {
-                if (routine.getExercises() != null && !routine.getExercises().isEmpty()) {
-                    // Lấy ID của tất cả bài tập
-                    List<String> exerciseIds = new ArrayList<>();
-                    for (RoutineExerciseEntity exercise : routine.getExercises()) {
-                        exerciseIds.add(exercise.getExerciseId());
-                    }
-
-                    // Lấy thông tin chi tiết bài tập
-                    List<ExerciseEntity> exerciseDetails = getExercisesByIds(exerciseIds);
-
-                    // Thiết lập thông tin chi tiết bài tập
-                    routine.setExerciseDetails(exerciseDetails);
+            attachExerciseDetails(routines);
+        }
+
+        return routines;
+    }
+
+    /**
+     * Gắn chi tiết bài tập cho nhiều thường trình bằng một truy vấn IN duy nhất
+     * thay vì một truy vấn cho mỗi thường trình. Đồng thời sắp xếp bài tập theo thứ tự.
+     * @param routines Danh sách thường trình đã nạp từ quan hệ Room
+     */
+    protected void attachExerciseDetails(List<RoutineWithExercises> routines) {
+        // Gom ID bài tập duy nhất của tất cả thường trình
+        Set<String> exerciseIds = new LinkedHashSet<>();
+        for (RoutineWithExercises routine : routines) {
+            for (RoutineExerciseEntity exercise : routine.getExercises()) {
+                exerciseIds.add(exercise.getExerciseId());
+            }
+        }
+
+        Map<String, ExerciseEntity> detailsById = new HashMap<>(exerciseIds.size() * 2);
+        if (!exerciseIds.isEmpty()) {
+            List<String> ids = new ArrayList<>(exerciseIds);
+            for (int start = 0; start < ids.size(); start += MAX_IN_QUERY_PARAMS) {
+                int end = Math.min(start + MAX_IN_QUERY_PARAMS, ids.size());
+                for (ExerciseEntity exercise : getExercisesByIds(ids.subList(start, end))) {
+                    detailsById.put(exercise.getId(), exercise);
                 }
             }
         }
 
-        return routines;
+        // Phân phối chi tiết cho từng thường trình theo thứ tự bài tập
+        for (RoutineWithExercises routine : routines) {
+            List<RoutineExerciseEntity> ordered = new ArrayList<>(routine.getExercises());
+            Collections.sort(ordered, (a, b) -> Integer.compare(a.getOrder(), b.getOrder()));
+            routine.setExercises(ordered);
+
+            List<ExerciseEntity> details = new ArrayList<>(ordered.size());
+            Set<String> added = new HashSet<>();
+            for (RoutineExerciseEntity exercise : ordered) {
+                ExerciseEntity detail = detailsById.get(exercise.getExerciseId());
+                if (detail != null && added.add(detail.getId())) {
+                    details.add(detail);
+                }
+            }
+            routine.setExerciseDetails(details);
+        }
     }
 
     /**
@@ -244,36 +271,40 @@ public abstract class RoutineDao {
     }
 
     /**
-     * Cập nhật thứ tự các bài tập trong thường trình
+     * Chuyển hàng đang ở một vị trí sang vị trí tạm (số âm) trong thường trình
+     * Dùng UPDATE trực tiếp vì `order` thuộc khóa chính nên @Update không thể khớp hàng.
+     * Hàng được xác định theo vị trí nên một bài tập xuất hiện hai lần vẫn chỉ cập nhật đúng một hàng
      * @param routineId ID của thường trình
-     * @param exerciseIds Danh sách ID bài tập theo thứ tự mới
+     * @param currentOrder Vị trí hiện tại
+     * @param pendingOrder Vị trí tạm, luôn âm để không trùng khóa với hàng chưa chuyển
+     * @return Số hàng được cập nhật
      */
-    @Transaction
-    public void updateExerciseOrdering(String routineId, List<String> exerciseIds) {
-        List<RoutineExerciseEntity> currentExercises = getRoutineExercises(routineId);
-        List<RoutineExerciseEntity> updatedExercises = new ArrayList<>();
-
-        // Tạo map từ exerciseId đến entity hiện tại
-        java.util.Map<String, RoutineExerciseEntity> exerciseMap = new java.util.HashMap<>();
-        for (RoutineExerciseEntity exercise : currentExercises) {
-            exerciseMap.put(exercise.getExerciseId(), exercise);
-        }
+    @Query("UPDATE routine_exercises SET `order` = :pendingOrder WHERE routineId = :routineId AND `order` = :currentOrder")
+    protected abstract int moveExerciseToPendingOrder(String routineId, int currentOrder, int pendingOrder);
 
-        // Cập nhật thứ tự
-        for (int i = 0; i < exerciseIds.size(); i++) {
-            String exerciseId = exerciseIds.get(i);
-            RoutineExerciseEntity exercise = exerciseMap.get(exerciseId);
+    /**
+     * Đổi các vị trí tạm (-1 - vị trí mới) thành vị trí mới
+     * @param routineId ID của thường trình
+     */
+    @Query("UPDATE routine_exercises SET `order` = -1 - `order` WHERE routineId = :routineId AND `order` < 0")
+    protected abstract void applyPendingOrders(String routineId);
 
-            if (exercise != null) {
-                exercise.setOrder(i);
-                updatedExercises.add(exercise);
+    /**
+     * Cập nhật thứ tự các bài tập trong thường trình
+     * Toàn bộ hoán vị được áp dụng trong một transaction bằng hai bước: mỗi hàng được chuyển sang
+     * vị trí tạm âm, rồi một câu lệnh đổi tất cả sang vị trí mới, nên hoán đổi hai hàng của cùng
+     * một bài tập không vi phạm khóa chính. Câu lệnh UPDATE đã biên dịch được Room dùng lại cho mọi hàng.
+     * @param routineId ID của thường trình
+     * @param previousOrders Phần tử thứ i là vị trí hiện tại của hàng sẽ đứng ở vị trí i
+     */
+    @Transaction
+    public void updateExerciseOrdering(String routineId, List<Integer> previousOrders) {
+        for (int i = 0; i < previousOrders.size(); i++) {
+            if (previousOrders.get(i) != i) {
+                moveExerciseToPendingOrder(routineId, previousOrders.get(i), -1 - i);
             }
         }
-
-        // Lưu các thay đổi
-        for (RoutineExerciseEntity exercise : updatedExercises) {
-            updateRoutineExercise(exercise);
-        }
+        applyPendingOrders(routineId);
     }
 
     /**
@@ -6,9 +6,12 @@ import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
 import com.jian.simplefit.data.local.entity.UserEntity;
+import com.jian.simplefit.data.local.entity.UserFavoriteExerciseEntity;
+import com.jian.simplefit.data.local.entity.UserRoutineEntity;
 
 import java.util.List;
 
@@ -94,22 +97,159 @@ public interface UserDao {
     @Query("SELECT * FROM users WHERE displayName LIKE '%' || :query || '%' ORDER BY displayName ASC")
     LiveData<List<UserEntity>> searchUsers(String query);
 
+    /**
+     * Thêm liên kết người dùng - thường trình, bỏ qua nếu đã tồn tại
+     * @param userRoutine Liên kết cần thêm
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertUserRoutine(UserRoutineEntity userRoutine);
+
     /**
      * Thêm thường trình vào danh sách thường trình của người dùng
      * @param userId ID của người dùng
      * @param routineId ID của thường trình
      */
-    @Query("UPDATE users SET routineIds = routineIds || ',' || :routineId WHERE id = :userId AND routineIds NOT LIKE '%' || :routineId || '%'")
-    void addRoutineToUser(String userId, String routineId);
+    default void addRoutineToUser(String userId, String routineId) {
+        insertUserRoutine(new UserRoutineEntity(userId, routineId));
+    }
 
     /**
      * Xóa thường trình khỏi danh sách thường trình của người dùng
      * @param userId ID của người dùng
      * @param routineId ID của thường trình
      */
-    @Query("UPDATE users SET routineIds = REPLACE(routineIds, ',' || :routineId, '') WHERE id = :userId")
+    @Query("DELETE FROM user_routines WHERE userId = :userId AND routineId = :routineId")
     void removeRoutineFromUser(String userId, String routineId);
 
+    /**
+     * Kiểm tra thường trình có thuộc về người dùng không (tra cứu theo khóa chính)
+     * @param userId ID của người dùng
+     * @param routineId ID của thường trình
+     * @return true nếu thường trình thuộc về người dùng
+     */
+    @Query("SELECT EXISTS(SELECT 1 FROM user_routines WHERE userId = :userId AND routineId = :routineId)")
+    boolean isUserRoutine(String userId, String routineId);
+
+    /**
+     * Lấy danh sách ID thường trình của người dùng
+     * @param userId ID của người dùng
+     * @return Danh sách ID thường trình theo thứ tự thêm vào
+     */
+    @Query("SELECT routineId FROM user_routines WHERE userId = :userId ORDER BY addedAt ASC")
+    List<String> getRoutineIdsForUser(String userId);
+
+    /**
+     * Thay danh sách thường trình của người dùng bằng danh sách routineIds từ Firestore
+     * @param userId ID của người dùng
+     * @param routineIds ID thường trình theo thứ tự lưu
+     */
+    @Transaction
+    default void replaceUserRoutines(String userId, List<String> routineIds) {
+        clearUserRoutines(userId);
+        long addedAt = System.currentTimeMillis();
+        for (int i = 0; i < routineIds.size(); i++) {
+            UserRoutineEntity userRoutine = new UserRoutineEntity(userId, routineIds.get(i));
+            userRoutine.setAddedAt(addedAt + i);
+            insertUserRoutine(userRoutine);
+        }
+    }
+
+    /**
+     * Xóa toàn bộ liên kết thường trình của người dùng
+     * @param userId ID của người dùng
+     */
+    @Query("DELETE FROM user_routines WHERE userId = :userId")
+    void clearUserRoutines(String userId);
+
+    /**
+     * Thêm bài tập yêu thích, bỏ qua nếu đã tồn tại
+     * @param favorite Liên kết người dùng - bài tập
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long insertFavoriteExercise(UserFavoriteExerciseEntity favorite);
+
+    /**
+     * Thêm bài tập vào danh sách yêu thích của người dùng
+     * @param userId ID của người dùng
+     * @param exerciseId ID của bài tập
+     */
+    default void addFavoriteExercise(String userId, String exerciseId) {
+        insertFavoriteExercise(new UserFavoriteExerciseEntity(userId, exerciseId));
+    }
+
+    /**
+     * Xóa bài tập khỏi danh sách yêu thích của người dùng
+     * @param userId ID của người dùng
+     * @param exerciseId ID của bài tập
+     * @return Số hàng đã xóa
+     */
+    @Query("DELETE FROM user_favorite_exercises WHERE userId = :userId AND exerciseId = :exerciseId")
+    int removeFavoriteExercise(String userId, String exerciseId);
+
+    /**
+     * Đảo trạng thái yêu thích của một bài tập
+     * @param userId ID của người dùng
+     * @param exerciseId ID của bài tập
+     * @return true nếu bài tập được yêu thích sau khi đảo
+     */
+    @Transaction
+    default boolean toggleFavoriteExercise(String userId, String exerciseId) {
+        if (removeFavoriteExercise(userId, exerciseId) > 0) {
+            return false;
+        }
+        addFavoriteExercise(userId, exerciseId);
+        return true;
+    }
+
+    /**
+     * Xóa toàn bộ bài tập yêu thích của người dùng
+     * @param userId ID của người dùng
+     */
+    @Query("DELETE FROM user_favorite_exercises WHERE userId = :userId")
+    void clearFavoriteExercises(String userId);
+
+    /**
+     * Thay danh sách yêu thích của người dùng bằng trạng thái mới nhất từ Firestore
+     * @param userId ID của người dùng
+     * @param exerciseIds ID bài tập yêu thích theo thứ tự thêm vào
+     */
+    @Transaction
+    default void replaceFavoriteExercises(String userId, List<String> exerciseIds) {
+        clearFavoriteExercises(userId);
+        long addedAt = System.currentTimeMillis();
+        for (int i = 0; i < exerciseIds.size(); i++) {
+            UserFavoriteExerciseEntity favorite = new UserFavoriteExerciseEntity(userId, exerciseIds.get(i));
+            // Giữ nguyên thứ tự vì truy vấn sắp xếp theo addedAt
+            favorite.setAddedAt(addedAt + i);
+            insertFavoriteExercise(favorite);
+        }
+    }
+
+    /**
+     * Kiểm tra bài tập có trong danh sách yêu thích không (tra cứu theo khóa chính)
+     * @param userId ID của người dùng
+     * @param exerciseId ID của bài tập
+     * @return true nếu bài tập được yêu thích
+     */
+    @Query("SELECT EXISTS(SELECT 1 FROM user_favorite_exercises WHERE userId = :userId AND exerciseId = :exerciseId)")
+    boolean isFavoriteExercise(String userId, String exerciseId);
+
+    /**
+     * Lấy danh sách ID bài tập yêu thích của người dùng
+     * @param userId ID của người dùng
+     * @return LiveData chứa danh sách ID bài tập yêu thích
+     */
+    @Query("SELECT exerciseId FROM user_favorite_exercises WHERE userId = :userId ORDER BY addedAt ASC")
+    LiveData<List<String>> getFavoriteExerciseIds(String userId);
+
+    /**
+     * Lấy danh sách ID bài tập yêu thích của người dùng (không sử dụng LiveData)
+     * @param userId ID của người dùng
+     * @return Danh sách ID bài tập yêu thích
+     */
+    @Query("SELECT exerciseId FROM user_favorite_exercises WHERE userId = :userId ORDER BY addedAt ASC")
+    List<String> getFavoriteExerciseIdsSync(String userId);
+
     /**
      * Cập nhật cân nặng của người dùng
      * @param userId ID của người dùng
@@ -0,0 +1,77 @@
+package com.jian.simplefit.data.local.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.jian.simplefit.data.local.entity.WeightEntryEntity;
+import com.jian.simplefit.data.local.entity.WeightPoint;
+
+import java.util.List;
+
+/**
+ * DAO cho lịch sử cân nặng
+ * Mọi truy vấn đều giới hạn theo (userId, timestamp) để đi theo chỉ mục của bảng
+ */
+@Dao
+public interface WeightHistoryDao {
+
+    /**
+     * Thêm một lần ghi nhận cân nặng (ghi đè nếu trùng thời điểm)
+     * @param entry Bản ghi cân nặng
+     * @return ID của bản ghi
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    long insertEntry(WeightEntryEntity entry);
+
+    /**
+     * Lấy bản ghi cân nặng mới nhất của người dùng
+     * @param userId ID của người dùng
+     * @return Bản ghi mới nhất hoặc null
+     */
+    @Query("SELECT * FROM weight_history WHERE userId = :userId ORDER BY timestamp DESC LIMIT 1")
+    WeightEntryEntity getLatestEntry(String userId);
+
+    /**
+     * Lấy thời điểm của bản ghi đầu tiên
+     * @param userId ID của người dùng
+     * @return Timestamp hoặc null nếu chưa có dữ liệu
+     */
+    @Query("SELECT MIN(timestamp) FROM weight_history WHERE userId = :userId")
+    Long getFirstTimestamp(String userId);
+
+    /**
+     * Đếm số bản ghi trong một khoảng thời gian
+     */
+    @Query("SELECT COUNT(*) FROM weight_history WHERE userId = :userId AND timestamp BETWEEN :from AND :to")
+    int countInRange(String userId, long from, long to);
+
+    /**
+     * Lấy toàn bộ điểm trong một khoảng thời gian, tăng dần theo thời gian
+     */
+    @Query("SELECT timestamp, weight FROM weight_history " +
+            "WHERE userId = :userId AND timestamp BETWEEN :from AND :to ORDER BY timestamp")
+    List<WeightPoint> getPointsInRange(String userId, long from, long to);
+
+    /**
+     * Lấy điểm thấp nhất và cao nhất của mỗi khoảng thời gian dài bucketMs trong [from, to]
+     * Trả về tối đa 2 điểm cho mỗi khoảng, giữ nguyên hình dạng đỉnh/đáy của đồ thị.
+     * Dựa vào đặc tính của SQLite: cột không gộp đi kèm MIN()/MAX() lấy giá trị của đúng dòng đạt cực trị.
+     */
+    @Query("SELECT timestamp, MIN(weight) AS weight FROM weight_history " +
+            "WHERE userId = :userId AND timestamp BETWEEN :from AND :to " +
+            "GROUP BY (timestamp - :from) / :bucketMs " +
+            "UNION " +
+            "SELECT timestamp, MAX(weight) AS weight FROM weight_history " +
+            "WHERE userId = :userId AND timestamp BETWEEN :from AND :to " +
+            "GROUP BY (timestamp - :from) / :bucketMs " +
+            "ORDER BY timestamp")
+    List<WeightPoint> getMinMaxPointsPerBucket(String userId, long from, long to, long bucketMs);
+
+    /**
+     * Xóa toàn bộ lịch sử cân nặng của người dùng
+     */
+    @Query("DELETE FROM weight_history WHERE userId = :userId")
+    void deleteEntriesForUser(String userId);
+}
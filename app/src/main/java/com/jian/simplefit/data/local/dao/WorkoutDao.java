@@ -68,6 +68,13 @@ public interface WorkoutDao {
     @Delete
     void deleteWorkout(WorkoutEntity workout);
 
+    /**
+     * Xóa một buổi tập theo ID (bài tập và set bị xóa theo ràng buộc CASCADE)
+     * @param workoutId ID của buổi tập cần xóa
+     */
+    @Query("DELETE FROM workouts WHERE id = :workoutId")
+    void deleteWorkoutById(String workoutId);
+
     /**
      * Lấy tất cả buổi tập, sắp xếp theo thời gian giảm dần (mới nhất lên đầu)
      * @return LiveData chứa danh sách tất cả buổi tập
@@ -140,4 +147,53 @@ public interface WorkoutDao {
      */
     @Query("SELECT COUNT(*) FROM workouts WHERE userId = :userId")
     int getWorkoutCountForUser(String userId);
+
+    /**
+     * Thêm nhiều bài tập của buổi tập vào cơ sở dữ liệu
+     * @param workoutExercises Danh sách bài tập cần thêm
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertWorkoutExercises(List<WorkoutExerciseEntity> workoutExercises);
+
+    /**
+     * Xóa toàn bộ bài tập (và set, theo ràng buộc CASCADE) của một buổi tập
+     * @param workoutId ID của buổi tập
+     */
+    @Query("DELETE FROM workout_exercises WHERE workoutId = :workoutId")
+    void deleteWorkoutExercisesByWorkoutId(String workoutId);
+
+    /**
+     * Ghi đè toàn bộ một buổi tập (buổi tập, bài tập và set) trong một giao dịch
+     * @param workout Buổi tập
+     * @param exercises Các bài tập của buổi tập
+     * @param sets Các set của buổi tập
+     */
+    @Transaction
+    default void replaceWorkout(WorkoutEntity workout, List<WorkoutExerciseEntity> exercises,
+                                List<WorkoutSetEntity> sets) {
+        insertWorkout(workout);
+        deleteWorkoutExercisesByWorkoutId(workout.getId());
+        insertWorkoutExercises(exercises);
+        insertWorkoutSets(sets);
+    }
+
+    /**
+     * Lấy các set đã hoàn thành trong N buổi tập gần nhất của người dùng cho nhiều bài tập cùng lúc
+     * Truy vấn con tương quan đi theo chỉ mục (exerciseId, completedTimestamp DESC) để chọn N buổi tập
+     * gần nhất cho từng bài tập, nên không cần window function (không có trên SQLite của API 21)
+     * @param userId ID của người dùng
+     * @param exerciseIds Danh sách ID bài tập
+     * @param sessions Số buổi tập gần nhất cần lấy cho mỗi bài tập
+     * @return Danh sách set, nhóm theo bài tập, mới nhất trước, theo thứ tự set trong buổi tập
+     */
+    @Query("SELECT s.* FROM workout_sets AS s " +
+            "INNER JOIN workouts AS w ON w.id = s.workoutId " +
+            "WHERE w.userId = :userId AND s.exerciseId IN (:exerciseIds) AND s.completed = 1 " +
+            "AND s.workoutId IN (" +
+            "SELECT s2.workoutId FROM workout_sets AS s2 " +
+            "INNER JOIN workouts AS w2 ON w2.id = s2.workoutId " +
+            "WHERE s2.exerciseId = s.exerciseId AND s2.completed = 1 AND w2.userId = :userId " +
+            "GROUP BY s2.workoutId ORDER BY MAX(s2.completedTimestamp) DESC LIMIT :sessions) " +
+            "ORDER BY s.exerciseId, w.dateTimestamp DESC, s.setNumber")
+    List<WorkoutSetEntity> getRecentSetsForExercises(String userId, List<String> exerciseIds, int sessions);
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.jian.simplefit.data.local.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.PrimaryKey;
+
+/**
+ * Entity lưu con trỏ đồng bộ của một danh mục với Firestore
+ * Giữ nguyên mốc thời gian của máy chủ (giây + nano giây) cùng ID tài liệu cuối cùng đã tải,
+ * vì làm tròn xuống mili giây sẽ khiến các tài liệu của lần ghi mới nhất luôn bị tải lại
+ */
+@Entity(tableName = "catalog_sync_state")
+public class CatalogSyncStateEntity {
+
+    @PrimaryKey
+    @NonNull
+    private String name;
+
+    private long lastUpdatedSeconds;
+
+    private int lastUpdatedNanos;
+
+    @NonNull
+    private String lastDocumentId;
+
+    /**
+     * Constructor mặc định cho Room
+     */
+    public CatalogSyncStateEntity() {
+        this.name = "";
+        this.lastDocumentId = "";
+    }
+
+    /**
+     * Constructor với các trường bắt buộc
+     * @param name Tên danh mục
+     * @param lastUpdatedSeconds Phần giây của mốc thời gian cuối cùng đã tải
+     * @param lastUpdatedNanos Phần nano giây của mốc thời gian cuối cùng đã tải
+     * @param lastDocumentId ID tài liệu cuối cùng tại mốc thời gian đó
+     */
+    @Ignore
+    public CatalogSyncStateEntity(@NonNull String name, long lastUpdatedSeconds, int lastUpdatedNanos,
+                                  @NonNull String lastDocumentId) {
+        this.name = name;
+        this.lastUpdatedSeconds = lastUpdatedSeconds;
+        this.lastUpdatedNanos = lastUpdatedNanos;
+        this.lastDocumentId = lastDocumentId;
+    }
+
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    public void setName(@NonNull String name) {
+        this.name = name;
+    }
+
+    public long getLastUpdatedSeconds() {
+        return lastUpdatedSeconds;
+    }
+
+    public void setLastUpdatedSeconds(long lastUpdatedSeconds) {
+        this.lastUpdatedSeconds = lastUpdatedSeconds;
+    }
+
+    public int getLastUpdatedNanos() {
+        return lastUpdatedNanos;
+    }
+
+    public void setLastUpdatedNanos(int lastUpdatedNanos) {
+        this.lastUpdatedNanos = lastUpdatedNanos;
+    }
+
+    @NonNull
+    public String getLastDocumentId() {
+        return lastDocumentId;
+    }
+
+    public void setLastDocumentId(@NonNull String lastDocumentId) {
+        this.lastDocumentId = lastDocumentId;
+    }
+}
@@ -0,0 +1,56 @@
+package com.jian.simplefit.data.local.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.PrimaryKey;
+
+/**
+ * Entity lưu phiên bản của một danh mục dữ liệu đóng gói sẵn (ví dụ danh mục bài tập)
+ * Dòng này được ghi vào cơ sở dữ liệu dựng sẵn lúc build, nên khi mở cơ sở dữ liệu
+ * có thể biết dữ liệu trên máy cũ hơn bản đi kèm ứng dụng hay không
+ */
+@Entity(tableName = "catalog_versions")
+public class CatalogVersionEntity {
+
+    @PrimaryKey
+    @NonNull
+    private String name;
+
+    private int version;
+
+    /**
+     * Constructor mặc định cho Room
+     */
+    public CatalogVersionEntity() {
+        this.name = "";
+    }
+
+    /**
+     * Constructor với các trường bắt buộc
+     * @param name Tên danh mục
+     * @param version Phiên bản danh mục
+     */
+    @Ignore
+    public CatalogVersionEntity(@NonNull String name, int version) {
+        this.name = name;
+        this.version = version;
+    }
+
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    public void setName(@NonNull String name) {
+        this.name = name;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,41 @@
+package com.jian.simplefit.data.local.entity;
+
+/**
+ * Tải tập luyện của một nhóm cơ trong 7 và 28 ngày gần nhất, kết quả tổng hợp của bảng muscle_loads
+ */
+public class MuscleLoad {
+
+    private String muscleGroup;
+    private float sets7;
+    private double volume7;
+    private float sets28;
+    private double volume28;
+
+    public MuscleLoad(String muscleGroup, float sets7, double volume7, float sets28, double volume28) {
+        this.muscleGroup = muscleGroup;
+        this.sets7 = sets7;
+        this.volume7 = volume7;
+        this.sets28 = sets28;
+        this.volume28 = volume28;
+    }
+
+    public String getMuscleGroup() {
+        return muscleGroup;
+    }
+
+    public float getSets7() {
+        return sets7;
+    }
+
+    public double getVolume7() {
+        return volume7;
+    }
+
+    public float getSets28() {
+        return sets28;
+    }
+
+    public double getVolume28() {
+        return volume28;
+    }
+}
@@ -0,0 +1,128 @@
+package com.jian.simplefit.data.local.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+
+/**
+ * Entity lưu phần tải tập luyện mà một buổi tập đã hoàn thành đóng góp cho một nhóm cơ
+ * Mỗi cặp (workoutId, muscleGroup) chỉ có một dòng nên lưu lại buổi tập không bị cộng hai lần.
+ * Bảng chỉ giữ các ngày còn nằm trong cửa sổ dài nhất (28 ngày), chỉ mục (userId, day)
+ * giúp tổng hợp 7/28 ngày không phải quét lịch sử buổi tập
+ */
+@Entity(
+        tableName = "muscle_loads",
+        primaryKeys = {"workoutId", "muscleGroup"},
+        indices = {
+                @Index(value = {"userId", "day"})
+        }
+)
+public class MuscleLoadEntity {
+
+    @NonNull
+    private String workoutId;
+
+    @NonNull
+    private String muscleGroup;
+
+    @NonNull
+    private String userId;
+
+    // Ngày của buổi tập theo giờ địa phương, tính từ 1970-01-01
+    private long day;
+
+    // Số set đã hoàn thành; nhóm cơ phụ chỉ được tính một phần nên có thể lẻ
+    private float sets;
+
+    // Khối lượng (tạ x lần lặp) đã quy đổi theo cùng tỉ lệ với số set
+    private double volume;
+
+    /**
+     * Constructor mặc định cho Room
+     */
+    public MuscleLoadEntity() {
+        this.workoutId = "";
+        this.muscleGroup = "";
+        this.userId = "";
+    }
+
+    /**
+     * Constructor với các trường bắt buộc
+     * @param userId ID của người dùng
+     * @param workoutId ID của buổi tập
+     * @param muscleGroup ID của nhóm cơ
+     * @param day Ngày của buổi tập (epoch day theo giờ địa phương)
+     */
+    @Ignore
+    public MuscleLoadEntity(@NonNull String userId, @NonNull String workoutId,
+                            @NonNull String muscleGroup, long day) {
+        this.userId = userId;
+        this.workoutId = workoutId;
+        this.muscleGroup = muscleGroup;
+        this.day = day;
+    }
+
+    /**
+     * Cộng thêm phần tải của một bài tập trong buổi tập
+     * @param addedSets Số set đã quy đổi theo tỉ lệ đóng góp
+     * @param addedVolume Khối lượng đã quy đổi theo tỉ lệ đóng góp
+     */
+    public void addLoad(float addedSets, double addedVolume) {
+        sets += addedSets;
+        volume += addedVolume;
+    }
+
+    // Getters and Setters
+
+    @NonNull
+    public String getWorkoutId() {
+        return workoutId;
+    }
+
+    public void setWorkoutId(@NonNull String workoutId) {
+        this.workoutId = workoutId;
+    }
+
+    @NonNull
+    public String getMuscleGroup() {
+        return muscleGroup;
+    }
+
+    public void setMuscleGroup(@NonNull String muscleGroup) {
+        this.muscleGroup = muscleGroup;
+    }
+
+    @NonNull
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(@NonNull String userId) {
+        this.userId = userId;
+    }
+
+    public long getDay() {
+        return day;
+    }
+
+    public void setDay(long day) {
+        this.day = day;
+    }
+
+    public float getSets() {
+        return sets;
+    }
+
+    public void setSets(float sets) {
+        this.sets = sets;
+    }
+
+    public double getVolume() {
+        return volume;
+    }
+
+    public void setVolume(double volume) {
+        this.volume = volume;
+    }
+}
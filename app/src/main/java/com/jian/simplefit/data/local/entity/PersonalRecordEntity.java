@@ -0,0 +1,211 @@
+package com.jian.simplefit.data.local.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+
+/**
+ * Entity lưu kỷ lục cá nhân (PR) của người dùng cho từng bài tập
+ * Mỗi cặp (userId, exerciseId) chỉ có một dòng, được cập nhật dần mỗi khi hoàn thành một set
+ * nên việc tra cứu kỷ lục không cần quét lại lịch sử buổi tập
+ */
+@Entity(
+        tableName = "personal_records",
+        primaryKeys = {"userId", "exerciseId"},
+        indices = {
+                @Index("exerciseId")
+        }
+)
+public class PersonalRecordEntity {
+
+    /** Cờ: kỷ lục mức tạ nặng nhất */
+    public static final int RECORD_WEIGHT = 1;
+    /** Cờ: kỷ lục số lần lặp nhiều nhất tại một mức tạ */
+    public static final int RECORD_REPS_AT_WEIGHT = 1 << 1;
+    /** Cờ: kỷ lục 1RM ước tính (công thức Epley) */
+    public static final int RECORD_ONE_REP_MAX = 1 << 2;
+    /** Cờ: kỷ lục tổng khối lượng trong một buổi tập */
+    public static final int RECORD_SESSION_VOLUME = 1 << 3;
+
+    /** Khoảng thời gian một kỷ lục vẫn được coi là "mới" trên màn hình chi tiết bài tập */
+    public static final long NEW_RECORD_WINDOW_MS = 7L * 24 * 60 * 60 * 1000;
+
+    @NonNull
+    private String userId;
+
+    @NonNull
+    private String exerciseId;
+
+    // Mức tạ nặng nhất và số lần lặp tại mức tạ đó
+    private double bestWeight;
+    private int bestWeightReps;
+    private String bestWeightWorkoutId;
+    private long bestWeightTimestamp;
+
+    // 1RM ước tính cao nhất
+    private double bestOneRepMax;
+    private String bestOneRepMaxWorkoutId;
+    private long bestOneRepMaxTimestamp;
+
+    // Tổng khối lượng (tạ x lần lặp) cao nhất trong một buổi tập
+    private double bestSessionVolume;
+    private String bestSessionVolumeWorkoutId;
+    private long bestSessionVolumeTimestamp;
+
+    // Thời điểm của kỷ lục gần nhất (bất kỳ loại nào)
+    private long lastRecordTimestamp;
+
+    /**
+     * Constructor với các trường bắt buộc
+     * @param userId ID của người dùng
+     * @param exerciseId ID của bài tập
+     */
+    public PersonalRecordEntity(@NonNull String userId, @NonNull String exerciseId) {
+        this.userId = userId;
+        this.exerciseId = exerciseId;
+    }
+
+    /**
+     * Tính 1RM ước tính theo công thức Epley: weight * (1 + reps / 30)
+     * @param weight Mức tạ
+     * @param reps Số lần lặp
+     * @return 1RM ước tính, hoặc 0 nếu dữ liệu không hợp lệ
+     */
+    public static double estimateOneRepMax(double weight, int reps) {
+        if (weight <= 0 || reps <= 0) {
+            return 0;
+        }
+        if (reps == 1) {
+            return weight;
+        }
+        return weight * (1 + reps / 30.0);
+    }
+
+    /**
+     * Kiểm tra kỷ lục có được lập trong một buổi tập cụ thể không
+     * @param workoutId ID của buổi tập
+     * @return true nếu ít nhất một kỷ lục thuộc buổi tập này
+     */
+    public boolean isSetInWorkout(String workoutId) {
+        return workoutId != null && (workoutId.equals(bestWeightWorkoutId)
+                || workoutId.equals(bestOneRepMaxWorkoutId)
+                || workoutId.equals(bestSessionVolumeWorkoutId));
+    }
+
+    /**
+     * Kiểm tra có kỷ lục nào được lập gần đây không
+     * @param now Thời điểm hiện tại (millis)
+     * @return true nếu kỷ lục gần nhất nằm trong NEW_RECORD_WINDOW_MS
+     */
+    public boolean isRecent(long now) {
+        return lastRecordTimestamp > 0 && now - lastRecordTimestamp <= NEW_RECORD_WINDOW_MS;
+    }
+
+    // Getters and Setters
+
+    @NonNull
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(@NonNull String userId) {
+        this.userId = userId;
+    }
+
+    @NonNull
+    public String getExerciseId() {
+        return exerciseId;
+    }
+
+    public void setExerciseId(@NonNull String exerciseId) {
+        this.exerciseId = exerciseId;
+    }
+
+    public double getBestWeight() {
+        return bestWeight;
+    }
+
+    public void setBestWeight(double bestWeight) {
+        this.bestWeight = bestWeight;
+    }
+
+    public int getBestWeightReps() {
+        return bestWeightReps;
+    }
+
+    public void setBestWeightReps(int bestWeightReps) {
+        this.bestWeightReps = bestWeightReps;
+    }
+
+    public String getBestWeightWorkoutId() {
+        return bestWeightWorkoutId;
+    }
+
+    public void setBestWeightWorkoutId(String bestWeightWorkoutId) {
+        this.bestWeightWorkoutId = bestWeightWorkoutId;
+    }
+
+    public long getBestWeightTimestamp() {
+        return bestWeightTimestamp;
+    }
+
+    public void setBestWeightTimestamp(long bestWeightTimestamp) {
+        this.bestWeightTimestamp = bestWeightTimestamp;
+    }
+
+    public double getBestOneRepMax() {
+        return bestOneRepMax;
+    }
+
+    public void setBestOneRepMax(double bestOneRepMax) {
+        this.bestOneRepMax = bestOneRepMax;
+    }
+
+    public String getBestOneRepMaxWorkoutId() {
+        return bestOneRepMaxWorkoutId;
+    }
+
+    public void setBestOneRepMaxWorkoutId(String bestOneRepMaxWorkoutId) {
+        this.bestOneRepMaxWorkoutId = bestOneRepMaxWorkoutId;
+    }
+
+    public long getBestOneRepMaxTimestamp() {
+        return bestOneRepMaxTimestamp;
+    }
+
+    public void setBestOneRepMaxTimestamp(long bestOneRepMaxTimestamp) {
+        this.bestOneRepMaxTimestamp = bestOneRepMaxTimestamp;
+    }
+
+    public double getBestSessionVolume() {
+        return bestSessionVolume;
+    }
+
+    public void setBestSessionVolume(double bestSessionVolume) {
+        this.bestSessionVolume = bestSessionVolume;
+    }
+
+    public String getBestSessionVolumeWorkoutId() {
+        return bestSessionVolumeWorkoutId;
+    }
+
+    public void setBestSessionVolumeWorkoutId(String bestSessionVolumeWorkoutId) {
+        this.bestSessionVolumeWorkoutId = bestSessionVolumeWorkoutId;
+    }
+
+    public long getBestSessionVolumeTimestamp() {
+        return bestSessionVolumeTimestamp;
+    }
+
+    public void setBestSessionVolumeTimestamp(long bestSessionVolumeTimestamp) {
+        this.bestSessionVolumeTimestamp = bestSessionVolumeTimestamp;
+    }
+
+    public long getLastRecordTimestamp() {
+        return lastRecordTimestamp;
+    }
+
+    public void setLastRecordTimestamp(long lastRecordTimestamp) {
+        this.lastRecordTimestamp = lastRecordTimestamp;
+    }
+}
@@ -0,0 +1,93 @@
+package com.jian.simplefit.data.local.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+/**
+ * Entity lưu số lần lặp nhiều nhất của người dùng tại một mức tạ cụ thể
+ * Khóa chính (userId, exerciseId, weight) cho phép tra cứu trực tiếp kỷ lục tại mức tạ đó
+ */
+@Entity(
+        tableName = "rep_records",
+        primaryKeys = {"userId", "exerciseId", "weight"}
+)
+public class RepRecordEntity {
+
+    @NonNull
+    private String userId;
+
+    @NonNull
+    private String exerciseId;
+
+    private double weight;
+
+    private int bestReps;
+
+    private String workoutId;
+
+    private long timestamp;
+
+    /**
+     * Constructor với các trường bắt buộc
+     * @param userId ID của người dùng
+     * @param exerciseId ID của bài tập
+     * @param weight Mức tạ
+     */
+    public RepRecordEntity(@NonNull String userId, @NonNull String exerciseId, double weight) {
+        this.userId = userId;
+        this.exerciseId = exerciseId;
+        this.weight = weight;
+    }
+
+    // Getters and Setters
+
+    @NonNull
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(@NonNull String userId) {
+        this.userId = userId;
+    }
+
+    @NonNull
+    public String getExerciseId() {
+        return exerciseId;
+    }
+
+    public void setExerciseId(@NonNull String exerciseId) {
+        this.exerciseId = exerciseId;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public void setWeight(double weight) {
+        this.weight = weight;
+    }
+
+    public int getBestReps() {
+        return bestReps;
+    }
+
+    public void setBestReps(int bestReps) {
+        this.bestReps = bestReps;
+    }
+
+    public String getWorkoutId() {
+        return workoutId;
+    }
+
+    public void setWorkoutId(String workoutId) {
+        this.workoutId = workoutId;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
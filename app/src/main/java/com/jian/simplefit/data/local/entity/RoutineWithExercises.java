@@ -6,9 +6,10 @@ import androidx.room.Junction;
 import androidx.room.Relation;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 
 /**
  * Lớp quan hệ đại diện cho một thường trình cùng với danh sách bài tập của nó
@@ -29,10 +30,15 @@ public class RoutineWithExercises {
     @Ignore
     private List<ExerciseEntity> exerciseDetails;
 
+    // Map exerciseId -> chi tiết bài tập, được xây dựng một lần khi gán exerciseDetails
+    @Ignore
+    private Map<String, ExerciseEntity> exerciseDetailsMap;
+
     // Constructor không cần thiết cho Room, nhưng hữu ích cho việc tạo thủ công
     public RoutineWithExercises() {
         exercises = new ArrayList<>();
         exerciseDetails = new ArrayList<>();
+        exerciseDetailsMap = Collections.emptyMap();
     }
 
     /**
@@ -81,6 +87,12 @@ public class RoutineWithExercises {
      */
     public void setExerciseDetails(List<ExerciseEntity> exerciseDetails) {
         this.exerciseDetails = exerciseDetails != null ? exerciseDetails : new ArrayList<>();
+
+        Map<String, ExerciseEntity> map = new HashMap<>(this.exerciseDetails.size() * 2);
+        for (ExerciseEntity exercise : this.exerciseDetails) {
+            map.put(exercise.getId(), exercise);
+        }
+        this.exerciseDetailsMap = Collections.unmodifiableMap(map);
     }
 
     /**
@@ -95,16 +107,10 @@ public class RoutineWithExercises {
 
     /**
      * Lấy Map chứa chi tiết bài tập dựa trên exerciseId
-     * @return Map từ exerciseId đến ExerciseEntity
+     * @return Map từ exerciseId đến ExerciseEntity (không thể sửa đổi)
      */
     public Map<String, ExerciseEntity> getExerciseDetailsMap() {
-        Map<String, ExerciseEntity> map = new TreeMap<>();
-        if (exerciseDetails != null) {
-            for (ExerciseEntity exercise : exerciseDetails) {
-                map.put(exercise.getId(), exercise);
-            }
-        }
-        return map;
+        return exerciseDetailsMap;
     }
 
     /**
@@ -113,17 +119,10 @@ public class RoutineWithExercises {
      * @return ExerciseEntity hoặc null nếu không tìm thấy
      */
     public ExerciseEntity findExerciseById(String exerciseId) {
-        if (exerciseDetails == null || exerciseId == null) {
+        if (exerciseId == null) {
             return null;
         }
-
-        for (ExerciseEntity exercise : exerciseDetails) {
-            if (exerciseId.equals(exercise.getId())) {
-                return exercise;
-            }
-        }
-
-        return null;
+        return exerciseDetailsMap.get(exerciseId);
     }
 
     /**
@@ -0,0 +1,82 @@
+package com.jian.simplefit.data.local.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+
+/**
+ * Entity đại diện cho một bài tập yêu thích của người dùng
+ * Bảng liên kết thay cho chuỗi ID phân tách bằng dấu phẩy trong UserEntity
+ * Không khai báo khóa ngoại tới users vì bảng users không được đồng bộ từ Firestore
+ */
+@Entity(
+        tableName = "user_favorite_exercises",
+        primaryKeys = {"userId", "exerciseId"},
+        indices = {
+                @Index("exerciseId")
+        }
+)
+public class UserFavoriteExerciseEntity {
+
+    @NonNull
+    private String userId;
+
+    @NonNull
+    private String exerciseId;
+
+    private long addedAt;
+
+    /**
+     * Constructor với các trường bắt buộc
+     * @param userId ID của người dùng
+     * @param exerciseId ID của bài tập yêu thích
+     */
+    public UserFavoriteExerciseEntity(@NonNull String userId, @NonNull String exerciseId) {
+        this.userId = userId;
+        this.exerciseId = exerciseId;
+        this.addedAt = System.currentTimeMillis();
+    }
+
+    // Getters and Setters
+
+    @NonNull
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(@NonNull String userId) {
+        this.userId = userId;
+    }
+
+    @NonNull
+    public String getExerciseId() {
+        return exerciseId;
+    }
+
+    public void setExerciseId(@NonNull String exerciseId) {
+        this.exerciseId = exerciseId;
+    }
+
+    public long getAddedAt() {
+        return addedAt;
+    }
+
+    public void setAddedAt(long addedAt) {
+        this.addedAt = addedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        UserFavoriteExerciseEntity that = (UserFavoriteExerciseEntity) o;
+        return userId.equals(that.userId) && exerciseId.equals(that.exerciseId);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = userId.hashCode();
+        result = 31 * result + exerciseId.hashCode();
+        return result;
+    }
+}
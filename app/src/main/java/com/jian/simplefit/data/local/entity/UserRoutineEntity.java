@@ -0,0 +1,82 @@
+package com.jian.simplefit.data.local.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+
+/**
+ * Entity đại diện cho một thường trình thuộc về người dùng
+ * Bảng liên kết thay cho chuỗi ID phân tách bằng dấu phẩy trong UserEntity
+ * Không ràng buộc khóa ngoại với users: bảng users không bao giờ được ghi nên phép chèn sẽ bị từ chối
+ */
+@Entity(
+        tableName = "user_routines",
+        primaryKeys = {"userId", "routineId"},
+        indices = {
+                @Index("routineId")
+        }
+)
+public class UserRoutineEntity {
+
+    @NonNull
+    private String userId;
+
+    @NonNull
+    private String routineId;
+
+    private long addedAt;
+
+    /**
+     * Constructor với các trường bắt buộc
+     * @param userId ID của người dùng
+     * @param routineId ID của thường trình
+     */
+    public UserRoutineEntity(@NonNull String userId, @NonNull String routineId) {
+        this.userId = userId;
+        this.routineId = routineId;
+        this.addedAt = System.currentTimeMillis();
+    }
+
+    // Getters and Setters
+
+    @NonNull
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(@NonNull String userId) {
+        this.userId = userId;
+    }
+
+    @NonNull
+    public String getRoutineId() {
+        return routineId;
+    }
+
+    public void setRoutineId(@NonNull String routineId) {
+        this.routineId = routineId;
+    }
+
+    public long getAddedAt() {
+        return addedAt;
+    }
+
+    public void setAddedAt(long addedAt) {
+        this.addedAt = addedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        UserRoutineEntity that = (UserRoutineEntity) o;
+        return userId.equals(that.userId) && routineId.equals(that.routineId);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = userId.hashCode();
+        result = 31 * result + routineId.hashCode();
+        return result;
+    }
+}
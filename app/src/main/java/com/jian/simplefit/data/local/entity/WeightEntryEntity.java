@@ -0,0 +1,86 @@
+package com.jian.simplefit.data.local.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Entity đại diện cho một lần ghi nhận cân nặng của người dùng
+ * Bảng chuỗi thời gian thay cho cột JSON weightHistory trong UserEntity,
+ * chỉ mục (userId, timestamp) phục vụ truy vấn theo khoảng thời gian
+ */
+@Entity(
+        tableName = "weight_history",
+        indices = {
+                @Index(value = {"userId", "timestamp"}, unique = true)
+        }
+)
+public class WeightEntryEntity {
+
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    @NonNull
+    private String userId;
+
+    private long timestamp;
+
+    private float weight; // kg
+
+    /**
+     * Constructor mặc định cho Room
+     */
+    public WeightEntryEntity() {
+        this.userId = "";
+    }
+
+    /**
+     * Constructor với các trường bắt buộc
+     * @param userId ID của người dùng
+     * @param timestamp Thời điểm ghi nhận
+     * @param weight Cân nặng (kg)
+     */
+    @Ignore
+    public WeightEntryEntity(@NonNull String userId, long timestamp, float weight) {
+        this.userId = userId;
+        this.timestamp = timestamp;
+        this.weight = weight;
+    }
+
+    // Getters and Setters
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    @NonNull
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(@NonNull String userId) {
+        this.userId = userId;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public float getWeight() {
+        return weight;
+    }
+
+    public void setWeight(float weight) {
+        this.weight = weight;
+    }
+}
@@ -0,0 +1,23 @@
+package com.jian.simplefit.data.local.entity;
+
+/**
+ * Một điểm (thời điểm, cân nặng) dùng để vẽ biểu đồ, kết quả của các truy vấn lịch sử cân nặng
+ */
+public class WeightPoint {
+
+    private long timestamp;
+    private float weight;
+
+    public WeightPoint(long timestamp, float weight) {
+        this.timestamp = timestamp;
+        this.weight = weight;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public float getWeight() {
+        return weight;
+    }
+}
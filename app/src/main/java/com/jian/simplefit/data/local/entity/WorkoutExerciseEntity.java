@@ -20,13 +20,8 @@ import com.jian.simplefit.util.Converters;
                         parentColumns = "id",
                         childColumns = "workoutId",
                         onDelete = ForeignKey.CASCADE
-                ),
-                @ForeignKey(
-                        entity = ExerciseEntity.class,
-                        parentColumns = "id",
-                        childColumns = "exerciseId",
-                        onDelete = ForeignKey.CASCADE
                 )
+                // Không ràng buộc với bảng exercises: lịch sử tập không được mất khi danh mục bài tập được làm mới
         },
         indices = {
                 @Index("workoutId"),
@@ -10,6 +10,7 @@ import com.jian.simplefit.util.Converters;
 
 /**
  * Entity đại diện cho một set tập trong một bài tập của buổi tập
+ * Chỉ mục (exerciseId, completedTimestamp DESC) phục vụ truy vấn lịch sử gần nhất của từng bài tập
  */
 @Entity(
     tableName = "workout_sets",
@@ -23,7 +24,9 @@ import com.jian.simplefit.util.Converters;
         )
     },
     indices = {
-        @Index({"workoutId", "exerciseId"})
+        @Index({"workoutId", "exerciseId"}),
+        @Index(value = {"exerciseId", "completedTimestamp"},
+               orders = {Index.Order.ASC, Index.Order.DESC})
     }
 )
 @TypeConverters(Converters.class)
@@ -8,6 +8,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -33,6 +34,20 @@ public class WorkoutWithExercises {
     )
     private List<WorkoutSetEntity> sets;
 
+    // Chỉ mục exerciseId -> các set đã sắp xếp theo số thứ tự, xây dựng một lần sau khi Room nạp dữ liệu
+    // Chỉ mục chỉ phụ thuộc vào cấu trúc danh sách; các số liệu được tính từ trạng thái hiện tại của set
+    @Ignore
+    private Map<String, List<WorkoutSetEntity>> setsByExercise;
+
+    @Ignore
+    private List<WorkoutExerciseEntity> sortedExercises;
+
+    private static final Comparator<WorkoutExerciseEntity> EXERCISE_ORDER_COMPARATOR =
+            (o1, o2) -> Integer.compare(o1.getOrder(), o2.getOrder());
+
+    private static final Comparator<WorkoutSetEntity> SET_NUMBER_COMPARATOR =
+            (o1, o2) -> Integer.compare(o1.getSetNumber(), o2.getSetNumber());
+
     // Constructor mặc định
     public WorkoutWithExercises() {
         exercises = new ArrayList<>();
@@ -72,10 +87,10 @@ public class WorkoutWithExercises {
 
     /**
      * Lấy danh sách bài tập trong buổi tập
-     * @return Danh sách WorkoutExerciseEntity
+     * @return Danh sách WorkoutExerciseEntity (không thể sửa đổi, dùng setExercises để thay thế)
      */
     public List<WorkoutExerciseEntity> getExercises() {
-        return exercises;
+        return Collections.unmodifiableList(exercises);
     }
 
     /**
@@ -84,14 +99,15 @@ public class WorkoutWithExercises {
      */
     public void setExercises(List<WorkoutExerciseEntity> exercises) {
         this.exercises = exercises != null ? exercises : new ArrayList<>();
+        invalidateIndex();
     }
 
     /**
      * Lấy danh sách set trong buổi tập
-     * @return Danh sách WorkoutSetEntity
+     * @return Danh sách WorkoutSetEntity (không thể sửa đổi, dùng setSets để thay thế)
      */
     public List<WorkoutSetEntity> getSets() {
-        return sets;
+        return Collections.unmodifiableList(sets);
     }
 
     /**
@@ -100,58 +116,91 @@ public class WorkoutWithExercises {
      */
     public void setSets(List<WorkoutSetEntity> sets) {
         this.sets = sets != null ? sets : new ArrayList<>();
+        invalidateIndex();
+    }
+
+    /**
+     * Xây dựng chỉ mục set theo bài tập trong một lần duyệt
+     * Chỉ mục được giữ lại cho các lần gọi sau cho đến khi danh sách bị thay thế
+     */
+    private void ensureIndex() {
+        if (setsByExercise != null) {
+            return;
+        }
+
+        Map<String, List<WorkoutSetEntity>> grouped = new HashMap<>();
+        for (WorkoutSetEntity set : sets) {
+            List<WorkoutSetEntity> group = grouped.get(set.getExerciseId());
+            if (group == null) {
+                group = new ArrayList<>();
+                grouped.put(set.getExerciseId(), group);
+            }
+            group.add(set);
+        }
+
+        for (Map.Entry<String, List<WorkoutSetEntity>> entry : grouped.entrySet()) {
+            Collections.sort(entry.getValue(), SET_NUMBER_COMPARATOR);
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+
+        List<WorkoutExerciseEntity> sorted = new ArrayList<>(exercises);
+        Collections.sort(sorted, EXERCISE_ORDER_COMPARATOR);
+
+        this.sortedExercises = Collections.unmodifiableList(sorted);
+        this.setsByExercise = grouped;
+    }
+
+    /**
+     * Hủy chỉ mục đã tính để lần truy cập tiếp theo xây dựng lại
+     * Chỉ cần gọi sau khi đổi exerciseId, setNumber hoặc order của một phần tử đã nạp;
+     * thay đổi số lần lặp, mức tạ hay trạng thái hoàn thành không làm chỉ mục cũ đi
+     */
+    public void invalidateIndex() {
+        setsByExercise = null;
+        sortedExercises = null;
     }
 
     /**
      * Lấy danh sách bài tập đã được sắp xếp theo thứ tự
-     * @return Danh sách bài tập đã sắp xếp
+     * @return Danh sách bài tập đã sắp xếp (không thể sửa đổi)
      */
     public List<WorkoutExerciseEntity> getSortedExercises() {
-        List<WorkoutExerciseEntity> sorted = new ArrayList<>(exercises);
-        Collections.sort(sorted, new Comparator<WorkoutExerciseEntity>() {
-            @Override
-            public int compare(WorkoutExerciseEntity o1, WorkoutExerciseEntity o2) {
-                return Integer.compare(o1.getOrder(), o2.getOrder());
-            }
-        });
-        return sorted;
+        ensureIndex();
+        return sortedExercises;
+    }
+
+    /**
+     * Lấy thống kê set của một bài tập cụ thể, tính từ trạng thái hiện tại của các set
+     * Chỉ duyệt các set của bài tập đó nên hiển thị toàn bộ buổi tập có chi phí tuyến tính
+     * @param exerciseId ID của bài tập
+     * @return ExerciseSetStats hoặc thống kê rỗng nếu bài tập không có set nào
+     */
+    public ExerciseSetStats getExerciseStats(String exerciseId) {
+        ensureIndex();
+        List<WorkoutSetEntity> group = setsByExercise.get(exerciseId);
+        return group != null ? new ExerciseSetStats(group) : ExerciseSetStats.EMPTY;
     }
 
     /**
      * Lấy tất cả set của một bài tập cụ thể
      * @param exerciseId ID của bài tập
-     * @return Danh sách các set của bài tập
+     * @return Danh sách các set của bài tập, sắp xếp theo số thứ tự set (không thể sửa đổi)
      */
     public List<WorkoutSetEntity> getSetsByExercise(String exerciseId) {
-        if (sets == null) {
-            return new ArrayList<>();
-        }
-
-        List<WorkoutSetEntity> result = new ArrayList<>();
-        for (WorkoutSetEntity set : sets) {
-            if (set.getExerciseId().equals(exerciseId)) {
-                result.add(set);
-            }
-        }
-
-        Collections.sort(result, new Comparator<WorkoutSetEntity>() {
-            @Override
-            public int compare(WorkoutSetEntity o1, WorkoutSetEntity o2) {
-                return Integer.compare(o1.getSetNumber(), o2.getSetNumber());
-            }
-        });
-
-        return result;
+        ensureIndex();
+        List<WorkoutSetEntity> group = setsByExercise.get(exerciseId);
+        return group != null ? group : Collections.<WorkoutSetEntity>emptyList();
     }
 
     /**
      * Lấy map của bài tập và các set tương ứng
-     * @return Map từ exerciseId đến danh sách set
+     * @return Map từ exerciseId đến danh sách set, theo thứ tự bài tập
      */
     public Map<String, List<WorkoutSetEntity>> getExerciseSetsMap() {
-        Map<String, List<WorkoutSetEntity>> exerciseSetsMap = new HashMap<>();
+        ensureIndex();
+        Map<String, List<WorkoutSetEntity>> exerciseSetsMap = new LinkedHashMap<>();
 
-        for (WorkoutExerciseEntity exercise : exercises) {
+        for (WorkoutExerciseEntity exercise : sortedExercises) {
             exerciseSetsMap.put(exercise.getExerciseId(), getSetsByExercise(exercise.getExerciseId()));
         }
 
@@ -181,17 +230,7 @@ public class WorkoutWithExercises {
      * @return Số set đã hoàn thành
      */
     public int getCompletedSetsCount() {
-        if (sets == null) {
-            return 0;
-        }
-
-        int count = 0;
-        for (WorkoutSetEntity set : sets) {
-            if (set.isCompleted()) {
-                count++;
-            }
-        }
-        return count;
+        return getTotals().getCompletedSets();
     }
 
     /**
@@ -199,17 +238,7 @@ public class WorkoutWithExercises {
      * @return Tổng khối lượng
      */
     public double calculateTotalVolume() {
-        if (sets == null) {
-            return 0;
-        }
-
-        double total = 0;
-        for (WorkoutSetEntity set : sets) {
-            if (set.isCompleted()) {
-                total += set.getWeight() * set.getReps();
-            }
-        }
-        return total;
+        return getTotals().getTotalVolume();
     }
 
     /**
@@ -217,17 +246,15 @@ public class WorkoutWithExercises {
      * @return Tổng số lần lặp lại
      */
     public int calculateTotalReps() {
-        if (sets == null) {
-            return 0;
-        }
+        return getTotals().getTotalReps();
+    }
 
-        int total = 0;
-        for (WorkoutSetEntity set : sets) {
-            if (set.isCompleted()) {
-                total += set.getReps();
-            }
-        }
-        return total;
+    /**
+     * Tính số set, khối lượng và số lần lặp của toàn buổi tập trong một lần duyệt
+     * @return Thống kê của tất cả set (danh sách set không sắp xếp)
+     */
+    public ExerciseSetStats getTotals() {
+        return new ExerciseSetStats(getSets());
     }
 
     /**
@@ -265,8 +292,9 @@ public class WorkoutWithExercises {
             workout.setDurationMinutes(durationMinutes);
 
             // Calculate and update stats
-            workout.setTotalVolume((int) calculateTotalVolume());
-            workout.setTotalReps(calculateTotalReps());
+            ExerciseSetStats totals = getTotals();
+            workout.setTotalVolume((int) totals.getTotalVolume());
+            workout.setTotalReps(totals.getTotalReps());
         }
     }
 
@@ -279,8 +307,9 @@ public class WorkoutWithExercises {
             return null;
         }
 
-        workout.setTotalVolume((int) calculateTotalVolume());
-        workout.setTotalReps(calculateTotalReps());
+        ExerciseSetStats totals = getTotals();
+        workout.setTotalVolume((int) totals.getTotalVolume());
+        workout.setTotalReps(totals.getTotalReps());
 
         return workout;
     }
@@ -356,6 +385,73 @@ public class WorkoutWithExercises {
         return copy;
     }
 
+    /**
+     * Thống kê các set thuộc một bài tập trong buổi tập, chụp tại thời điểm tạo
+     * Danh sách set dùng chung với chỉ mục nên đã được sắp xếp theo số thứ tự
+     */
+    public static final class ExerciseSetStats {
+        static final ExerciseSetStats EMPTY = new ExerciseSetStats(Collections.<WorkoutSetEntity>emptyList());
+
+        private final List<WorkoutSetEntity> sets;
+        private final int completedSets;
+        private final double totalVolume;
+        private final int totalReps;
+
+        ExerciseSetStats(List<WorkoutSetEntity> sets) {
+            int completed = 0;
+            double volume = 0;
+            int reps = 0;
+            for (WorkoutSetEntity set : sets) {
+                if (set.isCompleted()) {
+                    completed++;
+                    volume += set.getWeight() * set.getReps();
+                    reps += set.getReps();
+                }
+            }
+
+            this.sets = sets;
+            this.completedSets = completed;
+            this.totalVolume = volume;
+            this.totalReps = reps;
+        }
+
+        public List<WorkoutSetEntity> getSets() {
+            return sets;
+        }
+
+        public int getTotalSets() {
+            return sets.size();
+        }
+
+        public int getCompletedSets() {
+            return completedSets;
+        }
+
+        public double getTotalVolume() {
+            return totalVolume;
+        }
+
+        public int getTotalReps() {
+            return totalReps;
+        }
+
+        /**
+         * Kiểm tra xem tất cả set của bài tập đã hoàn thành chưa
+         * @return true nếu có ít nhất một set và tất cả đã hoàn thành
+         */
+        public boolean isAllSetsCompleted() {
+            return !sets.isEmpty() && completedSets == sets.size();
+        }
+
+        /**
+         * Tính tỷ lệ hoàn thành của bài tập
+         * @return Tỷ lệ hoàn thành (0-1)
+         */
+        public float getCompletionRate() {
+            return sets.isEmpty() ? 0 : (float) completedSets / sets.size();
+        }
+    }
+
     @Override
     public String toString() {
         return "WorkoutWithExercises{" +
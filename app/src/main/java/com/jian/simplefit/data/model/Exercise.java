@@ -3,11 +3,14 @@ package com.jian.simplefit.data.model;
 import android.os.Parcel;
 import android.os.Parcelable;
 
+import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.DocumentId;
 import com.google.firebase.firestore.Exclude;
 import com.google.firebase.firestore.PropertyName;
+import com.google.firebase.firestore.ServerTimestamp;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -29,6 +32,7 @@ public class Exercise implements Parcelable {
     private String force; // push, pull
     private String mechanicsType; // compound, isolation
     private long createdAt;
+    private Timestamp lastUpdated; // Server time of the last upload, the catalog delta sync cursor together with the document ID
     private String createdBy;
     private String imageResourceName;
     private String instructionResourceName;
@@ -40,6 +44,11 @@ public class Exercise implements Parcelable {
     @Exclude
     private boolean favorite;
 
+    /**
+     * Firestore field holding the last upload time; queried by the catalog delta sync
+     */
+    public static final String FIELD_LAST_UPDATED = "last_updated";
+
     /**
      * Default constructor required for Firestore
      */
@@ -199,6 +208,30 @@ public class Exercise implements Parcelable {
         this.createdAt = createdAt;
     }
 
+    /**
+     * Left null when uploading so Firestore stamps the commit time; a device clock would let the
+     * delta sync miss documents written from a device that runs behind
+     */
+    @ServerTimestamp
+    @PropertyName(FIELD_LAST_UPDATED)
+    public Timestamp getLastUpdated() {
+        return lastUpdated;
+    }
+
+    @PropertyName(FIELD_LAST_UPDATED)
+    public void setLastUpdated(Timestamp lastUpdated) {
+        this.lastUpdated = lastUpdated;
+    }
+
+    /**
+     * Last upload time in epoch millis, as stored in Room
+     * @return Millis, or 0 if the document has never been stamped
+     */
+    @Exclude
+    public long getLastUpdatedMillis() {
+        return lastUpdated != null ? lastUpdated.toDate().getTime() : 0;
+    }
+
     @PropertyName("created_by")
     public String getCreatedBy() {
         return createdBy;
@@ -475,6 +508,8 @@ public class Exercise implements Parcelable {
         primaryMuscleGroup = in.readString();
         imageUrl = in.readString();
         favorite = in.readByte() != 0;
+        long lastUpdatedMillis = in.readLong();
+        lastUpdated = lastUpdatedMillis > 0 ? new Timestamp(new Date(lastUpdatedMillis)) : null;
     }
 
     @Override
@@ -500,6 +535,7 @@ public class Exercise implements Parcelable {
         dest.writeString(primaryMuscleGroup);
         dest.writeString(imageUrl);
         dest.writeByte((byte) (favorite ? 1 : 0));
+        dest.writeLong(getLastUpdatedMillis());
     }
 
     @Override
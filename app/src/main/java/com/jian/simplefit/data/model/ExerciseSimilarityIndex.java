@@ -0,0 +1,225 @@
+package com.jian.simplefit.data.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Top-k most similar exercises for every exercise of the catalog, computed once.
+ * Similarity combines muscle-group overlap, equipment, mechanics type and the compound flag.
+ * Only exercises sharing at least one muscle group are compared, found through a muscle to
+ * exercise inverted index. Neighbours are stored as catalog positions in one flat int array
+ * (k slots per exercise), so a lookup is a hash probe plus a copy of at most k references.
+ */
+public class ExerciseSimilarityIndex {
+
+    // Score weights; muscle overlap dominates so the neighbours always train the same area
+    private static final float WEIGHT_PRIMARY = 3f;
+    private static final float WEIGHT_MUSCLE_OVERLAP = 2f;
+    private static final float WEIGHT_EQUIPMENT = 1f;
+    private static final float WEIGHT_MECHANICS = 0.5f;
+    private static final float WEIGHT_COMPOUND = 0.5f;
+
+    private static final int NO_NEIGHBOUR = -1;
+
+    private final Exercise[] exercises;
+    private final Map<String, Integer> positions;
+    private final int k;
+    // neighbours[i * k .. i * k + k - 1]: catalog positions of the neighbours of exercise i, best first
+    private final int[] neighbours;
+
+    private ExerciseSimilarityIndex(Exercise[] exercises, Map<String, Integer> positions, int k, int[] neighbours) {
+        this.exercises = exercises;
+        this.positions = positions;
+        this.k = k;
+        this.neighbours = neighbours;
+    }
+
+    /**
+     * Build the index from the full catalog
+     * @param catalog Every exercise; entries without an ID are skipped
+     * @param k Neighbours kept per exercise
+     * @return Similarity index
+     */
+    public static ExerciseSimilarityIndex build(List<Exercise> catalog, int k) {
+        List<Exercise> valid = new ArrayList<>();
+        for (Exercise exercise : catalog) {
+            if (exercise != null && exercise.getId() != null) {
+                valid.add(exercise);
+            }
+        }
+
+        int n = valid.size();
+        Exercise[] exercises = valid.toArray(new Exercise[0]);
+        Map<String, Integer> positions = new HashMap<>(n * 2);
+
+        // Muscle groups as small ints, one sorted array per exercise
+        Map<String, Integer> muscleIds = new HashMap<>();
+        int[][] muscles = new int[n][];
+        int[] primaries = new int[n];
+        for (int i = 0; i < n; i++) {
+            Exercise exercise = exercises[i];
+            positions.put(exercise.getId(), i);
+            primaries[i] = exercise.getPrimaryMuscleGroup() != null
+                    ? muscleId(muscleIds, exercise.getPrimaryMuscleGroup()) : NO_NEIGHBOUR;
+            muscles[i] = muscleSet(muscleIds, exercise, primaries[i]);
+        }
+
+        // Inverted index: muscle -> exercises training it
+        List<List<Integer>> byMuscle = new ArrayList<>();
+        for (int m = 0; m < muscleIds.size(); m++) {
+            byMuscle.add(new ArrayList<>());
+        }
+        for (int i = 0; i < n; i++) {
+            for (int m : muscles[i]) {
+                byMuscle.get(m).add(i);
+            }
+        }
+
+        int[] neighbours = new int[n * k];
+        Arrays.fill(neighbours, NO_NEIGHBOUR);
+        float[] topScores = new float[k];
+        // Last exercise a candidate was scored for, so shared muscles do not score it twice
+        int[] scoredFor = new int[n];
+        Arrays.fill(scoredFor, NO_NEIGHBOUR);
+
+        for (int i = 0; i < n; i++) {
+            int base = i * k;
+            int count = 0;
+            for (int m : muscles[i]) {
+                for (int j : byMuscle.get(m)) {
+                    if (j == i || scoredFor[j] == i) {
+                        continue;
+                    }
+                    scoredFor[j] = i;
+                    float score = score(exercises[i], exercises[j], muscles[i], muscles[j],
+                            primaries[i], primaries[j]);
+
+                    // Insert into the sorted top-k slots of exercise i
+                    if (count == k && score <= topScores[k - 1]) {
+                        continue;
+                    }
+                    int slot = count < k ? count++ : k - 1;
+                    while (slot > 0 && topScores[slot - 1] < score) {
+                        topScores[slot] = topScores[slot - 1];
+                        neighbours[base + slot] = neighbours[base + slot - 1];
+                        slot--;
+                    }
+                    topScores[slot] = score;
+                    neighbours[base + slot] = j;
+                }
+            }
+        }
+
+        return new ExerciseSimilarityIndex(exercises, positions, k, neighbours);
+    }
+
+    /**
+     * Most similar exercises, best first
+     * @param exerciseId Exercise to find neighbours for
+     * @param limit Maximum number of results, at most the k the index was built with
+     * @return Similar exercises, never containing the exercise itself; empty if the ID is unknown
+     */
+    public List<Exercise> getSimilar(String exerciseId, int limit) {
+        Integer position = exerciseId != null ? positions.get(exerciseId) : null;
+        if (position == null) {
+            return Collections.emptyList();
+        }
+
+        int base = position * k;
+        int max = Math.min(limit, k);
+        List<Exercise> result = new ArrayList<>(max);
+        for (int slot = 0; slot < max && neighbours[base + slot] != NO_NEIGHBOUR; slot++) {
+            result.add(exercises[neighbours[base + slot]]);
+        }
+        return result;
+    }
+
+    /**
+     * Number of exercises in the index
+     */
+    public int size() {
+        return exercises.length;
+    }
+
+    private static float score(Exercise a, Exercise b, int[] musclesA, int[] musclesB,
+                               int primaryA, int primaryB) {
+        float score = 0;
+        if (primaryA != NO_NEIGHBOUR && primaryA == primaryB) {
+            score += WEIGHT_PRIMARY;
+        }
+
+        // Jaccard overlap of the two sorted muscle sets
+        int shared = 0;
+        int x = 0;
+        int y = 0;
+        while (x < musclesA.length && y < musclesB.length) {
+            if (musclesA[x] == musclesB[y]) {
+                shared++;
+                x++;
+                y++;
+            } else if (musclesA[x] < musclesB[y]) {
+                x++;
+            } else {
+                y++;
+            }
+        }
+        int union = musclesA.length + musclesB.length - shared;
+        if (union > 0) {
+            score += WEIGHT_MUSCLE_OVERLAP * shared / union;
+        }
+
+        if (sameText(a.getEquipment(), b.getEquipment())) {
+            score += WEIGHT_EQUIPMENT;
+        }
+        if (sameText(a.getMechanicsType(), b.getMechanicsType())) {
+            score += WEIGHT_MECHANICS;
+        }
+        if (a.isCompound() == b.isCompound()) {
+            score += WEIGHT_COMPOUND;
+        }
+        return score;
+    }
+
+    private static boolean sameText(String a, String b) {
+        return a != null && !a.isEmpty() && a.equalsIgnoreCase(b);
+    }
+
+    private static int muscleId(Map<String, Integer> muscleIds, String muscle) {
+        Integer id = muscleIds.get(muscle);
+        if (id == null) {
+            id = muscleIds.size();
+            muscleIds.put(muscle, id);
+        }
+        return id;
+    }
+
+    private static int[] muscleSet(Map<String, Integer> muscleIds, Exercise exercise, int primary) {
+        List<String> groups = exercise.getMuscleGroups();
+        int[] ids = new int[(groups != null ? groups.size() : 0) + 1];
+        int count = 0;
+        if (primary != NO_NEIGHBOUR) {
+            ids[count++] = primary;
+        }
+        if (groups != null) {
+            for (String muscle : groups) {
+                if (muscle != null && !muscle.isEmpty()) {
+                    ids[count++] = muscleId(muscleIds, muscle);
+                }
+            }
+        }
+
+        // Sort and drop duplicates (the primary group is usually listed again)
+        Arrays.sort(ids, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || ids[unique - 1] != ids[i]) {
+                ids[unique++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, unique);
+    }
+}
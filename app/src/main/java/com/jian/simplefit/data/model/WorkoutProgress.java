@@ -0,0 +1,161 @@
+package com.jian.simplefit.data.model;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Running totals of an active workout, kept up to date one set event at a time.
+ * The workout is scanned once when the session starts; after that every change to a set
+ * costs O(1): its previous contribution is subtracted and the new one added.
+ * This is the single source for the progress bar, per-exercise completion and the totals
+ * written when the workout is completed.
+ */
+public class WorkoutProgress {
+
+    /**
+     * What a set last contributed to the totals
+     */
+    private static final class Contribution {
+        boolean completed;
+        int reps;
+        double volume;
+    }
+
+    private final List<WorkoutExercise> exercises;
+    // Keyed by identity: WorkoutSet.equals compares field values, which change as the user edits
+    private final Map<WorkoutSet, Contribution> contributions = new IdentityHashMap<>();
+    private final int[] completedPerExercise;
+    private final int[] totalPerExercise;
+
+    private int completedSets;
+    private int totalSets;
+    private int totalReps;
+    private double totalVolume;
+
+    private WorkoutProgress(List<WorkoutExercise> exercises) {
+        this.exercises = exercises;
+        this.completedPerExercise = new int[exercises.size()];
+        this.totalPerExercise = new int[exercises.size()];
+    }
+
+    /**
+     * Build the totals of a workout with a single pass over its sets
+     * @param workout Workout to track; its exercise list must not be replaced afterwards
+     * @return Progress of the workout
+     */
+    public static WorkoutProgress from(Workout workout) {
+        List<WorkoutExercise> exercises = workout != null && workout.getExercises() != null
+                ? workout.getExercises() : new ArrayList<>();
+        WorkoutProgress progress = new WorkoutProgress(exercises);
+        for (int i = 0; i < exercises.size(); i++) {
+            List<WorkoutSet> sets = exercises.get(i).getSets();
+            if (sets == null) {
+                continue;
+            }
+            for (WorkoutSet set : sets) {
+                progress.totalPerExercise[i]++;
+                progress.totalSets++;
+                progress.onSetChanged(i, set);
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Apply a change to one set, e.g. it was checked off or its reps were edited
+     * @param exerciseIndex Position of the set's exercise in the workout
+     * @param set The changed set
+     * @return true if the completed set count changed
+     */
+    public boolean onSetChanged(int exerciseIndex, WorkoutSet set) {
+        if (set == null || exerciseIndex < 0 || exerciseIndex >= exercises.size()) {
+            return false;
+        }
+
+        Contribution contribution = contributions.get(set);
+        if (contribution == null) {
+            contribution = new Contribution();
+            contributions.put(set, contribution);
+        }
+        boolean wasCompleted = contribution.completed;
+
+        // Remove what the set counted for before
+        if (contribution.completed) {
+            completedSets--;
+            completedPerExercise[exerciseIndex]--;
+            totalReps -= contribution.reps;
+            totalVolume -= contribution.volume;
+        }
+
+        // Only completed sets count towards reps and volume
+        contribution.completed = set.isCompleted();
+        contribution.reps = set.getReps();
+        contribution.volume = set.calculateVolume();
+        if (contribution.completed) {
+            completedSets++;
+            completedPerExercise[exerciseIndex]++;
+            totalReps += contribution.reps;
+            totalVolume += contribution.volume;
+        }
+
+        exercises.get(exerciseIndex).setCompleted(isExerciseCompleted(exerciseIndex));
+        return wasCompleted != contribution.completed;
+    }
+
+    /**
+     * Write the totals and completion flags into the workout before saving it
+     * @param workout Workout this progress was built from
+     */
+    public void applyTo(Workout workout) {
+        workout.setTotalReps(totalReps);
+        workout.setTotalVolume((int) Math.round(totalVolume));
+        for (int i = 0; i < exercises.size(); i++) {
+            exercises.get(i).setCompleted(isExerciseCompleted(i));
+        }
+    }
+
+    public int getCompletedSets() {
+        return completedSets;
+    }
+
+    public int getTotalSets() {
+        return totalSets;
+    }
+
+    public int getTotalReps() {
+        return totalReps;
+    }
+
+    public double getTotalVolume() {
+        return totalVolume;
+    }
+
+    /**
+     * Completed sets of one exercise
+     * @param exerciseIndex Position of the exercise in the workout
+     * @return Number of completed sets
+     */
+    public int getCompletedSets(int exerciseIndex) {
+        return completedPerExercise[exerciseIndex];
+    }
+
+    /**
+     * Check if every set of an exercise is completed
+     * @param exerciseIndex Position of the exercise in the workout
+     * @return true if the exercise has sets and all of them are completed
+     */
+    public boolean isExerciseCompleted(int exerciseIndex) {
+        return totalPerExercise[exerciseIndex] > 0
+                && completedPerExercise[exerciseIndex] == totalPerExercise[exerciseIndex];
+    }
+
+    /**
+     * Share of completed sets
+     * @return Percentage of sets completed (0-100)
+     */
+    public int getCompletionPercentage() {
+        return totalSets == 0 ? 0 : completedSets * 100 / totalSets;
+    }
+}
@@ -16,21 +16,29 @@ import com.google.firebase.firestore.FirebaseFirestore;
 import com.jian.simplefit.data.model.User;
 import com.jian.simplefit.data.model.Resource;
 import com.jian.simplefit.util.FirebaseUtils;
+import com.jian.simplefit.util.MetricsRegistry;
 
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+@Singleton
 public class AuthRepository {
 
     private final FirebaseAuth firebaseAuth;
     private final FirebaseFirestore firestore;
+    private final MetricsRegistry metrics;
 
     /**
-     * Constructor
+     * Constructor with the shared Firebase instances
      */
-    public AuthRepository() {
-        firebaseAuth = FirebaseAuth.getInstance();
-        firestore = FirebaseFirestore.getInstance();
+    @Inject
+    public AuthRepository(FirebaseAuth firebaseAuth, FirebaseFirestore firestore, MetricsRegistry metrics) {
+        this.firebaseAuth = firebaseAuth;
+        this.firestore = firestore;
+        this.metrics = metrics;
     }
 
     /**
@@ -64,6 +72,7 @@ public class AuthRepository {
                                             firestore.collection(FirebaseUtils.USERS_COLLECTION)
                                                     .document(user.getUid())
                                                     .set(newUser)
+                                                    .addOnCompleteListener(metrics.trackWrite("auth.register", 1))
                                                     .addOnSuccessListener(aVoid -> {
                                                         resultLiveData.setValue(Resource.success(user));
                                                     })
@@ -119,6 +128,7 @@ public class AuthRepository {
                             firestore.collection(FirebaseUtils.USERS_COLLECTION)
                                     .document(user.getUid())
                                     .update(updates)
+                                    .addOnCompleteListener(metrics.trackWrite("auth.login", 1))
                                     .addOnCompleteListener(updateTask -> {
                                         // We don't care if this fails
                                         resultLiveData.setValue(Resource.success(user));
@@ -163,6 +173,7 @@ public class AuthRepository {
                             firestore.collection(FirebaseUtils.USERS_COLLECTION)
                                     .document(user.getUid())
                                     .get()
+                                    .addOnCompleteListener(metrics.trackDocument("auth.loginWithCredential"))
                                     .addOnCompleteListener(docTask -> {
                                         if (docTask.isSuccessful() && docTask.getResult() != null) {
                                             if (docTask.getResult().exists()) {
@@ -173,6 +184,7 @@ public class AuthRepository {
                                                 firestore.collection(FirebaseUtils.USERS_COLLECTION)
                                                         .document(user.getUid())
                                                         .update(updates)
+                                                        .addOnCompleteListener(metrics.trackWrite("auth.loginWithCredential", 1))
                                                         .addOnCompleteListener(updateTask -> {
                                                             resultLiveData.setValue(Resource.success(user));
                                                         });
@@ -188,6 +200,7 @@ public class AuthRepository {
                                                 firestore.collection(FirebaseUtils.USERS_COLLECTION)
                                                         .document(user.getUid())
                                                         .set(newUser)
+                                                        .addOnCompleteListener(metrics.trackWrite("auth.loginWithCredential", 1))
                                                         .addOnCompleteListener(createTask -> {
                                                             resultLiveData.setValue(Resource.success(user));
                                                         });
@@ -274,6 +287,7 @@ public class AuthRepository {
                             firestore.collection(FirebaseUtils.USERS_COLLECTION)
                                     .document(user.getUid())
                                     .update(updates)
+                                    .addOnCompleteListener(metrics.trackWrite("auth.updateUserDisplayName", 1))
                                     .addOnCompleteListener(firestoreTask -> {
                                         if (firestoreTask.isSuccessful()) {
                                             resultLiveData.setValue(Resource.success(null));
@@ -315,6 +329,7 @@ public class AuthRepository {
             firestore.collection(FirebaseUtils.USERS_COLLECTION)
                     .document(user.getUid())
                     .update(updates)
+                    .addOnCompleteListener(metrics.trackWrite("auth.updateUserAvatar", 1))
                     .addOnCompleteListener(task -> {
                         if (task.isSuccessful()) {
                             resultLiveData.setValue(Resource.success(null));
@@ -363,6 +378,7 @@ public class AuthRepository {
                                             firestore.collection(FirebaseUtils.USERS_COLLECTION)
                                                     .document(user.getUid())
                                                     .update(updates)
+                                                    .addOnCompleteListener(metrics.trackWrite("auth.updateUserEmail", 1))
                                                     .addOnCompleteListener(firestoreTask -> {
                                                         if (firestoreTask.isSuccessful()) {
                                                             resultLiveData.setValue(Resource.success(null));
@@ -493,6 +509,7 @@ public class AuthRepository {
                             firestore.collection(FirebaseUtils.USERS_COLLECTION)
                                     .document(user.getUid())
                                     .delete()
+                                    .addOnCompleteListener(metrics.trackWrite("auth.deleteAccount", 1))
                                     .addOnCompleteListener(firestoreTask -> {
                                         // Now delete the user authentication
                                         user.delete()
@@ -1,61 +1,119 @@
 package com.jian.simplefit.data.remote;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.gson.Gson;
+import com.jian.simplefit.data.local.AppDatabase;
+import com.jian.simplefit.data.local.dao.ExerciseDao;
+import com.jian.simplefit.data.local.entity.CatalogSyncStateEntity;
+import com.jian.simplefit.data.local.entity.ExerciseEntity;
 import com.jian.simplefit.data.model.Exercise;
+import com.jian.simplefit.data.model.ExerciseSimilarityIndex;
 import com.jian.simplefit.data.model.MuscleGroup;
+import com.jian.simplefit.util.AppExecutors;
 import com.jian.simplefit.util.FirebaseUtils;
+import com.jian.simplefit.util.FirestoreBulkWriter;
+import com.jian.simplefit.util.MetricsRegistry;
+import com.jian.simplefit.util.TextSearchIndex;
+import com.jian.simplefit.util.Tracer;
 import com.jian.simplefit.data.model.Resource;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
 /**
- * Repository for accessing exercise data from local assets and Firestore
+ * Repository for accessing exercise data from local assets and Firestore.
+ * A single instance is shared across the process, so the exercise catalog is downloaded
+ * once and every screen reads the same cache.
  */
+@Singleton
 public class ExerciseRepository {
 
     private static final String TAG = "ExerciseRepository";
+    private static final String CACHE_CATALOG = "exercise.catalog";
+    private static final String CACHE_BY_ID = "exercise.byId";
+    private static final String CACHE_SEARCH = "exercise.search";
+
+    // Neighbours kept per exercise in the similarity index
+    public static final int SIMILAR_TOP_K = 10;
+    // Results returned by a local search, best match first
+    public static final int SEARCH_LIMIT = 30;
+    // Bulk upload of the bundled catalog: parallel batches, retries and the stored content hashes
+    private static final int UPLOAD_CONCURRENT_BATCHES = 3;
+    private static final int UPLOAD_ATTEMPTS = 4;
+    private static final long UPLOAD_BACKOFF_MS = 500;
+    private static final String UPLOAD_HASHES_PREFS = "exercise_upload_hashes";
+    private static final Gson GSON = new Gson();
+    // Documents downloaded per page during a catalog sync; each page is one Room transaction
+    private static final int SYNC_PAGE_SIZE = 100;
+    // Row of catalog_sync_state holding the exact cursor of the last sync
+    private static final String SYNC_STATE_NAME = "exercises";
 
     private final FirebaseFirestore firestore;
     private final AuthRepository authRepository;
+    private final MetricsRegistry metrics;
+    private final ExerciseDao exerciseDao;
+    private final AppExecutors executors;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Tracer tracer = Tracer.getInstance();
     private final Map<String, Exercise> exerciseCache;
-    private boolean exercisesLoaded = false;
-
-    /**
-     * Constructor for ExerciseRepository
-     */
-    public ExerciseRepository() {
-        this.firestore = FirebaseFirestore.getInstance();
-        this.authRepository = new AuthRepository();
-        this.exerciseCache = new ConcurrentHashMap<>();
-    }
+    private final AtomicBoolean catalogSyncStarted = new AtomicBoolean();
+    private volatile boolean exercisesLoaded = false;
+
+    // Full catalog ordered by name, set once the whole collection has been loaded
+    private volatile List<Exercise> catalog;
+    // Catalog request in flight, shared by every caller until it completes (main thread only)
+    private MutableLiveData<Resource<List<Exercise>>> pendingCatalog;
+    // Top-k similar exercises, built once from the catalog and dropped when it changes
+    private volatile ExerciseSimilarityIndex similarityIndex;
+    // Trigram index over names and descriptions, built on the first search of a catalog
+    private volatile TextSearchIndex<Exercise> searchIndex;
 
     /**
-     * Constructor with auth repository
+     * Constructor with the shared Firestore instance
+     * @param firestore Firestore instance
      * @param authRepository Auth repository instance
+     * @param metrics Registry for latency, reads and cache hits
+     * @param database Room database holding the bundled exercise catalog
+     * @param executors Shared background executors
      */
-    public ExerciseRepository(AuthRepository authRepository) {
-        this.firestore = FirebaseFirestore.getInstance();
+    @Inject
+    public ExerciseRepository(FirebaseFirestore firestore, AuthRepository authRepository, MetricsRegistry metrics,
+                              AppDatabase database, AppExecutors executors) {
+        this.firestore = firestore;
         this.authRepository = authRepository;
+        this.metrics = metrics;
+        this.exerciseDao = database.exerciseDao();
+        this.executors = executors;
         this.exerciseCache = new ConcurrentHashMap<>();
     }
 
@@ -64,44 +122,211 @@ public class ExerciseRepository {
      * @return LiveData containing list of exercises
      */
     public LiveData<Resource<List<Exercise>>> getAllExercises() {
+        List<Exercise> cachedCatalog = catalog;
+        if (cachedCatalog != null) {
+            // Return cached data if available
+            metrics.cacheHit(CACHE_CATALOG);
+            return new MutableLiveData<>(Resource.success(new ArrayList<>(cachedCatalog)));
+        }
+
+        // Join a request that is already running instead of downloading the catalog twice
+        if (pendingCatalog != null) {
+            metrics.cacheHit(CACHE_CATALOG);
+            return pendingCatalog;
+        }
+        metrics.cacheMiss(CACHE_CATALOG);
+
         MutableLiveData<Resource<List<Exercise>>> result = new MutableLiveData<>();
         result.setValue(Resource.loading("Loading exercises..."));
+        pendingCatalog = result;
+
+        // The catalog ships prebuilt in the Room database, so a cold start needs no network
+        executors.db().execute(() -> {
+            List<Exercise> exercises = readCatalog();
+            if (!exercises.isEmpty()) {
+                mainHandler.post(() -> deliverCatalog(exercises, result));
+                startCatalogSync();
+                return;
+            }
 
-        if (exercisesLoaded && !exerciseCache.isEmpty()) {
-            // Return cached data if available
-            result.setValue(Resource.success(new ArrayList<>(exerciseCache.values())));
-            return result;
-        }
+            // Nothing stored locally yet: wait for a full download
+            catalogSyncStarted.set(true);
+            executors.io().execute(() -> {
+                try {
+                    pullCatalogChanges();
+                    List<Exercise> downloaded = readCatalog();
+                    mainHandler.post(() -> deliverCatalog(downloaded, result));
+                } catch (Exception e) {
+                    Log.e(TAG, "Error getting exercises", e);
+                    catalogSyncStarted.set(false);
+                    mainHandler.post(() -> {
+                        pendingCatalog = null;
+                        result.setValue(Resource.error("Error loading exercises: " + e.getMessage(), null));
+                    });
+                }
+            });
+        });
 
-        firestore.collection(FirebaseUtils.EXERCISES_COLLECTION)
-                .orderBy("name", Query.Direction.ASCENDING)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    List<Exercise> exercises = new ArrayList<>();
+        return result;
+    }
 
-                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        Exercise exercise = document.toObject(Exercise.class);
-                        exercise.setId(document.getId());
+    /**
+     * Pull exercises changed on Firestore since the last sync into Room, in the background.
+     * Runs at most once per process; the in-memory catalog is replaced if anything changed.
+     */
+    public void startCatalogSync() {
+        if (!catalogSyncStarted.compareAndSet(false, true)) {
+            return;
+        }
 
-                        // Use drawable resource name instead of storage URL
-                        if (exercise.getImageUrl() == null || exercise.getImageUrl().isEmpty()) {
-                            String resourceName = "exercise_" + exercise.getName().toLowerCase().replace(" ", "_");
-                            exercise.setImageResourceName(resourceName);
-                        }
+        executors.io().executeBackground(() -> {
+            try {
+                if (pullCatalogChanges() == 0) {
+                    return;
+                }
+                List<Exercise> exercises = readCatalog();
+                mainHandler.post(() -> {
+                    // Callers that have not loaded the catalog yet will read Room anyway
+                    if (catalog != null) {
+                        exerciseCache.clear();
+                        deliverCatalog(exercises, null);
+                    }
+                });
+            } catch (Exception e) {
+                // Keep the local catalog; the next process start retries
+                Log.e(TAG, "Error syncing exercise catalog", e);
+            }
+        });
+    }
 
-                        exercises.add(exercise);
-                        exerciseCache.put(exercise.getId(), exercise);
+    /**
+     * Download the exercises updated after the sync cursor and upsert them into Room.
+     * The cursor is the exact server Timestamp (seconds and nanos) plus the document ID of the last
+     * exercise pulled, so documents sharing one commit time are neither skipped nor pulled again.
+     * Each page and the cursor it advances to are written in one Room transaction.
+     * Without a cursor every document is downloaded, including ones written without an upload time,
+     * and the cursor is stored once the whole collection has been written.
+     * Call from a background thread; blocks on Firestore.
+     * @return Number of exercises written
+     * @throws Exception If a page cannot be downloaded; pages already written are kept
+     */
+    private int pullCatalogChanges() throws Exception {
+        long start = System.nanoTime();
+        CatalogSyncStateEntity cursor = exerciseDao.getSyncStateSync(SYNC_STATE_NAME);
+        Query changes = cursor != null
+                ? firestore.collection(FirebaseUtils.EXERCISES_COLLECTION)
+                        .orderBy(Exercise.FIELD_LAST_UPDATED)
+                        .orderBy(FieldPath.documentId())
+                        .startAfter(new Timestamp(cursor.getLastUpdatedSeconds(), cursor.getLastUpdatedNanos()),
+                                cursor.getLastDocumentId())
+                : firestore.collection(FirebaseUtils.EXERCISES_COLLECTION)
+                        .orderBy(FieldPath.documentId());
+
+        int written = 0;
+        DocumentSnapshot last = null;
+        // Newest stamped document seen by a full download, stored as the cursor once it completes
+        Exercise newest = null;
+        tracer.begin("exercise.syncCatalog");
+        try {
+            while (true) {
+                Query page = last != null ? changes.startAfter(last).limit(SYNC_PAGE_SIZE) : changes.limit(SYNC_PAGE_SIZE);
+                QuerySnapshot snapshot = Tasks.await(page.get()
+                        .addOnCompleteListener(metrics.trackQuery("exercise.syncCatalog")));
+
+                List<ExerciseEntity> entities = new ArrayList<>(snapshot.size());
+                Exercise pageLast = null;
+                for (QueryDocumentSnapshot document : snapshot) {
+                    Exercise exercise = document.toObject(Exercise.class);
+                    exercise.setId(document.getId());
+                    entities.add(toEntity(exercise, exercise.getLastUpdatedMillis()));
+                    pageLast = exercise;
+                    if (isAfter(exercise, newest)) {
+                        newest = exercise;
                     }
+                }
+                boolean done = snapshot.size() < SYNC_PAGE_SIZE;
+                Exercise cursorExercise = cursor != null ? pageLast : done ? newest : null;
+                exerciseDao.insertExercisesWithSyncState(entities, toSyncState(cursorExercise));
+                written += entities.size();
 
-                    exercisesLoaded = true;
-                    result.setValue(Resource.success(exercises));
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error getting exercises", e);
-                    result.setValue(Resource.error("Error loading exercises: " + e.getMessage(), null));
-                });
+                if (done) {
+                    break;
+                }
+                last = snapshot.getDocuments().get(snapshot.size() - 1);
+            }
+        } finally {
+            tracer.end();
+        }
+        metrics.recordLatency("exercise.syncCatalog", start);
+        Log.d(TAG, "Catalog sync " + (cursor != null ? "from " + cursor.getLastUpdatedSeconds()
+                + "." + cursor.getLastUpdatedNanos() + "/" + cursor.getLastDocumentId() : "in full")
+                + ": " + written + " exercises");
+        return written;
+    }
 
-        return result;
+    /**
+     * Order of the incremental sync query: upload time, then document ID
+     */
+    private static boolean isAfter(Exercise exercise, Exercise other) {
+        if (exercise.getLastUpdated() == null) {
+            return false;
+        }
+        if (other == null) {
+            return true;
+        }
+        int byTime = exercise.getLastUpdated().compareTo(other.getLastUpdated());
+        return byTime > 0 || (byTime == 0 && exercise.getId().compareTo(other.getId()) > 0);
+    }
+
+    /**
+     * Sync cursor pointing just past an exercise
+     * @param exercise Last exercise covered, or null to leave the cursor unchanged
+     * @return Cursor row, or null if there is nothing to store
+     */
+    private static CatalogSyncStateEntity toSyncState(Exercise exercise) {
+        if (exercise == null || exercise.getLastUpdated() == null) {
+            return null;
+        }
+        Timestamp lastUpdated = exercise.getLastUpdated();
+        return new CatalogSyncStateEntity(SYNC_STATE_NAME, lastUpdated.getSeconds(),
+                lastUpdated.getNanoseconds(), exercise.getId());
+    }
+
+    /**
+     * Read the stored catalog ordered by name. Call from a background thread.
+     * @return Every exercise in Room, empty if none or on error
+     */
+    private List<Exercise> readCatalog() {
+        long start = System.nanoTime();
+        List<Exercise> exercises = new ArrayList<>();
+        tracer.begin("db.exercise.getAllExercises");
+        try {
+            for (ExerciseEntity entity : exerciseDao.getAllExercisesSync()) {
+                exercises.add(toExercise(entity));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error reading exercises from database", e);
+        } finally {
+            tracer.end();
+        }
+        metrics.recordLatency("db.exercise.getAllExercises", start);
+        return exercises;
+    }
+
+    /**
+     * Publish a catalog read from Room (main thread only)
+     * @param exercises Every exercise, ordered by name
+     * @param result Pending catalog request to complete, or null
+     */
+    private void deliverCatalog(List<Exercise> exercises, MutableLiveData<Resource<List<Exercise>>> result) {
+        for (Exercise exercise : exercises) {
+            exerciseCache.put(exercise.getId(), exercise);
+        }
+        publishCatalog(exercises);
+        if (result != null) {
+            pendingCatalog = null;
+            result.setValue(Resource.success(exercises));
+        }
     }
 
     /**
@@ -154,7 +379,9 @@ public class ExerciseRepository {
                 exerciseCache.put(exercise.getId(), exercise);
             }
 
-            exercisesLoaded = true;
+            List<Exercise> byName = new ArrayList<>(exercises);
+            Collections.sort(byName, (e1, e2) -> e1.getName().compareTo(e2.getName()));
+            publishCatalog(byName);
             result.setValue(Resource.success(exercises));
 
         } catch (IOException e) {
@@ -169,7 +396,9 @@ public class ExerciseRepository {
     }
 
     /**
-     * Populate Firestore with exercises from local assets
+     * Populate Firestore with exercises from local assets.
+     * Exercises are uploaded in parallel batches; the ones unchanged since the last upload
+     * from this install are skipped. Progress is reported as loading messages.
      * @param context Android context
      * @return LiveData containing result of operation
      */
@@ -177,29 +406,39 @@ public class ExerciseRepository {
         MutableLiveData<Resource<Boolean>> result = new MutableLiveData<>();
         result.setValue(Resource.loading("Uploading exercises to Firestore..."));
 
-        loadExercisesFromAssets(context).observeForever(resource -> {
-            if (resource.status == Resource.Status.SUCCESS && resource.data != null) {
-                List<Exercise> exercises = resource.data;
+        // Assets are read synchronously, so the value is already final
+        Resource<List<Exercise>> resource = loadExercisesFromAssets(context).getValue();
+        if (resource == null || resource.status != Resource.Status.SUCCESS || resource.data == null) {
+            result.setValue(Resource.error("Failed to load exercises from assets", false));
+            return result;
+        }
 
-                // Use batched writes to minimize quota usage
-                Map<com.google.firebase.firestore.DocumentReference, Object> operations = new HashMap<>();
+        List<FirestoreBulkWriter.Document> documents = new ArrayList<>(resource.data.size());
+        for (Exercise exercise : resource.data) {
+            // No upload time: the hash covers only the content and Firestore stamps the commit time
+            exercise.setLastUpdated(null);
+            String hash = FirestoreBulkWriter.contentHash(GSON.toJson(exercise));
+            documents.add(new FirestoreBulkWriter.Document(
+                    firestore.collection(FirebaseUtils.EXERCISES_COLLECTION).document(exercise.getId()),
+                    exercise, hash));
+        }
 
-                for (Exercise exercise : exercises) {
-                    com.google.firebase.firestore.DocumentReference docRef =
-                            firestore.collection(FirebaseUtils.EXERCISES_COLLECTION).document(exercise.getId());
-                    operations.put(docRef, exercise);
-                }
+        FirestoreBulkWriter writer = new FirestoreBulkWriter(firestore,
+                context.getSharedPreferences(UPLOAD_HASHES_PREFS, Context.MODE_PRIVATE),
+                FirestoreBulkWriter.MAX_BATCH_SIZE, UPLOAD_CONCURRENT_BATCHES, UPLOAD_ATTEMPTS, UPLOAD_BACKOFF_MS);
+        writer.write(documents, new FirestoreBulkWriter.Listener() {
+            @Override
+            public void onProgress(FirestoreBulkWriter.Progress progress) {
+                result.setValue(Resource.loading("Uploading exercises: " + progress));
+            }
 
-                FirebaseUtils.batchWrite(operations)
-                        .addOnSuccessListener(aVoid -> {
-                            result.setValue(Resource.success(true));
-                        })
-                        .addOnFailureListener(e -> {
-                            Log.e(TAG, "Error uploading exercises to Firestore", e);
-                            result.setValue(Resource.error("Error uploading exercises: " + e.getMessage(), false));
-                        });
-            } else {
-                result.setValue(Resource.error("Failed to load exercises from assets", false));
+            @Override
+            public void onComplete(FirestoreBulkWriter.Progress progress) {
+                if (progress.isSuccessful()) {
+                    result.setValue(Resource.success(true));
+                } else {
+                    result.setValue(Resource.error("Error uploading exercises: " + progress, false));
+                }
             }
         });
 
@@ -217,13 +456,16 @@ public class ExerciseRepository {
 
         // Check cache first
         if (exerciseCache.containsKey(exerciseId)) {
+            metrics.cacheHit(CACHE_BY_ID);
             result.setValue(Resource.success(exerciseCache.get(exerciseId)));
             return result;
         }
+        metrics.cacheMiss(CACHE_BY_ID);
 
         firestore.collection(FirebaseUtils.EXERCISES_COLLECTION)
                 .document(exerciseId)
                 .get()
+                .addOnCompleteListener(metrics.trackDocument("exercise.getExerciseById"))
                 .addOnSuccessListener(documentSnapshot -> {
                     if (documentSnapshot.exists()) {
                         Exercise exercise = documentSnapshot.toObject(Exercise.class);
@@ -266,6 +508,7 @@ public class ExerciseRepository {
                 .whereArrayContains("muscleGroups", muscleGroup)
                 .orderBy("name", Query.Direction.ASCENDING)
                 .get()
+                .addOnCompleteListener(metrics.trackQuery("exercise.getExercisesByMuscleGroup"))
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     List<Exercise> exercises = new ArrayList<>();
 
@@ -306,6 +549,7 @@ public class ExerciseRepository {
                 .whereEqualTo("equipment", equipment)
                 .orderBy("name", Query.Direction.ASCENDING)
                 .get()
+                .addOnCompleteListener(metrics.trackQuery("exercise.getExercisesByEquipment"))
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     List<Exercise> exercises = new ArrayList<>();
 
@@ -334,36 +578,62 @@ public class ExerciseRepository {
     }
 
     /**
-     * Search exercises by name
+     * Search exercises by name and description.
+     * With the catalog loaded the search is local, ignores accents and case and tolerates typos;
+     * otherwise it falls back to a Firestore name prefix query.
      * @param query Search query
-     * @return LiveData containing list of exercises
+     * @return LiveData containing list of exercises, best match first
      */
     public LiveData<Resource<List<Exercise>>> searchExercises(String query) {
         MutableLiveData<Resource<List<Exercise>>> result = new MutableLiveData<>();
         result.setValue(Resource.loading("Searching exercises..."));
 
-        String searchQuery = query.toLowerCase();
-
-        // If cache has data, search locally first
-        if (exercisesLoaded && !exerciseCache.isEmpty()) {
-            List<Exercise> matches = new ArrayList<>();
-
-            for (Exercise exercise : exerciseCache.values()) {
-                if (exercise.getName().toLowerCase().contains(searchQuery)) {
-                    matches.add(exercise);
-                }
+        // If the catalog is loaded, search the local index
+        if (catalog != null) {
+            metrics.cacheHit(CACHE_SEARCH);
+            TextSearchIndex<Exercise> index = searchIndex;
+            if (index != null) {
+                result.setValue(Resource.success(searchLocal(index, query)));
+                return result;
             }
 
-            result.setValue(Resource.success(matches));
+            // First search of this catalog: index it on a background thread
+            executors.cpu().execute(() -> {
+                TextSearchIndex<Exercise> builtIndex = buildSearchIndex();
+                if (builtIndex != null) {
+                    result.postValue(Resource.success(searchLocal(builtIndex, query)));
+                } else {
+                    // The catalog was cleared while the index was queued
+                    mainHandler.post(() -> searchRemote(query, result));
+                }
+            });
             return result;
         }
 
         // Otherwise search in Firestore
+        metrics.cacheMiss(CACHE_SEARCH);
+        searchRemote(query, result);
+        return result;
+    }
+
+    private List<Exercise> searchLocal(TextSearchIndex<Exercise> index, String query) {
+        long start = System.nanoTime();
+        List<Exercise> matches = index.search(query, SEARCH_LIMIT);
+        metrics.recordLatency("exercise.searchExercises.local", start);
+        return matches;
+    }
+
+    /**
+     * Firestore name prefix query, used before the catalog has been loaded
+     */
+    private void searchRemote(String query, MutableLiveData<Resource<List<Exercise>>> result) {
+        String searchQuery = query.toLowerCase();
         firestore.collection(FirebaseUtils.EXERCISES_COLLECTION)
                 .orderBy("name")
                 .startAt(searchQuery)
                 .endAt(searchQuery + "\uf8ff")
                 .get()
+                .addOnCompleteListener(metrics.trackQuery("exercise.searchExercises"))
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     List<Exercise> exercises = new ArrayList<>();
 
@@ -387,8 +657,6 @@ public class ExerciseRepository {
                     Log.e(TAG, "Error searching exercises", e);
                     result.setValue(Resource.error("Error searching exercises: " + e.getMessage(), null));
                 });
-
-        return result;
     }
 
     /**
@@ -424,6 +692,7 @@ public class ExerciseRepository {
         // Execute query
         query.orderBy("name", Query.Direction.ASCENDING)
                 .get()
+                .addOnCompleteListener(metrics.trackQuery("exercise.getFilteredExercises"))
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     List<Exercise> exercises = new ArrayList<>();
 
@@ -524,14 +793,17 @@ public class ExerciseRepository {
 
         // Check cache first
         if (exerciseCache.containsKey(id)) {
+            metrics.cacheHit(CACHE_BY_ID);
             exercises.add(exerciseCache.get(id));
             fetchExercises(ids, index + 1, exercises, result);
             return;
         }
+        metrics.cacheMiss(CACHE_BY_ID);
 
         firestore.collection(FirebaseUtils.EXERCISES_COLLECTION)
                 .document(id)
                 .get()
+                .addOnCompleteListener(metrics.trackDocument("exercise.fetchExercises"))
                 .addOnSuccessListener(documentSnapshot -> {
                     if (documentSnapshot.exists()) {
                         Exercise exercise = documentSnapshot.toObject(Exercise.class);
@@ -559,6 +831,49 @@ public class ExerciseRepository {
                 });
     }
 
+    /**
+     * Look up exercises by ID, blocking until missing ones are downloaded.
+     * Call from a background thread. Exercises that cannot be loaded are left out.
+     * @param exerciseIds Exercise IDs
+     * @return Map from exercise ID to exercise
+     */
+    public Map<String, Exercise> getExercisesByIdsSync(List<String> exerciseIds) {
+        Map<String, Exercise> result = new HashMap<>();
+        if (exerciseIds == null) {
+            return result;
+        }
+
+        for (String id : exerciseIds) {
+            if (id == null || result.containsKey(id)) {
+                continue;
+            }
+
+            Exercise cached = exerciseCache.get(id);
+            if (cached != null) {
+                metrics.cacheHit(CACHE_BY_ID);
+                result.put(id, cached);
+                continue;
+            }
+            metrics.cacheMiss(CACHE_BY_ID);
+
+            try {
+                DocumentSnapshot documentSnapshot = Tasks.await(firestore.collection(FirebaseUtils.EXERCISES_COLLECTION)
+                        .document(id)
+                        .get()
+                        .addOnCompleteListener(metrics.trackDocument("exercise.getExercisesByIdsSync")));
+                Exercise exercise = documentSnapshot.exists() ? documentSnapshot.toObject(Exercise.class) : null;
+                if (exercise != null) {
+                    exercise.setId(documentSnapshot.getId());
+                    exerciseCache.put(id, exercise);
+                    result.put(id, exercise);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error fetching exercise " + id, e);
+            }
+        }
+        return result;
+    }
+
     /**
      * Get list of available equipment types
      * @return LiveData containing list of equipment types
@@ -567,40 +882,47 @@ public class ExerciseRepository {
         MutableLiveData<Resource<List<String>>> result = new MutableLiveData<>();
         result.setValue(Resource.loading("Loading equipment types..."));
 
-        firestore.collection(FirebaseUtils.EXERCISES_COLLECTION)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    Map<String, Boolean> equipmentMap = new HashMap<>();
-
-                    for (DocumentSnapshot document : queryDocumentSnapshots) {
-                        Exercise exercise = document.toObject(Exercise.class);
-                        if (exercise != null && exercise.getEquipment() != null && !exercise.getEquipment().isEmpty()) {
-                            equipmentMap.put(exercise.getEquipment(), true);
-                        }
-                    }
-
-                    List<String> equipmentList = new ArrayList<>(equipmentMap.keySet());
-                    java.util.Collections.sort(equipmentList);
-                    result.setValue(Resource.success(equipmentList));
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error getting equipment types", e);
-                    result.setValue(Resource.error("Error loading equipment types: " + e.getMessage(), null));
-                });
+        // Derived from the local catalog instead of downloading every exercise
+        executors.db().execute(() -> {
+            long start = System.nanoTime();
+            try {
+                result.postValue(Resource.success(exerciseDao.getAllEquipmentTypesSync()));
+            } catch (Exception e) {
+                Log.e(TAG, "Error getting equipment types", e);
+                result.postValue(Resource.error("Error loading equipment types: " + e.getMessage(), null));
+            }
+            metrics.recordLatency("db.exercise.getEquipmentTypes", start);
+        });
 
         return result;
     }
 
     /**
-     * Get list of difficulty levels
-     * @return List of difficulty levels
+     * Get the difficulty levels used by the local catalog, easiest first.
+     * Call from a background thread.
+     * @return List of difficulty levels; every known level if the catalog is empty
      */
     public List<String> getDifficultyLevels() {
         List<String> difficulties = new ArrayList<>();
         difficulties.add("beginner");
         difficulties.add("intermediate");
         difficulties.add("advanced");
-        return difficulties;
+
+        List<String> used = exerciseDao.getAllDifficultiesSync();
+        if (used.isEmpty()) {
+            return difficulties;
+        }
+
+        // Known levels keep their order, unknown ones follow alphabetically
+        List<String> levels = new ArrayList<>();
+        for (String difficulty : difficulties) {
+            if (used.remove(difficulty)) {
+                levels.add(difficulty);
+            }
+        }
+        Collections.sort(used);
+        levels.addAll(used);
+        return levels;
     }
 
     /**
@@ -614,8 +936,140 @@ public class ExerciseRepository {
     /**
      * Clear the exercise cache
      */
-    public void clearCache() {
+    public synchronized void clearCache() {
         exerciseCache.clear();
         exercisesLoaded = false;
+        catalog = null;
+        similarityIndex = null;
+        searchIndex = null;
+    }
+
+    /**
+     * Similarity index of the loaded catalog, if it has been built
+     * @return Index, or null before {@link #buildSimilarityIndex()} has run on the current catalog
+     */
+    public ExerciseSimilarityIndex getSimilarityIndex() {
+        return similarityIndex;
+    }
+
+    /**
+     * Build the similarity index from the loaded catalog, once per catalog.
+     * The index is built outside the lock and only stored if the catalog was not replaced meanwhile,
+     * so a republish never ends up with an index of the previous catalog. Call from a background thread.
+     * @return Index, or null if the catalog has not been loaded
+     */
+    public ExerciseSimilarityIndex buildSimilarityIndex() {
+        List<Exercise> currentCatalog;
+        synchronized (this) {
+            currentCatalog = catalog;
+            if (similarityIndex != null || currentCatalog == null) {
+                return similarityIndex;
+            }
+        }
+
+        long start = System.nanoTime();
+        ExerciseSimilarityIndex index = ExerciseSimilarityIndex.build(currentCatalog, SIMILAR_TOP_K);
+        metrics.recordLatency("exercise.buildSimilarityIndex", start);
+
+        synchronized (this) {
+            if (catalog == currentCatalog && similarityIndex == null) {
+                similarityIndex = index;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Build the search index from the loaded catalog, once per catalog.
+     * Folding and indexing the bundled catalog takes a few milliseconds, so the first search
+     * pays for it and later searches only read the index. As with the similarity index, a build
+     * overtaken by a republish is returned to its caller but not stored. Call from a background thread.
+     * @return Index, or null if the catalog has not been loaded
+     */
+    public TextSearchIndex<Exercise> buildSearchIndex() {
+        List<Exercise> currentCatalog;
+        synchronized (this) {
+            currentCatalog = catalog;
+            if (searchIndex != null || currentCatalog == null) {
+                return searchIndex;
+            }
+        }
+
+        long start = System.nanoTime();
+        TextSearchIndex.Builder<Exercise> builder = new TextSearchIndex.Builder<>();
+        for (Exercise exercise : currentCatalog) {
+            builder.add(exercise, exercise.getName(), exercise.getDescription());
+        }
+        TextSearchIndex<Exercise> index = builder.build();
+        metrics.recordLatency("exercise.buildSearchIndex", start);
+
+        synchronized (this) {
+            if (catalog == currentCatalog && searchIndex == null) {
+                searchIndex = index;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Convert a downloaded exercise into a database row
+     * @param exercise Exercise with its document ID
+     * @param lastUpdated Update time of the document
+     * @return Exercise row
+     */
+    private static ExerciseEntity toEntity(Exercise exercise, long lastUpdated) {
+        List<String> secondary = new ArrayList<>();
+        if (exercise.getMuscleGroups() != null) {
+            for (String muscle : exercise.getMuscleGroups()) {
+                if (muscle != null && !muscle.equals(exercise.getPrimaryMuscleGroup())) {
+                    secondary.add(muscle);
+                }
+            }
+        }
+        return new ExerciseEntity(exercise.getId(), exercise.getName(), exercise.getDescription(),
+                exercise.getMuscleGroups(), exercise.getPrimaryMuscleGroup(), secondary,
+                exercise.getImageUrl(), exercise.getInstructionUrl(), exercise.isCompound(),
+                exercise.getEquipment(), exercise.getDifficulty(), exercise.getCategory(),
+                exercise.getForce(), exercise.getMechanicsType(), exercise.getCreatedBy(), lastUpdated);
+    }
+
+    /**
+     * Convert a database row into the model used by the UI
+     * @param entity Exercise row
+     * @return Exercise
+     */
+    private static Exercise toExercise(ExerciseEntity entity) {
+        Exercise exercise = new Exercise();
+        exercise.setId(entity.getId());
+        exercise.setName(entity.getName());
+        exercise.setDescription(entity.getDescription());
+        exercise.setMuscleGroups(entity.getMuscleGroups());
+        exercise.setPrimaryMuscleGroup(entity.getPrimaryMuscleGroup());
+        exercise.setCompound(entity.isCompound());
+        exercise.setEquipment(entity.getEquipment());
+        exercise.setDifficulty(entity.getDifficulty());
+        exercise.setCategory(entity.getCategory());
+        exercise.setForce(entity.getForce());
+        exercise.setMechanicsType(entity.getMechanicsType());
+        exercise.setCreatedBy(entity.getCreatedBy());
+        exercise.setImageUrl(entity.getImageUrl());
+        exercise.setInstructionUrl(entity.getInstructionUrl());
+
+        String resourceName = entity.getName() != null
+                ? entity.getName().toLowerCase().replace(" ", "_") : entity.getId();
+        exercise.setImageResourceName("exercise_" + resourceName);
+        exercise.setInstructionResourceName("instruction_" + resourceName);
+        return exercise;
+    }
+
+    /**
+     * Store the full catalog for later callers
+     * @param exercises Every exercise, ordered by name
+     */
+    private synchronized void publishCatalog(List<Exercise> exercises) {
+        catalog = Collections.unmodifiableList(new ArrayList<>(exercises));
+        similarityIndex = null;
+        searchIndex = null;
+        exercisesLoaded = true;
     }
 }
\ No newline at end of file
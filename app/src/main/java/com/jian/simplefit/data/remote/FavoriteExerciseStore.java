@@ -0,0 +1,338 @@
+package com.jian.simplefit.data.remote;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+import com.jian.simplefit.data.model.User;
+import com.jian.simplefit.util.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Process-wide, local-first store of the current user's favorite exercises.
+ * Favorites are loaded once per user; toggles update the local set immediately and
+ * are flushed to Firestore as coalesced arrayUnion/arrayRemove writes after a short
+ * debounce window, so repeated taps across a list cost a single commit.
+ * Failed commits are retried with exponential backoff unless the server rejected them for good.
+ */
+@Singleton
+public class FavoriteExerciseStore {
+
+    private static final String TAG = "FavoriteExerciseStore";
+    private static final String USERS_COLLECTION = "users";
+    private static final String FIELD_FAVORITE_EXERCISES = "favoriteExercises";
+    private static final long FLUSH_DEBOUNCE_MS = 2000;
+    private static final long MAX_RETRY_DELAY_MS = 5 * 60 * 1000;
+    private static final String CACHE_NAME = "favorites";
+
+    private final FirebaseAuth firebaseAuth;
+    private final FirebaseFirestore firestore;
+    private final MetricsRegistry metrics;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable flushRunnable = this::flushNow;
+
+    // All state below is guarded by "this"
+    private final Set<String> favorites = new LinkedHashSet<>();
+    private final Set<String> syncedFavorites = new HashSet<>();
+    private final Map<String, Boolean> pendingChanges = new HashMap<>();
+    private String loadedUserId;
+    private Task<Void> loadTask;
+    private int consecutiveFailures;
+
+    private final MutableLiveData<Set<String>> favoritesLiveData =
+            new MutableLiveData<>(Collections.emptySet());
+
+    /**
+     * Constructor with the shared Firebase instances
+     * @param firebaseAuth Auth instance identifying the current user
+     * @param firestore Firestore instance
+     * @param metrics Registry for reads, writes and cache hits
+     */
+    @Inject
+    public FavoriteExerciseStore(FirebaseAuth firebaseAuth, FirebaseFirestore firestore, MetricsRegistry metrics) {
+        this.firebaseAuth = firebaseAuth;
+        this.firestore = firestore;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Load the current user's favorites once. Subsequent calls return the same completed task
+     * until a different user signs in.
+     * @return Task completing when the local set reflects the server state
+     */
+    public synchronized Task<Void> ensureLoaded() {
+        FirebaseUser firebaseUser = firebaseAuth.getCurrentUser();
+        if (firebaseUser == null) {
+            return Tasks.forException(new Exception("User not authenticated"));
+        }
+
+        String userId = firebaseUser.getUid();
+        if (userId.equals(loadedUserId) && loadTask != null && !loadTask.isCanceled()
+                && (!loadTask.isComplete() || loadTask.isSuccessful())) {
+            metrics.cacheHit(CACHE_NAME);
+            return loadTask;
+        }
+        metrics.cacheMiss(CACHE_NAME);
+
+        // Reloading for the same user keeps toggles that have not been written yet
+        if (!userId.equals(loadedUserId)) {
+            resetLocked(userId);
+        }
+
+        TaskCompletionSource<Void> source = new TaskCompletionSource<>();
+        loadTask = source.getTask();
+
+        firestore.collection(USERS_COLLECTION)
+                .document(userId)
+                .get()
+                .addOnCompleteListener(metrics.trackDocument("favorites.ensureLoaded"))
+                .addOnSuccessListener(document -> {
+                    User user = document.exists() ? document.toObject(User.class) : null;
+                    List<String> remote = user != null && user.getFavoriteExercises() != null
+                            ? user.getFavoriteExercises() : new ArrayList<>();
+                    applyRemoteState(userId, remote);
+                    source.trySetResult(null);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error loading favorite exercises: " + e.getMessage(), e);
+                    source.trySetException(e);
+                });
+
+        return loadTask;
+    }
+
+    /**
+     * Check if an exercise is a favorite using the local set only
+     * @param exerciseId ID of the exercise
+     * @return true if favorited
+     */
+    public synchronized boolean isFavorite(String exerciseId) {
+        return favorites.contains(exerciseId);
+    }
+
+    /**
+     * Snapshot of the current favorite IDs
+     * @return List of favorite exercise IDs
+     */
+    public synchronized List<String> getFavorites() {
+        return new ArrayList<>(favorites);
+    }
+
+    /**
+     * Observable set of favorite IDs, updated on every local change
+     * @return LiveData containing an unmodifiable set of favorite exercise IDs
+     */
+    public LiveData<Set<String>> getFavoritesLiveData() {
+        return favoritesLiveData;
+    }
+
+    /**
+     * Toggle an exercise locally and schedule a coalesced remote flush
+     * @param exerciseId ID of the exercise
+     * @return New favorite state
+     */
+    public boolean toggle(String exerciseId) {
+        boolean isNowFavorite;
+        long flushDelay;
+        synchronized (this) {
+            isNowFavorite = !favorites.contains(exerciseId);
+            if (isNowFavorite) {
+                favorites.add(exerciseId);
+            } else {
+                favorites.remove(exerciseId);
+            }
+
+            // Toggling back to the synced state cancels the pending write entirely
+            if (isNowFavorite == syncedFavorites.contains(exerciseId)) {
+                pendingChanges.remove(exerciseId);
+            } else {
+                pendingChanges.put(exerciseId, isNowFavorite);
+            }
+            publishLocked();
+            flushDelay = flushDelayLocked();
+        }
+
+        handler.removeCallbacks(flushRunnable);
+        handler.postDelayed(flushRunnable, flushDelay);
+        return isNowFavorite;
+    }
+
+    /**
+     * Write all pending changes to Firestore immediately in a single batch
+     * @return Task representing the commit, or a completed task if nothing is pending
+     */
+    public Task<Void> flushNow() {
+        handler.removeCallbacks(flushRunnable);
+
+        final String userId;
+        final Map<String, Boolean> batchChanges;
+        synchronized (this) {
+            if (pendingChanges.isEmpty() || loadedUserId == null) {
+                return Tasks.forResult(null);
+            }
+            userId = loadedUserId;
+            batchChanges = new HashMap<>(pendingChanges);
+            pendingChanges.clear();
+        }
+
+        List<Object> added = new ArrayList<>();
+        List<Object> removed = new ArrayList<>();
+        for (Map.Entry<String, Boolean> change : batchChanges.entrySet()) {
+            if (change.getValue()) {
+                added.add(change.getKey());
+            } else {
+                removed.add(change.getKey());
+            }
+        }
+
+        // Merge writes also succeed when the user document does not exist yet
+        DocumentReference userRef = firestore.collection(USERS_COLLECTION).document(userId);
+        WriteBatch batch = firestore.batch();
+        if (!added.isEmpty()) {
+            batch.set(userRef, Collections.singletonMap(FIELD_FAVORITE_EXERCISES,
+                    FieldValue.arrayUnion(added.toArray())), SetOptions.merge());
+        }
+        if (!removed.isEmpty()) {
+            batch.set(userRef, Collections.singletonMap(FIELD_FAVORITE_EXERCISES,
+                    FieldValue.arrayRemove(removed.toArray())), SetOptions.merge());
+        }
+
+        int writes = (added.isEmpty() ? 0 : 1) + (removed.isEmpty() ? 0 : 1);
+        return batch.commit()
+                .addOnCompleteListener(metrics.trackWrite("favorites.flushNow", writes))
+                .addOnSuccessListener(aVoid -> {
+                    synchronized (this) {
+                        if (!userId.equals(loadedUserId)) {
+                            return;
+                        }
+                        consecutiveFailures = 0;
+                        for (Map.Entry<String, Boolean> change : batchChanges.entrySet()) {
+                            if (change.getValue()) {
+                                syncedFavorites.add(change.getKey());
+                            } else {
+                                syncedFavorites.remove(change.getKey());
+                            }
+                        }
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error syncing favorite exercises: " + e.getMessage(), e);
+                    long retryDelay;
+                    synchronized (this) {
+                        if (!userId.equals(loadedUserId)) {
+                            return;
+                        }
+                        if (!isRetryable(e)) {
+                            // Retrying cannot succeed: drop the batch and reload the server state
+                            // so the local set stops showing changes that were never saved
+                            consecutiveFailures = 0;
+                            loadTask = null;
+                            return;
+                        }
+                        // Re-queue changes that were not superseded by newer toggles
+                        for (Map.Entry<String, Boolean> change : batchChanges.entrySet()) {
+                            if (!pendingChanges.containsKey(change.getKey())) {
+                                pendingChanges.put(change.getKey(), change.getValue());
+                            }
+                        }
+                        consecutiveFailures++;
+                        retryDelay = flushDelayLocked();
+                    }
+                    handler.removeCallbacks(flushRunnable);
+                    handler.postDelayed(flushRunnable, retryDelay);
+                });
+    }
+
+    /**
+     * Forget the cached favorites, e.g. after logout
+     */
+    public synchronized void clear() {
+        handler.removeCallbacks(flushRunnable);
+        resetLocked(null);
+    }
+
+    private synchronized void applyRemoteState(String userId, List<String> remote) {
+        if (!userId.equals(loadedUserId)) {
+            return;
+        }
+
+        syncedFavorites.clear();
+        syncedFavorites.addAll(remote);
+
+        // Keep toggles made while the initial load was in flight
+        favorites.clear();
+        favorites.addAll(remote);
+        for (Map.Entry<String, Boolean> change : pendingChanges.entrySet()) {
+            if (change.getValue()) {
+                favorites.add(change.getKey());
+            } else {
+                favorites.remove(change.getKey());
+            }
+        }
+        publishLocked();
+    }
+
+    /**
+     * Debounce window doubled for every consecutive failed commit, capped at MAX_RETRY_DELAY_MS
+     */
+    private long flushDelayLocked() {
+        int shift = Math.min(consecutiveFailures, 8);
+        return Math.min(FLUSH_DEBOUNCE_MS << shift, MAX_RETRY_DELAY_MS);
+    }
+
+    /**
+     * Errors the server will keep returning for the same write
+     */
+    private static boolean isRetryable(Exception e) {
+        if (!(e instanceof FirebaseFirestoreException)) {
+            return true;
+        }
+        switch (((FirebaseFirestoreException) e).getCode()) {
+            case NOT_FOUND:
+            case PERMISSION_DENIED:
+            case INVALID_ARGUMENT:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    private void resetLocked(String userId) {
+        loadedUserId = userId;
+        loadTask = null;
+        consecutiveFailures = 0;
+        favorites.clear();
+        syncedFavorites.clear();
+        pendingChanges.clear();
+        publishLocked();
+    }
+
+    private void publishLocked() {
+        favoritesLiveData.postValue(Collections.unmodifiableSet(new HashSet<>(favorites)));
+    }
+}
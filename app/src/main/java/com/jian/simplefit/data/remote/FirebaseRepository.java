@@ -1,9 +1,9 @@
 package com.jian.simplefit.data.remote;
 
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.FirebaseFirestoreSettings;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
+import com.jian.simplefit.util.MetricsRegistry;
 
 import java.util.Map;
 
@@ -15,20 +15,20 @@ public abstract class FirebaseRepository {
     protected FirebaseFirestore db;
     protected FirebaseStorage storage;
     protected StorageReference storageRef;
+    protected final MetricsRegistry metrics;
 
-    public FirebaseRepository() {
-        // Initialize Firebase Firestore
-        db = FirebaseFirestore.getInstance();
-
-        // Configure Firestore settings
-        FirebaseFirestoreSettings settings = new FirebaseFirestoreSettings.Builder()
-                .setPersistenceEnabled(true)
-                .build();
-        db.setFirestoreSettings(settings);
-
-        // Initialize Firebase Storage
-        storage = FirebaseStorage.getInstance();
-        storageRef = storage.getReference();
+    /**
+     * Constructor with the shared Firebase instances.
+     * Firestore settings are applied once where the instance is provided (see AppModule), not here.
+     * @param db Firestore instance
+     * @param storage Storage instance
+     * @param metrics Registry for latency and read/write counts
+     */
+    public FirebaseRepository(FirebaseFirestore db, FirebaseStorage storage, MetricsRegistry metrics) {
+        this.db = db;
+        this.metrics = metrics;
+        this.storage = storage;
+        this.storageRef = storage.getReference();
     }
 
     /**
@@ -42,6 +42,7 @@ public abstract class FirebaseRepository {
         db.collection(collection)
                 .document()
                 .set(document)
+                .addOnCompleteListener(metrics.trackWrite("firebase.addDocument", 1))
                 .addOnSuccessListener(aVoid -> listener.onSuccess(null))
                 .addOnFailureListener(listener::onFailure);
     }
@@ -58,6 +59,7 @@ public abstract class FirebaseRepository {
         db.collection(collection)
                 .document(id)
                 .set(document)
+                .addOnCompleteListener(metrics.trackWrite("firebase.addDocumentWithId", 1))
                 .addOnSuccessListener(aVoid -> listener.onSuccess(null))
                 .addOnFailureListener(listener::onFailure);
     }
@@ -73,6 +75,7 @@ public abstract class FirebaseRepository {
         db.collection(collection)
                 .document(id)
                 .update(updates)
+                .addOnCompleteListener(metrics.trackWrite("firebase.updateDocument", 1))
                 .addOnSuccessListener(aVoid -> listener.onSuccess(null))
                 .addOnFailureListener(listener::onFailure);
     }
@@ -87,6 +90,7 @@ public abstract class FirebaseRepository {
         db.collection(collection)
                 .document(id)
                 .delete()
+                .addOnCompleteListener(metrics.trackWrite("firebase.deleteDocument", 1))
                 .addOnSuccessListener(aVoid -> listener.onSuccess(null))
                 .addOnFailureListener(listener::onFailure);
     }
@@ -101,6 +105,7 @@ public abstract class FirebaseRepository {
         db.collection(collection)
                 .document(id)
                 .get()
+                .addOnCompleteListener(metrics.trackDocument("firebase.getDocument"))
                 .addOnSuccessListener(documentSnapshot -> {
                     if (documentSnapshot.exists()) {
                         listener.onSuccess(documentSnapshot);
@@ -1,31 +1,58 @@
 package com.jian.simplefit.data.remote;
 
+import androidx.lifecycle.LiveData;
+
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.google.firebase.firestore.WriteBatch;
+import com.google.firebase.storage.FirebaseStorage;
 import com.jian.simplefit.data.model.Exercise;
+import com.jian.simplefit.data.model.Resource;
 import com.jian.simplefit.data.model.Routine;
 import com.jian.simplefit.data.model.RoutineExercise;
+import com.jian.simplefit.util.MetricsRegistry;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
 /**
  * Repository for handling routine data operations with Firebase
  */
+@Singleton
 public class RoutineRepository extends FirebaseRepository {
     private static final String ROUTINES_COLLECTION = "routines";
     private static final String USERS_COLLECTION = "users";
 
-    public RoutineRepository() {
-        super();
+    private final FirebaseAuth auth;
+    private final RoutineStore routineStore;
+
+    @Inject
+    public RoutineRepository(FirebaseFirestore db, FirebaseStorage storage, FirebaseAuth auth,
+                             RoutineStore routineStore, MetricsRegistry metrics) {
+        super(db, storage, metrics);
+        this.auth = auth;
+        this.routineStore = routineStore;
+    }
+
+    /**
+     * Observe the current user's routines through the shared snapshot listener.
+     * The listener is attached once per user; later calls only return the same LiveData.
+     * @return LiveData containing the user's routines, newest first
+     */
+    public LiveData<Resource<List<Routine>>> observeUserRoutines() {
+        routineStore.startListening(getCurrentUserId());
+        return routineStore.getRoutines();
     }
 
     /**
@@ -41,6 +68,7 @@ public class RoutineRepository extends FirebaseRepository {
                 .whereEqualTo("userId", userId)
                 .orderBy("createdAt", Query.Direction.DESCENDING)
                 .get()
+                .addOnCompleteListener(metrics.trackQuery("routine.getUserRoutines"))
                 .continueWith(task -> {
                     if (task.isSuccessful() && task.getResult() != null) {
                         List<Routine> routines = new ArrayList<>();
@@ -102,6 +130,7 @@ public class RoutineRepository extends FirebaseRepository {
         return db.collection(ROUTINES_COLLECTION)
                 .document(routineId)
                 .get()
+                .addOnCompleteListener(metrics.trackDocument("routine.getRoutineById"))
                 .continueWith(task -> {
                     if (task.isSuccessful() && task.getResult() != null && task.getResult().exists()) {
                         Routine routine = task.getResult().toObject(Routine.class);
@@ -165,6 +194,7 @@ public class RoutineRepository extends FirebaseRepository {
         return db.collection(ROUTINES_COLLECTION)
                 .document(routineId)
                 .set(routine)
+                .addOnCompleteListener(metrics.trackWrite("routine.saveRoutine", 1))
                 .continueWith(task -> {
                     if (task.isSuccessful()) {
                         return finalRoutineId;
@@ -188,7 +218,8 @@ public class RoutineRepository extends FirebaseRepository {
         routine.setExercises(exercises);
         return db.collection(ROUTINES_COLLECTION)
                 .document(routine.getId())
-                .set(routine);
+                .set(routine)
+                .addOnCompleteListener(metrics.trackWrite("routine.updateRoutine", 1));
     }
 
     /**
@@ -198,7 +229,8 @@ public class RoutineRepository extends FirebaseRepository {
     public Task<Void> deleteRoutine(String routineId) {
         return db.collection(ROUTINES_COLLECTION)
                 .document(routineId)
-                .delete();
+                .delete()
+                .addOnCompleteListener(metrics.trackWrite("routine.deleteRoutine", 1));
     }
 
     /**
@@ -212,7 +244,8 @@ public class RoutineRepository extends FirebaseRepository {
 
         return db.collection(ROUTINES_COLLECTION)
                 .document(routineId)
-                .update(updates);
+                .update(updates)
+                .addOnCompleteListener(metrics.trackWrite("routine.updateRoutineLastPerformed", 1));
     }
 
     /**
@@ -269,14 +302,16 @@ public class RoutineRepository extends FirebaseRepository {
         DocumentReference userRef = db.collection(USERS_COLLECTION).document(userId);
         batch.update(userRef, "routineIds", routineIds);
 
-        return batch.commit().continueWith(task -> {
-            if (task.isSuccessful()) {
-                return defaultRoutines;
-            } else {
-                throw task.getException() != null ? task.getException()
-                        : new Exception("Failed to create default routines");
-            }
-        });
+        return batch.commit()
+                .addOnCompleteListener(metrics.trackWrite("routine.createDefaultRoutines", defaultRoutines.size() + 1))
+                .continueWith(task -> {
+                    if (task.isSuccessful()) {
+                        return defaultRoutines;
+                    } else {
+                        throw task.getException() != null ? task.getException()
+                                : new Exception("Failed to create default routines");
+                    }
+                });
     }
 
     /**
@@ -434,7 +469,6 @@ public class RoutineRepository extends FirebaseRepository {
      * @return Current user ID or null if not logged in
      */
     public String getCurrentUserId() {
-        FirebaseAuth auth = FirebaseAuth.getInstance();
         return auth.getCurrentUser() != null ? auth.getCurrentUser().getUid() : null;
     }
 
@@ -451,6 +485,7 @@ public class RoutineRepository extends FirebaseRepository {
         return db.collection("exercises")
                 .document(exerciseId)
                 .get()
+                .addOnCompleteListener(metrics.trackDocument("routine.getExerciseById"))
                 .continueWith(task -> {
                     if (!task.isSuccessful() || task.getResult() == null || !task.getResult().exists()) {
                         return null;
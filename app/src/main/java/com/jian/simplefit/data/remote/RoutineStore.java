@@ -0,0 +1,267 @@
+package com.jian.simplefit.data.remote;
+
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.jian.simplefit.data.model.Resource;
+import com.jian.simplefit.data.model.Routine;
+import com.jian.simplefit.data.model.RoutineExercise;
+import com.jian.simplefit.util.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Process-wide, in-memory store of the current user's routines.
+ * A single long-lived snapshot listener per user applies {@link DocumentChange} deltas to a list
+ * kept sorted newest-first, so sorting and filtering never trigger additional Firestore reads.
+ */
+@Singleton
+public class RoutineStore {
+
+    private static final String TAG = "RoutineStore";
+    private static final String ROUTINES_COLLECTION = "routines";
+    private static final String CACHE_NAME = "routines";
+
+    /**
+     * Newest first; ties (including missing creation dates) are broken by ID so the order is total
+     * and binary search can locate any routine.
+     */
+    public static final Comparator<Routine> NEWEST_FIRST = (r1, r2) -> {
+        if (r1.getCreatedAt() != null && r2.getCreatedAt() != null) {
+            int byDate = r2.getCreatedAt().compareTo(r1.getCreatedAt());
+            if (byDate != 0) return byDate;
+        } else if (r1.getCreatedAt() != null) {
+            return -1;
+        } else if (r2.getCreatedAt() != null) {
+            return 1;
+        }
+        return compareIds(r1, r2);
+    };
+
+    /**
+     * Alphabetical by name, ties broken by ID
+     */
+    public static final Comparator<Routine> BY_NAME = (r1, r2) -> {
+        String n1 = r1.getName() != null ? r1.getName() : "";
+        String n2 = r2.getName() != null ? r2.getName() : "";
+        int byName = n1.compareToIgnoreCase(n2);
+        return byName != 0 ? byName : compareIds(r1, r2);
+    };
+
+    private final FirebaseFirestore firestore;
+    private final MetricsRegistry metrics;
+
+    // All state below is guarded by "this"
+    private final Map<String, Routine> routinesById = new HashMap<>();
+    private final List<Routine> sortedRoutines = new ArrayList<>();
+    private ListenerRegistration registration;
+    private String listeningUserId;
+
+    private final MutableLiveData<Resource<List<Routine>>> routinesLiveData =
+            new MutableLiveData<>(Resource.loading(null));
+
+    /**
+     * Constructor with the shared Firestore instance
+     * @param firestore Firestore instance
+     * @param metrics Registry for reads and cache hits
+     */
+    @Inject
+    public RoutineStore(FirebaseFirestore firestore, MetricsRegistry metrics) {
+        this.firestore = firestore;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Attach the routine listener for a user. Calling again for the same user is a no-op;
+     * a different user replaces the listener and clears the store.
+     * @param userId ID of the user whose routines to track
+     */
+    public synchronized void startListening(String userId) {
+        if (userId == null || userId.isEmpty()) {
+            stopListening();
+            routinesLiveData.postValue(Resource.error("User not logged in", null));
+            return;
+        }
+        if (userId.equals(listeningUserId) && registration != null) {
+            metrics.cacheHit(CACHE_NAME);
+            return;
+        }
+        metrics.cacheMiss(CACHE_NAME);
+
+        stopListening();
+        listeningUserId = userId;
+        routinesLiveData.postValue(Resource.loading(null));
+
+        // Sorting happens locally, so the query needs no orderBy or composite index
+        registration = firestore.collection(ROUTINES_COLLECTION)
+                .whereEqualTo("userId", userId)
+                .addSnapshotListener((snapshot, e) -> {
+                    if (e != null) {
+                        Log.e(TAG, "Routine listener failed: " + e.getMessage(), e);
+                        onListenerError(userId, e);
+                        return;
+                    }
+                    if (snapshot != null) {
+                        applyChanges(userId, snapshot);
+                    }
+                });
+    }
+
+    /**
+     * Detach the listener and forget all routines, e.g. after logout
+     */
+    public synchronized void stopListening() {
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+        listeningUserId = null;
+        routinesById.clear();
+        sortedRoutines.clear();
+    }
+
+    /**
+     * Observable list of routines, newest first
+     * @return LiveData containing an unmodifiable routine list
+     */
+    public LiveData<Resource<List<Routine>>> getRoutines() {
+        return routinesLiveData;
+    }
+
+    /**
+     * Look up a routine by ID without a network read
+     * @param routineId ID of the routine
+     * @return The routine, or null if it is not in the store
+     */
+    public synchronized Routine getRoutine(String routineId) {
+        return routinesById.get(routineId);
+    }
+
+    /**
+     * Sort a routine list with a comparator, leaving the input untouched
+     * @param routines Routines to sort
+     * @param comparator Sort order
+     * @return New sorted list
+     */
+    public static List<Routine> sorted(List<Routine> routines, Comparator<Routine> comparator) {
+        List<Routine> result = new ArrayList<>(routines);
+        if (comparator != NEWEST_FIRST) {
+            Collections.sort(result, comparator);
+        }
+        return result;
+    }
+
+    /**
+     * Filter routines whose exercises target a muscle group
+     * @param routines Routines to filter
+     * @param muscleGroupId Muscle group ID
+     * @return Matching routines, order preserved
+     */
+    public static List<Routine> filterByMuscleGroup(List<Routine> routines, String muscleGroupId) {
+        List<Routine> result = new ArrayList<>();
+        for (Routine routine : routines) {
+            if (routine.getExercises() == null) continue;
+            for (RoutineExercise exercise : routine.getExercises()) {
+                if (muscleGroupId.equals(exercise.getMuscleGroupId())) {
+                    result.add(routine);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Filter routines by difficulty
+     * @param routines Routines to filter
+     * @param difficulty Difficulty level
+     * @return Matching routines, order preserved
+     */
+    public static List<Routine> filterByDifficulty(List<Routine> routines, String difficulty) {
+        List<Routine> result = new ArrayList<>();
+        for (Routine routine : routines) {
+            if (difficulty.equals(routine.getDifficulty())) {
+                result.add(routine);
+            }
+        }
+        return result;
+    }
+
+    private synchronized void applyChanges(String userId, QuerySnapshot snapshot) {
+        if (!userId.equals(listeningUserId)) {
+            return;
+        }
+
+        // Listeners are billed per changed document, and at least one read for an empty initial result
+        if (!snapshot.getMetadata().isFromCache()) {
+            metrics.recordReads("routine.listener", Math.max(1, snapshot.getDocumentChanges().size()));
+        }
+
+        for (DocumentChange change : snapshot.getDocumentChanges()) {
+            QueryDocumentSnapshot document = change.getDocument();
+            Routine previous = routinesById.remove(document.getId());
+            if (previous != null) {
+                removeSorted(previous);
+            }
+
+            if (change.getType() == DocumentChange.Type.REMOVED) {
+                continue;
+            }
+
+            Routine routine = document.toObject(Routine.class);
+            if (routine.getId() == null) {
+                routine.setId(document.getId());
+            }
+            routinesById.put(document.getId(), routine);
+            insertSorted(routine);
+        }
+
+        routinesLiveData.postValue(Resource.success(Collections.unmodifiableList(new ArrayList<>(sortedRoutines))));
+    }
+
+    private synchronized void onListenerError(String userId, Exception e) {
+        if (!userId.equals(listeningUserId)) {
+            return;
+        }
+        // Drop the dead registration so the next startListening() re-attaches
+        registration = null;
+        listeningUserId = null;
+        routinesLiveData.postValue(Resource.error("Failed to load routines: " + e.getMessage(),
+                sortedRoutines.isEmpty() ? null : Collections.unmodifiableList(new ArrayList<>(sortedRoutines))));
+    }
+
+    private void insertSorted(Routine routine) {
+        int index = Collections.binarySearch(sortedRoutines, routine, NEWEST_FIRST);
+        sortedRoutines.add(index < 0 ? -(index + 1) : index, routine);
+    }
+
+    private void removeSorted(Routine routine) {
+        int index = Collections.binarySearch(sortedRoutines, routine, NEWEST_FIRST);
+        if (index >= 0) {
+            sortedRoutines.remove(index);
+        } else {
+            sortedRoutines.remove(routine);
+        }
+    }
+
+    private static int compareIds(Routine r1, Routine r2) {
+        String id1 = r1.getId() != null ? r1.getId() : "";
+        String id2 = r2.getId() != null ? r2.getId() : "";
+        return id1.compareTo(id2);
+    }
+}
@@ -1,12 +1,16 @@
 package com.jian.simplefit.data.remote;
 
 import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
 
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
 import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
@@ -18,18 +22,23 @@ import com.google.firebase.firestore.SetOptions;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
 import com.google.firebase.storage.UploadTask;
+import com.jian.simplefit.data.local.AppDatabase;
+import com.jian.simplefit.data.local.dao.UserDao;
 import com.jian.simplefit.data.model.User;
 import com.jian.simplefit.data.model.WorkoutStatistics;
+import com.jian.simplefit.util.AppExecutors;
+import com.jian.simplefit.util.MetricsRegistry;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -43,21 +52,39 @@ public class UserRepository {
     private static final String TAG = "UserRepository";
     private static final String USERS_COLLECTION = "users";
     private static final String PROFILE_IMAGES_PATH = "profile_images";
+    // Longest a logout waits for pending favorite toggles to reach the server
+    private static final long LOGOUT_FLUSH_TIMEOUT_MS = 5000;
 
     private final FirebaseAuth firebaseAuth;
     private final FirebaseFirestore firestore;
     private final FirebaseStorage storage;
-    private final Executor executor;
+    private final FavoriteExerciseStore favoriteStore;
+    private final MetricsRegistry metrics;
+    private final UserDao userDao;
+    private final AppExecutors executors;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Load task whose result was last mirrored into Room, and the mirroring task itself
+    private Task<Void> mirroredFavoritesLoad;
+    private Task<Void> favoritesMirror;
+    // User whose saved routines were last copied into Room, and the copying task
+    private String mirroredRoutinesUserId;
+    private Task<Void> routinesMirror;
 
     /**
      * Constructor with dependency injection
      */
     @Inject
-    public UserRepository() {
-        this.firebaseAuth = FirebaseAuth.getInstance();
-        this.firestore = FirebaseFirestore.getInstance();
-        this.storage = FirebaseStorage.getInstance();
-        this.executor = Executors.newSingleThreadExecutor();
+    public UserRepository(FirebaseAuth firebaseAuth, FirebaseFirestore firestore, FirebaseStorage storage,
+                          FavoriteExerciseStore favoriteStore, MetricsRegistry metrics,
+                          AppDatabase database, AppExecutors executors) {
+        this.firebaseAuth = firebaseAuth;
+        this.firestore = firestore;
+        this.storage = storage;
+        this.favoriteStore = favoriteStore;
+        this.metrics = metrics;
+        this.userDao = database.userDao();
+        this.executors = executors;
     }
 
     /**
@@ -74,6 +101,7 @@ public class UserRepository {
         return firestore.collection(USERS_COLLECTION)
                 .document(firebaseUser.getUid())
                 .get()
+                .addOnCompleteListener(metrics.trackDocument("user.getCurrentUser"))
                 .continueWith(task -> {
                     if (!task.isSuccessful() || task.getResult() == null) {
                         throw new Exception("Failed to fetch user data: " +
@@ -83,6 +111,13 @@ public class UserRepository {
                     DocumentSnapshot document = task.getResult();
                     if (document.exists()) {
                         User user = document.toObject(User.class);
+                        if (user != null) {
+                            List<String> routineIds = user.getRoutineIds() != null
+                                    ? new ArrayList<>(user.getRoutineIds()) : new ArrayList<>();
+                            // Refresh the local user_routines table used for membership checks
+                            executors.db().executeBackground(() ->
+                                    userDao.replaceUserRoutines(firebaseUser.getUid(), routineIds));
+                        }
                         return user;
                     } else {
                         // User document doesn't exist, create a new one
@@ -115,7 +150,8 @@ public class UserRepository {
 
         return firestore.collection(USERS_COLLECTION)
                 .document(userId)
-                .set(user, SetOptions.merge());
+                .set(user, SetOptions.merge())
+                .addOnCompleteListener(metrics.trackWrite("user.saveUserProfile", 1));
     }
 
     /**
@@ -132,7 +168,8 @@ public class UserRepository {
 
         return firestore.collection(USERS_COLLECTION)
                 .document(firebaseUser.getUid())
-                .update(updates);
+                .update(updates)
+                .addOnCompleteListener(metrics.trackWrite("user.updateUserProfile", 1));
     }
 
     /**
@@ -269,9 +306,11 @@ public class UserRepository {
         DocumentReference userRef = firestore.collection(USERS_COLLECTION)
                 .document(firebaseUser.getUid());
 
-        return firestore.runTransaction(transaction -> {
+        String userId = firebaseUser.getUid();
+        Task<Void> update = firestore.runTransaction(transaction -> {
             try {
                 DocumentSnapshot snapshot = transaction.get(userRef);
+                metrics.recordReads("user.addRoutineToUser", 1);
                 User user = snapshot.toObject(User.class);
 
                 if (user == null) {
@@ -286,6 +325,7 @@ public class UserRepository {
                 if (!routineIds.contains(routineId)) {
                     routineIds.add(routineId);
                     transaction.update(userRef, "routineIds", routineIds);
+                    metrics.recordWrites("user.addRoutineToUser", 1);
                 }
 
                 return null;
@@ -298,6 +338,11 @@ public class UserRepository {
                 }
             }
         });
+        // Mirror into the local user_routines table once Firestore has accepted the change
+        return update.onSuccessTask(executors.db(), aVoid -> {
+            userDao.addRoutineToUser(userId, routineId);
+            return Tasks.forResult(null);
+        });
     }
 
     /**
@@ -315,9 +360,11 @@ public class UserRepository {
         DocumentReference userRef = firestore.collection(USERS_COLLECTION)
                 .document(firebaseUser.getUid());
 
-        return firestore.runTransaction(transaction -> {
+        String userId = firebaseUser.getUid();
+        Task<Void> update = firestore.runTransaction(transaction -> {
             try {
                 DocumentSnapshot snapshot = transaction.get(userRef);
+                metrics.recordReads("user.removeRoutineFromUser", 1);
                 User user = snapshot.toObject(User.class);
 
                 if (user == null) {
@@ -328,6 +375,7 @@ public class UserRepository {
                 if (routineIds != null && routineIds.contains(routineId)) {
                     routineIds.remove(routineId);
                     transaction.update(userRef, "routineIds", routineIds);
+                    metrics.recordWrites("user.removeRoutineFromUser", 1);
                 }
 
                 return null;
@@ -340,121 +388,121 @@ public class UserRepository {
                 }
             }
         });
+        return update.onSuccessTask(executors.db(), aVoid -> {
+            userDao.removeRoutineFromUser(userId, routineId);
+            return Tasks.forResult(null);
+        });
     }
 
     /**
-     * Toggle favorite status of an exercise
+     * Check if a routine is saved by the current user, using the local user_routines table.
+     * Only the first call per user touches the network, to copy the saved routines into Room.
+     * @param routineId ID of the routine
+     * @return Task containing true if the routine is saved
+     */
+    public Task<Boolean> isRoutineSaved(String routineId) {
+        return ensureRoutinesMirrored()
+                .continueWith(executors.db(), task -> {
+                    if (!task.isSuccessful()) {
+                        throw task.getException();
+                    }
+                    return userDao.isUserRoutine(requireUserId(), routineId);
+                });
+    }
+
+    /**
+     * Toggle favorite status of an exercise.
+     * The local favorite set and the user_favorite_exercises table are updated immediately;
+     * the change is synced to Firestore in a coalesced batch by {@link FavoriteExerciseStore}.
      * @param exerciseId ID of the exercise
      * @return Task containing a boolean indicating if the exercise is now favorited
      */
     public Task<Boolean> toggleFavoriteExercise(String exerciseId) {
-        FirebaseUser firebaseUser = firebaseAuth.getCurrentUser();
-
-        if (firebaseUser == null) {
-            return Tasks.forException(new Exception("User not authenticated"));
-        }
-
-        DocumentReference userRef = firestore.collection(USERS_COLLECTION)
-                .document(firebaseUser.getUid());
-
-        return firestore.runTransaction(transaction -> {
-            try {
-                DocumentSnapshot snapshot = transaction.get(userRef);
-                User user = snapshot.toObject(User.class);
-
-                if (user == null) {
-                    throw new Exception("User data not found");
-                }
-
-                List<String> favoriteExercises = user.getFavoriteExercises();
-                if (favoriteExercises == null) {
-                    favoriteExercises = new ArrayList<>();
-                }
-
-                boolean isNowFavorite;
-                if (favoriteExercises.contains(exerciseId)) {
-                    favoriteExercises.remove(exerciseId);
-                    isNowFavorite = false;
-                } else {
-                    favoriteExercises.add(exerciseId);
-                    isNowFavorite = true;
-                }
-
-                transaction.update(userRef, "favoriteExercises", favoriteExercises);
-                return isNowFavorite;
-            } catch (Exception e) {
-                Log.e(TAG, "Error toggling favorite exercise: " + e.getMessage(), e);
-                try {
-                    throw e;
-                } catch (Exception ex) {
-                    throw new RuntimeException(ex);
-                }
-            }
-        });
+        return ensureFavoritesMirrored()
+                .continueWith(executors.db(), task -> {
+                    if (!task.isSuccessful()) {
+                        throw task.getException();
+                    }
+                    String userId = requireUserId();
+                    boolean isNowFavorite = favoriteStore.toggle(exerciseId);
+                    if (isNowFavorite) {
+                        userDao.addFavoriteExercise(userId, exerciseId);
+                    } else {
+                        userDao.removeFavoriteExercise(userId, exerciseId);
+                    }
+                    return isNowFavorite;
+                });
     }
 
     /**
-     * Check if an exercise is favorited by the user
+     * Check if an exercise is favorited by the user.
+     * Served by a primary key lookup in Room; only the first call per user touches the network.
      * @param exerciseId ID of the exercise
      * @return Task containing boolean indicating if the exercise is favorited
      */
     public Task<Boolean> isExerciseFavorited(String exerciseId) {
-        FirebaseUser firebaseUser = firebaseAuth.getCurrentUser();
-
-        if (firebaseUser == null) {
-            return Tasks.forException(new Exception("User not authenticated"));
-        }
-
-        return firestore.collection(USERS_COLLECTION)
-                .document(firebaseUser.getUid())
-                .get()
-                .continueWith(task -> {
-                    if (!task.isSuccessful() || task.getResult() == null) {
-                        throw new Exception("Failed to fetch user data");
-                    }
-
-                    DocumentSnapshot document = task.getResult();
-                    if (document.exists()) {
-                        User user = document.toObject(User.class);
-                        if (user != null) {
-                            List<String> favoriteExercises = user.getFavoriteExercises();
-                            return favoriteExercises != null && favoriteExercises.contains(exerciseId);
-                        }
+        return ensureFavoritesMirrored()
+                .continueWith(executors.db(), task -> {
+                    if (!task.isSuccessful()) {
+                        throw task.getException();
                     }
-
-                    return false;
+                    return userDao.isFavoriteExercise(requireUserId(), exerciseId);
                 });
     }
 
     /**
      * Get user's favorite exercises
-     * @return Task containing a list of favorite exercise IDs
+     * @return Task containing a list of favorite exercise IDs in the order they were added
      */
     public Task<List<String>> getFavoriteExercises() {
-        FirebaseUser firebaseUser = firebaseAuth.getCurrentUser();
+        return ensureFavoritesMirrored()
+                .continueWith(executors.db(), task -> {
+                    if (!task.isSuccessful()) {
+                        throw task.getException();
+                    }
+                    return userDao.getFavoriteExerciseIdsSync(requireUserId());
+                });
+    }
 
+    /**
+     * Observe the favorite exercise IDs stored in Room
+     * @return LiveData containing the set of favorite exercise IDs
+     */
+    public LiveData<Set<String>> getFavoriteExerciseIds() {
+        FirebaseUser firebaseUser = firebaseAuth.getCurrentUser();
         if (firebaseUser == null) {
-            return Tasks.forException(new Exception("User not authenticated"));
+            return new MutableLiveData<>(Collections.emptySet());
         }
 
-        return firestore.collection(USERS_COLLECTION)
-                .document(firebaseUser.getUid())
-                .get()
-                .continueWith(task -> {
-                    if (!task.isSuccessful() || task.getResult() == null) {
-                        throw new Exception("Failed to fetch user data");
-                    }
+        ensureFavoritesMirrored();
+        return Transformations.map(userDao.getFavoriteExerciseIds(firebaseUser.getUid()),
+                ids -> Collections.unmodifiableSet(new HashSet<>(ids)));
+    }
 
-                    DocumentSnapshot document = task.getResult();
-                    if (document.exists()) {
-                        User user = document.toObject(User.class);
-                        if (user != null && user.getFavoriteExercises() != null) {
-                            return user.getFavoriteExercises();
-                        }
-                    }
+    /**
+     * Push any pending favorite changes to Firestore without waiting for the debounce window
+     * @return Task representing the sync
+     */
+    public Task<Void> flushFavoriteChanges() {
+        return favoriteStore.flushNow();
+    }
 
-                    return new ArrayList<String>();
-                });
+    /**
+     * Push pending favorite changes, then forget the local favorites, e.g. before signing out.
+     * Offline the commit is only acknowledged once the device reconnects, so the wait is bounded;
+     * Firestore keeps the queued write and sends it when this user signs in again.
+     * @return Task completing once the store has been cleared
+     */
+    public Task<Void> flushAndClearFavorites() {
+        TaskCompletionSource<Void> cleared = new TaskCompletionSource<>();
+        Runnable clear = () -> {
+            if (cleared.trySetResult(null)) {
+                favoriteStore.clear();
+            }
+        };
+        favoriteStore.flushNow().addOnCompleteListener(task -> clear.run());
+        mainHandler.postDelayed(clear, LOGOUT_FLUSH_TIMEOUT_MS);
+        return cleared.getTask();
     }
 
     /**
@@ -492,7 +540,8 @@ public class UserRepository {
         Map<String, Object> updates = new HashMap<>();
         updates.put("stats.totalWorkouts", FieldValue.increment(1));
 
-        return userRef.update(updates);
+        return userRef.update(updates)
+                .addOnCompleteListener(metrics.trackWrite("user.incrementWorkoutCount", 1));
     }
 
     /**
@@ -513,6 +562,73 @@ public class UserRepository {
         Map<String, Object> updates = new HashMap<>();
         updates.put("stats.totalMinutes", FieldValue.increment(minutes));
 
-        return userRef.update(updates);
+        return userRef.update(updates)
+                .addOnCompleteListener(metrics.trackWrite("user.addWorkoutMinutes", 1));
+    }
+
+    /**
+     * Load the favorites from Firestore once per user and copy them into the
+     * user_favorite_exercises table, so Room answers every later lookup.
+     * @return Task completing once Room holds the user's favorites
+     */
+    private synchronized Task<Void> ensureFavoritesMirrored() {
+        Task<Void> load = favoriteStore.ensureLoaded();
+        if (load != mirroredFavoritesLoad) {
+            mirroredFavoritesLoad = load;
+            favoritesMirror = load.continueWith(executors.db(), task -> {
+                if (!task.isSuccessful()) {
+                    throw task.getException();
+                }
+                // Includes toggles made while the load was in flight
+                userDao.replaceFavoriteExercises(requireUserId(), favoriteStore.getFavorites());
+                return null;
+            });
+        }
+        return favoritesMirror;
+    }
+
+    /**
+     * Copy the current user's saved routine IDs from Firestore into the user_routines table,
+     * once per user, so membership checks never answer from an empty table on a new device.
+     * A failed copy is retried by the next call.
+     * @return Task completing once Room holds the user's saved routines
+     */
+    private synchronized Task<Void> ensureRoutinesMirrored() {
+        FirebaseUser firebaseUser = firebaseAuth.getCurrentUser();
+        if (firebaseUser == null) {
+            return Tasks.forException(new Exception("User not authenticated"));
+        }
+
+        String userId = firebaseUser.getUid();
+        if (userId.equals(mirroredRoutinesUserId) && routinesMirror != null
+                && (!routinesMirror.isComplete() || routinesMirror.isSuccessful())) {
+            return routinesMirror;
+        }
+
+        mirroredRoutinesUserId = userId;
+        routinesMirror = firestore.collection(USERS_COLLECTION)
+                .document(userId)
+                .get()
+                .addOnCompleteListener(metrics.trackDocument("user.mirrorRoutines"))
+                .continueWith(executors.db(), task -> {
+                    if (!task.isSuccessful()) {
+                        throw task.getException();
+                    }
+                    DocumentSnapshot document = task.getResult();
+                    User user = document.exists() ? document.toObject(User.class) : null;
+                    List<String> routineIds = user != null && user.getRoutineIds() != null
+                            ? user.getRoutineIds() : new ArrayList<>();
+                    userDao.replaceUserRoutines(userId, routineIds);
+                    return null;
+                });
+        return routinesMirror;
+    }
+
+    private String requireUserId() throws Exception {
+        FirebaseUser firebaseUser = firebaseAuth.getCurrentUser();
+        if (firebaseUser == null) {
+            throw new Exception("User not authenticated");
+        }
+        return firebaseUser.getUid();
     }
-}
\ No newline at end of file
+}
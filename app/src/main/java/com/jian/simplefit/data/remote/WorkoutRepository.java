@@ -4,17 +4,22 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
-import com.jian.simplefit.data.model.User;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+import com.google.firebase.storage.FirebaseStorage;
 import com.jian.simplefit.data.model.Workout;
 import com.jian.simplefit.data.model.WorkoutExercise;
 import com.jian.simplefit.data.model.Resource;
+import com.jian.simplefit.util.MetricsRegistry;
 
 import java.util.ArrayList;
 import java.util.Date;
@@ -22,39 +27,45 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
 /**
  * Repository for workout related operations.
  * Handles CRUD operations for workout data in Firestore.
  */
+@Singleton
 public class WorkoutRepository extends FirebaseRepository {
 
     private static final String WORKOUTS_COLLECTION = "workouts";
     private static final String USERS_COLLECTION = "users";
+    private static final String FIELD_WORKOUT_HISTORY = "workoutHistory";
     private final FirebaseAuth auth;
     private final AuthRepository authRepository;
 
     /**
-     * Constructor initializes Firebase instances
+     * Constructor with the shared Firebase instances
      */
-    public WorkoutRepository(AuthRepository authRepository) {
-        super();
-        this.auth = FirebaseAuth.getInstance();
+    @Inject
+    public WorkoutRepository(FirebaseFirestore db, FirebaseStorage storage, FirebaseAuth auth,
+                             AuthRepository authRepository, MetricsRegistry metrics) {
+        super(db, storage, metrics);
+        this.auth = auth;
         this.authRepository = authRepository;
     }
 
     /**
-     * Creates a new workout in Firestore
+     * Creates a new workout in Firestore.
+     * The document ID is generated locally and assigned to {@code workout} before this method
+     * returns, so callers can use it immediately. The workout and the user-history update are
+     * committed together in a single batch.
      * @param workout The workout to create
-     * @return LiveData containing the created workout ID
+     * @return Task representing the commit
      */
-    public LiveData<Resource<String>> createWorkout(Workout workout) {
-        MutableLiveData<Resource<String>> result = new MutableLiveData<>();
-        result.setValue(Resource.loading(null));
-
+    public Task<Void> createWorkout(Workout workout) {
         String userId = authRepository.getCurrentUserId();
-        if (userId.isEmpty()) {
-            result.setValue(Resource.error("User not logged in", null));
-            return result;
+        if (userId == null || userId.isEmpty()) {
+            return Tasks.forException(new Exception("User not logged in"));
         }
 
         // Set user ID and creation date if not already set
@@ -63,26 +74,17 @@ public class WorkoutRepository extends FirebaseRepository {
             workout.setDate(new Date());
         }
 
-        // Add to Firestore
-        db.collection(WORKOUTS_COLLECTION)
-                .add(workout)
-                .addOnSuccessListener(documentReference -> {
-                    String workoutId = documentReference.getId();
-
-                    // Update the workout with its ID
-                    documentReference.update("id", workoutId);
+        // Generate the ID client-side so the first write already contains it
+        DocumentReference workoutRef = db.collection(WORKOUTS_COLLECTION).document();
+        workout.setId(workoutRef.getId());
 
-                    // Add workout to user's history
-                    addWorkoutToUserHistory(userId, workoutId);
+        WriteBatch batch = db.batch();
+        batch.set(workoutRef, workout);
+        addWorkoutToUserHistory(batch, userId, workoutRef.getId());
 
-                    result.setValue(Resource.success(workoutId));
-                })
-                .addOnFailureListener(e -> {
-                    handleError("creating workout", e);
-                    result.setValue(Resource.error("Failed to create workout: " + e.getMessage(), null));
-                });
-
-        return result;
+        return batch.commit()
+                .addOnCompleteListener(metrics.trackWrite("workout.createWorkout", 2))
+                .addOnFailureListener(e -> handleError("creating workout", e));
     }
 
     private void handleError(String creatingWorkout, Exception e) {
@@ -101,35 +103,33 @@ public class WorkoutRepository extends FirebaseRepository {
         return db.collection(WORKOUTS_COLLECTION)
                 .document(workout.getId())
                 .set(workout)
+                .addOnCompleteListener(metrics.trackWrite("workout.updateWorkout", 1))
                 .addOnFailureListener(e -> handleError("updating workout", e));
     }
 
     /**
-     * Adds a workout ID to a user's workout history
+     * Adds a workout ID to a user's workout history as part of a batch.
+     * Uses a server-side arrayUnion so concurrent saves cannot drop IDs.
+     * @param batch The batch to add the write to
      * @param userId The user ID
      * @param workoutId The workout ID to add
      */
-    private void addWorkoutToUserHistory(String userId, String workoutId) {
-        db.collection(USERS_COLLECTION)
-                .document(userId)
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    User user = documentSnapshot.toObject(User.class);
-                    if (user != null) {
-                        List<String> history = user.getWorkoutHistory();
-                        if (history == null) {
-                            history = new ArrayList<>();
-                        }
-                        history.add(workoutId);
+    private void addWorkoutToUserHistory(WriteBatch batch, String userId, String workoutId) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(FIELD_WORKOUT_HISTORY, FieldValue.arrayUnion(workoutId));
+        batch.set(db.collection(USERS_COLLECTION).document(userId), updates, SetOptions.merge());
+    }
 
-                        // Update user document
-                        db.collection(USERS_COLLECTION)
-                                .document(userId)
-                                .update("workoutHistory", history)
-                                .addOnFailureListener(e -> handleError("adding workout to user history", e));
-                    }
-                })
-                .addOnFailureListener(e -> handleError("fetching user for workout history update", e));
+    /**
+     * Removes a workout ID from a user's workout history as part of a batch
+     * @param batch The batch to add the write to
+     * @param userId The user ID
+     * @param workoutId The workout ID to remove
+     */
+    private void removeWorkoutFromUserHistory(WriteBatch batch, String userId, String workoutId) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(FIELD_WORKOUT_HISTORY, FieldValue.arrayRemove(workoutId));
+        batch.set(db.collection(USERS_COLLECTION).document(userId), updates, SetOptions.merge());
     }
 
     /**
@@ -144,6 +144,7 @@ public class WorkoutRepository extends FirebaseRepository {
         db.collection(WORKOUTS_COLLECTION)
                 .document(workoutId)
                 .get()
+                .addOnCompleteListener(metrics.trackDocument("workout.getWorkout"))
                 .addOnSuccessListener(documentSnapshot -> {
                     if (documentSnapshot.exists()) {
                         Workout workout = documentSnapshot.toObject(Workout.class);
@@ -178,6 +179,7 @@ public class WorkoutRepository extends FirebaseRepository {
                 .whereEqualTo("userId", userId)
                 .orderBy("date", Query.Direction.DESCENDING)
                 .get()
+                .addOnCompleteListener(metrics.trackQuery("workout.getUserWorkouts"))
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     List<Workout> workouts = new ArrayList<>();
                     for (DocumentSnapshot document : queryDocumentSnapshots) {
@@ -221,6 +223,7 @@ public class WorkoutRepository extends FirebaseRepository {
                 .whereLessThanOrEqualTo("date", endTimestamp)
                 .orderBy("date", Query.Direction.DESCENDING)
                 .get()
+                .addOnCompleteListener(metrics.trackQuery("workout.getWorkoutsInDateRange"))
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     List<Workout> workouts = new ArrayList<>();
                     for (DocumentSnapshot document : queryDocumentSnapshots) {
@@ -247,40 +250,54 @@ public class WorkoutRepository extends FirebaseRepository {
     public Task<Void> deleteWorkout(String workoutId) {
         String userId = authRepository.getCurrentUserId();
 
-        // First remove from user's workout history
-        Task<DocumentSnapshot> getUserTask = db.collection(USERS_COLLECTION)
-                .document(userId)
-                .get();
-
-        return getUserTask.continueWithTask(task -> {
-            if (!task.isSuccessful()) {
-                throw task.getException();
-            }
-
-            DocumentSnapshot document = task.getResult();
-            User user = document.toObject(User.class);
-
-            if (user != null && user.getWorkoutHistory() != null) {
-                List<String> history = new ArrayList<>(user.getWorkoutHistory());
-                history.remove(workoutId);
-
-                // Update user's workout history
-                return db.collection(USERS_COLLECTION)
-                        .document(userId)
-                        .update("workoutHistory", history)
-                        .continueWithTask(updateTask -> {
-                            // Then delete the workout
-                            return db.collection(WORKOUTS_COLLECTION)
-                                    .document(workoutId)
-                                    .delete();
-                        });
-            } else {
-                // If user doesn't have workout history, just delete the workout
-                return db.collection(WORKOUTS_COLLECTION)
-                        .document(workoutId)
-                        .delete();
-            }
-        }).addOnFailureListener(e -> handleError("deleting workout", e));
+        // Delete the workout and remove it from the user's history in one commit
+        WriteBatch batch = db.batch();
+        batch.delete(db.collection(WORKOUTS_COLLECTION).document(workoutId));
+        int writes = 1;
+        if (userId != null && !userId.isEmpty()) {
+            removeWorkoutFromUserHistory(batch, userId, workoutId);
+            writes++;
+        }
+
+        return batch.commit()
+                .addOnCompleteListener(metrics.trackWrite("workout.deleteWorkout", writes))
+                .addOnFailureListener(e -> handleError("deleting workout", e));
+    }
+
+    /**
+     * Gets the user's most recent workout, reading a single document
+     * @return LiveData containing the most recent workout, or null if there is none
+     */
+    public LiveData<Resource<Workout>> getLastWorkout() {
+        MutableLiveData<Resource<Workout>> result = new MutableLiveData<>();
+        result.setValue(Resource.loading(null));
+
+        String userId = authRepository.getCurrentUserId();
+        if (userId == null || userId.isEmpty()) {
+            result.setValue(Resource.error("User not logged in", null));
+            return result;
+        }
+
+        db.collection(WORKOUTS_COLLECTION)
+                .whereEqualTo("userId", userId)
+                .orderBy("date", Query.Direction.DESCENDING)
+                .limit(1)
+                .get()
+                .addOnCompleteListener(metrics.trackQuery("workout.getLastWorkout"))
+                .addOnSuccessListener(queryDocumentSnapshots -> {
+                    if (!queryDocumentSnapshots.isEmpty()) {
+                        Workout workout = queryDocumentSnapshots.getDocuments().get(0).toObject(Workout.class);
+                        result.setValue(Resource.success(workout));
+                    } else {
+                        result.setValue(Resource.success(null)); // No workouts yet
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    handleError("fetching last workout", e);
+                    result.setValue(Resource.error("Error fetching workout: " + e.getMessage(), null));
+                });
+
+        return result;
     }
 
     /**
@@ -304,6 +321,7 @@ public class WorkoutRepository extends FirebaseRepository {
                 .orderBy("date", Query.Direction.DESCENDING)
                 .limit(1)
                 .get()
+                .addOnCompleteListener(metrics.trackQuery("workout.getLastWorkoutForRoutine"))
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     if (!queryDocumentSnapshots.isEmpty()) {
                         Workout workout = queryDocumentSnapshots.getDocuments().get(0).toObject(Workout.class);
@@ -337,6 +355,7 @@ public class WorkoutRepository extends FirebaseRepository {
         db.collection(WORKOUTS_COLLECTION)
                 .whereEqualTo("userId", userId)
                 .get()
+                .addOnCompleteListener(metrics.trackQuery("workout.getWorkoutStatistics"))
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     Map<String, Object> stats = new HashMap<>();
                     int totalWorkouts = queryDocumentSnapshots.size();
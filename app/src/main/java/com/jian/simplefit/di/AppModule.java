@@ -0,0 +1,72 @@
+package com.jian.simplefit.di;
+
+import android.content.Context;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreSettings;
+import com.google.firebase.storage.FirebaseStorage;
+import com.jian.simplefit.data.local.AppDatabase;
+import com.jian.simplefit.util.AppExecutors;
+import com.jian.simplefit.util.MetricsRegistry;
+
+import javax.inject.Singleton;
+
+import dagger.Module;
+import dagger.Provides;
+import dagger.hilt.InstallIn;
+import dagger.hilt.android.qualifiers.ApplicationContext;
+import dagger.hilt.components.SingletonComponent;
+
+/**
+ * Process-wide dependencies shared by every repository and ViewModel.
+ * Repositories and stores themselves are {@code @Singleton} classes with {@code @Inject} constructors.
+ */
+@Module
+@InstallIn(SingletonComponent.class)
+public final class AppModule {
+
+    private AppModule() {
+    }
+
+    /**
+     * Firestore instance with settings applied exactly once, before any other use
+     */
+    @Provides
+    @Singleton
+    static FirebaseFirestore provideFirestore() {
+        FirebaseFirestore firestore = FirebaseFirestore.getInstance();
+        FirebaseFirestoreSettings settings = new FirebaseFirestoreSettings.Builder()
+                .setPersistenceEnabled(true)
+                .build();
+        firestore.setFirestoreSettings(settings);
+        return firestore;
+    }
+
+    @Provides
+    @Singleton
+    static FirebaseAuth provideFirebaseAuth() {
+        return FirebaseAuth.getInstance();
+    }
+
+    @Provides
+    @Singleton
+    static FirebaseStorage provideFirebaseStorage() {
+        return FirebaseStorage.getInstance();
+    }
+
+    @Provides
+    @Singleton
+    static AppDatabase provideDatabase(@ApplicationContext Context context, AppExecutors executors) {
+        return AppDatabase.getInstance(context, executors);
+    }
+
+    /**
+     * Metrics are also recorded from static helpers, so Hilt hands out the process-wide registry
+     */
+    @Provides
+    @Singleton
+    static MetricsRegistry provideMetricsRegistry() {
+        return MetricsRegistry.getInstance();
+    }
+}
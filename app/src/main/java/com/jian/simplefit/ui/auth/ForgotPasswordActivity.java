@@ -17,9 +17,12 @@ import com.jian.simplefit.R;
 import com.jian.simplefit.data.model.Resource;
 import com.jian.simplefit.viewmodel.AuthViewModel;
 
+import dagger.hilt.android.AndroidEntryPoint;
+
 /**
  * Activity for password reset functionality
  */
+@AndroidEntryPoint
 public class ForgotPasswordActivity extends AppCompatActivity {
 
     private AuthViewModel authViewModel;
@@ -30,9 +30,12 @@ import com.jian.simplefit.util.PreferenceManager;
 import com.jian.simplefit.data.model.Resource;
 import com.jian.simplefit.viewmodel.AuthViewModel;
 
+import dagger.hilt.android.AndroidEntryPoint;
+
 /**
  * Activity for user login
  */
+@AndroidEntryPoint
 public class LoginActivity extends AppCompatActivity {
 
     private static final int RC_GOOGLE_SIGN_IN = 9001;
@@ -21,9 +21,12 @@ import com.jian.simplefit.data.model.Resource;
 import com.jian.simplefit.viewmodel.AuthViewModel;
 import com.jian.simplefit.viewmodel.UserViewModel;
 
+import dagger.hilt.android.AndroidEntryPoint;
+
 /**
  * Activity for user registration
  */
+@AndroidEntryPoint
 public class RegisterActivity extends AppCompatActivity {
 
     private AuthViewModel authViewModel;
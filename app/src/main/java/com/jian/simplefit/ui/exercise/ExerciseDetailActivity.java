@@ -7,6 +7,7 @@ import android.view.MenuItem;
 import android.view.View;
 import android.widget.Button;
 import android.widget.ImageView;
+import android.widget.LinearLayout;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -23,6 +24,7 @@ import com.google.android.material.chip.Chip;
 import com.google.android.material.chip.ChipGroup;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.jian.simplefit.R;
+import com.jian.simplefit.data.local.entity.PersonalRecordEntity;
 import com.jian.simplefit.data.model.Exercise;
 import com.jian.simplefit.data.model.MuscleGroup;
 import com.jian.simplefit.ui.exercise.adapters.SimilarExerciseAdapter;
@@ -30,12 +32,12 @@ import com.jian.simplefit.util.ImageUtils;
 import com.jian.simplefit.viewmodel.ExerciseViewModel;
 import com.jian.simplefit.viewmodel.UserViewModel;
 
-import java.util.ArrayList;
-import java.util.List;
+import dagger.hilt.android.AndroidEntryPoint;
 
 /**
  * Activity hiển thị chi tiết một bài tập
  */
+@AndroidEntryPoint
 public class ExerciseDetailActivity extends AppCompatActivity implements SimilarExerciseAdapter.OnExerciseClickListener {
 
     public static final String EXTRA_EXERCISE_ID = "exercise_id";
@@ -45,6 +47,9 @@ public class ExerciseDetailActivity extends AppCompatActivity implements Similar
     public static final String EXTRA_DIFFICULTY = "difficulty";
     public static final String EXTRA_FAVORITES_ONLY = "favorites_only";
 
+    // Số bài tập tương tự hiển thị
+    private static final int SIMILAR_EXERCISES_LIMIT = 6;
+
     private ExerciseViewModel exerciseViewModel;
     private UserViewModel userViewModel;
 
@@ -62,6 +67,9 @@ public class ExerciseDetailActivity extends AppCompatActivity implements Similar
     private FloatingActionButton fabFavorite;
     private Button buttonShowVideo;
     private ProgressBar progressLoading;
+    private LinearLayout layoutPersonalRecords;
+    private TextView textNewRecord;
+    private TextView textPersonalRecords;
 
     // Adapter
     private SimilarExerciseAdapter similarExerciseAdapter;
@@ -105,6 +113,9 @@ public class ExerciseDetailActivity extends AppCompatActivity implements Similar
 
         // Kiểm tra trạng thái yêu thích
         checkFavoriteStatus();
+
+        // Tải kỷ lục cá nhân
+        loadPersonalRecord();
     }
 
     /**
@@ -124,6 +135,9 @@ public class ExerciseDetailActivity extends AppCompatActivity implements Similar
         fabFavorite = findViewById(R.id.fab_favorite);
         buttonShowVideo = findViewById(R.id.button_show_video);
         progressLoading = findViewById(R.id.progress_loading);
+        layoutPersonalRecords = findViewById(R.id.layout_personal_records);
+        textNewRecord = findViewById(R.id.text_new_record);
+        textPersonalRecords = findViewById(R.id.text_personal_records);
     }
 
     /**
@@ -178,7 +192,7 @@ public class ExerciseDetailActivity extends AppCompatActivity implements Similar
                 updateUI(exercise);
 
                 // Tải bài tập tương tự
-                loadSimilarExercises(exercise.getPrimaryMuscleGroup());
+                loadSimilarExercises();
             } else {
                 Toast.makeText(this,
                         resource.message != null ? resource.message : getString(R.string.error_loading_exercise),
@@ -200,6 +214,43 @@ public class ExerciseDetailActivity extends AppCompatActivity implements Similar
         });
     }
 
+    /**
+     * Tải kỷ lục cá nhân của bài tập (tra cứu một dòng theo khóa chính)
+     */
+    private void loadPersonalRecord() {
+        exerciseViewModel.getPersonalRecord(exerciseId).observe(this, this::updatePersonalRecord);
+    }
+
+    /**
+     * Cập nhật phần kỷ lục cá nhân
+     */
+    private void updatePersonalRecord(PersonalRecordEntity record) {
+        if (record == null || record.getLastRecordTimestamp() == 0) {
+            layoutPersonalRecords.setVisibility(View.GONE);
+            textPersonalRecords.setVisibility(View.GONE);
+            return;
+        }
+
+        StringBuilder builder = new StringBuilder();
+        if (record.getBestWeight() > 0) {
+            builder.append(getString(R.string.personal_record_best_weight,
+                    record.getBestWeight(), record.getBestWeightReps()));
+        }
+        if (record.getBestOneRepMax() > 0) {
+            if (builder.length() > 0) builder.append('\n');
+            builder.append(getString(R.string.personal_record_one_rep_max, record.getBestOneRepMax()));
+        }
+        if (record.getBestSessionVolume() > 0) {
+            if (builder.length() > 0) builder.append('\n');
+            builder.append(getString(R.string.personal_record_session_volume, record.getBestSessionVolume()));
+        }
+
+        textPersonalRecords.setText(builder.toString());
+        textNewRecord.setVisibility(record.isRecent(System.currentTimeMillis()) ? View.VISIBLE : View.GONE);
+        layoutPersonalRecords.setVisibility(View.VISIBLE);
+        textPersonalRecords.setVisibility(View.VISIBLE);
+    }
+
     /**
      * Cập nhật UI với dữ liệu bài tập
      */
@@ -315,28 +366,18 @@ public class ExerciseDetailActivity extends AppCompatActivity implements Similar
     /**
      * Tải danh sách bài tập tương tự
      */
-    private void loadSimilarExercises(String muscleGroupId) {
-        if (muscleGroupId == null) {
-            textNoSimilar.setVisibility(View.VISIBLE);
-            recyclerSimilarExercises.setVisibility(View.GONE);
-            return;
-        }
-
-        exerciseViewModel.getExercisesByMuscleGroup(muscleGroupId).observe(this, resource -> {
+    private void loadSimilarExercises() {
+        // Danh sách đã được xếp hạng và không chứa bài tập hiện tại
+        exerciseViewModel.getSimilarExercises(exerciseId, SIMILAR_EXERCISES_LIMIT).observe(this, resource -> {
+            if (resource.isLoading()) {
+                return;
+            }
             if (resource.isSuccess() && resource.data != null) {
-                // Lọc danh sách để bỏ bài tập hiện tại
-                List<Exercise> filteredList = new ArrayList<>();
-                for (Exercise e : resource.data) {
-                    if (!e.getId().equals(exerciseId)) {
-                        filteredList.add(e);
-                    }
-                }
-
-                if (filteredList.isEmpty()) {
+                if (resource.data.isEmpty()) {
                     textNoSimilar.setVisibility(View.VISIBLE);
                     recyclerSimilarExercises.setVisibility(View.GONE);
                 } else {
-                    similarExerciseAdapter.updateExercises(filteredList);
+                    similarExerciseAdapter.updateExercises(resource.data);
                     textNoSimilar.setVisibility(View.GONE);
                     recyclerSimilarExercises.setVisibility(View.VISIBLE);
                 }
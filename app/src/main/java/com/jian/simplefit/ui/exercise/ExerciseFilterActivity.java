@@ -29,9 +29,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import dagger.hilt.android.AndroidEntryPoint;
+
 /**
  * Activity cho phép người dùng lọc bài tập theo nhiều tiêu chí
  */
+@AndroidEntryPoint
 public class ExerciseFilterActivity extends AppCompatActivity implements MuscleGroupAdapter.OnMuscleGroupClickListener {
 
     private ExerciseViewModel exerciseViewModel;
@@ -31,9 +31,12 @@ import com.jian.simplefit.viewmodel.UserViewModel;
 import java.util.ArrayList;
 import java.util.List;
 
+import dagger.hilt.android.AndroidEntryPoint;
+
 /**
  * Activity hiển thị danh sách bài tập theo nhóm cơ hoặc các tiêu chí lọc khác
  */
+@AndroidEntryPoint
 public class ExerciseListActivity extends AppCompatActivity implements ExerciseAdapter.OnExerciseClickListener {
 
     public static final String EXTRA_MUSCLE_GROUP_ID = "muscle_group_id";
@@ -14,6 +14,7 @@ import com.jian.simplefit.R;
 import com.jian.simplefit.data.model.Exercise;
 import com.jian.simplefit.data.model.MuscleGroup;
 import com.jian.simplefit.util.ImageUtils;
+import com.jian.simplefit.util.Tracer;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -25,6 +26,7 @@ public class ExerciseAdapter extends RecyclerView.Adapter<ExerciseAdapter.Exerci
 
     private List<Exercise> exercises;
     private OnExerciseClickListener listener;
+    private final Tracer tracer = Tracer.getInstance();
 
     /**
      * Interface cho các sự kiện click trên item bài tập
@@ -63,7 +65,12 @@ public class ExerciseAdapter extends RecyclerView.Adapter<ExerciseAdapter.Exerci
     @Override
     public void onBindViewHolder(@NonNull ExerciseViewHolder holder, int position) {
         Exercise exercise = exercises.get(position);
-        holder.bind(exercise);
+        tracer.begin("ui.exerciseAdapter.bind");
+        try {
+            holder.bind(exercise);
+        } finally {
+            tracer.end();
+        }
     }
 
     @Override
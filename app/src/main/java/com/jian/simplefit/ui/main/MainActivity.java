@@ -1,14 +1,17 @@
 package com.jian.simplefit.ui.main;
 
 import android.content.Intent;
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
 import android.view.MenuItem;
 import android.view.View;
 import android.widget.ImageView;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.ActionBarDrawerToggle;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import androidx.core.view.GravityCompat;
@@ -26,15 +29,28 @@ import com.jian.simplefit.R;
 import com.jian.simplefit.ui.auth.LoginActivity;
 import com.jian.simplefit.ui.workout.WorkoutSummaryActivity;
 import com.jian.simplefit.util.ImageUtils;
+import com.jian.simplefit.util.MetricsRegistry;
 import com.jian.simplefit.util.PreferenceManager;
+import com.jian.simplefit.util.Tracer;
 import com.jian.simplefit.viewmodel.UserViewModel;
 
+import java.io.File;
+import java.io.IOException;
+
+import javax.inject.Inject;
+
+import dagger.hilt.android.AndroidEntryPoint;
+
 /**
  * Main activity hosting the fragments for the bottom navigation
  * Also includes the navigation drawer for additional options
  */
+@AndroidEntryPoint
 public class MainActivity extends AppCompatActivity implements NavigationView.OnNavigationItemSelectedListener {
 
+    @Inject
+    MetricsRegistry metrics;
+
     private UserViewModel userViewModel;
     private PreferenceManager preferenceManager;
 
@@ -120,6 +136,11 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
         // Set up drawer navigation
         navigationView.setNavigationItemSelectedListener(this);
 
+        // Metrics dump is only offered in debuggable builds
+        boolean debuggable = (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        navigationView.getMenu().findItem(R.id.nav_debug_metrics).setVisible(debuggable);
+        navigationView.getMenu().findItem(R.id.nav_debug_trace).setVisible(debuggable);
+
         // Set up bottom navigation
         NavigationUI.setupWithNavController(bottomNavigationView, navController);
 
@@ -217,13 +238,22 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
             // Navigate to about
             navController.navigate(R.id.navigation_about);
         } else if (itemId == R.id.nav_logout) {
-            // Logout
-            userViewModel.logout();
+            // Logout, then leave once the sign-out has happened
             preferenceManager.clearUserSession();
-            navigateToLogin();
+            userViewModel.logout().addOnCompleteListener(task -> {
+                if (!isDestroyed()) {
+                    navigateToLogin();
+                }
+            });
         } else if (itemId == R.id.nav_workout_history) {
             // Navigate to workout history
             navController.navigate(R.id.navigation_workout_history);
+        } else if (itemId == R.id.nav_debug_metrics) {
+            // Show collected metrics
+            showMetricsDialog();
+        } else if (itemId == R.id.nav_debug_trace) {
+            // Export recorded spans
+            exportTrace();
         }
 
         // Close drawer after handling click
@@ -240,6 +270,54 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
         }
     }
 
+    /**
+     * Show the current metrics report with an option to save it to a file
+     */
+    private void showMetricsDialog() {
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.menu_debug_metrics)
+                .setMessage(metrics.dump())
+                .setPositiveButton(R.string.debug_metrics_save, (dialog, which) -> saveMetrics())
+                .setNegativeButton(android.R.string.cancel, null)
+                .show();
+    }
+
+    /**
+     * Write the metrics report to app-specific storage
+     */
+    private void saveMetrics() {
+        File file = new File(getDebugOutputDir(), "metrics.txt");
+        try {
+            metrics.writeTo(file);
+            Toast.makeText(this, getString(R.string.debug_metrics_saved, file.getAbsolutePath()),
+                    Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Toast.makeText(this, R.string.debug_metrics_save_failed, Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    /**
+     * Write recorded trace spans as a Chrome/Perfetto JSON file in app-specific storage
+     */
+    private void exportTrace() {
+        File file = new File(getDebugOutputDir(), "trace.json");
+        try {
+            Tracer.getInstance().writeTo(file);
+            Toast.makeText(this, getString(R.string.debug_metrics_saved, file.getAbsolutePath()),
+                    Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Toast.makeText(this, R.string.debug_trace_save_failed, Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    /**
+     * Directory for debug exports, reachable with adb pull when external storage is available
+     */
+    private File getDebugOutputDir() {
+        File dir = getExternalFilesDir(null);
+        return dir != null ? dir : getFilesDir();
+    }
+
     /**
      * Navigate to workout summary screen
      * @param workoutId ID of the workout to display
@@ -44,9 +44,12 @@ import com.jian.simplefit.viewmodel.UserViewModel;
 import java.util.ArrayList;
 import java.util.List;
 
+import dagger.hilt.android.AndroidEntryPoint;
+
 /**
  * Fragment hiển thị thư viện bài tập và mô hình cơ bắp
  */
+@AndroidEntryPoint
 public class ExercisesFragment extends Fragment implements MuscleGroupAdapter.OnMuscleGroupClickListener, ExerciseAdapter.OnExerciseClickListener {
 
     private static final int REQUEST_FILTER = 100;
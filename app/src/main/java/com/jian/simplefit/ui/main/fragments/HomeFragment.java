@@ -30,6 +30,7 @@ import com.jian.simplefit.ui.workout.WorkoutActivity;
 import com.jian.simplefit.ui.workout.WorkoutSummaryActivity;
 import com.jian.simplefit.util.DateUtils;
 import com.jian.simplefit.util.PreferenceManager;
+import com.jian.simplefit.util.ReadBudgetMonitor;
 import com.jian.simplefit.data.model.Resource;
 import com.jian.simplefit.viewmodel.ExerciseViewModel;
 import com.jian.simplefit.viewmodel.RoutineViewModel;
@@ -39,12 +40,19 @@ import com.jian.simplefit.viewmodel.WorkoutViewModel;
 import java.util.ArrayList;
 import java.util.List;
 
+import dagger.hilt.android.AndroidEntryPoint;
+
 /**
  * Fragment hiển thị màn hình chính với tổng quan về buổi tập gần nhất, bài tập được đề xuất,
  * và bài tập cơ bản nổi bật
  */
+@AndroidEntryPoint
 public class HomeFragment extends Fragment {
 
+    // Số document Firestore tối đa cho một lần mở màn hình: danh mục bài tập (lần đầu),
+    // các lịch tập và đúng một buổi tập gần nhất
+    private static final int READ_BUDGET = 40;
+
     private UserViewModel userViewModel;
     private RoutineViewModel routineViewModel;
     private ExerciseViewModel exerciseViewModel;
@@ -73,6 +81,12 @@ public class HomeFragment extends Fragment {
 
     private String lastWorkoutId;
 
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        ReadBudgetMonitor.getInstance().setBudget(getClass().getSimpleName(), READ_BUDGET);
+    }
+
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         return inflater.inflate(R.layout.fragment_home, container, false);
@@ -3,6 +3,7 @@ package com.jian.simplefit.ui.main.fragments;
 import android.content.Intent;
 import android.os.Bundle;
 import android.view.LayoutInflater;
+import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
@@ -20,24 +21,33 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.tabs.TabLayout;
 import com.jian.simplefit.R;
+import com.jian.simplefit.data.local.entity.MuscleLoad;
 import com.jian.simplefit.data.model.Exercise;
 import com.jian.simplefit.data.model.MuscleGroup;
 import com.jian.simplefit.ui.exercise.ExerciseListActivity;
 import com.jian.simplefit.ui.exercise.adapters.ExerciseAdapter;
-import com.jian.simplefit.util.ImageUtils;
+import com.jian.simplefit.ui.main.views.MuscleHeatmapView;
 import com.jian.simplefit.viewmodel.ExerciseViewModel;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import dagger.hilt.android.AndroidEntryPoint;
 
 /**
  * Fragment hiển thị mô hình cơ bắp tương tác 3D
  */
+@AndroidEntryPoint
 public class MuscleModelFragment extends Fragment implements ExerciseAdapter.OnExerciseClickListener {
 
     private TabLayout tabView; // Tab để chọn front/back view
     private ImageView imageModel; // Hiển thị hình ảnh mô hình cơ bắp
+    private MuscleHeatmapView heatmapView; // Bản đồ nhiệt tải tập luyện phủ lên mô hình
     private TextView textSelectedMuscle; // Hiển thị tên nhóm cơ được chọn
     private TextView textMuscleDescription; // Mô tả về nhóm cơ
+    private TextView textMuscleLoad; // Tải tập luyện 7/28 ngày của nhóm cơ
     private RecyclerView recyclerExercises; // Hiển thị bài tập cho nhóm cơ đã chọn
     private Button buttonViewAllExercises; // Nút để xem tất cả bài tập cho nhóm cơ
     private View layoutNoMuscleSelected; // Hiển thị khi chưa chọn nhóm cơ nào
@@ -48,9 +58,8 @@ public class MuscleModelFragment extends Fragment implements ExerciseAdapter.OnE
     private MuscleGroup selectedMuscleGroup; // Nhóm cơ hiện tại được chọn
     private boolean isFrontView = true; // Đang hiển thị mặt trước hay mặt sau
 
-    // Danh sách các vùng cơ có thể chọn
-    private List<MuscleGroup> frontMuscles;
-    private List<MuscleGroup> backMuscles;
+    // Tải tập luyện theo nhóm cơ, đọc từ bảng tổng hợp
+    private Map<String, MuscleLoad> muscleLoads = Collections.emptyMap();
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -64,10 +73,6 @@ public class MuscleModelFragment extends Fragment implements ExerciseAdapter.OnE
         // Khởi tạo ViewModel
         exerciseViewModel = new ViewModelProvider(requireActivity()).get(ExerciseViewModel.class);
 
-        // Khởi tạo danh sách các nhóm cơ
-        frontMuscles = MuscleGroup.getFrontBodyMuscleGroups();
-        backMuscles = MuscleGroup.getBackBodyMuscleGroups();
-
         // Khởi tạo views
         initViews(view);
 
@@ -82,6 +87,9 @@ public class MuscleModelFragment extends Fragment implements ExerciseAdapter.OnE
 
         // Hiển thị mô hình mặc định
         updateMuscleModel();
+
+        // Tải dữ liệu cho bản đồ nhiệt
+        loadMuscleLoads();
     }
 
     /**
@@ -90,8 +98,10 @@ public class MuscleModelFragment extends Fragment implements ExerciseAdapter.OnE
     private void initViews(View view) {
         tabView = view.findViewById(R.id.tab_view);
         imageModel = view.findViewById(R.id.image_muscle_model);
+        heatmapView = view.findViewById(R.id.heatmap_muscle_load);
         textSelectedMuscle = view.findViewById(R.id.text_selected_muscle);
         textMuscleDescription = view.findViewById(R.id.text_muscle_description);
+        textMuscleLoad = view.findViewById(R.id.text_muscle_load);
         recyclerExercises = view.findViewById(R.id.recycler_exercises);
         buttonViewAllExercises = view.findViewById(R.id.button_view_all_exercises);
         layoutNoMuscleSelected = view.findViewById(R.id.layout_no_muscle_selected);
@@ -143,6 +153,7 @@ public class MuscleModelFragment extends Fragment implements ExerciseAdapter.OnE
 
                 // Reset selected muscle khi chuyển đổi view
                 selectedMuscleGroup = null;
+                heatmapView.setSelectedMuscle(null);
                 showNoMuscleSelected(true);
             }
 
@@ -156,16 +167,15 @@ public class MuscleModelFragment extends Fragment implements ExerciseAdapter.OnE
         });
 
         // Click listener cho mô hình cơ bắp
-        imageModel.setOnTouchListener((v, event) -> {
-            // Xử lý sự kiện chạm để xác định nhóm cơ được chọn
-            // Trong phiên bản thực tế, có thể sử dụng ImageMap hoặc tọa độ cụ thể
-            // Ở đây, ta giả định đã xác định được nhóm cơ và chọn một nhóm cơ ngẫu nhiên để demo
-            List<MuscleGroup> availableMuscles = isFrontView ? frontMuscles : backMuscles;
-            if (!availableMuscles.isEmpty()) {
-                // Đối với demo, chọn một nhóm cơ ngẫu nhiên
-                int randomIndex = (int)(Math.random() * availableMuscles.size());
-                selectedMuscleGroup = availableMuscles.get(randomIndex);
-                onMuscleGroupSelected(selectedMuscleGroup);
+        heatmapView.setOnTouchListener((v, event) -> {
+            // Xác định nhóm cơ theo vùng được chạm trên bản đồ nhiệt
+            if (event.getAction() == MotionEvent.ACTION_UP) {
+                MuscleGroup muscleGroup = MuscleGroup.getMuscleGroupById(
+                        heatmapView.muscleAt(event.getX(), event.getY()));
+                if (muscleGroup != null) {
+                    selectedMuscleGroup = muscleGroup;
+                    onMuscleGroupSelected(selectedMuscleGroup);
+                }
             }
             return true;
         });
@@ -190,11 +200,26 @@ public class MuscleModelFragment extends Fragment implements ExerciseAdapter.OnE
             imageModel.setImageResource(R.drawable.muscle_model_back);
             imageModel.setContentDescription(getString(R.string.muscle_model_back));
         }
+        heatmapView.setFrontView(isFrontView);
+    }
 
-        // If a muscle group is selected, highlight it
-        if (selectedMuscleGroup != null) {
-            highlightMuscle(selectedMuscleGroup);
-        }
+    /**
+     * Đọc tải tập luyện 7/28 ngày của các nhóm cơ và tô bản đồ nhiệt theo số set trong 7 ngày
+     */
+    private void loadMuscleLoads() {
+        exerciseViewModel.getMuscleLoads().observe(getViewLifecycleOwner(), loads -> {
+            muscleLoads = loads != null ? loads : Collections.emptyMap();
+
+            Map<String, Float> weeklySets = new HashMap<>();
+            for (MuscleLoad load : muscleLoads.values()) {
+                weeklySets.put(load.getMuscleGroup(), load.getSets7());
+            }
+            heatmapView.setLoads(weeklySets);
+
+            if (selectedMuscleGroup != null) {
+                showMuscleLoad(selectedMuscleGroup);
+            }
+        });
     }
 
     /**
@@ -207,30 +232,26 @@ public class MuscleModelFragment extends Fragment implements ExerciseAdapter.OnE
         // Hiển thị thông tin nhóm cơ
         textSelectedMuscle.setText(muscleGroup.getName());
         textMuscleDescription.setText(muscleGroup.getDescription());
+        showMuscleLoad(muscleGroup);
 
         // Highlight nhóm cơ được chọn trên mô hình
-        highlightMuscle(muscleGroup);
+        heatmapView.setSelectedMuscle(muscleGroup.getId());
 
         // Tải danh sách bài tập cho nhóm cơ này
         loadExercisesForMuscleGroup(muscleGroup.getId());
     }
 
     /**
-     * Highlight nhóm cơ được chọn trên mô hình
-     * @param muscleGroup Nhóm cơ cần highlight
+     * Hiển thị tải tập luyện của nhóm cơ được chọn
+     * @param muscleGroup Nhóm cơ cần hiển thị
      */
-    private void highlightMuscle(MuscleGroup muscleGroup) {
-        // Trong phiên bản thực tế, có thể sử dụng overlay hoặc hình ảnh riêng
-        // Ở đây, ta giả định có hình ảnh sẵn cho mỗi nhóm cơ
-        String resourceName = "highlight_" + (isFrontView ? "front_" : "back_") + muscleGroup.getId();
-        int resourceId = getResources().getIdentifier(resourceName, "drawable", requireContext().getPackageName());
-
-        if (resourceId != 0) {
-            // Nếu có resource cho nhóm cơ này
-            ImageUtils.loadHighlightedMuscleImage(requireContext(), resourceId, imageModel);
+    private void showMuscleLoad(MuscleGroup muscleGroup) {
+        MuscleLoad load = muscleLoads.get(muscleGroup.getId());
+        if (load == null) {
+            textMuscleLoad.setText(R.string.muscle_load_none);
         } else {
-            // Nếu không có resource riêng, sử dụng hình ảnh mặc định
-            updateMuscleModel();
+            textMuscleLoad.setText(getString(R.string.muscle_load_summary,
+                    load.getSets7(), load.getVolume7(), load.getSets28(), load.getVolume28()));
         }
     }
 
@@ -264,6 +285,7 @@ public class MuscleModelFragment extends Fragment implements ExerciseAdapter.OnE
         layoutNoMuscleSelected.setVisibility(show ? View.VISIBLE : View.GONE);
         textSelectedMuscle.setVisibility(show ? View.GONE : View.VISIBLE);
         textMuscleDescription.setVisibility(show ? View.GONE : View.VISIBLE);
+        textMuscleLoad.setVisibility(show ? View.GONE : View.VISIBLE);
         recyclerExercises.setVisibility(show ? View.GONE : View.VISIBLE);
         buttonViewAllExercises.setVisibility(show ? View.GONE : View.VISIBLE);
     }
@@ -14,14 +14,20 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 
 import com.bumptech.glide.Glide;
+import com.github.mikephil.charting.charts.LineChart;
+import com.github.mikephil.charting.data.Entry;
+import com.github.mikephil.charting.data.LineData;
+import com.github.mikephil.charting.data.LineDataSet;
 import com.google.android.material.card.MaterialCardView;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.android.material.snackbar.Snackbar;
 import com.jian.simplefit.R;
+import com.jian.simplefit.data.local.entity.WeightPoint;
 import com.jian.simplefit.data.model.User;
 import com.jian.simplefit.data.model.Workout;
 import com.jian.simplefit.data.model.WorkoutExercise;
@@ -36,12 +42,18 @@ import com.jian.simplefit.viewmodel.WorkoutViewModel;
 import java.util.ArrayList;
 import java.util.List;
 
+import dagger.hilt.android.AndroidEntryPoint;
+
 /**
  * Fragment that displays user profile and stats
  */
+@AndroidEntryPoint
 public class ProfileFragment extends Fragment {
 
     private static final int REQUEST_SELECT_IMAGE = 100;
+    // Upper bound on chart points regardless of how many years of entries exist
+    private static final int WEIGHT_CHART_MAX_POINTS = 120;
+    private static final float MILLIS_PER_DAY = 24f * 60 * 60 * 1000;
 
     private UserViewModel userViewModel;
     private WorkoutViewModel workoutViewModel;
@@ -61,6 +73,8 @@ public class ProfileFragment extends Fragment {
     private MaterialCardView cardWorkoutStats;
     private ProgressBar progressLoading;
     private Button buttonEditPhoto;
+    private MaterialCardView cardWeightHistory;
+    private LineChart chartWeightHistory;
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -85,6 +99,7 @@ public class ProfileFragment extends Fragment {
         // Load user data and workout statistics
         loadUserData();
         loadWorkoutStats();
+        loadWeightHistory();
     }
 
     /**
@@ -104,6 +119,8 @@ public class ProfileFragment extends Fragment {
         cardWorkoutStats = view.findViewById(R.id.card_workout_stats);
         progressLoading = view.findViewById(R.id.progress_loading);
         buttonEditPhoto = view.findViewById(R.id.button_edit_photo);
+        cardWeightHistory = view.findViewById(R.id.card_weight_history);
+        chartWeightHistory = view.findViewById(R.id.chart_weight_history);
     }
 
     /**
@@ -173,6 +190,42 @@ public class ProfileFragment extends Fragment {
         }
     }
 
+    /**
+     * Load the downsampled weight history into the chart
+     */
+    private void loadWeightHistory() {
+        userViewModel.getWeightChartPoints(WEIGHT_CHART_MAX_POINTS).observe(getViewLifecycleOwner(), points -> {
+            if (points == null || points.size() < 2) {
+                cardWeightHistory.setVisibility(View.GONE);
+                return;
+            }
+
+            // X axis is days since the first point so float precision holds over long ranges
+            long origin = points.get(0).getTimestamp();
+            List<Entry> entries = new ArrayList<>(points.size());
+            for (WeightPoint point : points) {
+                entries.add(new Entry((point.getTimestamp() - origin) / MILLIS_PER_DAY, point.getWeight()));
+            }
+
+            int color = ContextCompat.getColor(requireContext(), R.color.colorPrimary);
+            LineDataSet dataSet = new LineDataSet(entries, getString(R.string.weight_history));
+            dataSet.setColor(color);
+            dataSet.setCircleColor(color);
+            dataSet.setDrawCircles(entries.size() <= 30);
+            dataSet.setDrawValues(false);
+
+            int textColor = ContextCompat.getColor(requireContext(), R.color.colorTextSecondary);
+            chartWeightHistory.getDescription().setEnabled(false);
+            chartWeightHistory.getLegend().setEnabled(false);
+            chartWeightHistory.getAxisRight().setEnabled(false);
+            chartWeightHistory.getAxisLeft().setTextColor(textColor);
+            chartWeightHistory.getXAxis().setTextColor(textColor);
+            chartWeightHistory.setData(new LineData(dataSet));
+            chartWeightHistory.invalidate();
+            cardWeightHistory.setVisibility(View.VISIBLE);
+        });
+    }
+
     /**
      * Load workout statistics
      */
@@ -271,14 +324,18 @@ public class ProfileFragment extends Fragment {
      * Perform logout
      */
     private void performLogout() {
-        userViewModel.logout();
         preferenceManager.clearUserSession();
 
-        // Navigate to login screen
-        Intent intent = new Intent(requireActivity(), LoginActivity.class);
-        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
-        startActivity(intent);
-        requireActivity().finish();
+        // Navigate to login screen once the sign-out has happened
+        userViewModel.logout().addOnCompleteListener(task -> {
+            if (!isAdded()) {
+                return;
+            }
+            Intent intent = new Intent(requireActivity(), LoginActivity.class);
+            intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+            startActivity(intent);
+            requireActivity().finish();
+        });
     }
 
     @Override
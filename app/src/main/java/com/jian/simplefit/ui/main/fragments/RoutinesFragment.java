@@ -27,9 +27,12 @@ import com.jian.simplefit.viewmodel.RoutineViewModel;
 import java.util.ArrayList;
 import java.util.List;
 
+import dagger.hilt.android.AndroidEntryPoint;
+
 /**
  * Fragment that displays a list of user's workout routines
  */
+@AndroidEntryPoint
 public class RoutinesFragment extends Fragment {
 
     private RoutineViewModel routineViewModel;
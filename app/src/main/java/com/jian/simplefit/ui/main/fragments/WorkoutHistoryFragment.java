@@ -20,6 +20,7 @@ import com.jian.simplefit.R;
 import com.jian.simplefit.data.model.Workout;
 import com.jian.simplefit.ui.workout.WorkoutSummaryActivity;
 import com.jian.simplefit.util.DateUtils;
+import com.jian.simplefit.util.Tracer;
 import com.jian.simplefit.data.model.Resource;
 import com.jian.simplefit.viewmodel.WorkoutViewModel;
 
@@ -28,9 +29,12 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 
+import dagger.hilt.android.AndroidEntryPoint;
+
 /**
  * Fragment that displays the history of user's workouts
  */
+@AndroidEntryPoint
 public class WorkoutHistoryFragment extends Fragment {
 
     private static final int FILTER_ALL = 0;
@@ -249,6 +253,7 @@ public class WorkoutHistoryFragment extends Fragment {
 
         private List<Workout> workouts;
         private OnWorkoutClickListener listener;
+        private final Tracer tracer = Tracer.getInstance();
 
         /**
          * Interface for workout click events
@@ -284,7 +289,12 @@ public class WorkoutHistoryFragment extends Fragment {
         @Override
         public void onBindViewHolder(@NonNull WorkoutViewHolder holder, int position) {
             Workout workout = workouts.get(position);
-            holder.bind(workout);
+            tracer.begin("ui.workoutHistoryAdapter.bind");
+            try {
+                holder.bind(workout);
+            } finally {
+                tracer.end();
+            }
         }
 
         @Override
@@ -0,0 +1,193 @@
+package com.jian.simplefit.ui.main.views;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.jian.simplefit.R;
+import com.jian.simplefit.data.model.MuscleGroup;
+
+import java.util.Map;
+
+/**
+ * Overlay that colours every muscle region of the body model by its training load.
+ * Colours are computed once when the loads or the side change, so a frame is a single pass
+ * over the regions of the visible side. Regions are ovals given as fractions of the view size,
+ * which also lets a touch be mapped back to a muscle group.
+ */
+public class MuscleHeatmapView extends View {
+
+    // Alpha of the lightest and the heaviest loaded muscle
+    private static final int MIN_ALPHA = 50;
+    private static final int MAX_ALPHA = 210;
+
+    private static final String[] FRONT_MUSCLES = {
+            MuscleGroup.TRAPS, MuscleGroup.SHOULDERS, MuscleGroup.CHEST, MuscleGroup.BICEPS,
+            MuscleGroup.FOREARMS, MuscleGroup.ABS, MuscleGroup.QUADS, MuscleGroup.CALVES
+    };
+
+    // One row per muscle above, four values {left, top, right, bottom} per oval
+    private static final float[][] FRONT_REGIONS = {
+            {0.40f, 0.15f, 0.60f, 0.20f},
+            {0.22f, 0.19f, 0.35f, 0.27f, 0.65f, 0.19f, 0.78f, 0.27f},
+            {0.35f, 0.21f, 0.49f, 0.31f, 0.51f, 0.21f, 0.65f, 0.31f},
+            {0.20f, 0.28f, 0.30f, 0.40f, 0.70f, 0.28f, 0.80f, 0.40f},
+            {0.16f, 0.41f, 0.26f, 0.54f, 0.74f, 0.41f, 0.84f, 0.54f},
+            {0.42f, 0.32f, 0.58f, 0.50f},
+            {0.34f, 0.54f, 0.48f, 0.74f, 0.52f, 0.54f, 0.66f, 0.74f},
+            {0.36f, 0.78f, 0.46f, 0.93f, 0.54f, 0.78f, 0.64f, 0.93f}
+    };
+
+    private static final String[] BACK_MUSCLES = {
+            MuscleGroup.TRAPS, MuscleGroup.SHOULDERS, MuscleGroup.LATS, MuscleGroup.BACK,
+            MuscleGroup.TRICEPS, MuscleGroup.FOREARMS, MuscleGroup.GLUTES, MuscleGroup.HAMSTRINGS,
+            MuscleGroup.CALVES
+    };
+
+    private static final float[][] BACK_REGIONS = {
+            {0.38f, 0.15f, 0.62f, 0.27f},
+            {0.22f, 0.19f, 0.35f, 0.27f, 0.65f, 0.19f, 0.78f, 0.27f},
+            {0.33f, 0.28f, 0.46f, 0.44f, 0.54f, 0.28f, 0.67f, 0.44f},
+            {0.44f, 0.27f, 0.56f, 0.48f},
+            {0.20f, 0.28f, 0.30f, 0.40f, 0.70f, 0.28f, 0.80f, 0.40f},
+            {0.16f, 0.41f, 0.26f, 0.54f, 0.74f, 0.41f, 0.84f, 0.54f},
+            {0.35f, 0.48f, 0.49f, 0.58f, 0.51f, 0.48f, 0.65f, 0.58f},
+            {0.34f, 0.59f, 0.48f, 0.76f, 0.52f, 0.59f, 0.66f, 0.76f},
+            {0.36f, 0.78f, 0.46f, 0.93f, 0.54f, 0.78f, 0.64f, 0.93f}
+    };
+
+    private final Paint fillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint outlinePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF oval = new RectF();
+    private final int heatColor;
+
+    private String[] muscles = FRONT_MUSCLES;
+    private float[][] regions = FRONT_REGIONS;
+    // Fill colour per region of the visible side, 0 when the muscle has no load
+    private int[] colors = new int[FRONT_MUSCLES.length];
+    private Map<String, Float> loads;
+    private String selectedMuscle;
+
+    public MuscleHeatmapView(Context context) {
+        this(context, null);
+    }
+
+    public MuscleHeatmapView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        heatColor = ContextCompat.getColor(context, R.color.colorAccent);
+        fillPaint.setStyle(Paint.Style.FILL);
+        outlinePaint.setStyle(Paint.Style.STROKE);
+        outlinePaint.setStrokeWidth(2 * getResources().getDisplayMetrics().density);
+        outlinePaint.setColor(ContextCompat.getColor(context, R.color.colorPrimary));
+    }
+
+    /**
+     * Switch between the front and back regions
+     * @param front True for the front of the body
+     */
+    public void setFrontView(boolean front) {
+        muscles = front ? FRONT_MUSCLES : BACK_MUSCLES;
+        regions = front ? FRONT_REGIONS : BACK_REGIONS;
+        updateColors();
+    }
+
+    /**
+     * Set the load of each muscle group; colours are scaled to the most loaded group
+     * @param loads Load per muscle group ID, e.g. completed sets in the last 7 days
+     */
+    public void setLoads(@Nullable Map<String, Float> loads) {
+        this.loads = loads;
+        updateColors();
+    }
+
+    /**
+     * Outline one muscle group
+     * @param muscleGroupId Muscle group ID, or null to clear the selection
+     */
+    public void setSelectedMuscle(@Nullable String muscleGroupId) {
+        selectedMuscle = muscleGroupId;
+        invalidate();
+    }
+
+    /**
+     * Find the muscle group under a point of this view
+     * @param x X coordinate in view pixels
+     * @param y Y coordinate in view pixels
+     * @return Muscle group ID, or null if the point is outside every region
+     */
+    @Nullable
+    public String muscleAt(float x, float y) {
+        float fx = x / getWidth();
+        float fy = y / getHeight();
+        for (int i = 0; i < muscles.length; i++) {
+            float[] ovals = regions[i];
+            for (int j = 0; j < ovals.length; j += 4) {
+                float cx = (ovals[j] + ovals[j + 2]) / 2;
+                float cy = (ovals[j + 1] + ovals[j + 3]) / 2;
+                float rx = (ovals[j + 2] - ovals[j]) / 2;
+                float ry = (ovals[j + 3] - ovals[j + 1]) / 2;
+                float dx = (fx - cx) / rx;
+                float dy = (fy - cy) / ry;
+                if (dx * dx + dy * dy <= 1) {
+                    return muscles[i];
+                }
+            }
+        }
+        return null;
+    }
+
+    private void updateColors() {
+        float max = 0;
+        if (loads != null) {
+            for (Float load : loads.values()) {
+                if (load != null && load > max) {
+                    max = load;
+                }
+            }
+        }
+
+        int[] updated = new int[muscles.length];
+        for (int i = 0; i < muscles.length; i++) {
+            Float load = loads != null ? loads.get(muscles[i]) : null;
+            if (load != null && load > 0 && max > 0) {
+                int alpha = MIN_ALPHA + Math.round((MAX_ALPHA - MIN_ALPHA) * (load / max));
+                updated[i] = Color.argb(alpha, Color.red(heatColor), Color.green(heatColor), Color.blue(heatColor));
+            }
+        }
+        colors = updated;
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        int width = getWidth();
+        int height = getHeight();
+
+        for (int i = 0; i < muscles.length; i++) {
+            boolean selected = muscles[i].equals(selectedMuscle);
+            if (colors[i] == 0 && !selected) {
+                continue;
+            }
+            fillPaint.setColor(colors[i]);
+            float[] ovals = regions[i];
+            for (int j = 0; j < ovals.length; j += 4) {
+                oval.set(ovals[j] * width, ovals[j + 1] * height, ovals[j + 2] * width, ovals[j + 3] * height);
+                if (colors[i] != 0) {
+                    canvas.drawOval(oval, fillPaint);
+                }
+                if (selected) {
+                    canvas.drawOval(oval, outlinePaint);
+                }
+            }
+        }
+    }
+}
@@ -48,9 +48,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import dagger.hilt.android.AndroidEntryPoint;
+
 /**
  * Activity for creating or editing a workout routine
  */
+@AndroidEntryPoint
 public class CreateRoutineActivity extends AppCompatActivity implements RoutineExerciseAdapter.OnItemClickListener {
 
     public static final String EXTRA_ROUTINE_ID = "routine_id";
@@ -181,15 +184,17 @@ public class CreateRoutineActivity extends AppCompatActivity implements RoutineE
 
                 Collections.swap(routineExercises, fromPosition, toPosition);
                 routineExerciseAdapter.notifyItemMoved(fromPosition, toPosition);
-
-                // Update order values
-                for (int i = 0; i < routineExercises.size(); i++) {
-                    routineExercises.get(i).setOrder(i);
-                }
-
                 return true;
             }
 
+            @Override
+            public void clearView(@NonNull RecyclerView recyclerView,
+                                  @NonNull RecyclerView.ViewHolder viewHolder) {
+                super.clearView(recyclerView, viewHolder);
+                // Renumber once the drag is dropped
+                updateExerciseOrder();
+            }
+
             @Override
             public void onSwiped(@NonNull RecyclerView.ViewHolder viewHolder, int direction) {
                 // Not used for swipe
@@ -400,6 +405,15 @@ public class CreateRoutineActivity extends AppCompatActivity implements RoutineE
         startActivityForResult(intent, REQUEST_ADD_EXERCISES);
     }
 
+    /**
+     * Set each exercise's order to its position in the list, so the workout runs them as shown
+     */
+    private void updateExerciseOrder() {
+        for (int i = 0; i < routineExercises.size(); i++) {
+            routineExercises.get(i).setOrder(i);
+        }
+    }
+
     /**
      * Update exercises UI
      */
@@ -609,8 +623,6 @@ public class CreateRoutineActivity extends AppCompatActivity implements RoutineE
             ArrayList<Exercise> selectedExercises = data.getParcelableArrayListExtra("selected_exercises");
 
             if (selectedExercises != null && !selectedExercises.isEmpty()) {
-                int startOrder = routineExercises.size();
-
                 for (int i = 0; i < selectedExercises.size(); i++) {
                     Exercise exercise = selectedExercises.get(i);
 
@@ -629,7 +641,7 @@ public class CreateRoutineActivity extends AppCompatActivity implements RoutineE
                         routineExercise.setExerciseId(exercise.getId());
                         routineExercise.setSets(3); // Default sets
                         routineExercise.setRepsPerSet(10); // Default reps
-                        routineExercise.setOrder(startOrder + i);
+                        routineExercise.setOrder(routineExercises.size());
                         routineExercise.setExerciseDetails(exercise); // Set the Exercise object
 
                         routineExercises.add(routineExercise);
@@ -723,6 +735,7 @@ public class CreateRoutineActivity extends AppCompatActivity implements RoutineE
     public void onRemoveClick(int position) {
         if (position >= 0 && position < routineExercises.size()) {
             routineExercises.remove(position);
+            updateExerciseOrder();
             routineExerciseAdapter.updateExercises(routineExercises);
             updateExercisesUI();
         }
@@ -35,9 +35,12 @@ import com.jian.simplefit.viewmodel.RoutineViewModel;
 import java.util.ArrayList;
 import java.util.List;
 
+import dagger.hilt.android.AndroidEntryPoint;
+
 /**
  * Activity to display the details of a workout routine
  */
+@AndroidEntryPoint
 public class RoutineDetailActivity extends AppCompatActivity implements RoutineExerciseAdapter.OnItemClickListener {
 
     public static final String EXTRA_ROUTINE_ID = "routine_id";
@@ -28,9 +28,12 @@ import com.jian.simplefit.viewmodel.RoutineViewModel;
 import java.util.ArrayList;
 import java.util.List;
 
+import dagger.hilt.android.AndroidEntryPoint;
+
 /**
  * Activity to display the list of user's workout routines
  */
+@AndroidEntryPoint
 public class RoutineListActivity extends AppCompatActivity {
 
     private RoutineViewModel routineViewModel;
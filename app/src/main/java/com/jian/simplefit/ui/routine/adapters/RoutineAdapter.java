@@ -14,6 +14,7 @@ import com.jian.simplefit.R;
 import com.jian.simplefit.data.model.Routine;
 import com.jian.simplefit.util.DateUtils;
 import com.jian.simplefit.util.ImageUtils;
+import com.jian.simplefit.util.Tracer;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -25,6 +26,7 @@ public class RoutineAdapter extends RecyclerView.Adapter<RoutineAdapter.RoutineV
 
     private List<Routine> routines;
     private OnRoutineClickListener listener;
+    private final Tracer tracer = Tracer.getInstance();
 
     /**
      * Interface for routine item click events
@@ -60,7 +62,12 @@ public class RoutineAdapter extends RecyclerView.Adapter<RoutineAdapter.RoutineV
     @Override
     public void onBindViewHolder(@NonNull RoutineViewHolder holder, int position) {
         Routine routine = routines.get(position);
-        holder.bind(routine, listener);
+        tracer.begin("ui.routineAdapter.bind");
+        try {
+            holder.bind(routine, listener);
+        } finally {
+            tracer.end();
+        }
     }
 
     @Override
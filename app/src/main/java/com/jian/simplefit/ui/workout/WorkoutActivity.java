@@ -1,10 +1,12 @@
 package com.jian.simplefit.ui.workout;
 
+import android.Manifest;
 import android.content.Intent;
+import android.content.pm.PackageManager;
 import android.media.MediaPlayer;
+import android.os.Build;
 import android.os.Bundle;
-import android.os.CountDownTimer;
-import android.os.SystemClock;
+import android.text.format.DateUtils;
 import android.view.MenuItem;
 import android.view.View;
 import android.widget.Button;
@@ -14,10 +16,13 @@ import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
+import androidx.core.content.ContextCompat;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -25,27 +30,35 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.snackbar.Snackbar;
 import com.jian.simplefit.R;
+import com.jian.simplefit.data.local.entity.PersonalRecordEntity;
 import com.jian.simplefit.data.model.Exercise;
 import com.jian.simplefit.data.model.Resource;
 import com.jian.simplefit.data.model.Workout;
 import com.jian.simplefit.data.model.WorkoutExercise;
+import com.jian.simplefit.data.model.WorkoutProgress;
 import com.jian.simplefit.data.model.WorkoutSet;
 import com.jian.simplefit.ui.workout.adapters.WorkoutExerciseAdapter;
 import com.jian.simplefit.util.ImageUtils;
+import com.jian.simplefit.util.WorkoutTimer;
 import com.jian.simplefit.viewmodel.WorkoutViewModel;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+
+import dagger.hilt.android.AndroidEntryPoint;
 
 /**
  * Activity for recording an active workout session
  */
-public class WorkoutActivity extends AppCompatActivity implements WorkoutExerciseAdapter.OnExerciseInteractionListener {
+@AndroidEntryPoint
+public class WorkoutActivity extends AppCompatActivity implements WorkoutExerciseAdapter.OnExerciseInteractionListener,
+        WorkoutTimer.Listener {
 
     public static final String EXTRA_ROUTINE_ID = "routine_id";
-    private static final int REST_TIMER_INTERVAL = 1000; // 1 second
 
     private WorkoutViewModel workoutViewModel;
+    private WorkoutTimer timer;
 
     // UI components
     private Toolbar toolbar;
@@ -67,17 +80,20 @@ public class WorkoutActivity extends AppCompatActivity implements WorkoutExercis
     private String routineId;
     private Workout workout;
     private List<WorkoutExercise> workoutExercises = new ArrayList<>();
-    private CountDownTimer restTimer;
     private MediaPlayer timerFinishSound;
-    private long workoutStartTime;
     private boolean isWorkoutActive = false;
     private int currentExercisePosition = 0;
-    private int completedSets = 0;
-    private int totalSets = 0;
 
     // Adapter
     private WorkoutExerciseAdapter exerciseAdapter;
 
+    // Android 13+ turns notifications off until granted; without them the rest alarm fires silently
+    private final ActivityResultLauncher<String> notificationPermissionLauncher =
+            registerForActivityResult(new ActivityResultContracts.RequestPermission(), granted -> {
+                // If denied, the rest countdown still runs on screen
+            });
+    private boolean notificationPermissionRequested = false;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -94,6 +110,10 @@ public class WorkoutActivity extends AppCompatActivity implements WorkoutExercis
         // Initialize ViewModel
         workoutViewModel = new ViewModelProvider(this).get(WorkoutViewModel.class);
 
+        // The timer lives in the ViewModel; this screen only displays it while visible
+        timer = workoutViewModel.getTimer();
+        timer.attach(this, this, this);
+
         // Initialize UI components
         initViews();
 
@@ -164,12 +184,14 @@ public class WorkoutActivity extends AppCompatActivity implements WorkoutExercis
                     // Start workout timer
                     startWorkoutTimer();
 
-                    // Track progress
-                    updateProgressTracking();
-
                     // Update current exercise
                     updateCurrentExercise();
 
+                    // Restore a rest period that was running before recreation
+                    if (timer.isResting()) {
+                        showRestLayout(true);
+                    }
+
                     isWorkoutActive = true;
                 } else if (result.getStatus() == Resource.Status.ERROR) {
                     // Error - show error message
@@ -182,62 +204,26 @@ public class WorkoutActivity extends AppCompatActivity implements WorkoutExercis
             }
         });
 
-        // Observe completed sets count
-        workoutViewModel.getCompletedSetsCount().observe(this, count -> {
-            completedSets = count != null ? count : 0;
-            updateProgressUI();
-        });
-
-        // Observe total sets count
-        workoutViewModel.getTotalSetsCount().observe(this, count -> {
-            totalSets = count != null ? count : 0;
-            updateProgressUI();
-        });
+        // The counts are published from the session's WorkoutProgress, which the UI reads directly
+        workoutViewModel.getCompletedSetsCount().observe(this, count -> updateProgressUI());
+        workoutViewModel.getTotalSetsCount().observe(this, count -> updateProgressUI());
     }
 
     /**
-     * Start workout timer
+     * Start workout timer; keeps the original start time when the session is restored
      */
     private void startWorkoutTimer() {
-        workoutStartTime = SystemClock.elapsedRealtime();
-        chronoWorkoutTime.setBase(workoutStartTime);
-        chronoWorkoutTime.start();
-    }
-
-    /**
-     * Update progress tracking
-     */
-    private void updateProgressTracking() {
-        if (workoutExercises.isEmpty()) return;
-
-        int completed = 0;
-        int total = 0;
-
-        for (WorkoutExercise exercise : workoutExercises) {
-            List<WorkoutSet> sets = exercise.getSets();
-            if (sets != null) {
-                for (WorkoutSet set : sets) {
-                    total++;
-                    if (set.isCompleted()) {
-                        completed++;
-                    }
-                }
-            }
-        }
-
-        completedSets = completed;
-        totalSets = total;
-        updateProgressUI();
+        timer.startSession(workout.getId());
     }
 
     /**
      * Update progress UI
      */
     private void updateProgressUI() {
-        if (totalSets > 0) {
-            int progress = (int) (((float) completedSets / totalSets) * 100);
-            progressSets.setProgress(progress);
-            textProgressSets.setText(String.format("%d/%d", completedSets, totalSets));
+        WorkoutProgress progress = workoutViewModel.getProgress();
+        if (progress != null && progress.getTotalSets() > 0) {
+            progressSets.setProgress(progress.getCompletionPercentage());
+            textProgressSets.setText(String.format("%d/%d", progress.getCompletedSets(), progress.getTotalSets()));
         } else {
             progressSets.setProgress(0);
             textProgressSets.setText("0/0");
@@ -279,51 +265,64 @@ public class WorkoutActivity extends AppCompatActivity implements WorkoutExercis
      * Start rest timer
      */
     private void startRestTimer(int seconds) {
-        // Cancel any existing timer
-        if (restTimer != null) {
-            restTimer.cancel();
-        }
-
-        // Show rest timer layout
-        layoutRestTimer.setVisibility(View.VISIBLE);
-        layoutCurrentExercise.setVisibility(View.GONE);
+        requestNotificationPermission();
 
-        // Create and start countdown timer
-        restTimer = new CountDownTimer(seconds * 1000, REST_TIMER_INTERVAL) {
-            @Override
-            public void onTick(long millisUntilFinished) {
-                int secondsRemaining = (int) (millisUntilFinished / 1000);
-                textRestTimer.setText(String.format("%d", secondsRemaining));
-            }
-
-            @Override
-            public void onFinish() {
-                // Play sound
-                playTimerFinishSound();
-
-                // Hide rest timer layout
-                layoutRestTimer.setVisibility(View.GONE);
-                layoutCurrentExercise.setVisibility(View.VISIBLE);
-
-                // Update UI
-                Toast.makeText(WorkoutActivity.this, R.string.rest_complete, Toast.LENGTH_SHORT).show();
-            }
-        };
+        // Replaces any running rest period
+        showRestLayout(true);
+        timer.startRest(seconds);
+    }
 
-        restTimer.start();
+    /**
+     * Ask for the notification permission on the first rest period, so the rest-complete
+     * notification can be shown while the app is in the background
+     */
+    private void requestNotificationPermission() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.TIRAMISU || notificationPermissionRequested) {
+            return;
+        }
+        notificationPermissionRequested = true;
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.POST_NOTIFICATIONS)
+                != PackageManager.PERMISSION_GRANTED) {
+            notificationPermissionLauncher.launch(Manifest.permission.POST_NOTIFICATIONS);
+        }
     }
 
     /**
      * Skip rest timer
      */
     private void skipRestTimer() {
-        if (restTimer != null) {
-            restTimer.cancel();
-            layoutRestTimer.setVisibility(View.GONE);
-            layoutCurrentExercise.setVisibility(View.VISIBLE);
+        timer.skipRest();
+        showRestLayout(false);
+    }
+
+    /**
+     * Switch between the rest countdown and the current exercise
+     */
+    private void showRestLayout(boolean show) {
+        layoutRestTimer.setVisibility(show ? View.VISIBLE : View.GONE);
+        layoutCurrentExercise.setVisibility(show ? View.GONE : View.VISIBLE);
+    }
+
+    @Override
+    public void onTick(long workoutElapsedMillis, long restRemainingMillis) {
+        chronoWorkoutTime.setText(DateUtils.formatElapsedTime(workoutElapsedMillis / 1000));
+        if (restRemainingMillis >= 0) {
+            // Round up so the countdown shows 1 during the last second, not 0
+            long secondsRemaining = (restRemainingMillis + 999) / 1000;
+            textRestTimer.setText(String.format(Locale.getDefault(), "%d", secondsRemaining));
+        } else if (layoutRestTimer.getVisibility() == View.VISIBLE) {
+            // The rest period ended while the screen was in the background
+            showRestLayout(false);
         }
     }
 
+    @Override
+    public void onRestFinished() {
+        playTimerFinishSound();
+        showRestLayout(false);
+        Toast.makeText(this, R.string.rest_complete, Toast.LENGTH_SHORT).show();
+    }
+
     /**
      * Play timer finish sound
      */
@@ -373,9 +372,7 @@ public class WorkoutActivity extends AppCompatActivity implements WorkoutExercis
         showLoading(true);
 
         // Calculate workout duration
-        chronoWorkoutTime.stop();
-        long elapsedMillis = SystemClock.elapsedRealtime() - chronoWorkoutTime.getBase();
-        int durationMinutes = (int) (elapsedMillis / 60000);
+        int durationMinutes = (int) (timer.getWorkoutElapsedMillis() / 60000);
 
         // Save workout data
         workoutViewModel.completeWorkout(workout.getId(), durationMinutes).observe(this, result -> {
@@ -448,11 +445,6 @@ public class WorkoutActivity extends AppCompatActivity implements WorkoutExercis
     protected void onDestroy() {
         super.onDestroy();
 
-        // Cancel timers
-        if (restTimer != null) {
-            restTimer.cancel();
-        }
-
         // Release media players
         if (timerFinishSound != null) {
             timerFinishSound.release();
@@ -469,13 +461,8 @@ public class WorkoutActivity extends AppCompatActivity implements WorkoutExercis
 
     @Override
     public void onSetCompleted(int exercisePosition, int setPosition, WorkoutSet set) {
-        // Update completed sets count
-        if (set.isCompleted()) {
-            completedSets++;
-        } else {
-            completedSets--;
-        }
-        updateProgressUI();
+        // Update session totals; the progress bar follows through the completed sets count
+        workoutViewModel.onSetChanged(exercisePosition, set);
 
         // Start rest timer if rest seconds > 0 and set was completed
         WorkoutExercise exercise = workoutExercises.get(exercisePosition);
@@ -483,12 +470,32 @@ public class WorkoutActivity extends AppCompatActivity implements WorkoutExercis
             startRestTimer(exercise.getRestSeconds());
         }
 
+        // Update personal records incrementally; an unchecked set may take a record back
+        if (set.isCompleted()) {
+            workoutViewModel.recordCompletedSet(workout, exercise, set).observe(this, flags -> {
+                if (flags != null && (flags & ~PersonalRecordEntity.RECORD_REPS_AT_WEIGHT) != 0) {
+                    Toast.makeText(this, getString(R.string.new_personal_record_for,
+                            exercise.getExerciseName()), Toast.LENGTH_SHORT).show();
+                }
+            });
+        } else {
+            workoutViewModel.recalculateRecords(workout, exercise);
+        }
+
         // Update workout data
         workout.setExercises(workoutExercises);
     }
 
     @Override
     public void onSetUpdated(int exercisePosition, int setPosition, WorkoutSet set) {
+        // Edited reps or weight of a completed set change the session totals
+        workoutViewModel.onSetChanged(exercisePosition, set);
+
+        // ...and may raise or lower the records it set
+        if (set.isCompleted()) {
+            workoutViewModel.recalculateRecords(workout, workoutExercises.get(exercisePosition));
+        }
+
         // Update workout data
         workout.setExercises(workoutExercises);
     }
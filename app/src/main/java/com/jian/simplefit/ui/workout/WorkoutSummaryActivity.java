@@ -20,6 +20,7 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.card.MaterialCardView;
 import com.jian.simplefit.R;
+import com.jian.simplefit.data.local.entity.WorkoutWithExercises;
 import com.jian.simplefit.data.model.Resource;
 import com.jian.simplefit.data.model.Workout;
 import com.jian.simplefit.data.model.WorkoutExercise;
@@ -32,9 +33,12 @@ import com.jian.simplefit.viewmodel.WorkoutViewModel;
 import java.util.ArrayList;
 import java.util.List;
 
+import dagger.hilt.android.AndroidEntryPoint;
+
 /**
  * Activity for displaying the workout summary
  */
+@AndroidEntryPoint
 public class WorkoutSummaryActivity extends AppCompatActivity {
 
     public static final String EXTRA_WORKOUT_ID = "workout_id";
@@ -60,6 +64,7 @@ public class WorkoutSummaryActivity extends AppCompatActivity {
     // Data
     private String workoutId;
     private Workout workout;
+    private WorkoutWithExercises workoutSets;
     private List<WorkoutExercise> exercises = new ArrayList<>();
     private WorkoutSummaryExerciseAdapter exerciseAdapter;
 
@@ -150,6 +155,7 @@ public class WorkoutSummaryActivity extends AppCompatActivity {
                     // Success - update UI with workout data
                     workout = result.data;
                     updateUI();
+                    loadNewRecords();
                 } else if (result.getStatus() == Resource.Status.ERROR) {
                     // Error - show error message
                     Toast.makeText(this, R.string.error_workout_not_found, Toast.LENGTH_SHORT).show();
@@ -183,33 +189,20 @@ public class WorkoutSummaryActivity extends AppCompatActivity {
             textWorkoutDuration.setText(R.string.not_available);
         }
 
-        // Set stats
-        int totalSets = 0;
-        int totalReps = workout.getTotalReps();
-        double totalWeight = workout.getTotalVolume();
+        // Index the sets once so the totals and every exercise row are read in linear time
+        workoutSets = workoutViewModel.indexWorkoutSets(workout);
+        WorkoutWithExercises.ExerciseSetStats totals = workoutSets.getTotals();
+
+        textTotalSets.setText(String.valueOf(totals.getCompletedSets()));
+        textTotalReps.setText(String.valueOf(totals.getTotalReps()));
+        textTotalWeight.setText(getString(R.string.weight_format, totals.getTotalVolume()));
 
-        // Calculate completed sets if needed
+        // Update exercises list
+        exercises.clear();
         if (workout.getExercises() != null) {
-            exercises.clear();
             exercises.addAll(workout.getExercises());
-
-            for (WorkoutExercise exercise : exercises) {
-                if (exercise.getSets() != null) {
-                    for (int i = 0; i < exercise.getSets().size(); i++) {
-                        if (exercise.getSets().get(i).isCompleted()) {
-                            totalSets++;
-                        }
-                    }
-                }
-            }
         }
-
-        textTotalSets.setText(String.valueOf(totalSets));
-        textTotalReps.setText(String.valueOf(totalReps));
-        textTotalWeight.setText(getString(R.string.weight_format, totalWeight));
-
-        // Update exercises list
-        exerciseAdapter.setExercises(exercises);
+        exerciseAdapter.setExercises(exercises, workoutSets);
 
         // Show routine information if available
         if (workout.getRoutineId() != null && !workout.getRoutineId().isEmpty()) {
@@ -220,6 +213,14 @@ public class WorkoutSummaryActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * Load the exercises that set a personal record in this workout
+     */
+    private void loadNewRecords() {
+        workoutViewModel.getNewRecordExerciseIds(workoutId).observe(this, exerciseIds ->
+                exerciseAdapter.setNewRecordExerciseIds(exerciseIds));
+    }
+
     /**
      * Show or hide loading indicator
      */
@@ -253,7 +254,7 @@ public class WorkoutSummaryActivity extends AppCompatActivity {
      */
     @SuppressLint("StringFormatInvalid")
     private void shareWorkoutSummary() {
-        if (workout == null) return;
+        if (workout == null || workoutSets == null) return;
 
         StringBuilder message = new StringBuilder();
         message.append(getString(R.string.share_workout_header)).append("\n\n");
@@ -266,9 +267,10 @@ public class WorkoutSummaryActivity extends AppCompatActivity {
         message.append(getString(R.string.duration_minutes, workout.getDurationMinutes())).append("\n");
 
         // Fix: Use proper string arguments instead of resource identifiers
+        WorkoutWithExercises.ExerciseSetStats totals = workoutSets.getTotals();
         message.append(getString(R.string.total_sets, textTotalSets.getText())).append("\n");
-        message.append(getString(R.string.total_reps, workout.getTotalReps())).append("\n");
-        message.append(getString(R.string.total_volume, workout.getTotalVolume())).append("\n\n");
+        message.append(getString(R.string.total_reps, totals.getTotalReps())).append("\n");
+        message.append(getString(R.string.total_volume, totals.getTotalVolume())).append("\n\n");
 
         if (exercises.size() > 0) {
             message.append(getString(R.string.exercises)).append(":\n");
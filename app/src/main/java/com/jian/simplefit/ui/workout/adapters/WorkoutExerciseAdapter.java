@@ -16,6 +16,7 @@ import com.jian.simplefit.data.model.Exercise;
 import com.jian.simplefit.data.model.WorkoutExercise;
 import com.jian.simplefit.data.model.WorkoutSet;
 import com.jian.simplefit.util.ImageUtils;
+import com.jian.simplefit.util.Tracer;
 
 import java.util.List;
 
@@ -27,6 +28,7 @@ public class WorkoutExerciseAdapter extends RecyclerView.Adapter<WorkoutExercise
     private List<WorkoutExercise> workoutExercises;
     private OnExerciseInteractionListener listener;
     private int currentExercisePosition = 0;
+    private final Tracer tracer = Tracer.getInstance();
 
     /**
      * Interface for exercise interactions during a workout
@@ -91,7 +93,12 @@ public class WorkoutExerciseAdapter extends RecyclerView.Adapter<WorkoutExercise
     @Override
     public void onBindViewHolder(@NonNull WorkoutExerciseViewHolder holder, int position) {
         WorkoutExercise workoutExercise = workoutExercises.get(position);
-        holder.bind(position, workoutExercise, currentExercisePosition == position, listener);
+        tracer.begin("ui.workoutExerciseAdapter.bind");
+        try {
+            holder.bind(position, workoutExercise, currentExercisePosition == position, listener);
+        } finally {
+            tracer.end();
+        }
     }
 
     @Override
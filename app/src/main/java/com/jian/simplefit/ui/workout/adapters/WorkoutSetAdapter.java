@@ -14,6 +14,7 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.jian.simplefit.R;
 import com.jian.simplefit.data.model.WorkoutSet;
+import com.jian.simplefit.util.Tracer;
 
 import java.util.List;
 
@@ -24,6 +25,7 @@ public class WorkoutSetAdapter extends RecyclerView.Adapter<WorkoutSetAdapter.Wo
 
     private List<WorkoutSet> workoutSets;
     private OnSetInteractionListener listener;
+    private final Tracer tracer = Tracer.getInstance();
 
     /**
      * Interface for set interactions during a workout
@@ -52,7 +54,12 @@ public class WorkoutSetAdapter extends RecyclerView.Adapter<WorkoutSetAdapter.Wo
     @Override
     public void onBindViewHolder(@NonNull WorkoutSetViewHolder holder, int position) {
         WorkoutSet set = workoutSets.get(position);
-        holder.bind(position, set, listener);
+        tracer.begin("ui.workoutSetAdapter.bind");
+        try {
+            holder.bind(position, set, listener);
+        } finally {
+            tracer.end();
+        }
     }
 
     @Override
@@ -100,7 +107,9 @@ public class WorkoutSetAdapter extends RecyclerView.Adapter<WorkoutSetAdapter.Wo
             editWeight.setText(set.getWeight() > 0 ? String.valueOf(set.getWeight()) : "");
             editReps.setText(set.getReps() > 0 ? String.valueOf(set.getReps()) : "");
 
-            // Set completed state
+            // Set completed state; detach the old listener first so rebinding does not report
+            // the previous set as changed
+            checkCompleted.setOnCheckedChangeListener(null);
             checkCompleted.setChecked(set.isCompleted());
 
             // Set enabled state for edit fields
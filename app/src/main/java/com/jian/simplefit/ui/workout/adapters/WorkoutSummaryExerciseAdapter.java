@@ -10,12 +10,14 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.jian.simplefit.R;
+import com.jian.simplefit.data.local.entity.WorkoutWithExercises;
 import com.jian.simplefit.data.model.WorkoutExercise;
-import com.jian.simplefit.data.model.WorkoutSet;
 import com.jian.simplefit.util.ImageUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Adapter for displaying workout exercises in summary view
@@ -23,6 +25,8 @@ import java.util.List;
 public class WorkoutSummaryExerciseAdapter extends RecyclerView.Adapter<WorkoutSummaryExerciseAdapter.ExerciseViewHolder> {
 
     private List<WorkoutExercise> exercises;
+    private WorkoutWithExercises workoutSets = new WorkoutWithExercises();
+    private Set<String> newRecordExerciseIds = Collections.emptySet();
 
     /**
      * Constructor
@@ -35,9 +39,20 @@ public class WorkoutSummaryExerciseAdapter extends RecyclerView.Adapter<WorkoutS
     /**
      * Update exercises list and refresh the adapter
      * @param newExercises List of new workout exercises
+     * @param sets The same workout with its sets indexed by exercise, used for the row stats
      */
-    public void setExercises(List<WorkoutExercise> newExercises) {
+    public void setExercises(List<WorkoutExercise> newExercises, WorkoutWithExercises sets) {
         this.exercises = newExercises != null ? newExercises : new ArrayList<>();
+        this.workoutSets = sets != null ? sets : new WorkoutWithExercises();
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Set the exercises that achieved a personal record in this workout
+     * @param exerciseIds Set of exercise IDs to badge
+     */
+    public void setNewRecordExerciseIds(Set<String> exerciseIds) {
+        this.newRecordExerciseIds = exerciseIds != null ? exerciseIds : Collections.emptySet();
         notifyDataSetChanged();
     }
 
@@ -64,20 +79,11 @@ public class WorkoutSummaryExerciseAdapter extends RecyclerView.Adapter<WorkoutS
             holder.imageExercise.setImageResource(R.drawable.ic_fitness);
         }
 
-        // Calculate and set exercise stats
-        int completedSets = 0;
-        int totalReps = 0;
-        double totalWeight = 0;
-
-        if (exercise.getSets() != null && !exercise.getSets().isEmpty()) {
-            for (WorkoutSet set : exercise.getSets()) {
-                if (set.isCompleted()) {
-                    completedSets++;
-                    totalReps += set.getReps();
-                    totalWeight += (set.getWeight() * set.getReps());
-                }
-            }
-        }
+        // Read the exercise stats from the index, only this exercise's sets are visited
+        WorkoutWithExercises.ExerciseSetStats stats = workoutSets.getExerciseStats(exercise.getExerciseId());
+        int completedSets = stats.getCompletedSets();
+        int totalReps = stats.getTotalReps();
+        double totalWeight = stats.getTotalVolume();
 
         // Create stats summary text
         StringBuilder statsBuilder = new StringBuilder();
@@ -93,6 +99,11 @@ public class WorkoutSummaryExerciseAdapter extends RecyclerView.Adapter<WorkoutS
         }
 
         holder.textExerciseStats.setText(statsBuilder.toString());
+
+        // Show the PR badge with a set lookup instead of scanning history
+        boolean isNewRecord = exercise.getExerciseId() != null
+                && newRecordExerciseIds.contains(exercise.getExerciseId());
+        holder.textNewRecord.setVisibility(isNewRecord ? View.VISIBLE : View.GONE);
     }
 
     @Override
@@ -107,12 +118,14 @@ public class WorkoutSummaryExerciseAdapter extends RecyclerView.Adapter<WorkoutS
         ImageView imageExercise;
         TextView textExerciseName;
         TextView textExerciseStats;
+        TextView textNewRecord;
 
         public ExerciseViewHolder(@NonNull View itemView) {
             super(itemView);
             imageExercise = itemView.findViewById(R.id.image_exercise);
             textExerciseName = itemView.findViewById(R.id.text_exercise_name);
             textExerciseStats = itemView.findViewById(R.id.text_exercise_stats);
+            textNewRecord = itemView.findViewById(R.id.text_new_record);
         }
     }
 }
\ No newline at end of file
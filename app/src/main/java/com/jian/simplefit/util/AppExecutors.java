@@ -0,0 +1,382 @@
+package com.jian.simplefit.util;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * App-wide background scheduler.
+ * Work is split into three pools: {@link #io()} for blocking network calls, {@link #db()} for
+ * Room access and {@link #cpu()} for in-memory computation. Every pool has two priority lanes:
+ * {@link Priority#USER_VISIBLE} tasks are always dequeued before {@link Priority#BACKGROUND} ones,
+ * so a screen load is never stuck behind a sync. Each pool records queue-wait and run times.
+ */
+@Singleton
+public class AppExecutors {
+
+    /**
+     * Scheduling lane of a task
+     */
+    public enum Priority {
+        // Work whose result a visible screen is waiting for
+        USER_VISIBLE,
+        // Mirroring, syncing and other work nobody is waiting for
+        BACKGROUND
+    }
+
+    /**
+     * Receives timing for every finished task, e.g. to feed a metrics registry
+     */
+    public interface TaskListener {
+        void onTaskFinished(String pool, Priority priority, long queueWaitNanos, long runNanos);
+    }
+
+    private static final int IO_THREADS = 4;
+    private static final int DB_THREADS = 4;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final Lane io;
+    private final Lane db;
+    private final Lane cpu;
+
+    /**
+     * Production constructor with dedicated thread pools
+     */
+    @Inject
+    public AppExecutors() {
+        this(newPriorityPool("io", IO_THREADS),
+                newPriorityPool("db", DB_THREADS),
+                newPriorityPool("cpu", Math.max(2, Runtime.getRuntime().availableProcessors())));
+    }
+
+    /**
+     * Constructor with caller-supplied executors.
+     * Tests pass {@code Runnable::run} to run every task inline and deterministically.
+     * @param io Executor for blocking network work
+     * @param db Executor for database work
+     * @param cpu Executor for computation
+     */
+    public AppExecutors(Executor io, Executor db, Executor cpu) {
+        this.io = new Lane("io", io);
+        this.db = new Lane("db", db);
+        this.cpu = new Lane("cpu", cpu);
+    }
+
+    /**
+     * Scheduler that runs every task on the calling thread, for tests
+     * @return AppExecutors backed by direct executors
+     */
+    public static AppExecutors direct() {
+        Executor direct = Runnable::run;
+        return new AppExecutors(direct, direct, direct);
+    }
+
+    /**
+     * Pool for blocking network calls such as {@code Tasks.await}
+     */
+    public Lane io() {
+        return io;
+    }
+
+    /**
+     * Pool for Room queries and writes
+     */
+    public Lane db() {
+        return db;
+    }
+
+    /**
+     * Pool for CPU-bound work
+     */
+    public Lane cpu() {
+        return cpu;
+    }
+
+    /**
+     * Executor that runs tasks one at a time, in submission order, on a shared pool.
+     * Replaces per-class single-thread executors without owning a thread.
+     * @param pool Pool to run on, e.g. {@link #io()}
+     * @return New serial executor
+     */
+    public static Executor serial(Executor pool) {
+        return new SerialExecutor(pool);
+    }
+
+    /**
+     * Register a listener for task timings on every pool
+     * @param listener Listener, or null to remove it
+     */
+    public void setTaskListener(TaskListener listener) {
+        io.listener = listener;
+        db.listener = listener;
+        cpu.listener = listener;
+    }
+
+    /**
+     * Stop accepting work on pools owned by this scheduler, e.g. at the end of a test
+     */
+    public void shutdown() {
+        io.shutdown();
+        db.shutdown();
+        cpu.shutdown();
+    }
+
+    private static ThreadPoolExecutor newPriorityPool(String name, int threads) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(),
+                new NamedThreadFactory(name));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * One pool with priority lanes and timing counters.
+     * {@link #execute(Runnable)} uses the user-visible lane.
+     */
+    public static final class Lane implements Executor {
+
+        private final String name;
+        private final Executor delegate;
+        private final AtomicLong sequence = new AtomicLong();
+        private volatile TaskListener listener;
+
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong totalQueueWaitNanos = new AtomicLong();
+        private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+        private final AtomicLong totalRunNanos = new AtomicLong();
+        private final AtomicLong maxRunNanos = new AtomicLong();
+
+        Lane(String name, Executor delegate) {
+            this.name = name;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(@NonNull Runnable task) {
+            execute(task, Priority.USER_VISIBLE);
+        }
+
+        /**
+         * Run a task in the given lane
+         * @param task Task to run
+         * @param priority Lane of the task
+         */
+        public void execute(@NonNull Runnable task, @NonNull Priority priority) {
+            submitted.incrementAndGet();
+            delegate.execute(new PrioritizedTask(task, priority, sequence.getAndIncrement()));
+        }
+
+        /**
+         * Run a task in the background lane
+         * @param task Task to run
+         */
+        public void executeBackground(@NonNull Runnable task) {
+            execute(task, Priority.BACKGROUND);
+        }
+
+        /**
+         * Pool name used in thread names and metrics
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Snapshot of this pool's counters
+         * @return Current statistics
+         */
+        public Stats getStats() {
+            return new Stats(name, submitted.get(), completed.get(), failed.get(),
+                    totalQueueWaitNanos.get(), maxQueueWaitNanos.get(),
+                    totalRunNanos.get(), maxRunNanos.get());
+        }
+
+        private void record(Priority priority, long queueWaitNanos, long runNanos, boolean success) {
+            (success ? completed : failed).incrementAndGet();
+            totalQueueWaitNanos.addAndGet(queueWaitNanos);
+            totalRunNanos.addAndGet(runNanos);
+            updateMax(maxQueueWaitNanos, queueWaitNanos);
+            updateMax(maxRunNanos, runNanos);
+
+            TaskListener current = listener;
+            if (current != null) {
+                current.onTaskFinished(name, priority, queueWaitNanos, runNanos);
+            }
+        }
+
+        private void shutdown() {
+            if (delegate instanceof ThreadPoolExecutor) {
+                ((ThreadPoolExecutor) delegate).shutdown();
+            }
+        }
+
+        private static void updateMax(AtomicLong max, long value) {
+            long current;
+            do {
+                current = max.get();
+                if (value <= current) {
+                    return;
+                }
+            } while (!max.compareAndSet(current, value));
+        }
+
+        /**
+         * Task wrapper ordered by lane, then by submission order within a lane
+         */
+        private final class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+
+            private final Runnable task;
+            private final Priority priority;
+            private final long seq;
+            private final long enqueuedAt = System.nanoTime();
+
+            PrioritizedTask(Runnable task, Priority priority, long seq) {
+                this.task = task;
+                this.priority = priority;
+                this.seq = seq;
+            }
+
+            @Override
+            public void run() {
+                long startedAt = System.nanoTime();
+                boolean success = false;
+                try {
+                    task.run();
+                    success = true;
+                } finally {
+                    record(priority, startedAt - enqueuedAt, System.nanoTime() - startedAt, success);
+                }
+            }
+
+            @Override
+            public int compareTo(PrioritizedTask other) {
+                int byPriority = priority.compareTo(other.priority);
+                return byPriority != 0 ? byPriority : Long.compare(seq, other.seq);
+            }
+        }
+    }
+
+    /**
+     * Immutable snapshot of a pool's counters
+     */
+    public static final class Stats {
+        public final String pool;
+        public final long submitted;
+        public final long completed;
+        public final long failed;
+        public final long totalQueueWaitNanos;
+        public final long maxQueueWaitNanos;
+        public final long totalRunNanos;
+        public final long maxRunNanos;
+
+        Stats(String pool, long submitted, long completed, long failed,
+              long totalQueueWaitNanos, long maxQueueWaitNanos, long totalRunNanos, long maxRunNanos) {
+            this.pool = pool;
+            this.submitted = submitted;
+            this.completed = completed;
+            this.failed = failed;
+            this.totalQueueWaitNanos = totalQueueWaitNanos;
+            this.maxQueueWaitNanos = maxQueueWaitNanos;
+            this.totalRunNanos = totalRunNanos;
+            this.maxRunNanos = maxRunNanos;
+        }
+
+        /**
+         * Tasks accepted but not yet finished
+         */
+        public long getPending() {
+            return submitted - completed - failed;
+        }
+
+        /**
+         * Average time a finished task spent queued, in milliseconds
+         */
+        public double getAverageQueueWaitMillis() {
+            long finished = completed + failed;
+            return finished == 0 ? 0 : totalQueueWaitNanos / 1e6 / finished;
+        }
+
+        /**
+         * Average run time of a finished task, in milliseconds
+         */
+        public double getAverageRunMillis() {
+            long finished = completed + failed;
+            return finished == 0 ? 0 : totalRunNanos / 1e6 / finished;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return pool + "{submitted=" + submitted + ", pending=" + getPending() + ", failed=" + failed
+                    + ", avgWaitMs=" + String.format(Locale.US, "%.2f", getAverageQueueWaitMillis())
+                    + ", maxWaitMs=" + TimeUnit.NANOSECONDS.toMillis(maxQueueWaitNanos)
+                    + ", avgRunMs=" + String.format(Locale.US, "%.2f", getAverageRunMillis())
+                    + ", maxRunMs=" + TimeUnit.NANOSECONDS.toMillis(maxRunNanos) + "}";
+        }
+    }
+
+    private static final class SerialExecutor implements Executor {
+
+        private final Executor pool;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private Runnable active;
+
+        SerialExecutor(Executor pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public synchronized void execute(@NonNull Runnable task) {
+            tasks.offer(() -> {
+                try {
+                    task.run();
+                } finally {
+                    scheduleNext();
+                }
+            });
+            if (active == null) {
+                scheduleNext();
+            }
+        }
+
+        private synchronized void scheduleNext() {
+            active = tasks.poll();
+            if (active != null) {
+                pool.execute(active);
+            }
+        }
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            Thread thread = new Thread(runnable, "simplefit-" + name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            // Keep background pools below the UI thread
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+    }
+}
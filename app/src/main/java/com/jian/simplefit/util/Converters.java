@@ -4,7 +4,6 @@ import androidx.room.TypeConverter;
 
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
-import com.jian.simplefit.data.local.entity.UserEntity;
 
 import java.lang.reflect.Type;
 import java.util.ArrayList;
@@ -18,6 +17,12 @@ import java.util.List;
 public class Converters {
 
     private static final Gson gson = new Gson();
+    private static final Tracer tracer = Tracer.getInstance();
+
+    // TypeToken dùng reflection, chỉ tạo một lần thay vì mỗi lần giải mã
+    private static final Type STRING_LIST_TYPE = new TypeToken<List<String>>() {}.getType();
+    private static final Type INTEGER_LIST_TYPE = new TypeToken<List<Integer>>() {}.getType();
+    private static final Type DOUBLE_LIST_TYPE = new TypeToken<List<Double>>() {}.getType();
 
     /**
      * Chuyển đổi danh sách chuỗi thành chuỗi JSON
@@ -42,35 +47,12 @@ public class Converters {
         if (value == null || value.isEmpty()) {
             return new ArrayList<>();
         }
-        Type listType = new TypeToken<List<String>>() {}.getType();
-        return gson.fromJson(value, listType);
-    }
-
-    /**
-     * Chuyển đổi danh sách đối tượng WeightHistoryEntry thành chuỗi JSON
-     * @param list Danh sách WeightHistoryEntry
-     * @return Chuỗi JSON
-     */
-    @TypeConverter
-    public static String fromWeightHistoryList(List<UserEntity.WeightHistoryEntry> list) {
-        if (list == null || list.isEmpty()) {
-            return null;
+        tracer.begin("converters.toStringList");
+        try {
+            return gson.fromJson(value, STRING_LIST_TYPE);
+        } finally {
+            tracer.end();
         }
-        return gson.toJson(list);
-    }
-
-    /**
-     * Chuyển đổi chuỗi JSON thành danh sách đối tượng WeightHistoryEntry
-     * @param value Chuỗi JSON
-     * @return Danh sách WeightHistoryEntry
-     */
-    @TypeConverter
-    public static List<UserEntity.WeightHistoryEntry> toWeightHistoryList(String value) {
-        if (value == null || value.isEmpty()) {
-            return new ArrayList<>();
-        }
-        Type listType = new TypeToken<List<UserEntity.WeightHistoryEntry>>() {}.getType();
-        return gson.fromJson(value, listType);
     }
 
     /**
@@ -142,8 +124,12 @@ public class Converters {
         if (value == null || value.isEmpty()) {
             return new ArrayList<>();
         }
-        Type listType = new TypeToken<List<Integer>>() {}.getType();
-        return gson.fromJson(value, listType);
+        tracer.begin("converters.toIntegerList");
+        try {
+            return gson.fromJson(value, INTEGER_LIST_TYPE);
+        } finally {
+            tracer.end();
+        }
     }
 
     /**
@@ -169,7 +155,11 @@ public class Converters {
         if (value == null || value.isEmpty()) {
             return new ArrayList<>();
         }
-        Type listType = new TypeToken<List<Double>>() {}.getType();
-        return gson.fromJson(value, listType);
+        tracer.begin("converters.toDoubleList");
+        try {
+            return gson.fromJson(value, DOUBLE_LIST_TYPE);
+        } finally {
+            tracer.end();
+        }
     }
 }
\ No newline at end of file
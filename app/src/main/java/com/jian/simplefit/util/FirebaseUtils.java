@@ -98,7 +98,8 @@ public class FirebaseUtils {
      */
     public static Task<Void> createUserDocument(String userId, String email, String displayName) {
         User newUser = new User(email, displayName);
-        return getFirestore().collection(USERS_COLLECTION).document(userId).set(newUser);
+        return getFirestore().collection(USERS_COLLECTION).document(userId).set(newUser)
+                .addOnCompleteListener(metrics().trackWrite("utils.createUserDocument", 1));
     }
 
     /**
@@ -124,7 +125,8 @@ public class FirebaseUtils {
                         updates.put("displayName", displayName);
                         return getFirestore().collection(USERS_COLLECTION)
                                 .document(user.getUid())
-                                .update(updates);
+                                .update(updates)
+                                .addOnCompleteListener(metrics().trackWrite("utils.updateUserDisplayName", 1));
                     } else {
                         throw task.getException();
                     }
@@ -139,8 +141,10 @@ public class FirebaseUtils {
     public static Task<DocumentSnapshot> getUserDocument(String userId) {
         // Check local cache first
         if (userCache.containsKey(userId)) {
+            metrics().cacheHit("utils.user");
             return Tasks.forResult(userCache.get(userId));
         }
+        metrics().cacheMiss("utils.user");
 
         return getFirestore().collection(USERS_COLLECTION).document(userId)
                 .get(Source.CACHE)
@@ -151,7 +155,8 @@ public class FirebaseUtils {
                         return Tasks.forResult(task.getResult());
                     } else {
                         // Fallback to server
-                        return getFirestore().collection(USERS_COLLECTION).document(userId).get();
+                        return getFirestore().collection(USERS_COLLECTION).document(userId).get()
+                                .addOnCompleteListener(metrics().trackDocument("utils.getUserDocument"));
                     }
                 });
     }
@@ -168,7 +173,8 @@ public class FirebaseUtils {
                                              String field, Object value) {
         return getFirestore().collection(collection)
                 .document(documentId)
-                .update(field, FieldValue.arrayUnion(value));
+                .update(field, FieldValue.arrayUnion(value))
+                .addOnCompleteListener(metrics().trackWrite("utils.addToArrayField", 1));
     }
 
     /**
@@ -183,7 +189,8 @@ public class FirebaseUtils {
                                                   String field, Object value) {
         return getFirestore().collection(collection)
                 .document(documentId)
-                .update(field, FieldValue.arrayRemove(value));
+                .update(field, FieldValue.arrayRemove(value))
+                .addOnCompleteListener(metrics().trackWrite("utils.removeFromArrayField", 1));
     }
 
     /**
@@ -231,7 +238,8 @@ public class FirebaseUtils {
         return getFirestore().collection(collection)
                 .whereEqualTo(field, value)
                 .limit(1)
-                .get();
+                .get()
+                .addOnCompleteListener(metrics().trackQuery("utils.checkDocumentExists"));
     }
 
     /**
@@ -324,17 +332,23 @@ public class FirebaseUtils {
             batch.set(entry.getKey(), entry.getValue());
         }
 
-        return batch.commit();
+        return batch.commit()
+                .addOnCompleteListener(metrics().trackWrite("utils.batchWrite", operations.size()));
     }
 
     /**
-     * Log a user action (placeholder method)
+     * Count a user action in the metrics registry
      * @param action Action name
-     * @param params Additional parameters
+     * @param params Additional parameters, only written to the debug log
      */
     public static void logUserAction(String action, Map<String, Object> params) {
-        // This would typically integrate with Firebase Analytics
-        // Not implemented in this simple version
-        Log.d(TAG, "User action: " + action + " " + (params != null ? params.toString() : ""));
+        metrics().counter("user_action." + action).increment();
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "User action: " + action + " " + (params != null ? params.toString() : ""));
+        }
+    }
+
+    private static MetricsRegistry metrics() {
+        return MetricsRegistry.getInstance();
     }
 }
\ No newline at end of file
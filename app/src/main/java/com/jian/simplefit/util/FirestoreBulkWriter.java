@@ -0,0 +1,281 @@
+package com.jian.simplefit.util;
+
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Uploads many documents to Firestore.
+ * Documents are split into batches of at most {@link #MAX_BATCH_SIZE} writes (the Firestore limit),
+ * a bounded number of batches is committed at the same time and a failed batch is retried with
+ * exponential backoff. The content hash of every committed document is remembered, so documents
+ * whose content has not changed since their last upload are skipped without a read or a write.
+ * Must be used from the main thread; every callback runs there.
+ */
+public class FirestoreBulkWriter {
+
+    private static final String TAG = "FirestoreBulkWriter";
+
+    /** Maximum number of writes Firestore accepts in one batch */
+    public static final int MAX_BATCH_SIZE = 500;
+
+    /**
+     * A document to write
+     */
+    public static final class Document {
+        final DocumentReference reference;
+        final Object data;
+        final String contentHash;
+
+        /**
+         * @param reference Target document
+         * @param data Document content, a map or a Firestore-mappable object
+         * @param contentHash Hash of the content, see {@link #contentHash(String)}
+         */
+        public Document(DocumentReference reference, Object data, String contentHash) {
+            this.reference = reference;
+            this.data = data;
+            this.contentHash = contentHash;
+        }
+    }
+
+    /**
+     * Receives upload progress on the main thread
+     */
+    public interface Listener {
+        /**
+         * Called after every committed or abandoned batch
+         * @param progress Counts so far
+         */
+        void onProgress(Progress progress);
+
+        /**
+         * Called once when every batch has been committed or abandoned
+         * @param progress Final counts
+         */
+        void onComplete(Progress progress);
+    }
+
+    /**
+     * Snapshot of an upload
+     */
+    public static final class Progress {
+        public final int total;
+        public final int written;
+        public final int skipped;
+        public final int failed;
+        public final long elapsedNanos;
+
+        Progress(int total, int written, int skipped, int failed, long elapsedNanos) {
+            this.total = total;
+            this.written = written;
+            this.skipped = skipped;
+            this.failed = failed;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Documents that still have to be written or abandoned
+         */
+        public int getRemaining() {
+            return total - written - skipped - failed;
+        }
+
+        /**
+         * Write throughput since the upload started
+         */
+        public double getDocumentsPerSecond() {
+            return elapsedNanos > 0 ? written * 1e9 / elapsedNanos : 0;
+        }
+
+        /**
+         * True if no document was abandoned
+         */
+        public boolean isSuccessful() {
+            return failed == 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%d/%d written, %d skipped, %d failed, %.1f docs/s",
+                    written, total, skipped, failed, getDocumentsPerSecond());
+        }
+    }
+
+    private final FirebaseFirestore firestore;
+    private final SharedPreferences uploadedHashes;
+    private final int batchSize;
+    private final int maxConcurrentBatches;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Random random = new Random();
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    /**
+     * @param firestore Firestore instance
+     * @param uploadedHashes Store of the last uploaded content hash per document path
+     * @param batchSize Writes per batch, capped at {@link #MAX_BATCH_SIZE}
+     * @param maxConcurrentBatches Batches committed at the same time
+     * @param maxAttempts Commits tried per batch before its documents count as failed
+     * @param initialBackoffMillis Delay before the first retry; doubled on every further retry
+     */
+    public FirestoreBulkWriter(FirebaseFirestore firestore, SharedPreferences uploadedHashes, int batchSize,
+                               int maxConcurrentBatches, int maxAttempts, long initialBackoffMillis) {
+        this.firestore = firestore;
+        this.uploadedHashes = uploadedHashes;
+        this.batchSize = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+        this.maxConcurrentBatches = Math.max(1, maxConcurrentBatches);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMillis = initialBackoffMillis;
+    }
+
+    /**
+     * Upload documents, skipping the ones unchanged since their last upload
+     * @param documents Documents to write
+     * @param listener Progress listener
+     */
+    public void write(List<Document> documents, Listener listener) {
+        new Upload(documents, listener).start();
+    }
+
+    /**
+     * Hash of document content, stable across processes
+     * @param content Canonical serialization of the document, e.g. its JSON
+     * @return Hex SHA-256 of the content
+     */
+    public static String contentHash(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Android runtime provides SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * State of one {@link #write} call; only touched on the main thread
+     */
+    private final class Upload {
+        private final Listener listener;
+        private final ArrayDeque<List<Document>> pending = new ArrayDeque<>();
+        private final long startNanos = System.nanoTime();
+        private final int total;
+        private int written;
+        private int skipped;
+        private int failed;
+        private int inFlight;
+
+        Upload(List<Document> documents, Listener listener) {
+            this.listener = listener;
+            this.total = documents.size();
+
+            List<Document> batch = new ArrayList<>(batchSize);
+            for (Document document : documents) {
+                if (document.contentHash != null
+                        && document.contentHash.equals(uploadedHashes.getString(document.reference.getPath(), null))) {
+                    skipped++;
+                    continue;
+                }
+                batch.add(document);
+                if (batch.size() == batchSize) {
+                    pending.add(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                pending.add(batch);
+            }
+        }
+
+        void start() {
+            if (pending.isEmpty()) {
+                finish();
+                return;
+            }
+            fill();
+        }
+
+        private void fill() {
+            while (inFlight < maxConcurrentBatches && !pending.isEmpty()) {
+                inFlight++;
+                commit(pending.poll(), 1);
+            }
+        }
+
+        private void commit(List<Document> batch, int attempt) {
+            WriteBatch writeBatch = firestore.batch();
+            for (Document document : batch) {
+                writeBatch.set(document.reference, document.data);
+            }
+
+            writeBatch.commit()
+                    .addOnCompleteListener(metrics.trackWrite("bulkWriter.commit", batch.size()))
+                    .addOnSuccessListener(aVoid -> {
+                        SharedPreferences.Editor editor = uploadedHashes.edit();
+                        for (Document document : batch) {
+                            if (document.contentHash != null) {
+                                editor.putString(document.reference.getPath(), document.contentHash);
+                            }
+                        }
+                        editor.apply();
+                        written += batch.size();
+                        onBatchDone();
+                    })
+                    .addOnFailureListener(e -> {
+                        if (attempt < maxAttempts) {
+                            // Exponential backoff with jitter so parallel batches do not retry in lockstep
+                            long delay = initialBackoffMillis << (attempt - 1);
+                            delay += (long) (random.nextDouble() * delay / 2);
+                            Log.w(TAG, "Batch of " + batch.size() + " failed (attempt " + attempt
+                                    + "), retrying in " + delay + " ms: " + e.getMessage());
+                            handler.postDelayed(() -> commit(batch, attempt + 1), delay);
+                            return;
+                        }
+                        Log.e(TAG, "Batch of " + batch.size() + " abandoned after " + attempt + " attempts", e);
+                        failed += batch.size();
+                        onBatchDone();
+                    });
+        }
+
+        private void onBatchDone() {
+            inFlight--;
+            listener.onProgress(snapshot());
+            if (pending.isEmpty() && inFlight == 0) {
+                finish();
+            } else {
+                fill();
+            }
+        }
+
+        private void finish() {
+            metrics.recordLatency("bulkWriter.write", startNanos);
+            Progress progress = snapshot();
+            Log.i(TAG, "Upload finished: " + progress);
+            listener.onComplete(progress);
+        }
+
+        private Progress snapshot() {
+            return new Progress(total, written, skipped, failed, System.nanoTime() - startNanos);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.jian.simplefit.util;
+
+import androidx.arch.core.executor.ArchTaskExecutor;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.lifecycle.Observer;
+
+import com.jian.simplefit.data.model.Resource;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Connects {@link Resource} LiveData sources without leaking observers.
+ * Use {@link #addSourceUntilDone} to compose sources into a {@link MediatorLiveData}: the source is
+ * only observed while the mediator itself is observed, and it is detached once it delivers a
+ * success or an error. Background code that needs the result uses {@link #await}, which always
+ * removes its observer, including on timeout.
+ */
+public final class LiveDataBridge {
+
+    private LiveDataBridge() {
+    }
+
+    /**
+     * Forward a source into a mediator until the source completes.
+     * Every value, loading ones included, reaches the callback; the source is removed before the
+     * callback sees a success or an error. Must be called on the main thread.
+     * @param mediator Mediator that owns the subscription
+     * @param source Source to observe
+     * @param onChanged Receives the source values
+     */
+    public static <T, R> void addSourceUntilDone(MediatorLiveData<R> mediator, LiveData<Resource<T>> source,
+                                                 Observer<Resource<T>> onChanged) {
+        mediator.addSource(source, resource -> {
+            if (resource != null && !resource.isLoading()) {
+                mediator.removeSource(source);
+            }
+            onChanged.onChanged(resource);
+        });
+    }
+
+    /**
+     * Block until a source delivers a success or an error.
+     * The observer is attached and always removed on the main thread; call from a background thread.
+     * @param source Source to wait for
+     * @param timeout Maximum wait
+     * @param unit Unit of the timeout
+     * @return Final resource, or an error on timeout or interruption
+     * @throws IllegalStateException If called on the main thread, which would deadlock
+     */
+    public static <T> Resource<T> await(LiveData<Resource<T>> source, long timeout, TimeUnit unit) {
+        ArchTaskExecutor executor = ArchTaskExecutor.getInstance();
+        if (executor.isMainThread()) {
+            throw new IllegalStateException("Cannot await LiveData on the main thread");
+        }
+
+        AtomicReference<Resource<T>> result = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        Observer<Resource<T>> observer = new Observer<Resource<T>>() {
+            @Override
+            public void onChanged(Resource<T> resource) {
+                if (resource != null && !resource.isLoading() && result.compareAndSet(null, resource)) {
+                    source.removeObserver(this);
+                    latch.countDown();
+                }
+            }
+        };
+
+        executor.postToMainThread(() -> source.observeForever(observer));
+        try {
+            if (!latch.await(timeout, unit)) {
+                return Resource.error("Timeout waiting for data", null);
+            }
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Resource.error("Interrupted while waiting for data", null);
+        } finally {
+            // Runs after the observe task on the main thread, so the observer never outlives the wait
+            executor.postToMainThread(() -> source.removeObserver(observer));
+        }
+    }
+}
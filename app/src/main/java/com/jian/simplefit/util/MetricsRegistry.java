@@ -0,0 +1,448 @@
+package com.jian.simplefit.util;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lightweight in-process metrics: counters, latency timers with histograms, Firestore
+ * read/write counts and cache hit ratios. Everything is lock-free and allocation-free on
+ * the hot path after the first use of a name, so it is safe to leave on in release builds.
+ * Use {@link #dump()} or {@link #writeTo(File)} to inspect the numbers.
+ */
+public class MetricsRegistry {
+
+    // Metric name prefixes, so a dump groups related numbers together
+    public static final String PREFIX_READS = "firestore.reads.";
+    public static final String PREFIX_WRITES = "firestore.writes.";
+    public static final String PREFIX_LATENCY = "latency.";
+    public static final String PREFIX_CACHE = "cache.";
+    public static final String PREFIX_EXECUTOR = "executor.";
+
+    private static MetricsRegistry instance;
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, CacheStats> caches = new ConcurrentHashMap<>();
+    private final long createdAtNanos = System.nanoTime();
+    private final Tracer tracer = Tracer.getInstance();
+    private volatile ReadBudgetMonitor readBudget;
+
+    MetricsRegistry() {
+    }
+
+    /**
+     * Get singleton instance
+     * @return MetricsRegistry instance
+     */
+    public static synchronized MetricsRegistry getInstance() {
+        if (instance == null) {
+            instance = new MetricsRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Get or create a counter
+     * @param name Counter name
+     * @return Counter
+     */
+    public Counter counter(String name) {
+        Counter counter = counters.get(name);
+        if (counter == null) {
+            Counter created = new Counter();
+            counter = counters.putIfAbsent(name, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Get or create a latency timer
+     * @param name Timer name
+     * @return Timer
+     */
+    public Timer timer(String name) {
+        Timer timer = timers.get(name);
+        if (timer == null) {
+            Timer created = new Timer();
+            timer = timers.putIfAbsent(name, created);
+            if (timer == null) {
+                timer = created;
+            }
+        }
+        return timer;
+    }
+
+    /**
+     * Record the time elapsed since {@code startNanos} (from {@link System#nanoTime()})
+     * @param method Method name, e.g. "workout.getUserWorkouts"
+     * @param startNanos Start time
+     */
+    public void recordLatency(String method, long startNanos) {
+        timer(PREFIX_LATENCY + method).record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Attribute future reads to screen visits
+     * @param monitor Monitor tracking the screen in front, or null to stop attributing
+     */
+    public void setReadBudgetMonitor(ReadBudgetMonitor monitor) {
+        this.readBudget = monitor;
+    }
+
+    /**
+     * Count documents read by a method, attributed to the screen currently in front
+     * @param method Method name
+     * @param documents Number of documents
+     */
+    public void recordReads(String method, long documents) {
+        recordReads(method, documents, currentVisit());
+    }
+
+    private void recordReads(String method, long documents, ReadBudgetMonitor.Visit visit) {
+        counter(PREFIX_READS + method).add(documents);
+        if (visit != null) {
+            visit.addReads(documents);
+        }
+    }
+
+    private ReadBudgetMonitor.Visit currentVisit() {
+        ReadBudgetMonitor monitor = readBudget;
+        return monitor != null ? monitor.currentVisit() : null;
+    }
+
+    /**
+     * Count documents written by a method
+     * @param method Method name
+     * @param documents Number of documents
+     */
+    public void recordWrites(String method, long documents) {
+        counter(PREFIX_WRITES + method).add(documents);
+    }
+
+    /**
+     * Record a cache lookup that was served from memory
+     * @param cache Cache name
+     */
+    public void cacheHit(String cache) {
+        cacheStats(cache).hits.incrementAndGet();
+    }
+
+    /**
+     * Record a cache lookup that had to go to Firestore or Room
+     * @param cache Cache name
+     */
+    public void cacheMiss(String cache) {
+        cacheStats(cache).misses.incrementAndGet();
+    }
+
+    /**
+     * Completion listener for a Firestore query: records latency, billed reads and a trace span.
+     * An empty query result is still billed as one read.
+     * Must be created right when the query starts, so the reads go to the screen that asked for them.
+     * @param method Method name
+     * @return Listener to pass to {@code addOnCompleteListener}
+     */
+    public OnCompleteListener<QuerySnapshot> trackQuery(String method) {
+        long startNanos = System.nanoTime();
+        long spanId = tracer.beginAsync(method);
+        ReadBudgetMonitor.Visit visit = currentVisit();
+        return task -> {
+            recordLatency(method, startNanos);
+            tracer.endAsync(method, spanId);
+            if (task.isSuccessful() && task.getResult() != null) {
+                QuerySnapshot snapshot = task.getResult();
+                // Results served from the local cache cost nothing
+                if (!snapshot.getMetadata().isFromCache()) {
+                    recordReads(method, Math.max(1, snapshot.size()), visit);
+                }
+            } else {
+                counter(PREFIX_LATENCY + method + ".errors").increment();
+            }
+        };
+    }
+
+    /**
+     * Completion listener for a single-document read: records latency and one billed read
+     * @param method Method name
+     * @return Listener to pass to {@code addOnCompleteListener}
+     */
+    public OnCompleteListener<DocumentSnapshot> trackDocument(String method) {
+        long startNanos = System.nanoTime();
+        long spanId = tracer.beginAsync(method);
+        ReadBudgetMonitor.Visit visit = currentVisit();
+        return task -> {
+            recordLatency(method, startNanos);
+            tracer.endAsync(method, spanId);
+            if (task.isSuccessful() && task.getResult() != null) {
+                if (!task.getResult().getMetadata().isFromCache()) {
+                    recordReads(method, 1, visit);
+                }
+            } else {
+                counter(PREFIX_LATENCY + method + ".errors").increment();
+            }
+        };
+    }
+
+    /**
+     * Completion listener for a write or batch commit: records latency and written documents
+     * @param method Method name
+     * @param documents Number of document writes in the operation
+     * @param <T> Task result type
+     * @return Listener to pass to {@code addOnCompleteListener}
+     */
+    public <T> OnCompleteListener<T> trackWrite(String method, int documents) {
+        long startNanos = System.nanoTime();
+        long spanId = tracer.beginAsync(method);
+        return task -> {
+            recordLatency(method, startNanos);
+            tracer.endAsync(method, spanId);
+            if (task.isSuccessful()) {
+                recordWrites(method, documents);
+            } else {
+                counter(PREFIX_LATENCY + method + ".errors").increment();
+            }
+        };
+    }
+
+    /**
+     * Listener that feeds scheduler timings into this registry
+     * @return Listener for {@link AppExecutors#setTaskListener(AppExecutors.TaskListener)}
+     */
+    public AppExecutors.TaskListener executorListener() {
+        return (pool, priority, queueWaitNanos, runNanos) -> {
+            String prefix = PREFIX_EXECUTOR + pool + "." + priority.name().toLowerCase(Locale.US);
+            timer(prefix + ".queue_wait").record(queueWaitNanos);
+            timer(prefix + ".run").record(runNanos);
+        };
+    }
+
+    /**
+     * Sum of all Firestore document reads recorded so far
+     * @return Total reads
+     */
+    public long getTotalReads() {
+        long total = 0;
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            if (entry.getKey().startsWith(PREFIX_READS)) {
+                total += entry.getValue().get();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Human-readable report, sorted by name within each section
+     * @return Multi-line report
+     */
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("uptime_s=").append(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - createdAtNanos))
+                .append(" total_reads=").append(getTotalReads()).append('\n');
+
+        sb.append("\n# counters\n");
+        for (String name : sortedKeys(counters)) {
+            sb.append(name).append(' ').append(counters.get(name).get()).append('\n');
+        }
+
+        sb.append("\n# timers (ms)\n");
+        for (String name : sortedKeys(timers)) {
+            sb.append(name).append(' ').append(timers.get(name)).append('\n');
+        }
+
+        sb.append("\n# caches\n");
+        for (String name : sortedKeys(caches)) {
+            sb.append(PREFIX_CACHE).append(name).append(' ').append(caches.get(name)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Write {@link #dump()} to a file, replacing its contents
+     * @param file Target file
+     * @throws IOException If the file cannot be written
+     */
+    public void writeTo(File file) throws IOException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(dump());
+        }
+    }
+
+    /**
+     * Forget all recorded values
+     */
+    public void reset() {
+        counters.clear();
+        timers.clear();
+        caches.clear();
+    }
+
+    private CacheStats cacheStats(String cache) {
+        CacheStats stats = caches.get(cache);
+        if (stats == null) {
+            CacheStats created = new CacheStats();
+            stats = caches.putIfAbsent(cache, created);
+            if (stats == null) {
+                stats = created;
+            }
+        }
+        return stats;
+    }
+
+    private static List<String> sortedKeys(Map<String, ?> map) {
+        List<String> keys = new ArrayList<>(map.keySet());
+        Collections.sort(keys);
+        return keys;
+    }
+
+    /**
+     * Monotonic counter
+     */
+    public static final class Counter {
+        private final AtomicLong value = new AtomicLong();
+
+        public void increment() {
+            value.incrementAndGet();
+        }
+
+        public void add(long delta) {
+            value.addAndGet(delta);
+        }
+
+        public long get() {
+            return value.get();
+        }
+    }
+
+    /**
+     * Latency timer with a fixed-bucket histogram for percentile estimates
+     */
+    public static final class Timer {
+
+        // Upper bucket bounds in milliseconds; the last bucket is unbounded
+        private static final long[] BUCKET_BOUNDS_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000};
+
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MS.length + 1);
+
+        /**
+         * Record one observation
+         * @param nanos Duration in nanoseconds
+         */
+        public void record(long nanos) {
+            if (nanos < 0) {
+                nanos = 0;
+            }
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            long current;
+            do {
+                current = maxNanos.get();
+                if (nanos <= current) break;
+            } while (!maxNanos.compareAndSet(current, nanos));
+            buckets.incrementAndGet(bucketIndex(TimeUnit.NANOSECONDS.toMillis(nanos)));
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public double getMeanMillis() {
+            long n = count.get();
+            return n == 0 ? 0 : totalNanos.get() / 1e6 / n;
+        }
+
+        public double getMaxMillis() {
+            return maxNanos.get() / 1e6;
+        }
+
+        /**
+         * Estimate a percentile as the upper bound of the bucket containing it
+         * @param percentile Percentile between 0 and 100
+         * @return Estimated latency in milliseconds
+         */
+        public double getPercentileMillis(double percentile) {
+            long n = count.get();
+            if (n == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile / 100.0 * n);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return i < BUCKET_BOUNDS_MS.length
+                            ? Math.min(BUCKET_BOUNDS_MS[i], getMaxMillis()) : getMaxMillis();
+                }
+            }
+            return getMaxMillis();
+        }
+
+        private static int bucketIndex(long millis) {
+            for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+                if (millis <= BUCKET_BOUNDS_MS[i]) {
+                    return i;
+                }
+            }
+            return BUCKET_BOUNDS_MS.length;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "count=%d mean=%.1f p50=%.0f p95=%.0f p99=%.0f max=%.1f",
+                    getCount(), getMeanMillis(), getPercentileMillis(50), getPercentileMillis(95),
+                    getPercentileMillis(99), getMaxMillis());
+        }
+    }
+
+    /**
+     * Hit and miss counts of one cache
+     */
+    public static final class CacheStats {
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+
+        public long getHits() {
+            return hits.get();
+        }
+
+        public long getMisses() {
+            return misses.get();
+        }
+
+        public double getHitRatio() {
+            long total = hits.get() + misses.get();
+            return total == 0 ? 0 : (double) hits.get() / total;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "hits=%d misses=%d ratio=%.2f", getHits(), getMisses(), getHitRatio());
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.jian.simplefit.util;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentActivity;
+import androidx.fragment.app.FragmentManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Attributes Firestore document reads to the screen that was in front when a query started.
+ * Every started activity or fragment opens a visit; reads recorded through {@link MetricsRegistry}
+ * are added to the most recently started visit and summed per screen in the metrics dump.
+ * When enforcement is on, a visit that reads more documents than its screen's budget is
+ * logged as a warning or crashes the app, so a regression shows up the first time the screen opens.
+ */
+public class ReadBudgetMonitor implements Application.ActivityLifecycleCallbacks {
+
+    private static final String TAG = "ReadBudgetMonitor";
+
+    // Reads per visit allowed for screens without their own budget
+    public static final int DEFAULT_BUDGET = 50;
+
+    // Metric names, e.g. "screen.HomeFragment.reads"
+    private static final String PREFIX_SCREEN = "screen.";
+
+    /**
+     * What to do when a visit goes over budget
+     */
+    public enum Mode {
+        // Only count reads per screen
+        OFF,
+        // Log a warning with the screen and read count
+        WARN,
+        // Throw on the main thread so the regression cannot be missed
+        FAIL
+    }
+
+    private static ReadBudgetMonitor instance;
+
+    private final MetricsRegistry metrics;
+    private final Map<String, Integer> budgets = new ConcurrentHashMap<>();
+    // Started, not yet stopped visits in start order; the last one is in front
+    private final List<Visit> activeVisits = new ArrayList<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile Mode mode = Mode.OFF;
+    private volatile int defaultBudget = DEFAULT_BUDGET;
+
+    private final FragmentManager.FragmentLifecycleCallbacks fragmentCallbacks =
+            new FragmentManager.FragmentLifecycleCallbacks() {
+                @Override
+                public void onFragmentStarted(@NonNull FragmentManager fm, @NonNull Fragment fragment) {
+                    if (isScreen(fragment)) {
+                        beginVisit(fragment, fragment.getClass().getSimpleName());
+                    }
+                }
+
+                @Override
+                public void onFragmentStopped(@NonNull FragmentManager fm, @NonNull Fragment fragment) {
+                    endVisit(fragment);
+                }
+            };
+
+    ReadBudgetMonitor(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Get singleton instance
+     * @return ReadBudgetMonitor instance
+     */
+    public static synchronized ReadBudgetMonitor getInstance() {
+        if (instance == null) {
+            instance = new ReadBudgetMonitor(MetricsRegistry.getInstance());
+        }
+        return instance;
+    }
+
+    /**
+     * Start tracking activity and fragment visits and attributing reads to them
+     * @param application Application to register lifecycle callbacks on
+     * @param mode Enforcement mode, {@link Mode#OFF} in release builds
+     */
+    public void install(Application application, Mode mode) {
+        this.mode = mode;
+        application.registerActivityLifecycleCallbacks(this);
+        metrics.setReadBudgetMonitor(this);
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Set the number of document reads one visit of a screen may cost
+     * @param screen Simple class name of the activity or fragment
+     * @param maxReads Allowed reads per visit
+     */
+    public void setBudget(String screen, int maxReads) {
+        budgets.put(screen, maxReads);
+    }
+
+    /**
+     * Set the budget for screens without their own
+     * @param maxReads Allowed reads per visit
+     */
+    public void setDefaultBudget(int maxReads) {
+        this.defaultBudget = maxReads;
+    }
+
+    /**
+     * Visit that new queries are attributed to
+     * @return Visit of the screen in front, or null before the first screen starts
+     */
+    @Nullable
+    public synchronized Visit currentVisit() {
+        return activeVisits.isEmpty() ? null : activeVisits.get(activeVisits.size() - 1);
+    }
+
+    /**
+     * Open a visit, called when a screen starts
+     * @param owner Activity or fragment instance
+     * @param screen Screen name used for budgets and metrics
+     */
+    public synchronized void beginVisit(Object owner, String screen) {
+        activeVisits.add(new Visit(owner, screen));
+    }
+
+    /**
+     * Close the visit of an owner, called when the screen stops
+     * @param owner Activity or fragment instance
+     */
+    public void endVisit(Object owner) {
+        Visit ended = null;
+        synchronized (this) {
+            for (int i = activeVisits.size() - 1; i >= 0; i--) {
+                if (activeVisits.get(i).owner == owner) {
+                    ended = activeVisits.remove(i);
+                    break;
+                }
+            }
+        }
+        if (ended == null) {
+            return;
+        }
+
+        metrics.counter(PREFIX_SCREEN + ended.screen + ".visits").increment();
+        if (mode != Mode.OFF && ended.getReads() > 0) {
+            Log.d(TAG, ended.screen + " visit read " + ended.getReads()
+                    + " documents (budget " + ended.budget + ")");
+        }
+    }
+
+    private int budgetFor(String screen) {
+        Integer budget = budgets.get(screen);
+        return budget != null ? budget : defaultBudget;
+    }
+
+    private void onBudgetExceeded(Visit visit, long reads) {
+        metrics.counter(PREFIX_SCREEN + visit.screen + ".over_budget").increment();
+        String message = String.format(Locale.US,
+                "%s read %d Firestore documents in one visit, budget is %d",
+                visit.screen, reads, visit.budget);
+
+        Mode current = mode;
+        if (current == Mode.WARN) {
+            Log.w(TAG, message);
+        } else if (current == Mode.FAIL) {
+            // Reads can be recorded off the main thread, where a throw would only fail one task
+            mainHandler.post(() -> {
+                throw new IllegalStateException(message);
+            });
+        }
+    }
+
+    private static boolean isScreen(Fragment fragment) {
+        // Headless fragments and navigation containers do not issue queries of their own
+        return fragment.getView() != null && !fragment.getClass().getName().startsWith("androidx.");
+    }
+
+    @Override
+    public void onActivityCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {
+        if (activity instanceof FragmentActivity) {
+            ((FragmentActivity) activity).getSupportFragmentManager()
+                    .registerFragmentLifecycleCallbacks(fragmentCallbacks, true);
+        }
+    }
+
+    @Override
+    public void onActivityStarted(@NonNull Activity activity) {
+        beginVisit(activity, activity.getClass().getSimpleName());
+    }
+
+    @Override
+    public void onActivityStopped(@NonNull Activity activity) {
+        endVisit(activity);
+    }
+
+    @Override
+    public void onActivityResumed(@NonNull Activity activity) {
+    }
+
+    @Override
+    public void onActivityPaused(@NonNull Activity activity) {
+    }
+
+    @Override
+    public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) {
+    }
+
+    @Override
+    public void onActivityDestroyed(@NonNull Activity activity) {
+    }
+
+    /**
+     * One start-to-stop span of a screen and the reads attributed to it
+     */
+    public final class Visit {
+
+        private final Object owner;
+        private final String screen;
+        private final int budget;
+        private final AtomicLong reads = new AtomicLong();
+        private final AtomicBoolean reported = new AtomicBoolean();
+
+        Visit(Object owner, String screen) {
+            this.owner = owner;
+            this.screen = screen;
+            this.budget = budgetFor(screen);
+        }
+
+        /**
+         * Add billed document reads; reports once when the budget is first exceeded
+         * @param documents Number of documents read
+         */
+        public void addReads(long documents) {
+            long total = reads.addAndGet(documents);
+            metrics.counter(PREFIX_SCREEN + screen + ".reads").add(documents);
+            if (total > budget && reported.compareAndSet(false, true)) {
+                onBudgetExceeded(this, total);
+            }
+        }
+
+        public String getScreen() {
+            return screen;
+        }
+
+        public long getReads() {
+            return reads.get();
+        }
+    }
+}
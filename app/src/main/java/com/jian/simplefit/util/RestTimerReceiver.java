@@ -0,0 +1,65 @@
+package com.jian.simplefit.util;
+
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+
+import com.jian.simplefit.R;
+
+/**
+ * Shows a notification when a rest period ends while the workout screen is in the background.
+ * Scheduled by {@link WorkoutTimer} as a single alarm at the rest deadline.
+ */
+public class RestTimerReceiver extends BroadcastReceiver {
+
+    private static final String CHANNEL_ID = "rest_timer";
+    private static final int NOTIFICATION_ID = 1001;
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        NotificationManagerCompat notificationManager = NotificationManagerCompat.from(context);
+        if (!notificationManager.areNotificationsEnabled()) {
+            return;
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationChannel channel = new NotificationChannel(CHANNEL_ID,
+                    context.getString(R.string.title_rest_timer), NotificationManager.IMPORTANCE_HIGH);
+            context.getSystemService(NotificationManager.class).createNotificationChannel(channel);
+        }
+
+        // The launcher intent brings the existing task, and the running workout, back to the front
+        Intent launchIntent = context.getPackageManager().getLaunchIntentForPackage(context.getPackageName());
+        PendingIntent contentIntent = null;
+        if (launchIntent != null) {
+            int flags = PendingIntent.FLAG_UPDATE_CURRENT;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                flags |= PendingIntent.FLAG_IMMUTABLE;
+            }
+            contentIntent = PendingIntent.getActivity(context, 0, launchIntent, flags);
+        }
+
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_timer)
+                .setContentTitle(context.getString(R.string.title_rest_timer))
+                .setContentText(context.getString(R.string.rest_complete))
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setCategory(NotificationCompat.CATEGORY_ALARM)
+                .setDefaults(NotificationCompat.DEFAULT_ALL)
+                .setContentIntent(contentIntent)
+                .setAutoCancel(true);
+
+        try {
+            notificationManager.notify(NOTIFICATION_ID, builder.build());
+        } catch (SecurityException e) {
+            // Notification permission was revoked between the check and the call
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.jian.simplefit.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * In-memory full-text index over a title and a body per item, built for Vietnamese text.
+ * Text is folded once at index time: diacritics are stripped (đ becomes d), case is lowered and
+ * punctuation becomes a word break, so "đẩy ngực" matches "Day nguc". Every folded text is cut into
+ * character trigrams and each trigram keeps a posting list of the items containing it, which makes a
+ * query with a typo still share most of its trigrams with the intended word.
+ *
+ * <p>A query only visits the posting lists of its own trigrams and keeps the best N in a bounded
+ * insertion-sorted array, so it costs microseconds for catalogs of a few hundred items.
+ * The index is immutable after {@link Builder#build()} and safe to query from any thread.
+ *
+ * @param <T> Indexed item type
+ */
+public class TextSearchIndex<T> {
+
+    // Folded text only contains a-z, 0-9, space and OTHER, so a trigram fits in a small int
+    private static final int ALPHABET = 38;
+    private static final int SPACE = 36;
+    private static final int OTHER = 37;
+    private static final int TRIGRAM_COUNT = ALPHABET * ALPHABET * ALPHABET;
+
+    // A title hit counts more than a body hit
+    private static final float TITLE_WEIGHT = 1f;
+    private static final float BODY_WEIGHT = 0.35f;
+    // Extra score when the folded title contains the whole folded query, more if it starts with it
+    private static final float CONTAINS_BONUS = 0.5f;
+    private static final float PREFIX_BONUS = 0.25f;
+    // Share of query trigrams an item must contain to be returned
+    private static final float MIN_TITLE_SIMILARITY = 0.4f;
+    private static final float MIN_BODY_SIMILARITY = 0.75f;
+
+    private static final int[] EMPTY = new int[0];
+
+    private final List<T> items;
+    private final String[] foldedTitles;
+    private final int[][] titlePostings;
+    private final int[][] bodyPostings;
+
+    private TextSearchIndex(List<T> items, String[] foldedTitles, int[][] titlePostings, int[][] bodyPostings) {
+        this.items = items;
+        this.foldedTitles = foldedTitles;
+        this.titlePostings = titlePostings;
+        this.bodyPostings = bodyPostings;
+    }
+
+    /**
+     * Number of indexed items
+     */
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * Find the best matching items
+     * @param query Free text, with or without diacritics
+     * @param limit Maximum number of results; zero or negative returns nothing
+     * @return Items ordered by score, ties in insertion order; the first items for a blank query
+     */
+    public List<T> search(String query, int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        String folded = fold(query);
+        if (folded.isEmpty()) {
+            return new ArrayList<>(items.subList(0, Math.min(limit, items.size())));
+        }
+
+        int[] trigrams = uniqueTrigrams(folded);
+        int n = items.size();
+        int[] titleHits = new int[n];
+        int[] bodyHits = new int[n];
+        // Items with at least one hit, so scoring does not walk the whole catalog
+        int[] touched = new int[n];
+        int touchedCount = 0;
+
+        for (int trigram : trigrams) {
+            for (int item : titlePostings[trigram]) {
+                if (titleHits[item]++ == 0 && bodyHits[item] == 0) {
+                    touched[touchedCount++] = item;
+                }
+            }
+            for (int item : bodyPostings[trigram]) {
+                if (bodyHits[item]++ == 0 && titleHits[item] == 0) {
+                    touched[touchedCount++] = item;
+                }
+            }
+        }
+
+        int[] best = new int[Math.min(limit, touchedCount)];
+        float[] bestScores = new float[best.length];
+        int found = 0;
+        float total = trigrams.length;
+        for (int i = 0; i < touchedCount; i++) {
+            int item = touched[i];
+            float titleSimilarity = titleHits[item] / total;
+            float bodySimilarity = bodyHits[item] / total;
+            // A title containing the query always matches, even inside a word
+            int position = foldedTitles[item].indexOf(folded);
+            if (position < 0 && titleSimilarity < MIN_TITLE_SIMILARITY && bodySimilarity < MIN_BODY_SIMILARITY) {
+                continue;
+            }
+
+            float score = TITLE_WEIGHT * titleSimilarity + BODY_WEIGHT * bodySimilarity;
+            if (position >= 0) {
+                score += CONTAINS_BONUS;
+                if (position == 0) {
+                    score += PREFIX_BONUS;
+                }
+            }
+
+            // Keep the top results sorted; equal scores keep the earlier item first
+            if (found == best.length && (best.length == 0 || score <= bestScores[found - 1])) {
+                continue;
+            }
+            int slot = found < best.length ? found++ : found - 1;
+            while (slot > 0 && (bestScores[slot - 1] < score
+                    || (bestScores[slot - 1] == score && best[slot - 1] > item))) {
+                bestScores[slot] = bestScores[slot - 1];
+                best[slot] = best[slot - 1];
+                slot--;
+            }
+            bestScores[slot] = score;
+            best[slot] = item;
+        }
+
+        List<T> result = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            result.add(items.get(best[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Fold text for matching: strip diacritics, lower case, keep letters and digits separated by
+     * single spaces
+     * @param text Any text, may be null
+     * @return Folded text without leading or trailing spaces
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder builder = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            // đ/Đ has no decomposition
+            if (c == 'đ' || c == 'Đ') {
+                c = 'd';
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && builder.length() > 0) {
+                    builder.append(' ');
+                }
+                pendingSpace = false;
+                builder.append(Character.toLowerCase(c));
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return builder.toString();
+    }
+
+    private static int code(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        if (c >= '0' && c <= '9') {
+            return 26 + c - '0';
+        }
+        return c == ' ' ? SPACE : OTHER;
+    }
+
+    /**
+     * Distinct trigrams of folded text, padded with a space on both sides so short words and
+     * word starts produce trigrams too
+     */
+    private static int[] uniqueTrigrams(String folded) {
+        int length = folded.length() + 2;
+        int[] trigrams = new int[Math.max(0, length - 2)];
+        int previous = SPACE;
+        int current = code(folded.charAt(0));
+        for (int i = 0; i < trigrams.length; i++) {
+            int next = i + 1 < folded.length() ? code(folded.charAt(i + 1)) : SPACE;
+            trigrams[i] = (previous * ALPHABET + current) * ALPHABET + next;
+            previous = current;
+            current = next;
+        }
+
+        Arrays.sort(trigrams);
+        int unique = 0;
+        for (int i = 0; i < trigrams.length; i++) {
+            if (unique == 0 || trigrams[unique - 1] != trigrams[i]) {
+                trigrams[unique++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, unique);
+    }
+
+    /**
+     * Collects items, then folds and indexes them in one pass
+     * @param <T> Indexed item type
+     */
+    public static class Builder<T> {
+
+        private final List<T> items = new ArrayList<>();
+        private final List<String> titles = new ArrayList<>();
+        private final List<String> bodies = new ArrayList<>();
+
+        /**
+         * Add an item
+         * @param item Item returned by searches
+         * @param title Main text, e.g. the name
+         * @param body Secondary text, e.g. the description; may be null
+         * @return This builder
+         */
+        public Builder<T> add(T item, String title, String body) {
+            items.add(item);
+            titles.add(title);
+            bodies.add(body);
+            return this;
+        }
+
+        /**
+         * Build the index
+         * @return Immutable index
+         */
+        public TextSearchIndex<T> build() {
+            int n = items.size();
+            String[] foldedTitles = new String[n];
+            int[][] titleTrigrams = new int[n][];
+            int[][] bodyTrigrams = new int[n][];
+            int[] titleCounts = new int[TRIGRAM_COUNT];
+            int[] bodyCounts = new int[TRIGRAM_COUNT];
+
+            // First pass: fold and count postings so every list is allocated at its exact size
+            for (int i = 0; i < n; i++) {
+                foldedTitles[i] = fold(titles.get(i));
+                String body = fold(bodies.get(i));
+                titleTrigrams[i] = foldedTitles[i].isEmpty() ? EMPTY : uniqueTrigrams(foldedTitles[i]);
+                bodyTrigrams[i] = body.isEmpty() ? EMPTY : uniqueTrigrams(body);
+                for (int trigram : titleTrigrams[i]) {
+                    titleCounts[trigram]++;
+                }
+                for (int trigram : bodyTrigrams[i]) {
+                    bodyCounts[trigram]++;
+                }
+            }
+
+            int[][] titlePostings = allocate(titleCounts);
+            int[][] bodyPostings = allocate(bodyCounts);
+            // Reuse the counts as fill positions; items are added in order so lists stay sorted
+            Arrays.fill(titleCounts, 0);
+            Arrays.fill(bodyCounts, 0);
+            for (int i = 0; i < n; i++) {
+                for (int trigram : titleTrigrams[i]) {
+                    titlePostings[trigram][titleCounts[trigram]++] = i;
+                }
+                for (int trigram : bodyTrigrams[i]) {
+                    bodyPostings[trigram][bodyCounts[trigram]++] = i;
+                }
+            }
+
+            return new TextSearchIndex<>(Collections.unmodifiableList(new ArrayList<>(items)),
+                    foldedTitles, titlePostings, bodyPostings);
+        }
+
+        private static int[][] allocate(int[] counts) {
+            int[][] postings = new int[counts.length][];
+            for (int i = 0; i < counts.length; i++) {
+                postings[i] = counts[i] == 0 ? EMPTY : new int[counts[i]];
+            }
+            return postings;
+        }
+    }
+}
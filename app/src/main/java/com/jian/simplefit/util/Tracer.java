@@ -0,0 +1,288 @@
+package com.jian.simplefit.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Span recorder for hot paths, exported in the Chrome trace event format
+ * (open the file in chrome://tracing or ui.perfetto.dev).
+ * Events go into a fixed-size ring buffer, so memory use is bounded and the oldest events are
+ * overwritten first. While disabled every call returns after a single volatile read.
+ *
+ * <p>Synchronous spans must begin and end on the same thread:
+ * <pre>
+ * tracer.begin("db.workout.replace");
+ * try { ... } finally { tracer.end(); }
+ * </pre>
+ * Work that completes on another thread (Firestore tasks) uses {@link #beginAsync(String)}
+ * and {@link #endAsync(String, long)}.
+ */
+public class Tracer {
+
+    public static final int DEFAULT_CAPACITY = 16 * 1024;
+
+    // Chrome trace event phases
+    static final char PHASE_BEGIN = 'B';
+    static final char PHASE_END = 'E';
+    static final char PHASE_ASYNC_BEGIN = 'b';
+    static final char PHASE_ASYNC_END = 'e';
+
+    private static Tracer instance;
+
+    private final int capacity;
+    private final char[] phases;
+    private final String[] names;
+    private final long[] timestampsMicros;
+    private final long[] threadIds;
+    private final long[] asyncIds;
+    // Total events ever recorded; the next slot is written % capacity
+    private long written;
+
+    private final Map<Long, String> threadNames = new ConcurrentHashMap<>();
+    private final AtomicLong nextAsyncId = new AtomicLong(1);
+    private volatile boolean enabled;
+
+    Tracer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.phases = new char[capacity];
+        this.names = new String[capacity];
+        this.timestampsMicros = new long[capacity];
+        this.threadIds = new long[capacity];
+        this.asyncIds = new long[capacity];
+    }
+
+    /**
+     * Get singleton instance
+     * @return Tracer instance
+     */
+    public static synchronized Tracer getInstance() {
+        if (instance == null) {
+            instance = new Tracer(DEFAULT_CAPACITY);
+        }
+        return instance;
+    }
+
+    /**
+     * Turn recording on or off. Already recorded events are kept.
+     * @param enabled True to record spans
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Open a span on the current thread
+     * @param name Span name, should be a constant string
+     */
+    public void begin(String name) {
+        if (enabled) {
+            record(PHASE_BEGIN, name, 0);
+        }
+    }
+
+    /**
+     * Close the innermost open span on the current thread
+     */
+    public void end() {
+        if (enabled) {
+            record(PHASE_END, null, 0);
+        }
+    }
+
+    /**
+     * Open a span that may be closed on another thread
+     * @param name Span name, should be a constant string
+     * @return Id to pass to {@link #endAsync(String, long)}, 0 when disabled
+     */
+    public long beginAsync(String name) {
+        if (!enabled) {
+            return 0;
+        }
+        long id = nextAsyncId.getAndIncrement();
+        record(PHASE_ASYNC_BEGIN, name, id);
+        return id;
+    }
+
+    /**
+     * Close a span opened with {@link #beginAsync(String)}
+     * @param name Same name as passed to beginAsync
+     * @param id Id returned by beginAsync
+     */
+    public void endAsync(String name, long id) {
+        if (enabled && id != 0) {
+            record(PHASE_ASYNC_END, name, id);
+        }
+    }
+
+    /**
+     * Number of events currently held, never more than the capacity
+     * @return Event count
+     */
+    public synchronized int size() {
+        return (int) Math.min(written, capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Drop all recorded events
+     */
+    public synchronized void clear() {
+        written = 0;
+        for (int i = 0; i < capacity; i++) {
+            names[i] = null;
+        }
+        threadNames.clear();
+    }
+
+    private void record(char phase, String name, long asyncId) {
+        long timestamp = System.nanoTime() / 1000;
+        Thread thread = Thread.currentThread();
+        long threadId = thread.getId();
+        if (!threadNames.containsKey(threadId)) {
+            threadNames.put(threadId, thread.getName());
+        }
+        synchronized (this) {
+            int slot = (int) (written % capacity);
+            phases[slot] = phase;
+            names[slot] = name;
+            timestampsMicros[slot] = timestamp;
+            threadIds[slot] = threadId;
+            asyncIds[slot] = asyncId;
+            written++;
+        }
+    }
+
+    /**
+     * Write the buffer as a Chrome trace JSON document, oldest event first.
+     * End events whose begin was already overwritten are skipped so the trace stays well nested.
+     * @param out Target writer, not closed
+     * @throws IOException If writing fails
+     */
+    public void writeChromeTrace(Writer out) throws IOException {
+        char[] phaseCopy;
+        String[] nameCopy;
+        long[] timestampCopy;
+        long[] threadCopy;
+        long[] asyncCopy;
+        int count;
+        int first;
+        // Copy under the lock, format outside it so recording threads are not blocked by I/O
+        synchronized (this) {
+            count = size();
+            first = (int) ((written - count) % capacity);
+            phaseCopy = phases.clone();
+            nameCopy = names.clone();
+            timestampCopy = timestampsMicros.clone();
+            threadCopy = threadIds.clone();
+            asyncCopy = asyncIds.clone();
+        }
+
+        out.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+        boolean firstEvent = true;
+        for (Map.Entry<Long, String> thread : threadNames.entrySet()) {
+            firstEvent = writeSeparator(out, firstEvent);
+            out.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":");
+            out.write(Long.toString(thread.getKey()));
+            out.write(",\"args\":{\"name\":");
+            writeString(out, thread.getValue());
+            out.write("}}");
+        }
+
+        Map<Long, Integer> openDepth = new HashMap<>();
+        Set<Long> openAsync = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            int slot = (first + i) % capacity;
+            char phase = phaseCopy[slot];
+            long threadId = threadCopy[slot];
+
+            if (phase == PHASE_BEGIN) {
+                Integer depth = openDepth.get(threadId);
+                openDepth.put(threadId, depth == null ? 1 : depth + 1);
+            } else if (phase == PHASE_END) {
+                Integer depth = openDepth.get(threadId);
+                if (depth == null || depth == 0) {
+                    continue;
+                }
+                openDepth.put(threadId, depth - 1);
+            } else if (phase == PHASE_ASYNC_BEGIN) {
+                openAsync.add(asyncCopy[slot]);
+            } else if (phase == PHASE_ASYNC_END && !openAsync.remove(asyncCopy[slot])) {
+                continue;
+            }
+
+            firstEvent = writeSeparator(out, firstEvent);
+            out.write("{\"ph\":\"");
+            out.write(phase);
+            out.write("\",\"ts\":");
+            out.write(Long.toString(timestampCopy[slot]));
+            out.write(",\"pid\":1,\"tid\":");
+            out.write(Long.toString(threadId));
+            if (nameCopy[slot] != null) {
+                out.write(",\"name\":");
+                writeString(out, nameCopy[slot]);
+            }
+            if (phase == PHASE_ASYNC_BEGIN || phase == PHASE_ASYNC_END) {
+                out.write(",\"cat\":\"async\",\"id\":");
+                out.write(Long.toString(asyncCopy[slot]));
+            }
+            out.write('}');
+        }
+        out.write("]}");
+        out.flush();
+    }
+
+    /**
+     * Write the trace to a file, replacing its contents
+     * @param file Target file, usually with a .json extension
+     * @throws IOException If the file cannot be written
+     */
+    public void writeTo(File file) throws IOException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writeChromeTrace(writer);
+        }
+    }
+
+    private static boolean writeSeparator(Writer out, boolean first) throws IOException {
+        if (!first) {
+            out.write(',');
+        }
+        return false;
+    }
+
+    private static void writeString(Writer out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < 0x20) {
+                out.write(String.format(Locale.US, "\\u%04x", (int) c));
+            } else {
+                out.write(c);
+            }
+        }
+        out.write('"');
+    }
+}
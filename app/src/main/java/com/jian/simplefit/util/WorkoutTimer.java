@@ -0,0 +1,262 @@
+package com.jian.simplefit.util;
+
+import android.app.Activity;
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.SavedStateHandle;
+
+/**
+ * Session-scoped workout clock and rest countdown.
+ * Both are stored as {@link SystemClock#elapsedRealtime()} instants in a {@link SavedStateHandle},
+ * so they stay correct across configuration changes, backgrounding and process death.
+ * One main-thread ticker drives both displays, only while the attached screen is started, and
+ * wakes up on whole-second boundaries of the clock so the text never drifts. While the screen is
+ * in the background a single alarm is scheduled for the end of the rest period instead.
+ */
+public class WorkoutTimer {
+
+    /**
+     * Receives display updates on the main thread
+     */
+    public interface Listener {
+        /**
+         * Called once per displayed second
+         * @param workoutElapsedMillis Time since the workout started
+         * @param restRemainingMillis Time left in the rest period, or -1 when not resting
+         */
+        void onTick(long workoutElapsedMillis, long restRemainingMillis);
+
+        /**
+         * Called when a rest period ends while the screen is visible
+         */
+        void onRestFinished();
+    }
+
+    private static final long TICK_MILLIS = 1000;
+
+    private static final String KEY_WORKOUT_ID = "timer_workout_id";
+    private static final String KEY_WORKOUT_START = "timer_workout_start";
+    private static final String KEY_REST_DEADLINE = "timer_rest_deadline";
+
+    private final SavedStateHandle state;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable tick = this::onTickDue;
+
+    private long workoutStart;
+    private long restDeadline;
+    private Context appContext;
+    private Listener listener;
+    private boolean visible;
+
+    public WorkoutTimer(SavedStateHandle state) {
+        this.state = state;
+        Long savedStart = state.get(KEY_WORKOUT_START);
+        Long savedDeadline = state.get(KEY_REST_DEADLINE);
+        this.workoutStart = savedStart != null ? savedStart : 0;
+        this.restDeadline = savedDeadline != null ? savedDeadline : 0;
+    }
+
+    /**
+     * Start timing a workout; does nothing if this session is already timing it
+     * @param workoutId ID of the workout
+     */
+    public void startSession(String workoutId) {
+        if (workoutStart != 0 && workoutId != null && workoutId.equals(getSessionWorkoutId())) {
+            return;
+        }
+        workoutStart = SystemClock.elapsedRealtime();
+        restDeadline = 0;
+        state.set(KEY_WORKOUT_ID, workoutId);
+        state.set(KEY_WORKOUT_START, workoutStart);
+        state.set(KEY_REST_DEADLINE, restDeadline);
+        scheduleTick(0);
+    }
+
+    /**
+     * ID of the workout being timed, restored after process death
+     * @return Workout ID, or null before the session starts
+     */
+    public String getSessionWorkoutId() {
+        return state.get(KEY_WORKOUT_ID);
+    }
+
+    /**
+     * Time since the workout started
+     * @return Elapsed milliseconds, 0 before the session starts
+     */
+    public long getWorkoutElapsedMillis() {
+        return workoutStart == 0 ? 0 : SystemClock.elapsedRealtime() - workoutStart;
+    }
+
+    /**
+     * Start or restart the rest countdown
+     * @param seconds Rest duration
+     */
+    public void startRest(int seconds) {
+        setRestDeadline(SystemClock.elapsedRealtime() + seconds * 1000L);
+        scheduleTick(0);
+    }
+
+    /**
+     * Stop the rest countdown without notifying
+     */
+    public void skipRest() {
+        setRestDeadline(0);
+        cancelRestAlarm();
+        scheduleTick(0);
+    }
+
+    public boolean isResting() {
+        return restDeadline != 0 && restDeadline > SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Bind the display to a screen. Ticks run between ON_START and ON_STOP; the listener
+     * is dropped on ON_DESTROY so the timer never holds a destroyed activity.
+     * @param owner Screen showing the timer
+     * @param context Any context, only the application context is kept
+     * @param listener Display callbacks
+     */
+    public void attach(@NonNull LifecycleOwner owner, @NonNull Context context, @NonNull Listener listener) {
+        this.appContext = context.getApplicationContext();
+        this.listener = listener;
+        owner.getLifecycle().addObserver(new LifecycleEventObserver() {
+            @Override
+            public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+                if (event == Lifecycle.Event.ON_START) {
+                    onVisible();
+                } else if (event == Lifecycle.Event.ON_STOP) {
+                    onHidden(source);
+                } else if (event == Lifecycle.Event.ON_DESTROY) {
+                    source.getLifecycle().removeObserver(this);
+                    if (WorkoutTimer.this.listener == listener) {
+                        WorkoutTimer.this.listener = null;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * End the session: stop ticking and cancel a pending rest alarm
+     */
+    public void release() {
+        handler.removeCallbacks(tick);
+        cancelRestAlarm();
+        listener = null;
+    }
+
+    private void onVisible() {
+        visible = true;
+        cancelRestAlarm();
+        // A rest that ended in the background was already announced by the alarm
+        if (restDeadline != 0 && restDeadline <= SystemClock.elapsedRealtime()) {
+            setRestDeadline(0);
+        }
+        scheduleTick(0);
+    }
+
+    private void onHidden(LifecycleOwner source) {
+        visible = false;
+        handler.removeCallbacks(tick);
+        // A rotation stops and restarts the screen immediately, no alarm is needed for it
+        boolean changingConfigurations = source instanceof Activity
+                && ((Activity) source).isChangingConfigurations();
+        if (isResting() && !changingConfigurations) {
+            scheduleRestAlarm();
+        }
+    }
+
+    private void onTickDue() {
+        Listener current = listener;
+        if (!visible || current == null) {
+            return;
+        }
+
+        long now = SystemClock.elapsedRealtime();
+        long elapsed = workoutStart == 0 ? 0 : now - workoutStart;
+        long remaining = restDeadline == 0 ? -1 : restDeadline - now;
+
+        if (restDeadline != 0 && remaining <= 0) {
+            setRestDeadline(0);
+            current.onTick(elapsed, -1);
+            current.onRestFinished();
+            remaining = -1;
+        } else {
+            current.onTick(elapsed, remaining);
+        }
+
+        // Wake at the next second boundary of whichever display changes first
+        long delay = Long.MAX_VALUE;
+        if (workoutStart != 0) {
+            delay = TICK_MILLIS - elapsed % TICK_MILLIS;
+        }
+        if (remaining > 0) {
+            long restDelay = remaining % TICK_MILLIS;
+            delay = Math.min(delay, restDelay == 0 ? TICK_MILLIS : restDelay);
+        }
+        if (delay != Long.MAX_VALUE) {
+            scheduleTick(delay);
+        }
+    }
+
+    private void scheduleTick(long delayMillis) {
+        handler.removeCallbacks(tick);
+        if (visible) {
+            handler.postDelayed(tick, delayMillis);
+        }
+    }
+
+    private void setRestDeadline(long deadline) {
+        restDeadline = deadline;
+        state.set(KEY_REST_DEADLINE, deadline);
+    }
+
+    private void scheduleRestAlarm() {
+        if (appContext == null) {
+            return;
+        }
+        AlarmManager alarmManager = (AlarmManager) appContext.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) {
+            return;
+        }
+        PendingIntent alarm = restAlarmIntent(appContext);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && !alarmManager.canScheduleExactAlarms()) {
+            // Without the exact alarm permission the system may deliver this a little late
+            alarmManager.setAndAllowWhileIdle(AlarmManager.ELAPSED_REALTIME_WAKEUP, restDeadline, alarm);
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.ELAPSED_REALTIME_WAKEUP, restDeadline, alarm);
+        } else {
+            alarmManager.setExact(AlarmManager.ELAPSED_REALTIME_WAKEUP, restDeadline, alarm);
+        }
+    }
+
+    private void cancelRestAlarm() {
+        if (appContext == null) {
+            return;
+        }
+        AlarmManager alarmManager = (AlarmManager) appContext.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager != null) {
+            alarmManager.cancel(restAlarmIntent(appContext));
+        }
+    }
+
+    private static PendingIntent restAlarmIntent(Context context) {
+        int flags = PendingIntent.FLAG_UPDATE_CURRENT;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            flags |= PendingIntent.FLAG_IMMUTABLE;
+        }
+        return PendingIntent.getBroadcast(context, 0, new Intent(context, RestTimerReceiver.class), flags);
+    }
+}
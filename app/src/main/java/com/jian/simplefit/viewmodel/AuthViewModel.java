@@ -14,9 +14,14 @@ import com.jian.simplefit.data.model.User;
 import com.jian.simplefit.data.remote.AuthRepository;
 import com.jian.simplefit.data.model.Resource;
 
+import javax.inject.Inject;
+
+import dagger.hilt.android.lifecycle.HiltViewModel;
+
 /**
  * ViewModel for authentication-related operations
  */
+@HiltViewModel
 public class AuthViewModel extends AndroidViewModel {
 
     private final AuthRepository authRepository;
@@ -28,9 +33,10 @@ public class AuthViewModel extends AndroidViewModel {
      * Constructor for AuthViewModel
      * @param application Application context
      */
-    public AuthViewModel(@NonNull Application application) {
+    @Inject
+    public AuthViewModel(@NonNull Application application, AuthRepository authRepository) {
         super(application);
-        authRepository = new AuthRepository();
+        this.authRepository = authRepository;
         userLiveData = new MutableLiveData<>();
         loggedOutLiveData = new MutableLiveData<>();
         authStateLiveData = new MutableLiveData<>();
@@ -3,13 +3,24 @@ package com.jian.simplefit.viewmodel;
 import android.util.Log;
 
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
+import com.jian.simplefit.data.local.MuscleLoadRepository;
+import com.jian.simplefit.data.local.PersonalRecordRepository;
+import com.jian.simplefit.data.local.entity.MuscleLoad;
+import com.jian.simplefit.data.local.entity.PersonalRecordEntity;
 import com.jian.simplefit.data.model.Exercise;
+import com.jian.simplefit.data.model.ExerciseSimilarityIndex;
 import com.jian.simplefit.data.model.MuscleGroup;
 import com.jian.simplefit.data.remote.ExerciseRepository;
 import com.jian.simplefit.data.model.Resource;
+import com.jian.simplefit.util.AppExecutors;
+import com.jian.simplefit.util.LiveDataBridge;
+import com.jian.simplefit.util.MetricsRegistry;
+import com.jian.simplefit.util.TextSearchIndex;
+import com.jian.simplefit.util.Tracer;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -17,44 +28,65 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 import javax.inject.Inject;
 
+import dagger.hilt.android.lifecycle.HiltViewModel;
+
 /**
  * ViewModel quản lý và cung cấp dữ liệu Exercise cho các thành phần UI
  */
+@HiltViewModel
 public class ExerciseViewModel extends ViewModel {
     private static final String TAG = "ExerciseViewModel";
+    private static final String CACHE_NAME = "exerciseViewModel.lists";
 
     private final ExerciseRepository exerciseRepository;
+    private final PersonalRecordRepository personalRecordRepository;
+    private final MuscleLoadRepository muscleLoadRepository;
+    private final MetricsRegistry metrics;
     private final Executor executor;
+    private final Tracer tracer = Tracer.getInstance();
     private final Map<String, LiveData<Resource<List<Exercise>>>> exerciseListCache;
 
     // LiveData objects
-    private MutableLiveData<Resource<List<Exercise>>> allExercises;
-    private MutableLiveData<Resource<List<String>>> equipmentTypes;
+    private MediatorLiveData<Resource<List<Exercise>>> allExercises;
+    private MediatorLiveData<Resource<List<String>>> equipmentTypes;
     private MutableLiveData<Resource<List<String>>> difficultyLevels;
 
     /**
      * Constructor với repository injection
+     * Các repository là singleton nên mọi màn hình dùng chung một bộ nhớ đệm bài tập
      */
     @Inject
-    public ExerciseViewModel(ExerciseRepository exerciseRepository) {
+    public ExerciseViewModel(ExerciseRepository exerciseRepository,
+                             PersonalRecordRepository personalRecordRepository,
+                             MuscleLoadRepository muscleLoadRepository,
+                             AppExecutors executors, MetricsRegistry metrics) {
         this.exerciseRepository = exerciseRepository;
-        this.executor = Executors.newSingleThreadExecutor();
+        this.personalRecordRepository = personalRecordRepository;
+        this.muscleLoadRepository = muscleLoadRepository;
+        this.metrics = metrics;
+        // Tasks of one ViewModel stay ordered but share the app-wide I/O threads
+        this.executor = AppExecutors.serial(executors.io());
         this.exerciseListCache = new ConcurrentHashMap<>();
     }
 
-
+    /**
+     * Lấy kỷ lục cá nhân của người dùng hiện tại cho một bài tập
+     * @param exerciseId ID của bài tập
+     * @return LiveData chứa kỷ lục, null nếu chưa có
+     */
+    public LiveData<PersonalRecordEntity> getPersonalRecord(String exerciseId) {
+        return personalRecordRepository.getRecord(exerciseId);
+    }
 
     /**
-     * Constructor mặc định sử dụng khi không sử dụng dependency injection
+     * Lấy tải tập luyện 7/28 ngày của từng nhóm cơ cho bản đồ nhiệt
+     * @return LiveData chứa Map từ ID nhóm cơ đến tải
      */
-    public ExerciseViewModel() {
-        this.exerciseRepository = new ExerciseRepository();
-        this.executor = Executors.newSingleThreadExecutor();
-        this.exerciseListCache = new ConcurrentHashMap<>();
+    public LiveData<Map<String, MuscleLoad>> getMuscleLoads() {
+        return muscleLoadRepository.getMuscleLoads();
     }
 
     /**
@@ -63,7 +95,7 @@ public class ExerciseViewModel extends ViewModel {
      */
     public LiveData<Resource<List<Exercise>>> getAllExercises() {
         if (allExercises == null) {
-            allExercises = new MutableLiveData<>();
+            allExercises = new MediatorLiveData<>();
             loadAllExercises();
         }
         return allExercises;
@@ -73,30 +105,31 @@ public class ExerciseViewModel extends ViewModel {
      * Tải tất cả bài tập từ repository
      */
     private void loadAllExercises() {
-        executor.execute(() -> {
-            allExercises.postValue(Resource.loading("Đang tải danh sách bài tập..."));
+        allExercises.setValue(Resource.loading("Đang tải danh sách bài tập..."));
 
-            try {
-                LiveData<Resource<List<Exercise>>> repositoryData = exerciseRepository.getAllExercises();
-
-                repositoryData.observeForever(resource -> {
-                    if (resource.status == Resource.Status.SUCCESS && resource.data != null) {
-                        // Sắp xếp theo tên
-                        List<Exercise> exercises = new ArrayList<>(resource.data);
-                        Collections.sort(exercises, (e1, e2) -> e1.getName().compareTo(e2.getName()));
-                        allExercises.postValue(Resource.success(exercises));
-                    } else if (resource.status == Resource.Status.ERROR) {
-                        allExercises.postValue(Resource.error(resource.message, null));
-                        Log.e(TAG, "Error loading exercises: " + resource.message);
-                    } else if (resource.status == Resource.Status.LOADING) {
-                        allExercises.postValue(Resource.loading(resource.message));
-                    }
-                });
-            } catch (Exception e) {
-                String errorMessage = "Không thể tải dữ liệu bài tập: " + e.getMessage();
-                Log.e(TAG, errorMessage, e);
-                allExercises.postValue(Resource.error(errorMessage, null));
+        // Nguồn chỉ được theo dõi khi có màn hình quan sát và được gỡ ngay khi có kết quả
+        LiveDataBridge.addSourceUntilDone(allExercises, exerciseRepository.getAllExercises(), resource -> {
+            if (resource == null || resource.isLoading()) {
+                return;
             }
+            if (!resource.isSuccess() || resource.data == null) {
+                allExercises.setValue(Resource.error(resource.message, null));
+                Log.e(TAG, "Error loading exercises: " + resource.message);
+                return;
+            }
+
+            List<Exercise> loaded = resource.data;
+            executor.execute(() -> {
+                // Sắp xếp theo tên
+                tracer.begin("vm.exercise.sortAll");
+                try {
+                    List<Exercise> exercises = new ArrayList<>(loaded);
+                    Collections.sort(exercises, (e1, e2) -> e1.getName().compareTo(e2.getName()));
+                    allExercises.postValue(Resource.success(exercises));
+                } finally {
+                    tracer.end();
+                }
+            });
         });
     }
 
@@ -152,8 +185,10 @@ public class ExerciseViewModel extends ViewModel {
 
         // Kiểm tra cache
         if (exerciseListCache.containsKey(cacheKey)) {
+            metrics.cacheHit(CACHE_NAME);
             return exerciseListCache.get(cacheKey);
         }
+        metrics.cacheMiss(CACHE_NAME);
 
         executor.execute(() -> {
             result.postValue(Resource.loading("Đang tải danh sách bài tập..."));
@@ -176,7 +211,7 @@ public class ExerciseViewModel extends ViewModel {
      * @return LiveData chứa danh sách bài tập phù hợp
      */
     public LiveData<Resource<List<Exercise>>> searchExercises(String query) {
-        MutableLiveData<Resource<List<Exercise>>> result = new MutableLiveData<>();
+        MediatorLiveData<Resource<List<Exercise>>> result = new MediatorLiveData<>();
 
         if (query == null) {
             query = "";
@@ -187,17 +222,35 @@ public class ExerciseViewModel extends ViewModel {
 
         // Kiểm tra cache cho các tìm kiếm phổ biến
         if (!finalQuery.isEmpty() && exerciseListCache.containsKey(cacheKey)) {
+            metrics.cacheHit(CACHE_NAME);
             return exerciseListCache.get(cacheKey);
         }
+        metrics.cacheMiss(CACHE_NAME);
 
-        executor.execute(() -> {
-            result.postValue(Resource.loading("Đang tìm kiếm bài tập..."));
+        result.setValue(Resource.loading("Đang tìm kiếm bài tập..."));
 
-            try {
-                // Existing code
-            } catch (Exception e) {
-                // Existing code
+        // Tìm trên chỉ mục trigram của danh mục: không phân biệt dấu, hoa thường và chịu được lỗi gõ
+        LiveDataBridge.addSourceUntilDone(result, exerciseRepository.getAllExercises(), resource -> {
+            if (resource == null || resource.isLoading()) {
+                return;
             }
+            if (!resource.isSuccess()) {
+                result.setValue(Resource.error(resource.message, new ArrayList<>()));
+                return;
+            }
+
+            executor.execute(() -> {
+                tracer.begin("vm.exercise.searchExercises");
+                try {
+                    TextSearchIndex<Exercise> index = exerciseRepository.buildSearchIndex();
+                    result.postValue(Resource.success(index != null
+                            ? index.search(finalQuery, ExerciseRepository.SEARCH_LIMIT) : new ArrayList<>()));
+                } catch (Exception e) {
+                    result.postValue(Resource.error("Lỗi tìm kiếm bài tập: " + e.getMessage(), new ArrayList<>()));
+                } finally {
+                    tracer.end();
+                }
+            });
         });
 
         // Lưu vào cache nếu không phải tìm kiếm trống
@@ -225,8 +278,10 @@ public class ExerciseViewModel extends ViewModel {
 
         // Kiểm tra cache
         if (exerciseListCache.containsKey(cacheKey)) {
+            metrics.cacheHit(CACHE_NAME);
             return exerciseListCache.get(cacheKey);
         }
+        metrics.cacheMiss(CACHE_NAME);
 
         executor.execute(() -> {
             result.postValue(Resource.loading("Đang tải bài tập cho nhóm cơ..."));
@@ -243,6 +298,46 @@ public class ExerciseViewModel extends ViewModel {
         return result;
     }
 
+    /**
+     * Lấy các bài tập tương tự nhất, đã xếp hạng
+     * Chỉ mục tương tự được xây một lần từ danh mục bài tập; sau đó mỗi lần gọi chỉ là một lần tra cứu
+     * @param exerciseId ID của bài tập
+     * @param limit Số bài tập tối đa
+     * @return LiveData chứa danh sách bài tập tương tự, giống nhất trước
+     */
+    public LiveData<Resource<List<Exercise>>> getSimilarExercises(String exerciseId, int limit) {
+        ExerciseSimilarityIndex index = exerciseRepository.getSimilarityIndex();
+        if (index != null) {
+            return new MutableLiveData<>(Resource.success(index.getSimilar(exerciseId, limit)));
+        }
+
+        MediatorLiveData<Resource<List<Exercise>>> result = new MediatorLiveData<>();
+        result.setValue(Resource.loading(null));
+
+        // Danh mục thường đã nằm trong bộ nhớ đệm của repository, không phát sinh truy vấn mới
+        LiveDataBridge.addSourceUntilDone(result, exerciseRepository.getAllExercises(), resource -> {
+            if (resource == null || resource.isLoading()) {
+                return;
+            }
+            if (!resource.isSuccess()) {
+                result.setValue(Resource.error(resource.message, new ArrayList<>()));
+                return;
+            }
+
+            executor.execute(() -> {
+                tracer.begin("vm.exercise.getSimilarExercises");
+                try {
+                    ExerciseSimilarityIndex built = exerciseRepository.buildSimilarityIndex();
+                    result.postValue(Resource.success(built != null
+                            ? built.getSimilar(exerciseId, limit) : new ArrayList<>()));
+                } finally {
+                    tracer.end();
+                }
+            });
+        });
+        return result;
+    }
+
     /**
      * Tìm kiếm bài tập theo tên trong một nhóm cơ cụ thể
      * @param query Từ khóa tìm kiếm
@@ -266,8 +361,10 @@ public class ExerciseViewModel extends ViewModel {
 
         // Kiểm tra cache cho các tìm kiếm phổ biến
         if (!finalQuery.isEmpty() && exerciseListCache.containsKey(cacheKey)) {
+            metrics.cacheHit(CACHE_NAME);
             return exerciseListCache.get(cacheKey);
         }
+        metrics.cacheMiss(CACHE_NAME);
 
         executor.execute(() -> {
             result.postValue(Resource.loading("Đang tìm kiếm bài tập..."));
@@ -329,7 +426,7 @@ public class ExerciseViewModel extends ViewModel {
      */
     public LiveData<Resource<List<Exercise>>> getFilteredExercises(
             List<String> muscleGroups, String equipment, String difficulty, boolean isCompoundOnly) {
-        MutableLiveData<Resource<List<Exercise>>> result = new MutableLiveData<>();
+        MediatorLiveData<Resource<List<Exercise>>> result = new MediatorLiveData<>();
 
         // Tạo key dựa trên các tiêu chí lọc
         StringBuilder keyBuilder = new StringBuilder("filter_");
@@ -350,37 +447,34 @@ public class ExerciseViewModel extends ViewModel {
 
         // Kiểm tra cache
         if (exerciseListCache.containsKey(cacheKey)) {
+            metrics.cacheHit(CACHE_NAME);
             return exerciseListCache.get(cacheKey);
         }
+        metrics.cacheMiss(CACHE_NAME);
 
-        executor.execute(() -> {
-            result.postValue(Resource.loading("Đang lọc bài tập..."));
+        result.setValue(Resource.loading("Đang lọc bài tập..."));
 
-            try {
-                // Replace stream code with loops
-                LiveData<Resource<List<Exercise>>> repositoryData = allExercises;
-                if (repositoryData == null || repositoryData.getValue() == null ||
-                        repositoryData.getValue().data == null) {
-                    // Fetch all exercises first
-                    getAllExercises().observeForever(resource -> {
-                        if (resource.status == Resource.Status.SUCCESS && resource.data != null) {
-                            List<Exercise> filteredList = filterExercisesList(resource.data,
-                                    muscleGroups, equipment, difficulty, isCompoundOnly);
-                            result.postValue(Resource.success(filteredList));
-                        } else if (resource.status == Resource.Status.ERROR) {
-                            result.postValue(Resource.error(resource.message, null));
-                        }
-                    });
-                } else {
-                    List<Exercise> filteredList = filterExercisesList(repositoryData.getValue().data,
-                            muscleGroups, equipment, difficulty, isCompoundOnly);
-                    result.postValue(Resource.success(filteredList));
-                }
-            } catch (Exception e) {
-                String errorMessage = "Lỗi khi lọc bài tập: " + e.getMessage();
-                Log.e(TAG, errorMessage, e);
-                result.postValue(Resource.error(errorMessage, null));
+        // Lọc trên danh sách đã tải; nguồn được gỡ khi có kết quả nên mỗi lần đổi bộ lọc không để lại observer
+        LiveDataBridge.addSourceUntilDone(result, getAllExercises(), resource -> {
+            if (resource == null || resource.isLoading()) {
+                return;
+            }
+            if (!resource.isSuccess() || resource.data == null) {
+                result.setValue(Resource.error(resource.message, null));
+                return;
             }
+
+            List<Exercise> exercises = resource.data;
+            executor.execute(() -> {
+                try {
+                    result.postValue(Resource.success(filterExercisesList(exercises,
+                            muscleGroups, equipment, difficulty, isCompoundOnly)));
+                } catch (Exception e) {
+                    String errorMessage = "Lỗi khi lọc bài tập: " + e.getMessage();
+                    Log.e(TAG, errorMessage, e);
+                    result.postValue(Resource.error(errorMessage, null));
+                }
+            });
         });
 
         // Lưu vào cache
@@ -427,7 +521,7 @@ public class ExerciseViewModel extends ViewModel {
      */
     public LiveData<Resource<List<String>>> getAllEquipmentTypes() {
         if (equipmentTypes == null) {
-            equipmentTypes = new MutableLiveData<>();
+            equipmentTypes = new MediatorLiveData<>();
             loadEquipmentTypes();
         }
         return equipmentTypes;
@@ -437,23 +531,17 @@ public class ExerciseViewModel extends ViewModel {
      * Tải tất cả các loại thiết bị từ repository
      */
     private void loadEquipmentTypes() {
-        executor.execute(() -> {
-            equipmentTypes.postValue(Resource.loading("Đang tải danh sách thiết bị..."));
+        equipmentTypes.setValue(Resource.loading("Đang tải danh sách thiết bị..."));
 
-            try {
-                LiveData<Resource<List<String>>> repositoryData = exerciseRepository.getEquipmentTypes();
-
-                repositoryData.observeForever(resource -> {
-                    if (resource.status == Resource.Status.SUCCESS) {
-                        equipmentTypes.postValue(Resource.success(resource.data));
-                    } else if (resource.status == Resource.Status.ERROR) {
-                        equipmentTypes.postValue(Resource.error(resource.message, null));
-                    }
-                });
-            } catch (Exception e) {
-                String errorMessage = "Lỗi khi tải danh sách thiết bị: " + e.getMessage();
-                Log.e(TAG, errorMessage, e);
-                equipmentTypes.postValue(Resource.error(errorMessage, null));
+        LiveDataBridge.addSourceUntilDone(equipmentTypes, exerciseRepository.getEquipmentTypes(), resource -> {
+            if (resource == null || resource.isLoading()) {
+                return;
+            }
+            if (resource.isSuccess()) {
+                equipmentTypes.setValue(Resource.success(resource.data));
+            } else {
+                Log.e(TAG, "Lỗi khi tải danh sách thiết bị: " + resource.message);
+                equipmentTypes.setValue(Resource.error(resource.message, null));
             }
         });
     }
@@ -1,10 +1,9 @@
 package com.jian.simplefit.viewmodel;
 
-import android.os.Build;
-
-import androidx.annotation.RequiresApi;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
 import androidx.lifecycle.ViewModel;
 
 import com.google.android.gms.tasks.Task;
@@ -18,85 +17,88 @@ import com.jian.simplefit.data.model.Routine;
 import com.jian.simplefit.data.model.RoutineExercise;
 import com.jian.simplefit.data.remote.ExerciseRepository;
 import com.jian.simplefit.data.remote.RoutineRepository;
+import com.jian.simplefit.data.remote.RoutineStore;
 import com.jian.simplefit.data.remote.UserRepository;
+import com.jian.simplefit.util.AppExecutors;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 import javax.inject.Inject;
 
+import dagger.hilt.android.lifecycle.HiltViewModel;
+
 /**
  * ViewModel for routine-related operations
  */
+@HiltViewModel
 public class RoutineViewModel extends ViewModel {
 
+    // Number of routines shown as favorites
+    private static final int FAVORITE_ROUTINES_LIMIT = 5;
+
     private final RoutineRepository routineRepository;
     private final ExerciseRepository exerciseRepository;
     private final UserRepository userRepository;
     private final Executor executor;
 
-    private MutableLiveData<Resource<List<Routine>>> userRoutines;
+    private MediatorLiveData<Resource<List<Routine>>> userRoutines;
     private MutableLiveData<List<MuscleGroup>> muscleGroups;
 
+    // View state applied to the shared routine store; changing it costs no Firestore reads
+    private Comparator<Routine> sortOrder = RoutineStore.NEWEST_FIRST;
+    private String muscleGroupFilter;
+
     /**
      * Constructor with repository injection
      */
     @Inject
-    public RoutineViewModel(RoutineRepository routineRepository, ExerciseRepository exerciseRepository, UserRepository userRepository) {
+    public RoutineViewModel(RoutineRepository routineRepository, ExerciseRepository exerciseRepository, UserRepository userRepository,
+                            AppExecutors executors) {
         this.routineRepository = routineRepository;
         this.exerciseRepository = exerciseRepository;
         this.userRepository = userRepository;
-        this.executor = Executors.newSingleThreadExecutor();
-    }
-
-    /**
-     * Default constructor for when injection isn't available
-     * This is required by ViewModelProvider
-     */
-    public RoutineViewModel() {
-        this.routineRepository = new RoutineRepository();
-        this.exerciseRepository = new ExerciseRepository();
-        this.userRepository = new UserRepository();
-        this.executor = Executors.newSingleThreadExecutor();
+        // Tasks of one ViewModel stay ordered but share the app-wide I/O threads
+        this.executor = AppExecutors.serial(executors.io());
     }
 
     /**
-     * Get user's routines
+     * Get user's routines, kept up to date by the shared snapshot listener
      */
     public LiveData<Resource<List<Routine>>> getUserRoutines() {
         if (userRoutines == null) {
-            userRoutines = new MutableLiveData<>();
-            loadUserRoutines();
+            userRoutines = new MediatorLiveData<>();
+            userRoutines.addSource(routineRepository.observeUserRoutines(), this::publishUserRoutines);
         }
         return userRoutines;
     }
 
-
     /**
-     * Load user's routines from repository
+     * Apply the current sort order and muscle-group filter to the store contents
      */
-    private void loadUserRoutines() {
-        userRoutines.setValue(Resource.loading(null));
+    private void publishUserRoutines(Resource<List<Routine>> resource) {
+        if (resource == null || resource.getStatus() != Resource.Status.SUCCESS || resource.data == null) {
+            userRoutines.setValue(resource);
+            return;
+        }
 
-        executor.execute(() -> {
-            try {
-                Task<List<Routine>> task = routineRepository.getUserRoutines();
-                List<Routine> routines = Tasks.await(task);
+        List<Routine> routines = resource.data;
+        if (muscleGroupFilter != null) {
+            routines = RoutineStore.filterByMuscleGroup(routines, muscleGroupFilter);
+        }
+        userRoutines.setValue(Resource.success(RoutineStore.sorted(routines, sortOrder)));
+    }
 
-                if (routines != null) {
-                    userRoutines.postValue(Resource.success(routines));
-                } else {
-                    userRoutines.postValue(Resource.success(new ArrayList<>()));
-                }
-            } catch (Exception e) {
-                userRoutines.postValue(Resource.error("Failed to load routines: " + e.getMessage(), null));
-            }
-        });
+    /**
+     * Re-apply view state after a sort or filter change
+     */
+    private void republishUserRoutines() {
+        if (userRoutines != null) {
+            publishUserRoutines(routineRepository.observeUserRoutines().getValue());
+        }
     }
 
     /**
@@ -104,85 +106,32 @@ public class RoutineViewModel extends ViewModel {
      * @return LiveData containing all routines
      */
     public LiveData<Resource<List<Routine>>> getAllRoutines() {
-        MutableLiveData<Resource<List<Routine>>> result = new MutableLiveData<>();
-        result.setValue(Resource.loading(null));
-
-        executor.execute(() -> {
-            try {
-                Task<List<Routine>> task = routineRepository.getUserRoutines();
-                List<Routine> routines = Tasks.await(task);
-
-                if (routines != null) {
-                    result.postValue(Resource.success(routines));
-                } else {
-                    result.postValue(Resource.success(new ArrayList<>()));
-                }
-            } catch (Exception e) {
-                result.postValue(Resource.error("Failed to load routines: " + e.getMessage(), null));
-            }
-        });
-
-        return result;
+        return routineRepository.observeUserRoutines();
     }
 
     /**
      * Sort routines alphabetically by name
      */
-    @RequiresApi(api = Build.VERSION_CODES.N)
     public void sortRoutinesAlphabetically() {
-        Resource<List<Routine>> current = userRoutines.getValue();
-
-        if (current != null && current.getStatus() == Resource.Status.SUCCESS && current.data != null) {
-            List<Routine> sortedList = new ArrayList<>(current.data);
-            sortedList.sort(Comparator.comparing(Routine::getName));
-            userRoutines.setValue(Resource.success(sortedList));
-        }
+        sortOrder = RoutineStore.BY_NAME;
+        republishUserRoutines();
     }
 
     /**
      * Sort routines by creation date
      */
     public void sortRoutinesByDate() {
-        Resource<List<Routine>> current = userRoutines.getValue();
-
-        if (current != null && current.getStatus() == Resource.Status.SUCCESS && current.data != null) {
-            List<Routine> sortedList = new ArrayList<>(current.data);
-            Collections.sort(sortedList, (r1, r2) -> {
-                if (r1.getCreatedAt() == null && r2.getCreatedAt() == null) return 0;
-                if (r1.getCreatedAt() == null) return 1;
-                if (r2.getCreatedAt() == null) return -1;
-                return r2.getCreatedAt().compareTo(r1.getCreatedAt()); // Newest first
-            });
-            userRoutines.setValue(Resource.success(sortedList));
-        }
+        sortOrder = RoutineStore.NEWEST_FIRST;
+        republishUserRoutines();
     }
 
     /**
      * Filter routines by muscle group
+     * @param muscleGroupId Muscle group ID, or null to clear the filter
      */
     public void filterRoutinesByMuscleGroup(String muscleGroupId) {
-        if (muscleGroupId == null) {
-            // If null, reload all routines
-            loadUserRoutines();
-            return;
-        }
-
-        userRoutines.setValue(Resource.loading(null));
-
-        executor.execute(() -> {
-            try {
-                Task<List<Routine>> task = routineRepository.getRoutinesByMuscleGroup(muscleGroupId);
-                List<Routine> routines = Tasks.await(task);
-
-                if (routines != null) {
-                    userRoutines.postValue(Resource.success(routines));
-                } else {
-                    userRoutines.postValue(Resource.success(new ArrayList<>()));
-                }
-            } catch (Exception e) {
-                userRoutines.postValue(Resource.error("Failed to load routines: " + e.getMessage(), null));
-            }
-        });
+        muscleGroupFilter = muscleGroupId;
+        republishUserRoutines();
     }
 
     /**
@@ -239,13 +188,8 @@ public class RoutineViewModel extends ViewModel {
                 String routineId = Tasks.await(task);
                 routine.setId(routineId);
 
+                // The snapshot listener delivers the new routine to the list
                 result.postValue(Resource.success(routine));
-
-                // Refresh routines list if needed
-                Resource<List<Routine>> currentRoutines = userRoutines.getValue();
-                if (currentRoutines != null && currentRoutines.getStatus() == Resource.Status.SUCCESS) {
-                    loadUserRoutines();
-                }
             } catch (Exception e) {
                 result.postValue(Resource.error("Error creating routine: " + e.getMessage(), null));
             }
@@ -269,9 +213,6 @@ public class RoutineViewModel extends ViewModel {
                 Tasks.await(task);
 
                 result.postValue(Resource.success(null));
-
-                // Refresh routines list
-                loadUserRoutines();
             } catch (Exception e) {
                 result.postValue(Resource.error("Error deleting routine: " + e.getMessage(), null));
             }
@@ -365,83 +306,47 @@ public class RoutineViewModel extends ViewModel {
     }
 
     /**
-     * Refresh user routines list
+     * Refresh user routines list.
+     * The listener keeps the list current, so this only re-attaches it after an error or a user change.
      */
     public void refreshRoutines() {
-        loadUserRoutines();
+        routineRepository.observeUserRoutines();
     }
 
     /**
-     * Get favorite routines
+     * Get favorite routines, served from the shared routine store
      * @return LiveData containing favorite routines
      */
     public LiveData<Resource<List<Routine>>> getFavoriteRoutines() {
-        MutableLiveData<Resource<List<Routine>>> result = new MutableLiveData<>();
-        result.setValue(Resource.loading(null));
-
-        executor.execute(() -> {
-            try {
-                Task<List<Routine>> task = routineRepository.getUserRoutines();
-                List<Routine> allRoutines = Tasks.await(task);
-
-                List<Routine> favoriteRoutines = new ArrayList<>();
-                if (allRoutines != null) {
-                    // Just take the first 5 routines for this implementation
-                    // In a real app, you'd have a way to mark favorites
-                    int count = 0;
-                    for (Routine routine : allRoutines) {
-                        favoriteRoutines.add(routine);
-                        count++;
-                        if (count >= 5) break;
-                    }
-                }
-
-                result.postValue(Resource.success(favoriteRoutines));
-            } catch (Exception e) {
-                result.postValue(Resource.error("Failed to load favorite routines: " + e.getMessage(), null));
+        return Transformations.map(routineRepository.observeUserRoutines(), resource -> {
+            if (resource == null || resource.getStatus() != Resource.Status.SUCCESS || resource.data == null) {
+                return resource;
             }
+            // Just take the most recent routines until routines can be marked as favorites
+            List<Routine> routines = resource.data;
+            return Resource.success(new ArrayList<>(
+                    routines.subList(0, Math.min(FAVORITE_ROUTINES_LIMIT, routines.size()))));
         });
-
-        return result;
     }
 
     /**
-     * Get routines by difficulty level
+     * Get routines by difficulty level, served from the shared routine store
      * @param difficulty Difficulty level to filter by
      * @return LiveData containing routines of the specified difficulty
      */
     public LiveData<Resource<List<Routine>>> getRoutinesByDifficulty(String difficulty) {
-        MutableLiveData<Resource<List<Routine>>> result = new MutableLiveData<>();
-        result.setValue(Resource.loading(null));
-
-        executor.execute(() -> {
-            try {
-                // Fetch all routines and filter by difficulty
-                Task<List<Routine>> task = routineRepository.getUserRoutines();
-                List<Routine> allRoutines = Tasks.await(task);
-
-                List<Routine> filteredRoutines = new ArrayList<>();
-                if (allRoutines != null) {
-                    for (Routine routine : allRoutines) {
-                        if (difficulty.equals(routine.getDifficulty())) {
-                            filteredRoutines.add(routine);
-                        }
-                    }
-                }
-
-                result.postValue(Resource.success(filteredRoutines));
-            } catch (Exception e) {
-                result.postValue(Resource.error("Failed to load routines by difficulty: " + e.getMessage(), null));
+        return Transformations.map(routineRepository.observeUserRoutines(), resource -> {
+            if (resource == null || resource.getStatus() != Resource.Status.SUCCESS || resource.data == null) {
+                return resource;
             }
+            return Resource.success(RoutineStore.filterByDifficulty(resource.data, difficulty));
         });
-
-        return result;
     }
 
     /**
      * Toggle favorite status of a routine
      * @param routineId ID of the routine to toggle favorite status
-     * @return LiveData containing the result
+     * @return LiveData containing true if the routine is saved after the toggle
      */
     public LiveData<Resource<Boolean>> toggleRoutineFavorite(String routineId) {
         MutableLiveData<Resource<Boolean>> result = new MutableLiveData<>();
@@ -449,13 +354,13 @@ public class RoutineViewModel extends ViewModel {
 
         executor.execute(() -> {
             try {
-                Task<Void> task = userRepository.addRoutineToUser(routineId);
+                boolean saved = Tasks.await(userRepository.isRoutineSaved(routineId));
+                Task<Void> task = saved
+                        ? userRepository.removeRoutineFromUser(routineId)
+                        : userRepository.addRoutineToUser(routineId);
                 Tasks.await(task);
 
-                result.postValue(Resource.success(true));
-
-                // Refresh routines list
-                loadUserRoutines();
+                result.postValue(Resource.success(!saved));
             } catch (Exception e) {
                 result.postValue(Resource.error("Error toggling favorite status: " + e.getMessage(), null));
             }
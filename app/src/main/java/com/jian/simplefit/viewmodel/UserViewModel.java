@@ -9,34 +9,43 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.Transformations;
 
+import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.auth.FirebaseUser;
+import com.jian.simplefit.data.local.WeightHistoryRepository;
+import com.jian.simplefit.data.local.entity.WeightPoint;
 import com.jian.simplefit.data.model.User;
 import com.jian.simplefit.data.model.Workout;
 import com.jian.simplefit.data.model.WorkoutExercise;
 import com.jian.simplefit.data.model.WorkoutSet;
 import com.jian.simplefit.data.model.WorkoutStatistics;
 import com.jian.simplefit.data.remote.AuthRepository;
+import com.jian.simplefit.data.remote.RoutineStore;
 import com.jian.simplefit.data.remote.UserRepository;
 import com.jian.simplefit.data.remote.WorkoutRepository;
 import com.jian.simplefit.data.model.Resource;
+import com.jian.simplefit.util.AppExecutors;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 import javax.inject.Inject;
 
+import dagger.hilt.android.lifecycle.HiltViewModel;
+
 /**
  * ViewModel for user profile related operations
  */
+@HiltViewModel
 public class UserViewModel extends AndroidViewModel {
 
     private final UserRepository userRepository;
     private final AuthRepository authRepository;
     private final WorkoutRepository workoutRepository;
+    private final WeightHistoryRepository weightHistoryRepository;
+    private final RoutineStore routineStore;
     private final Executor executor;
 
     private LiveData<Resource<User>> currentUserLiveData;
@@ -46,14 +55,20 @@ public class UserViewModel extends AndroidViewModel {
      * Constructor for UserViewModel
      * @param application Application context
      */
-    public UserViewModel(@NonNull Application application) {
+    @Inject
+    public UserViewModel(@NonNull Application application, UserRepository userRepository,
+                         AuthRepository authRepository, WorkoutRepository workoutRepository,
+                         WeightHistoryRepository weightHistoryRepository, RoutineStore routineStore,
+                         AppExecutors executors) {
         super(application);
 
-        // Initialize repositories
-        this.userRepository = new UserRepository();
-        this.authRepository = new AuthRepository();
-        this.workoutRepository = new WorkoutRepository(authRepository); // Fixed: Pass authRepository
-        this.executor = Executors.newSingleThreadExecutor();
+        this.userRepository = userRepository;
+        this.authRepository = authRepository;
+        this.workoutRepository = workoutRepository;
+        this.weightHistoryRepository = weightHistoryRepository;
+        this.routineStore = routineStore;
+        // Tasks of one ViewModel stay ordered but share the app-wide I/O threads
+        this.executor = AppExecutors.serial(executors.io());
 
         // Set the current user ID if user is logged in
         if (authRepository.getCurrentUserId() != null && !authRepository.getCurrentUserId().isEmpty()) {
@@ -247,6 +262,8 @@ public class UserViewModel extends AndroidViewModel {
         executor.execute(() -> {
             try {
                 Tasks.await(userRepository.saveUserProfile(user));
+                // Keep the weight time series in sync with the profile weight
+                weightHistoryRepository.addEntry(authRepository.getCurrentUserId(), (float) user.getWeight());
                 result.postValue(Resource.success(null));
             } catch (Exception e) {
                 result.postValue(Resource.error("Error saving user profile: " + e.getMessage(), null));
@@ -282,6 +299,16 @@ public class UserViewModel extends AndroidViewModel {
         return result;
     }
 
+    /**
+     * Get the user's weight history for the profile chart, downsampled to at most maxPoints points
+     * @param maxPoints Maximum number of points to return
+     * @return LiveData containing chart points in ascending time order
+     */
+    public LiveData<List<WeightPoint>> getWeightChartPoints(int maxPoints) {
+        return weightHistoryRepository.getChartPoints(authRepository.getCurrentUserId(),
+                0, System.currentTimeMillis(), maxPoints);
+    }
+
     /**
      * Get workout statistics for the current user
      * @return LiveData containing the workout statistics
@@ -354,11 +381,26 @@ public class UserViewModel extends AndroidViewModel {
         return new WorkoutStatistics(totalWorkouts, totalMinutes, totalSets, totalWeight);
     }
 
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        // Don't leave favorite toggles waiting on the debounce window
+        userRepository.flushFavoriteChanges();
+    }
+
     /**
-     * Log out the current user
+     * Log out the current user.
+     * Pending favorite toggles are written under this user's credentials first, so callers must
+     * wait for the returned task before showing the login screen; otherwise a quick sign-in
+     * could be undone by the deferred sign-out.
+     * @return Task completing once the user has been signed out
      */
-    public void logout() {
-        authRepository.logout();
+    public Task<Void> logout() {
         userIdLiveData.setValue(null);
+        return userRepository.flushAndClearFavorites().continueWith(task -> {
+            routineStore.stopListening();
+            authRepository.logout();
+            return null;
+        });
     }
 }
@@ -1,20 +1,34 @@
 package com.jian.simplefit.viewmodel;
 
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
-import androidx.lifecycle.Observer;
+import androidx.lifecycle.SavedStateHandle;
 import androidx.lifecycle.ViewModel;
 
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
+import com.jian.simplefit.data.local.MuscleLoadRepository;
+import com.jian.simplefit.data.local.PersonalRecordRepository;
+import com.jian.simplefit.data.local.WorkoutHistoryRepository;
+import com.jian.simplefit.data.local.entity.WorkoutSetEntity;
+import com.jian.simplefit.data.local.entity.WorkoutWithExercises;
+import com.jian.simplefit.data.model.Exercise;
 import com.jian.simplefit.data.model.Resource;
 import com.jian.simplefit.data.model.Routine;
+import com.jian.simplefit.data.model.RoutineExercise;
 import com.jian.simplefit.data.model.Workout;
 import com.jian.simplefit.data.model.WorkoutExercise;
+import com.jian.simplefit.data.model.WorkoutProgress;
 import com.jian.simplefit.data.model.WorkoutSet;
 import com.jian.simplefit.data.remote.RoutineRepository;
 import com.jian.simplefit.data.remote.AuthRepository;
+import com.jian.simplefit.data.remote.ExerciseRepository;
 import com.jian.simplefit.data.remote.WorkoutRepository;
+import com.jian.simplefit.util.AppExecutors;
+import com.jian.simplefit.util.LiveDataBridge;
+import com.jian.simplefit.util.Tracer;
+import com.jian.simplefit.util.WorkoutTimer;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -22,23 +36,37 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CountDownLatch;
+import java.util.Set;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
+import dagger.hilt.android.lifecycle.HiltViewModel;
+
 /**
  * ViewModel for workout-related operations
  */
+@HiltViewModel
 public class WorkoutViewModel extends ViewModel {
 
+    // Number of past sessions used to prefill a new workout
+    private static final int PREFILL_SESSIONS = 1;
+
     private final WorkoutRepository workoutRepository;
     private final RoutineRepository routineRepository;
     private final AuthRepository authRepository;
+    private final PersonalRecordRepository personalRecordRepository;
+    private final WorkoutHistoryRepository workoutHistoryRepository;
+    private final ExerciseRepository exerciseRepository;
+    private final MuscleLoadRepository muscleLoadRepository;
     private final Executor executor;
+    private final Tracer tracer = Tracer.getInstance();
+    private final WorkoutTimer timer;
 
+    private MediatorLiveData<Resource<Workout>> session;
+    private Workout sessionWorkout;
+    private WorkoutProgress progress;
     private MutableLiveData<Resource<Workout>> activeWorkout;
     private MutableLiveData<Resource<List<Workout>>> userWorkouts;
     private MutableLiveData<Integer> completedSetsCount = new MutableLiveData<>(0);
@@ -48,21 +76,28 @@ public class WorkoutViewModel extends ViewModel {
      * Constructor with repository injection
      */
     @Inject
-    public WorkoutViewModel(WorkoutRepository workoutRepository, RoutineRepository routineRepository, AuthRepository authRepository) {
+    public WorkoutViewModel(WorkoutRepository workoutRepository, RoutineRepository routineRepository,
+                            AuthRepository authRepository, PersonalRecordRepository personalRecordRepository,
+                            WorkoutHistoryRepository workoutHistoryRepository,
+                            ExerciseRepository exerciseRepository, MuscleLoadRepository muscleLoadRepository,
+                            SavedStateHandle savedStateHandle, AppExecutors executors) {
         this.workoutRepository = workoutRepository;
         this.routineRepository = routineRepository;
         this.authRepository = authRepository;
-        this.executor = Executors.newSingleThreadExecutor();
+        this.personalRecordRepository = personalRecordRepository;
+        this.workoutHistoryRepository = workoutHistoryRepository;
+        this.exerciseRepository = exerciseRepository;
+        this.muscleLoadRepository = muscleLoadRepository;
+        // Tasks of one ViewModel stay ordered but share the app-wide I/O threads
+        this.executor = AppExecutors.serial(executors.io());
+        this.timer = new WorkoutTimer(savedStateHandle);
     }
 
     /**
-     * Default constructor for when injection isn't available
+     * Workout clock and rest countdown of the current session
      */
-    public WorkoutViewModel() {
-        this.authRepository = new AuthRepository();
-        this.workoutRepository = new WorkoutRepository(authRepository);
-        this.routineRepository = new RoutineRepository();
-        this.executor = Executors.newSingleThreadExecutor();
+    public WorkoutTimer getTimer() {
+        return timer;
     }
 
     /**
@@ -77,79 +112,16 @@ public class WorkoutViewModel extends ViewModel {
      * @return LiveData containing the most recent workout
      */
     public LiveData<Resource<Workout>> getLastWorkout() {
-        MutableLiveData<Resource<Workout>> result = new MutableLiveData<>();
-        result.setValue(Resource.loading(null));
-
-        executor.execute(() -> {
-            try {
-                String userId = authRepository.getCurrentUserId();
-                if (userId == null || userId.isEmpty()) {
-                    result.postValue(Resource.error("User not logged in", null));
-                    return;
-                }
-
-                LiveData<Resource<List<Workout>>> workoutsLiveData = workoutRepository.getUserWorkouts();
-                Resource<List<Workout>> workoutsResource = getResourceValueBlocking(workoutsLiveData);
-
-                if (workoutsResource.isSuccess() && workoutsResource.data != null && !workoutsResource.data.isEmpty()) {
-                    List<Workout> workouts = workoutsResource.data;
-
-                    // Sort by date in descending order
-                    Collections.sort(workouts, (w1, w2) -> {
-                        if (w1.getDate() == null || w2.getDate() == null) {
-                            return 0;
-                        }
-                        return w2.getDate().compareTo(w1.getDate());
-                    });
-
-                    // Return the most recent workout
-                    result.postValue(Resource.success(workouts.get(0)));
-                } else if (workoutsResource.isError()) {
-                    result.postValue(Resource.error("Failed to get last workout: " + workoutsResource.message, null));
-                } else {
-                    result.postValue(Resource.success(null));
-                }
-            } catch (Exception e) {
-                result.postValue(Resource.error("Error loading last workout: " + e.getMessage(), null));
-            }
-        });
-
-        return result;
+        // A limit(1) query instead of downloading the whole history to pick the newest
+        return workoutRepository.getLastWorkout();
     }
 
     /**
-     * Helper method to get a Resource value synchronously from a LiveData
+     * Helper method to get a Resource value synchronously from a LiveData.
+     * Call from a background thread; the observer is always removed.
      */
     private <T> Resource<T> getResourceValueBlocking(LiveData<Resource<T>> liveData) {
-        final Resource<T>[] result = new Resource[1];
-        final CountDownLatch latch = new CountDownLatch(1);
-
-        Observer<Resource<T>> observer = new Observer<Resource<T>>() {
-            @Override
-            public void onChanged(Resource<T> resource) {
-                if (resource != null && (resource.isSuccess() || resource.isError())) {
-                    result[0] = resource;
-                    latch.countDown();
-                    liveData.removeObserver(this);
-                }
-            }
-        };
-
-        liveData.observeForever(observer);
-
-        try {
-            // Wait for result with timeout
-            if (!latch.await(5, TimeUnit.SECONDS)) {
-                liveData.removeObserver(observer);
-                return Resource.error("Timeout waiting for data", null);
-            }
-        } catch (InterruptedException e) {
-            liveData.removeObserver(observer);
-            Thread.currentThread().interrupt();
-            return Resource.error("Interrupted while waiting for data", null);
-        }
-
-        return result[0] != null ? result[0] : Resource.error("No data received", null);
+        return LiveDataBridge.await(liveData, 5, TimeUnit.SECONDS);
     }
 
     /**
@@ -160,13 +132,39 @@ public class WorkoutViewModel extends ViewModel {
     }
 
     /**
-     * Start a new workout from a routine
+     * Start a new workout from a routine.
+     * Returns the running session instead after a configuration change, and reloads the
+     * timed workout after process death, so the screen never creates a second workout.
      */
     public LiveData<Resource<Workout>> startWorkout(String routineId) {
+        if (session != null) {
+            return session;
+        }
+        MediatorLiveData<Resource<Workout>> result = new MediatorLiveData<>();
+        session = result;
+
+        String restoredWorkoutId = timer.getSessionWorkoutId();
+        LiveData<Resource<Workout>> source = restoredWorkoutId != null
+                ? workoutRepository.getWorkout(restoredWorkoutId)
+                : createWorkoutFromRoutine(routineId);
+        result.addSource(source, resource -> {
+            if (resource != null && resource.isSuccess() && resource.data != null) {
+                beginSession(resource.data);
+            }
+            result.setValue(resource);
+        });
+        return result;
+    }
+
+    /**
+     * Create a workout from a routine, prefilled from the last session
+     */
+    private LiveData<Resource<Workout>> createWorkoutFromRoutine(String routineId) {
         MutableLiveData<Resource<Workout>> result = new MutableLiveData<>();
         result.setValue(Resource.loading(null));
 
         executor.execute(() -> {
+            tracer.begin("vm.workout.startWorkout");
             try {
                 Task<Routine> getRoutineTask = routineRepository.getRoutineById(routineId);
                 Routine routine = Tasks.await(getRoutineTask);
@@ -186,32 +184,78 @@ public class WorkoutViewModel extends ViewModel {
 
                 // Create workout exercises from routine exercises
                 List<WorkoutExercise> workoutExercises = new ArrayList<>();
+                List<String> exerciseIds = new ArrayList<>();
                 if (routine.getExercises() != null) {
-                    // Add your exercise creation logic here
+                    for (RoutineExercise routineExercise : routine.getExercises()) {
+                        if (routineExercise == null || routineExercise.getExerciseId() == null) {
+                            continue;
+                        }
+                        workoutExercises.add(new WorkoutExercise(routineExercise));
+                        exerciseIds.add(routineExercise.getExerciseId());
+                    }
+                    Collections.sort(workoutExercises, (e1, e2) -> Integer.compare(e1.getOrder(), e2.getOrder()));
+                }
+
+                // Prefill weight and reps from last time with a single local query
+                Map<String, List<WorkoutSetEntity>> recentSets = workoutHistoryRepository.getRecentSetsSync(
+                        authRepository.getCurrentUserId(), exerciseIds, PREFILL_SESSIONS);
+                for (WorkoutExercise workoutExercise : workoutExercises) {
+                    WorkoutHistoryRepository.prefillFromHistory(workoutExercise,
+                            recentSets.get(workoutExercise.getExerciseId()));
                 }
 
                 // Set the exercises list in the workout
                 workout.setExercises(workoutExercises);
 
-                // Create the workout and handle LiveData response
-                LiveData<Resource<String>> createWorkoutLiveData = workoutRepository.createWorkout(workout);
-                Resource<String> createResource = getResourceValueBlocking(createWorkoutLiveData);
-
-                if (createResource.isSuccess() && createResource.data != null) {
-                    workout.setId(createResource.data);
-                    result.postValue(Resource.success(workout));
-                } else {
+                // The ID is assigned locally; the session can start before the write is acknowledged
+                Task<Void> createTask = workoutRepository.createWorkout(workout);
+                if (createTask.isComplete() && !createTask.isSuccessful()) {
                     result.postValue(Resource.error("Failed to create workout: " +
-                            (createResource.message != null ? createResource.message : "unknown error"), null));
+                            (createTask.getException() != null ? createTask.getException().getMessage() : "unknown error"), null));
+                    return;
                 }
+
+                workoutHistoryRepository.saveWorkout(workout);
+                result.postValue(Resource.success(workout));
             } catch (Exception e) {
                 result.postValue(Resource.error("Error creating workout: " + e.getMessage(), null));
+            } finally {
+                tracer.end();
             }
         });
 
         return result;
     }
 
+    /**
+     * Track progress of the workout this screen is recording; scans its sets once
+     */
+    private void beginSession(Workout workout) {
+        sessionWorkout = workout;
+        progress = WorkoutProgress.from(workout);
+        completedSetsCount.setValue(progress.getCompletedSets());
+        totalSetsCount.setValue(progress.getTotalSets());
+    }
+
+    /**
+     * Progress of the current session
+     * @return Running totals, or null before the session has loaded
+     */
+    public WorkoutProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Apply a set change to the session totals in O(1)
+     * @param exerciseIndex Position of the set's exercise in the workout
+     * @param set The set that was completed, un-completed or edited
+     */
+    public void onSetChanged(int exerciseIndex, WorkoutSet set) {
+        if (progress != null && progress.onSetChanged(exerciseIndex, set)) {
+            completedSetsCount.setValue(progress.getCompletedSets());
+        }
+    }
+
     /**
      * Get the active workout
      */
@@ -250,9 +294,6 @@ public class WorkoutViewModel extends ViewModel {
                         }
                     }
 
-                    if (active != null) {
-                        updateSetsCounts(active);
-                    }
                     activeWorkout.postValue(Resource.success(active));
                 } else {
                     activeWorkout.postValue(Resource.error("Failed to get active workout: " +
@@ -264,31 +305,6 @@ public class WorkoutViewModel extends ViewModel {
         });
     }
 
-    /**
-     * Update sets counts from workout data
-     */
-    private void updateSetsCounts(Workout workout) {
-        if (workout == null || workout.getExercises() == null)
-            return;
-
-        int completed = 0;
-        int total = 0;
-
-        for (WorkoutExercise exercise : workout.getExercises()) {
-            if (exercise.getSets() != null) {
-                for (WorkoutSet set : exercise.getSets()) {
-                    total++;
-                    if (set.isCompleted()) {
-                        completed++;
-                    }
-                }
-            }
-        }
-
-        completedSetsCount.postValue(completed);
-        totalSetsCount.postValue(total);
-    }
-
     /**
      * Save workout progress
      */
@@ -307,6 +323,7 @@ public class WorkoutViewModel extends ViewModel {
                 Tasks.await(updateTask);
 
                 if (updateTask.isSuccessful()) {
+                    workoutHistoryRepository.saveWorkout(workout);
                     result.postValue(Resource.success(workout));
                 } else {
                     result.postValue(Resource.error("Error saving workout: " +
@@ -330,59 +347,64 @@ public class WorkoutViewModel extends ViewModel {
         MutableLiveData<Resource<Workout>> result = new MutableLiveData<>();
         result.setValue(Resource.loading(null));
 
+        // The running session already holds the workout and its totals, no download needed
+        Workout current = sessionWorkout != null && workoutId.equals(sessionWorkout.getId())
+                ? sessionWorkout : null;
+        if (current != null) {
+            progress.applyTo(current);
+        }
+
         executor.execute(() -> {
+            tracer.begin("vm.workout.completeWorkout");
             try {
-                // Find the workout in the user's workouts
-                LiveData<Resource<List<Workout>>> workoutsLiveData = workoutRepository.getUserWorkouts();
-                Resource<List<Workout>> workoutsResource = getResourceValueBlocking(workoutsLiveData);
+                Workout workout = current;
+                if (workout == null) {
+                    // Find the workout in the user's workouts
+                    LiveData<Resource<List<Workout>>> workoutsLiveData = workoutRepository.getUserWorkouts();
+                    Resource<List<Workout>> workoutsResource = getResourceValueBlocking(workoutsLiveData);
+
+                    if (!workoutsResource.isSuccess() || workoutsResource.data == null) {
+                        result.postValue(Resource.error("Failed to get workouts: " +
+                                (workoutsResource.message != null ? workoutsResource.message : "unknown error"), null));
+                        return;
+                    }
 
-                if (!workoutsResource.isSuccess() || workoutsResource.data == null) {
-                    result.postValue(Resource.error("Failed to get workouts: " +
-                            (workoutsResource.message != null ? workoutsResource.message : "unknown error"), null));
-                    return;
-                }
+                    for (Workout w : workoutsResource.data) {
+                        if (workoutId.equals(w.getId())) {
+                            workout = w;
+                            break;
+                        }
+                    }
 
-                Workout workout = null;
-                for (Workout w : workoutsResource.data) {
-                    if (workoutId.equals(w.getId())) {
-                        workout = w;
-                        break;
+                    if (workout == null) {
+                        result.postValue(Resource.error("Workout not found", null));
+                        return;
                     }
-                }
 
-                if (workout == null) {
-                    result.postValue(Resource.error("Workout not found", null));
-                    return;
+                    // Calculate totals
+                    WorkoutProgress.from(workout).applyTo(workout);
                 }
 
                 // Update workout data
                 workout.setCompleted(true);
                 workout.setDurationMinutes(durationMinutes);
 
-                // Calculate totals
-                int totalReps = 0;
-                int totalVolume = 0;
+                // Add the workout to the per-muscle 7/28-day load through primary and secondary muscles
+                List<String> exerciseIds = new ArrayList<>();
                 if (workout.getExercises() != null) {
                     for (WorkoutExercise exercise : workout.getExercises()) {
-                        if (exercise.getSets() != null) {
-                            for (WorkoutSet set : exercise.getSets()) {
-                                if (set.isCompleted()) {
-                                    totalReps += set.getReps();
-                                    totalVolume += (int) (set.getWeight() * set.getReps());
-                                }
-                            }
-                        }
+                        exerciseIds.add(exercise.getExerciseId());
                     }
                 }
-
-                workout.setTotalReps(totalReps);
-                workout.setTotalVolume(totalVolume);
+                Map<String, Exercise> exercises = exerciseRepository.getExercisesByIdsSync(exerciseIds);
+                workout.setMuscleGroupsWorked(muscleLoadRepository.recordWorkout(workout, exercises));
 
                 // Save the completed workout
                 Task<Void> updateTask = workoutRepository.updateWorkout(workout);
                 Tasks.await(updateTask);
 
                 if (updateTask.isSuccessful()) {
+                    workoutHistoryRepository.saveWorkout(workout);
                     result.postValue(Resource.success(workout));
                 } else {
                     result.postValue(Resource.error("Error completing workout: " +
@@ -390,12 +412,44 @@ public class WorkoutViewModel extends ViewModel {
                 }
             } catch (Exception e) {
                 result.postValue(Resource.error("Error completing workout: " + e.getMessage(), null));
+            } finally {
+                tracer.end();
             }
         });
 
         return result;
     }
 
+    /**
+     * Update personal records with a freshly completed set
+     * @param workout The active workout
+     * @param exercise The exercise the set belongs to
+     * @param set The completed set
+     * @return LiveData containing PersonalRecordEntity.RECORD_* flags, 0 if no new record
+     */
+    public LiveData<Integer> recordCompletedSet(Workout workout, WorkoutExercise exercise, WorkoutSet set) {
+        return personalRecordRepository.recordCompletedSet(
+                workout != null ? workout.getId() : null, exercise, set);
+    }
+
+    /**
+     * Recompute an exercise's personal records after a completed set was unchecked or edited
+     * @param workout The active workout
+     * @param exercise The exercise the set belongs to, with its current sets
+     */
+    public void recalculateRecords(Workout workout, WorkoutExercise exercise) {
+        personalRecordRepository.recalculateRecords(workout != null ? workout.getId() : null, exercise);
+    }
+
+    /**
+     * Get the exercises that set a personal record in a workout
+     * @param workoutId ID of the workout
+     * @return LiveData containing the set of exercise IDs
+     */
+    public LiveData<Set<String>> getNewRecordExerciseIds(String workoutId) {
+        return personalRecordRepository.getExerciseIdsWithRecordsInWorkout(workoutId);
+    }
+
     /**
      * Get user workouts
      */
@@ -414,6 +468,7 @@ public class WorkoutViewModel extends ViewModel {
         userWorkouts.setValue(Resource.loading(null));
 
         executor.execute(() -> {
+            tracer.begin("vm.workout.loadUserWorkouts");
             try {
                 String userId = authRepository.getCurrentUserId();
                 if (userId == null || userId.isEmpty()) {
@@ -430,6 +485,8 @@ public class WorkoutViewModel extends ViewModel {
 
             } catch (Exception e) {
                 userWorkouts.postValue(Resource.error("Error loading workouts: " + e.getMessage(), null));
+            } finally {
+                tracer.end();
             }
         });
     }
@@ -474,6 +531,15 @@ public class WorkoutViewModel extends ViewModel {
         return result;
     }
 
+    /**
+     * Index the sets of a workout by exercise for summary rendering
+     * @param workout Loaded workout
+     * @return Workout relation whose totals and per-exercise stats are read in linear time
+     */
+    public WorkoutWithExercises indexWorkoutSets(Workout workout) {
+        return WorkoutHistoryRepository.toWorkoutWithExercises(workout);
+    }
+
     /**
      * Delete a workout
      */
@@ -487,6 +553,9 @@ public class WorkoutViewModel extends ViewModel {
                 Tasks.await(deleteTask);
 
                 if (deleteTask.isSuccessful()) {
+                    // Records set in this workout must not outlive it; read its exercises before the local copy goes
+                    personalRecordRepository.removeWorkoutRecordsSync(workoutId);
+                    workoutHistoryRepository.deleteWorkoutSync(workoutId);
                     result.postValue(Resource.success(null));
                 } else {
                     result.postValue(Resource.error("Error deleting workout: " +
@@ -535,4 +604,10 @@ public class WorkoutViewModel extends ViewModel {
 
         return result;
     }
-}
\ No newline at end of file
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        timer.release();
+    }
+}
@@ -0,0 +1,280 @@
+package com.jian.simplefit.util;
+
+import androidx.arch.core.executor.ArchTaskExecutor;
+import androidx.arch.core.executor.TaskExecutor;
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+
+import com.jian.simplefit.data.local.MuscleLoadRepository;
+import com.jian.simplefit.data.local.PersonalRecordRepository;
+import com.jian.simplefit.data.model.Exercise;
+import com.jian.simplefit.data.model.Resource;
+import com.jian.simplefit.data.remote.ExerciseRepository;
+import com.jian.simplefit.viewmodel.ExerciseViewModel;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Leak tests for {@link LiveDataBridge}: every source observer must be gone once a result is
+ * delivered, once the UI stops observing, or once a blocking wait returns or times out.
+ */
+public class LiveDataBridgeTest {
+
+    private static final int CYCLES = 100;
+
+    // Every thread counts as the main thread and posted work runs inline
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private ExecutorService mainThread;
+
+    @After
+    public void tearDown() {
+        if (mainThread != null) {
+            mainThread.shutdownNow();
+        }
+    }
+
+    @Test
+    public void sourceIsDetachedAfterSuccess() {
+        CountingLiveData<List<String>> source = new CountingLiveData<>();
+        MediatorLiveData<Resource<List<String>>> mediator = new MediatorLiveData<>();
+        List<Resource<List<String>>> received = new ArrayList<>();
+        LiveDataBridge.addSourceUntilDone(mediator, source, received::add);
+        Observer<Resource<List<String>>> ui = resource -> { };
+        mediator.observeForever(ui);
+
+        source.setValue(Resource.loading(null));
+        assertEquals(1, source.getObserverCount());
+
+        source.setValue(Resource.success(Arrays.asList("a", "b")));
+        assertEquals(0, source.getObserverCount());
+        assertEquals(2, received.size());
+        assertTrue(received.get(1).isSuccess());
+
+        // Later values no longer reach the mediator
+        source.setValue(Resource.success(Collections.<String>emptyList()));
+        assertEquals(2, received.size());
+        mediator.removeObserver(ui);
+    }
+
+    @Test
+    public void sourceIsDetachedAfterError() {
+        CountingLiveData<List<String>> source = new CountingLiveData<>();
+        MediatorLiveData<Resource<List<String>>> mediator = new MediatorLiveData<>();
+        List<Resource<List<String>>> received = new ArrayList<>();
+        LiveDataBridge.addSourceUntilDone(mediator, source, received::add);
+        mediator.observeForever(resource -> { });
+
+        source.setValue(Resource.error("offline", null));
+
+        assertEquals(0, source.getObserverCount());
+        assertEquals(1, received.size());
+        assertTrue(received.get(0).isError());
+    }
+
+    @Test
+    public void completedSourceIsDetachedWhenObservationStarts() {
+        CountingLiveData<List<String>> source = new CountingLiveData<>();
+        source.setValue(Resource.success(Collections.singletonList("a")));
+        MediatorLiveData<Resource<List<String>>> mediator = new MediatorLiveData<>();
+        LiveDataBridge.addSourceUntilDone(mediator, source, resource -> mediator.setValue(resource));
+
+        mediator.observeForever(resource -> { });
+
+        assertEquals(0, source.getObserverCount());
+        assertTrue(mediator.getValue().isSuccess());
+    }
+
+    @Test
+    public void unobservedMediatorDoesNotObserveSource() {
+        CountingLiveData<List<String>> source = new CountingLiveData<>();
+        MediatorLiveData<Resource<List<String>>> mediator = new MediatorLiveData<>();
+        LiveDataBridge.addSourceUntilDone(mediator, source, resource -> { });
+
+        assertEquals(0, source.getObserverCount());
+
+        Observer<Resource<List<String>>> ui = resource -> { };
+        mediator.observeForever(ui);
+        assertEquals(1, source.getObserverCount());
+        mediator.removeObserver(ui);
+        assertEquals(0, source.getObserverCount());
+    }
+
+    @Test
+    public void repeatedFilterAndSearchCyclesLeaveNoObservers() {
+        CountingLiveData<List<Exercise>> catalog = new CountingLiveData<>();
+        catalog.setValue(Resource.success(Arrays.asList(
+                exercise("Bench Press", "chest"), exercise("Squat", "legs"), exercise("Push Up", "chest"))));
+        // A search whose source never answers, e.g. the user leaves the screen while offline
+        CountingLiveData<List<Exercise>> pending = new CountingLiveData<>();
+        pending.setValue(Resource.loading(null));
+
+        ExerciseRepository repository = mock(ExerciseRepository.class);
+        ExerciseViewModel viewModel = new ExerciseViewModel(repository, mock(PersonalRecordRepository.class),
+                mock(MuscleLoadRepository.class), AppExecutors.direct(), MetricsRegistry.getInstance());
+
+        // Filters run on the ViewModel's sorted catalog, searches ask the repository every time
+        when(repository.getAllExercises()).thenReturn(catalog);
+        LiveData<Resource<List<Exercise>>> allExercises = viewModel.getAllExercises();
+        when(repository.getAllExercises()).thenReturn(pending);
+
+        int delivered = 0;
+        for (int i = 0; i < CYCLES; i++) {
+            // Distinct criteria and queries so the ViewModel cache never hands back an earlier result
+            LiveData<Resource<List<Exercise>>> filtered =
+                    viewModel.getFilteredExercises(Arrays.asList("chest", "group" + i), null, null, false);
+            Observer<Resource<List<Exercise>>> filterUi = resource -> { };
+            filtered.observeForever(filterUi);
+            if (filtered.getValue() != null && filtered.getValue().isSuccess()
+                    && filtered.getValue().data.size() == 2) {
+                delivered++;
+            }
+            filtered.removeObserver(filterUi);
+
+            LiveData<Resource<List<Exercise>>> searched = viewModel.searchExercises("press " + i);
+            Observer<Resource<List<Exercise>>> searchUi = resource -> { };
+            searched.observeForever(searchUi);
+            assertTrue(pending.hasObservers());
+            searched.removeObserver(searchUi);
+
+            assertFalse(catalog.hasObservers());
+            assertFalse(allExercises.hasObservers());
+            assertFalse(pending.hasObservers());
+        }
+
+        assertEquals(CYCLES, delivered);
+        assertEquals(1, catalog.getTotalObserved());
+        assertEquals(CYCLES, pending.getTotalObserved());
+        verify(repository, never()).buildSearchIndex();
+    }
+
+    @Test
+    public void awaitReturnsResultAndRemovesObserver() throws Exception {
+        useMainThread();
+        CountingLiveData<List<String>> source = new CountingLiveData<>();
+        mainThread.submit(() -> source.setValue(Resource.success(Collections.singletonList("a")))).get();
+
+        Resource<List<String>> result = LiveDataBridge.await(source, 1, TimeUnit.SECONDS);
+
+        assertTrue(result.isSuccess());
+        assertEquals(Collections.singletonList("a"), result.data);
+        drainMainThread();
+        assertEquals(0, source.getObserverCount());
+        assertEquals(1, source.getTotalObserved());
+    }
+
+    @Test
+    public void awaitTimeoutRemovesObserver() throws Exception {
+        useMainThread();
+        CountingLiveData<List<String>> source = new CountingLiveData<>();
+
+        for (int i = 0; i < 5; i++) {
+            Resource<List<String>> result = LiveDataBridge.await(source, 10, TimeUnit.MILLISECONDS);
+            assertTrue(result.isError());
+        }
+
+        drainMainThread();
+        assertEquals(0, source.getObserverCount());
+        assertEquals(5, source.getTotalObserved());
+    }
+
+    @Test
+    public void awaitOnMainThreadFails() {
+        CountingLiveData<List<String>> source = new CountingLiveData<>();
+        try {
+            LiveDataBridge.await(source, 10, TimeUnit.MILLISECONDS);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            assertEquals(0, source.getObserverCount());
+        }
+    }
+
+    private static Exercise exercise(String name, String muscleGroup) {
+        Exercise exercise = new Exercise();
+        exercise.setName(name);
+        exercise.setPrimaryMuscleGroup(muscleGroup);
+        return exercise;
+    }
+
+    /**
+     * Replace the inline executor with a single dedicated main thread, as on a device
+     */
+    private void useMainThread() throws Exception {
+        mainThread = Executors.newSingleThreadExecutor();
+        Thread main = mainThread.submit(Thread::currentThread).get();
+        ArchTaskExecutor.getInstance().setDelegate(new TaskExecutor() {
+            @Override
+            public void executeOnDiskIO(Runnable runnable) {
+                runnable.run();
+            }
+
+            @Override
+            public void postToMainThread(Runnable runnable) {
+                mainThread.execute(runnable);
+            }
+
+            @Override
+            public boolean isMainThread() {
+                return Thread.currentThread() == main;
+            }
+        });
+    }
+
+    private void drainMainThread() throws Exception {
+        mainThread.submit(() -> { }).get();
+    }
+
+    /**
+     * LiveData that counts the observers currently attached to it
+     */
+    private static class CountingLiveData<T> extends MutableLiveData<Resource<T>> {
+
+        private final Set<Observer<? super Resource<T>>> observers =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+        private int totalObserved;
+
+        @Override
+        public void observeForever(Observer<? super Resource<T>> observer) {
+            if (observers.add(observer)) {
+                totalObserved++;
+            }
+            super.observeForever(observer);
+        }
+
+        @Override
+        public void removeObserver(Observer<? super Resource<T>> observer) {
+            observers.remove(observer);
+            super.removeObserver(observer);
+        }
+
+        int getObserverCount() {
+            return observers.size();
+        }
+
+        int getTotalObserved() {
+            return totalObserved;
+        }
+    }
+}
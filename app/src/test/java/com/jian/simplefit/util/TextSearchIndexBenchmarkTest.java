@@ -0,0 +1,143 @@
+package com.jian.simplefit.util;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares {@link TextSearchIndex} with the linear lower-case scan it replaced, over the bundled
+ * exercise catalog and over a catalog replicated to a few thousand entries. Timings are printed
+ * rather than asserted so the test does not depend on the machine it runs on.
+ * The timed runs are skipped unless the build passes {@code -Pbenchmark}.
+ */
+public class TextSearchIndexBenchmarkTest {
+
+    private static final String CATALOG = "src/main/assets/exercise_data.json";
+    private static final Pattern ENTRY = Pattern.compile(
+            "\"name\"\\s*:\\s*\"([^\"]*)\"\\s*,\\s*\"description\"\\s*:\\s*\"([^\"]*)\"");
+    private static final String[] QUERIES = {
+            "bench", "Barbell Row", "curl", "pulldwn", "cơ bụng", "co bung", "press", "leg"
+    };
+    private static final int LIMIT = 30;
+    private static final int ROUNDS = 2000;
+    private static final int REPLICAS = 100;
+
+    private final List<String> names = new ArrayList<>();
+    private final List<String> descriptions = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        File file = new File(CATALOG);
+        if (!file.exists()) {
+            // Gradle runs unit tests from the module directory, IDEs sometimes from the root
+            file = new File("app", CATALOG);
+        }
+        String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        Matcher matcher = ENTRY.matcher(json);
+        while (matcher.find()) {
+            names.add(matcher.group(1));
+            descriptions.add(matcher.group(2));
+        }
+        assertFalse("No exercises in " + file, names.isEmpty());
+    }
+
+    @Test
+    public void bundledCatalog() {
+        assumeBenchmarkEnabled();
+        compare(1);
+    }
+
+    @Test
+    public void replicatedCatalog() {
+        assumeBenchmarkEnabled();
+        compare(REPLICAS);
+    }
+
+    @Test
+    public void indexFindsWhatTheScanFinds() {
+        TextSearchIndex<Integer> index = build(1);
+        for (String query : QUERIES) {
+            List<Integer> found = index.search(query, names.size());
+            for (int i : linearScan(query, 1)) {
+                assertTrue(query + " should find " + names.get(i), found.contains(i));
+            }
+        }
+    }
+
+    private static void assumeBenchmarkEnabled() {
+        Assume.assumeTrue("Benchmark disabled, run with -Pbenchmark", Boolean.getBoolean("benchmark"));
+    }
+
+    private void compare(int replicas) {
+        long buildStart = System.nanoTime();
+        TextSearchIndex<Integer> index = build(replicas);
+        long buildNanos = System.nanoTime() - buildStart;
+
+        // Warm up both paths before timing
+        int sink = run(index, replicas, ROUNDS / 4) + run(null, replicas, ROUNDS / 4);
+
+        long scanStart = System.nanoTime();
+        sink += run(null, replicas, ROUNDS);
+        long scanNanos = (System.nanoTime() - scanStart) / ((long) ROUNDS * QUERIES.length);
+
+        long indexStart = System.nanoTime();
+        sink += run(index, replicas, ROUNDS);
+        long indexNanos = (System.nanoTime() - indexStart) / ((long) ROUNDS * QUERIES.length);
+
+        System.out.println(String.format(Locale.ROOT,
+                "%d exercises: cold build %.2f ms, linear scan %d ns/query, trigram index %d ns/query (%d)",
+                index.size(), buildNanos / 1e6, scanNanos, indexNanos, sink));
+        assertTrue(sink > 0);
+    }
+
+    private int run(TextSearchIndex<Integer> index, int replicas, int rounds) {
+        int found = 0;
+        for (int round = 0; round < rounds; round++) {
+            for (String query : QUERIES) {
+                found += index != null
+                        ? index.search(query, LIMIT).size()
+                        : linearScan(query, replicas).size();
+            }
+        }
+        return found;
+    }
+
+    private TextSearchIndex<Integer> build(int replicas) {
+        TextSearchIndex.Builder<Integer> builder = new TextSearchIndex.Builder<>();
+        for (int r = 0; r < replicas; r++) {
+            for (int i = 0; i < names.size(); i++) {
+                builder.add(r * names.size() + i, names.get(i) + " " + r, descriptions.get(i));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * The search ExerciseRepository ran before the index: lower-case substring of every name
+     */
+    private List<Integer> linearScan(String query, int replicas) {
+        String lowerQuery = query.toLowerCase();
+        List<Integer> matches = new ArrayList<>();
+        for (int r = 0; r < replicas; r++) {
+            for (int i = 0; i < names.size(); i++) {
+                String name = names.get(i) + " " + r;
+                if (name.toLowerCase().contains(lowerQuery)) {
+                    matches.add(r * names.size() + i);
+                }
+            }
+        }
+        return matches;
+    }
+}
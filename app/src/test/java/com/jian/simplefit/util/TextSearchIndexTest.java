@@ -0,0 +1,92 @@
+package com.jian.simplefit.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link TextSearchIndex}: folding, typo tolerance and ranking.
+ */
+public class TextSearchIndexTest {
+
+    private TextSearchIndex<String> index;
+
+    @Before
+    public void setUp() {
+        index = new TextSearchIndex.Builder<String>()
+                .add("bench", "Đẩy ngực với tạ đòn", "Bài tập sức mạnh cho cơ ngực, vai trước và cơ tay sau")
+                .add("squat", "Gánh tạ (Squat)", "Bài tập toàn thân tập trung vào cơ đùi trước và mông")
+                .add("curl", "Cuốn tạ đơn", "Phát triển cơ bắp tay trước")
+                .add("fly", "Ép ngực với tạ đơn", "Kéo giãn và siết cơ ngực")
+                .add("plank", "Plank", null)
+                .build();
+    }
+
+    @Test
+    public void foldStripsDiacriticsCaseAndPunctuation() {
+        assertEquals("day nguc voi ta don", TextSearchIndex.fold("  Đẩy NGỰC với tạ đòn "));
+        assertEquals("ganh ta squat", TextSearchIndex.fold("Gánh tạ (Squat)"));
+        assertEquals("pull up", TextSearchIndex.fold("Pull-up"));
+        assertEquals("", TextSearchIndex.fold(null));
+        assertEquals("", TextSearchIndex.fold("--"));
+    }
+
+    @Test
+    public void queryWithoutAccentsMatchesAccentedName() {
+        List<String> result = index.search("day nguc", 3);
+
+        assertFalse(result.isEmpty());
+        assertEquals("bench", result.get(0));
+    }
+
+    @Test
+    public void queryWithTypoStillMatches() {
+        List<String> result = index.search("cuon ta dn", 3);
+
+        assertFalse(result.isEmpty());
+        assertEquals("curl", result.get(0));
+    }
+
+    @Test
+    public void prefixMatchRanksAboveSharedWords() {
+        // Both names contain "nguc voi ta", only one starts with "ep"
+        List<String> result = index.search("ép ngực", 5);
+
+        assertEquals("fly", result.get(0));
+        assertTrue(result.contains("bench"));
+    }
+
+    @Test
+    public void descriptionMatchIsFound() {
+        List<String> result = index.search("co dui truoc", 5);
+
+        assertEquals(1, result.size());
+        assertEquals("squat", result.get(0));
+    }
+
+    @Test
+    public void unrelatedQueryFindsNothing() {
+        assertTrue(index.search("xyzw", 5).isEmpty());
+    }
+
+    @Test
+    public void limitBoundsResults() {
+        assertEquals(1, index.search("ta", 1).size());
+        assertTrue(index.search("ta", 0).isEmpty());
+        assertTrue(index.search("ta", -1).isEmpty());
+        assertTrue(index.search("", -1).isEmpty());
+    }
+
+    @Test
+    public void blankQueryReturnsItemsInOrder() {
+        List<String> result = index.search("  ", 2);
+
+        assertEquals(2, result.size());
+        assertEquals("bench", result.get(0));
+        assertEquals("squat", result.get(1));
+        assertEquals(5, index.size());
+    }
+}
@@ -0,0 +1,173 @@
+package com.jian.simplefit.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link Tracer}: span nesting, ring buffer bounds and the Chrome JSON export.
+ */
+public class TracerTest {
+
+    private static final Pattern PHASE = Pattern.compile("\"ph\":\"([BEbe])\"");
+    private static final Pattern NAME = Pattern.compile("\"ph\":\"B\"[^}]*\"name\":\"([^\"]*)\"");
+
+    private Tracer tracer;
+
+    @Before
+    public void setUp() {
+        tracer = new Tracer(8);
+        tracer.setEnabled(true);
+    }
+
+    @Test
+    public void disabledTracerRecordsNothing() {
+        tracer.setEnabled(false);
+        tracer.begin("outer");
+        tracer.end();
+        assertEquals(0, tracer.beginAsync("query"));
+
+        assertEquals(0, tracer.size());
+    }
+
+    @Test
+    public void nestedSpansAreExportedInOrder() throws IOException {
+        tracer.begin("outer");
+        tracer.begin("inner");
+        tracer.end();
+        tracer.end();
+
+        String json = export();
+        assertEquals(listOf("B", "B", "E", "E"), phases(json));
+        assertEquals(listOf("outer", "inner"), beginNames(json));
+    }
+
+    @Test
+    public void spansOnDifferentThreadsNestIndependently() throws Exception {
+        tracer.begin("main");
+        Thread worker = new Thread(() -> {
+            tracer.begin("worker");
+            tracer.end();
+        }, "worker-thread");
+        worker.start();
+        worker.join();
+        tracer.end();
+
+        String json = export();
+        assertEquals(4, phases(json).size());
+        assertTrue(json.contains("\"args\":{\"name\":\"worker-thread\"}"));
+    }
+
+    @Test
+    public void bufferNeverGrowsBeyondCapacity() {
+        for (int i = 0; i < 1000; i++) {
+            tracer.begin("span");
+            tracer.end();
+        }
+
+        assertEquals(tracer.getCapacity(), tracer.size());
+    }
+
+    @Test
+    public void exportKeepsNewestEventsWhenWrapped() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            tracer.begin("old");
+            tracer.end();
+        }
+        for (int i = 0; i < 4; i++) {
+            tracer.begin("new");
+            tracer.end();
+        }
+
+        assertEquals(listOf("new", "new", "new", "new"), beginNames(export()));
+    }
+
+    @Test
+    public void endWithOverwrittenBeginIsDropped() throws IOException {
+        tracer.begin("outer");
+        // Fill the rest of the buffer so the outer begin is overwritten
+        for (int i = 0; i < 4; i++) {
+            tracer.begin("inner");
+            tracer.end();
+        }
+        tracer.end();
+
+        List<String> phases = phases(export());
+        int depth = 0;
+        for (String phase : phases) {
+            depth += phase.equals("B") ? 1 : -1;
+            assertTrue("end without matching begin", depth >= 0);
+        }
+        assertEquals(0, depth);
+    }
+
+    @Test
+    public void asyncSpanCanEndOnAnotherThread() throws Exception {
+        long id = tracer.beginAsync("firestore.query");
+        Thread listener = new Thread(() -> tracer.endAsync("firestore.query", id));
+        listener.start();
+        listener.join();
+
+        String json = export();
+        assertEquals(listOf("b", "e"), phases(json));
+        assertTrue(json.contains("\"id\":" + id));
+    }
+
+    @Test
+    public void namesAreEscaped() throws IOException {
+        tracer.begin("quote\"back\\slash");
+        tracer.end();
+
+        assertTrue(export().contains("quote\\\"back\\\\slash"));
+    }
+
+    @Test
+    public void clearDropsEvents() {
+        tracer.begin("span");
+        tracer.end();
+        tracer.clear();
+
+        assertEquals(0, tracer.size());
+    }
+
+    private String export() throws IOException {
+        StringWriter writer = new StringWriter();
+        tracer.writeChromeTrace(writer);
+        String json = writer.toString();
+        assertTrue(json.startsWith("{") && json.endsWith("]}"));
+        return json;
+    }
+
+    private static List<String> phases(String json) {
+        return matches(PHASE, json);
+    }
+
+    private static List<String> beginNames(String json) {
+        return matches(NAME, json);
+    }
+
+    private static List<String> matches(Pattern pattern, String json) {
+        List<String> result = new ArrayList<>();
+        Matcher matcher = pattern.matcher(json);
+        while (matcher.find()) {
+            result.add(matcher.group(1));
+        }
+        return result;
+    }
+
+    private static List<String> listOf(String... values) {
+        List<String> result = new ArrayList<>();
+        for (String value : values) {
+            result.add(value);
+        }
+        return result;
+    }
+}